@@ -0,0 +1,62 @@
+package warehouse;
+
+import warehouse.simulation.DepotPlacement;
+import warehouse.simulation.Scenario;
+import warehouse.simulation.ScenarioGenerator;
+import warehouse.tiles.EmptyTile;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Seeded layouts shared by the benchmarks.
+ *
+ * @remark Layouts are made by a ScenarioGenerator, with Racks in double rows of 10 separated by one-tile aisles, and
+ * no depots, Robots or arriving Items. The rack density is the fraction of rack slots that hold a Rack.
+ */
+public final class BenchmarkLayouts {
+    private BenchmarkLayouts() {
+    }
+
+    /**
+     * Make a Scenario with a square layout filled with Racks.
+     * @param size The width and height of the layout, in tiles.
+     * @param rackDensity The fraction of rack slots that hold a Rack, in the range [0, 1].
+     * @param rackCapacity The capacity of each Rack, or a negative number for infinite capacity.
+     * @param seed The seed of the placement of the Racks.
+     */
+    public static Scenario makeScenario(int size, double rackDensity, int rackCapacity, long seed) {
+        ScenarioGenerator generator = new ScenarioGenerator();
+        generator.setSize(size, size);
+        generator.setRackDensity(rackDensity);
+        generator.setRackCapacity(rackCapacity);
+        generator.setDepots(0, 0, DepotPlacement.ONE_SIDE);
+        generator.setRobotCount(0);
+        generator.setArrivalRate(0);
+        return generator.generate(seed);
+    }
+
+    /**
+     * Pick distinct empty tiles of a layout at random.
+     * @param layout The layout.
+     * @param count The number of tiles to pick.
+     * @param random The source of random numbers.
+     * @return The tile indices of the picked tiles, or of every empty tile if there are fewer than count.
+     */
+    public static int[] pickEmptyTiles(WarehouseLayout<?> layout, int count, Random random) {
+        List<Integer> empty = new ArrayList<>();
+        for (int i = 0; i < layout.getCoordinateSystem().getSize(); i++) {
+            if (layout.getTileAt(i) instanceof EmptyTile) {
+                empty.add(i);
+            }
+        }
+        Collections.shuffle(empty, random);
+        int[] tiles = new int[Math.min(count, empty.size())];
+        for (int i = 0; i < tiles.length; i++) {
+            tiles[i] = empty.get(i);
+        }
+        return tiles;
+    }
+}
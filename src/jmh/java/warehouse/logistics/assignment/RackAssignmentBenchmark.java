@@ -0,0 +1,76 @@
+package warehouse.logistics.assignment;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import warehouse.BenchmarkLayouts;
+import warehouse.WarehouseLayout;
+import warehouse.geometry.grid.Point;
+import warehouse.inventory.Item;
+import warehouse.inventory.Part;
+import warehouse.tiles.Rack;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark finding a Rack for an Item, in a layout where the first Racks are full.
+ *
+ * @remark Every Rack holds one Item. The given fraction of the Racks, in order of tile index, are filled with Items of
+ * another Part, so the first Rack that can take the Item comes after all of them; if every Rack is full, no Rack is
+ * found.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class RackAssignmentBenchmark {
+    @Param({"12", "100", "1000"})
+    public int size;
+
+    @Param({"0.5", "0.9"})
+    public double rackDensity;
+
+    @Param({"0", "0.5", "1"})
+    public double fillFraction;
+
+    private WarehouseLayout<Point> layout;
+    private Item item;
+    private BasicRackAssignmentPolicy basicPolicy;
+    private IndexedRackAssignmentPolicy indexedPolicy;
+
+    @Setup
+    public void setup() {
+        layout = BenchmarkLayouts.makeScenario(size, rackDensity, 1, 22).getWarehouse().getState()
+                .getLayout();
+        Part filler = new Part("filler", "Fills a Rack.");
+        List<Rack> racks = layout.findTilesOfType(Rack.class);
+        int fullCount = (int) Math.round(fillFraction * racks.size());
+        for (int i = 0; i < fullCount; i++) {
+            racks.get(i).receiveItem(new Item(filler));
+        }
+        item = new Item(new Part("part", "A part."));
+        basicPolicy = new BasicRackAssignmentPolicy();
+        indexedPolicy = new IndexedRackAssignmentPolicy(new RackCapacityIndex(layout));
+    }
+
+    @Benchmark
+    public Rack basic() {
+        return basicPolicy.assign(layout, item);
+    }
+
+    @Benchmark
+    public Rack indexed() {
+        return indexedPolicy.assign(layout, item);
+    }
+}
@@ -0,0 +1,96 @@
+package warehouse.logistics.optimization;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import warehouse.BenchmarkLayouts;
+import warehouse.WarehouseLayout;
+import warehouse.WarehouseState;
+import warehouse.geometry.grid.GridWarehouseCoordinateSystem;
+import warehouse.geometry.grid.Point;
+import warehouse.logistics.optimization.graph.TileGraph;
+import warehouse.logistics.optimization.graph.TileNode;
+import warehouse.logistics.optimization.graph.converters.SimpleWarehouseGraphConverter;
+import warehouse.logistics.optimization.routefinding.algorithms.AStarRoutefinder;
+import warehouse.logistics.optimization.routefinding.algorithms.GridAStarRoutefinder;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark finding a route between two random empty tiles.
+ *
+ * @remark Each call finds the next of a fixed, seeded list of routes, so every run measures the same routes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class RoutefinderBenchmark {
+    private static final int ROUTE_COUNT = 64;
+
+    @Param({"12", "100", "1000"})
+    public int size;
+
+    @Param({"0.5", "0.9"})
+    public double rackDensity;
+
+    private TileGraph graph;
+    private TileNode[] sources;
+    private TileNode[] destinations;
+    private AStarRoutefinder<TileNode> aStarRoutefinder;
+    private GridAStarRoutefinder gridAStarRoutefinder;
+    private int next;
+
+    @Setup
+    public void setup() {
+        WarehouseState<GridWarehouseCoordinateSystem, Point> state = BenchmarkLayouts.makeScenario(size, rackDensity,
+                -1, 22).getWarehouse().getState();
+        WarehouseLayout<Point> layout = state.getLayout();
+        graph = new SimpleWarehouseGraphConverter<GridWarehouseCoordinateSystem, Point>().convert(state);
+
+        int[] tiles = BenchmarkLayouts.pickEmptyTiles(layout, 2 * ROUTE_COUNT, new Random(22));
+        sources = new TileNode[ROUTE_COUNT];
+        destinations = new TileNode[ROUTE_COUNT];
+        for (int i = 0; i < ROUTE_COUNT; i++) {
+            sources[i] = new TileNode(layout.getTileAt(tiles[(2 * i) % tiles.length]));
+            destinations[i] = new TileNode(layout.getTileAt(tiles[(2 * i + 1) % tiles.length]));
+        }
+
+        DistanceTileScorer metric = new DistanceTileScorer(state.getCoordinateSystem());
+        aStarRoutefinder = new AStarRoutefinder<>(metric, metric);
+        gridAStarRoutefinder = new GridAStarRoutefinder(state.getCoordinateSystem());
+    }
+
+    @Benchmark
+    public List<TileNode> aStar() {
+        int i = nextRoute();
+        return aStarRoutefinder.findRoute(graph, sources[i], destinations[i]);
+    }
+
+    @Benchmark
+    public List<TileNode> gridAStar() {
+        int i = nextRoute();
+        return gridAStarRoutefinder.findRoute(graph, sources[i], destinations[i]);
+    }
+
+    /**
+     * Get the index of the route to find next.
+     */
+    private int nextRoute() {
+        int i = next;
+        next = (next + 1) % ROUTE_COUNT;
+        return i;
+    }
+}
@@ -0,0 +1,52 @@
+package warehouse.logistics.optimization;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import warehouse.BenchmarkLayouts;
+import warehouse.WarehouseState;
+import warehouse.geometry.grid.GridWarehouseCoordinateSystem;
+import warehouse.geometry.grid.Point;
+import warehouse.logistics.optimization.graph.TileGraph;
+import warehouse.logistics.optimization.graph.converters.SimpleWarehouseGraphConverter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark converting a whole layout into a routing graph.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class WarehouseGraphConverterBenchmark {
+    @Param({"12", "100", "1000"})
+    public int size;
+
+    @Param({"0.5", "0.9"})
+    public double rackDensity;
+
+    private WarehouseState<GridWarehouseCoordinateSystem, Point> state;
+    private SimpleWarehouseGraphConverter<GridWarehouseCoordinateSystem, Point> converter;
+
+    @Setup
+    public void setup() {
+        state = BenchmarkLayouts.makeScenario(size, rackDensity, -1, 22).getWarehouse().getState();
+        converter = new SimpleWarehouseGraphConverter<>();
+    }
+
+    @Benchmark
+    public TileGraph convert() {
+        return converter.convert(state);
+    }
+}
@@ -0,0 +1,30 @@
+package warehouse.logistics.orders;
+
+import warehouse.tiles.Tile;
+
+import java.util.ArrayList;
+
+/**
+ * A NavigateOrder to a single Tile, whose readiness never changes.
+ */
+class BenchmarkOrder extends NavigateOrder {
+    private final boolean ready;
+
+    /**
+     * Construct a BenchmarkOrder.
+     * @param waypoint The Tile to navigate to, or null for no waypoint.
+     * @param ready Whether the Order is ready.
+     */
+    BenchmarkOrder(Tile waypoint, boolean ready) {
+        super(new ArrayList<>());
+        if (waypoint != null) {
+            waypoints.add(waypoint);
+        }
+        this.ready = ready;
+    }
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+}
@@ -0,0 +1,107 @@
+package warehouse.logistics.orders;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import warehouse.BenchmarkLayouts;
+import warehouse.Warehouse;
+import warehouse.WarehouseLayout;
+import warehouse.WarehouseState;
+import warehouse.geometry.grid.GridWarehouseCoordinateSystem;
+import warehouse.geometry.grid.Point;
+import warehouse.robots.Robot;
+import warehouse.robots.RobotMapper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark matching a backlog of Orders to idle Robots, with the route distance cost function and selection policy
+ * of a Warehouse.
+ *
+ * @remark Orders go to one of a fixed set of target tiles, as Orders to the same depots and racks do, so the
+ * distance fields of the targets are cached after the first few calls. Before each call, the Orders matched by the
+ * previous call are completed and the backlog is added to a new queue, which is not measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class OrderMatcherBenchmark {
+    private static final int TARGET_COUNT = 32;
+
+    @Param({"12", "100", "1000"})
+    public int size;
+
+    @Param({"0.5"})
+    public double rackDensity;
+
+    @Param({"10", "100"})
+    public int robotCount;
+
+    @Param({"100", "10000"})
+    public int backlog;
+
+    @Param({"greedy", "batch"})
+    public String strategy;
+
+    private Warehouse<GridWarehouseCoordinateSystem, Point> warehouse;
+    private List<Order> orders;
+    private OrderMatcher matcher;
+
+    @Setup
+    public void setup() {
+        warehouse = BenchmarkLayouts.makeScenario(size, rackDensity, -1, 22).getWarehouse();
+        WarehouseState<GridWarehouseCoordinateSystem, Point> state = warehouse.getState();
+        WarehouseLayout<Point> layout = state.getLayout();
+        Random random = new Random(22);
+        int[] tiles = BenchmarkLayouts.pickEmptyTiles(layout, robotCount + TARGET_COUNT, random);
+        RobotMapper<Point> robotMapper = state.getRobotMapper();
+        for (int i = 0; i < robotCount; i++) {
+            robotMapper.addRobotAt(new Robot("robot" + i, null), tiles[i % tiles.length]);
+        }
+        orders = new ArrayList<>();
+        for (int i = 0; i < backlog; i++) {
+            int target = tiles[(robotCount + random.nextInt(TARGET_COUNT)) % tiles.length];
+            orders.add(new BenchmarkOrder(layout.getTileAt(target), true));
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void reset() {
+        for (Order order : orders) {
+            if (order.getHandler() != null) {
+                order.setComplete();
+            }
+        }
+        OrderQueue queue = new OrderQueue();
+        for (Order order : orders) {
+            queue.add(order);
+        }
+        OrderMatchingStrategy matchingStrategy = strategy.equals("batch")
+                ? new BatchOrderMatchingStrategy(robotCount)
+                : new GreedyOrderMatchingStrategy();
+        matcher = new OrderMatcher(queue, warehouse.getState().getRobotMapper(), matchingStrategy,
+                new RouteDistanceOrderHandlerCostFunction(warehouse));
+        matcher.addSelectionPolicy(BenchmarkOrder.class, new RouteDistanceOrderHandlerSelectionPolicy<>(warehouse));
+    }
+
+    @Benchmark
+    public int match() {
+        matcher.match();
+        return matcher.getMatchedOrderCount();
+    }
+}
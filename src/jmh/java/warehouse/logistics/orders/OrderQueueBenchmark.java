@@ -0,0 +1,71 @@
+package warehouse.logistics.orders;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark taking the next Order from an OrderQueue with a backlog of Orders.
+ *
+ * @remark Each call takes the next ready Order and adds it back, so the backlog stays the same size. Blocked Orders do
+ * not track their readiness, so every call checks all of them again.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderQueueBenchmark {
+    @Param({"100", "10000", "100000"})
+    public int backlog;
+
+    @Param({"0", "0.5"})
+    public double blockedFraction;
+
+    private List<Order> orders;
+    private OrderQueue queue;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(22);
+        orders = new ArrayList<>();
+        for (int i = 0; i < backlog; i++) {
+            // Keep at least one Order ready, so that there is always a next Order
+            boolean ready = i == 0 || random.nextDouble() >= blockedFraction;
+            orders.add(new BenchmarkOrder(null, ready));
+        }
+    }
+
+    /**
+     * Fill a new queue, since the queue keeps every Order it has returned.
+     */
+    @Setup(Level.Iteration)
+    public void fillQueue() {
+        queue = new OrderQueue();
+        for (Order order : orders) {
+            queue.add(order);
+        }
+    }
+
+    @Benchmark
+    public Order getNextOrder() {
+        Order order = queue.getNextOrder();
+        queue.add(order);
+        return order;
+    }
+}
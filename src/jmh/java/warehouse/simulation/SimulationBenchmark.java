@@ -0,0 +1,59 @@
+package warehouse.simulation;
+
+import application.desktop.adapters.PhysicalGridRobotAdapterFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import warehouse.geometry.grid.GridWarehouseCoordinateSystem;
+import warehouse.geometry.grid.Point;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark ticks of a generated Scenario, with Items arriving and Robots moving them into Racks.
+ *
+ * @remark The Scenario keeps running from one call to the next, so later iterations measure a fuller warehouse.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SimulationBenchmark {
+    @Param({"100", "1000"})
+    public int size;
+
+    @Param({"50", "500"})
+    public int robotCount;
+
+    @Param({"10"})
+    public double arrivalRate;
+
+    private SimulationEngine<GridWarehouseCoordinateSystem, Point> engine;
+
+    @Setup
+    public void setup() {
+        ScenarioGenerator generator = new ScenarioGenerator();
+        generator.setSize(size, size);
+        generator.setRobotCount(robotCount);
+        generator.setDepots(4, 4, DepotPlacement.OPPOSITE_SIDES);
+        generator.setArrivalRate(arrivalRate);
+        generator.setRobotAdapterFactory(new PhysicalGridRobotAdapterFactory());
+        engine = generator.generate(22).createEngine(0.1);
+    }
+
+    @Benchmark
+    public long tick() {
+        engine.tick();
+        return engine.getTickCount();
+    }
+}
@@ -0,0 +1,59 @@
+package warehouse.storage;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import warehouse.inventory.Item;
+import warehouse.inventory.Part;
+import warehouse.storage.containers.InMemoryStorageUnitContainer;
+import warehouse.storage.strategies.MultiTypeStorageUnitStrategy;
+import warehouse.storage.strategies.SingleTypeStorageStrategy;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark adding an Item to a StorageUnit that already holds some Items, and removing it again.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StorageUnitBenchmark {
+    @Param({"0", "100", "10000"})
+    public int itemCount;
+
+    @Param({"single", "multi"})
+    public String strategy;
+
+    private StorageUnit storageUnit;
+    private Item item;
+
+    @Setup
+    public void setup() {
+        storageUnit = new StorageUnit(-1,
+                strategy.equals("multi") ? new MultiTypeStorageUnitStrategy() : new SingleTypeStorageStrategy(),
+                new InMemoryStorageUnitContainer());
+        Part part = new Part("part", "A part.");
+        for (int i = 0; i < itemCount; i++) {
+            storageUnit.addItem(new Item(part));
+        }
+        item = new Item(part);
+    }
+
+    @Benchmark
+    public void addAndRemoveItem(Blackhole blackhole) {
+        blackhole.consume(storageUnit.addItem(item));
+        blackhole.consume(storageUnit.removeItem(item));
+    }
+}
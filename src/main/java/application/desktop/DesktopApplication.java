@@ -23,12 +23,12 @@ import warehouse.geometry.grid.Point;
 import warehouse.inventory.Item;
 import warehouse.inventory.Part;
 import warehouse.inventory.PartCatalogue;
-import warehouse.logistics.optimization.DistanceTileScorer;
-import warehouse.logistics.optimization.graph.TileNode;
-import warehouse.logistics.optimization.routefinding.algorithms.AStarRoutefinder;
+import warehouse.logistics.optimization.routefinding.algorithms.CachingRoutefinder;
+import warehouse.logistics.optimization.routefinding.algorithms.GridAStarRoutefinder;
 import warehouse.logistics.orders.OrderQueue;
 import warehouse.robots.Robot;
 import warehouse.robots.RobotMapper;
+import warehouse.simulation.SimulationEngine;
 import warehouse.tiles.Rack;
 import warehouse.tiles.ReceiveDepot;
 import warehouse.tiles.ShipDepot;
@@ -53,7 +53,12 @@ public class DesktopApplication<T extends WarehouseCoordinateSystem<U>, U extend
     private final WarehouseCanvasRenderer<T, U> warehouseCanvasRenderer;
     private RootAppComponent<T, U> root;
 
+    private SimulationEngine<T, U> simulationEngine;
     private boolean isSimulationEnabled;
+    /**
+     * The time the last frame was processed at, in nanoseconds, or 0 before the first frame.
+     */
+    private long lastFrameTime;
 
     /**
      * The loader for the WarehouseState.
@@ -125,10 +130,13 @@ public class DesktopApplication<T extends WarehouseCoordinateSystem<U>, U extend
      */
     @Override
     public void process() {
-        warehouse.update();
-        var state = warehouse.getState();
-        if (state.getRobotAdapterUpdater() != null && isSimulationEnabled) {
-            state.getRobotAdapterUpdater().update();
+        long frameTime = System.nanoTime();
+        double elapsedTime = lastFrameTime == 0 ? 0 : (frameTime - lastFrameTime) / 1e9;
+        lastFrameTime = frameTime;
+        if (isSimulationEnabled) {
+            simulationEngine.advance(elapsedTime);
+        } else {
+            warehouse.update();
         }
         root.draw();
     }
@@ -154,10 +162,18 @@ public class DesktopApplication<T extends WarehouseCoordinateSystem<U>, U extend
      */
     public void setWarehouse(Warehouse<T, U> warehouse) {
         this.warehouse = warehouse;
+        this.simulationEngine = new SimulationEngine<>(warehouse);
         // Re-create ui
         root = new RootAppComponent<>(this);
     }
 
+    /**
+     * Get the engine that advances the simulation of the warehouse.
+     */
+    public SimulationEngine<T, U> getSimulationEngine() {
+        return simulationEngine;
+    }
+
     public WarehouseCanvasRenderer<T, U> getWarehouseCanvasRenderer() {
         return warehouseCanvasRenderer;
     }
@@ -203,8 +219,8 @@ public class DesktopApplication<T extends WarehouseCoordinateSystem<U>, U extend
         exampleState.getLayout().setTileAt(new Point(0, 9), new ReceiveDepot());
         exampleState.getLayout().setTileAt(new Point(11, 9), new ShipDepot());
         // Add robots
-        DistanceTileScorer metric = new DistanceTileScorer(exampleWarehouse.getState().getCoordinateSystem());
-        AStarRoutefinder<TileNode> routefinder = new AStarRoutefinder<>(metric, metric);
+        CachingRoutefinder routefinder = new CachingRoutefinder(
+                new GridAStarRoutefinder(exampleState.getCoordinateSystem()), exampleState.getLayout());
         exampleState.getRobotMapper().addRobotAt(new Robot(routefinder), new Point(5, 5));
         exampleState.getRobotMapper().addRobotAt(new Robot(routefinder), new Point(7, 3));
 
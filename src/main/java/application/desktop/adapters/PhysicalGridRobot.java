@@ -1,11 +1,13 @@
 package application.desktop.adapters;
 
 
+import warehouse.WarehouseMetrics;
 import warehouse.WarehouseState;
 import warehouse.geometry.grid.GridWarehouseCoordinateSystem;
 import warehouse.geometry.grid.Point;
 import warehouse.logistics.optimization.graph.TileNode;
-import warehouse.logistics.optimization.graph.converters.SimpleWarehouseGraphConverter;
+import warehouse.logistics.optimization.routefinding.SearchBuffers;
+import warehouse.logistics.optimization.routefinding.cooperative.CooperativePlanner;
 import warehouse.logistics.orders.NavigateOrder;
 import warehouse.logistics.orders.Order;
 import warehouse.logistics.orders.OrderStatus;
@@ -24,9 +26,14 @@ import java.util.List;
  */
 public class PhysicalGridRobot extends RobotAdapter<GridWarehouseCoordinateSystem, Point> {
     /**
-     * The speed of the Robot.
+     * The time between two updates when no time step is given, in seconds, e.g. one frame at 60 frames per second.
      */
-    private float speed = 0.05f;
+    private static final double DEFAULT_TIME_STEP = 1.0 / 60;
+
+    /**
+     * The speed of the Robot, in tiles per second.
+     */
+    private float speed = 3;
 
     /**
      * The X position of the Robot, in metres. A tile is 1x1.
@@ -48,7 +55,12 @@ public class PhysicalGridRobot extends RobotAdapter<GridWarehouseCoordinateSyste
     private List<Tile> currentRouteNodes;
     private int currentRouteNodeIndex;
 
-    private final SimpleWarehouseGraphConverter<GridWarehouseCoordinateSystem, Point> graphConverter;
+    /**
+     * The route planned by prepare for the next leg, from preparedSource to preparedDestination, or null if none.
+     */
+    private List<Tile> preparedRoute;
+    private Tile preparedSource;
+    private Tile preparedDestination;
 
     /**
      * Construct a PhysicalGridRobot.
@@ -60,24 +72,81 @@ public class PhysicalGridRobot extends RobotAdapter<GridWarehouseCoordinateSyste
         Point point = warehouseModel.getRobotMapper().getRobotPosition(robotModel);
         this.x = point.getX();
         this.y = point.getY();
-        graphConverter = new SimpleWarehouseGraphConverter<>();
     }
 
     /**
-     * Update the Robot associated with this adapter.
+     * Update the Robot associated with this adapter for one frame.
      */
     @Override
     public void update() {
-        handleOrder();
+        update(DEFAULT_TIME_STEP);
+    }
+
+    /**
+     * Plan the route of the leg the Robot starts in the next update, if it starts one, so that update does not have
+     * to. This only reads the Warehouse.
+     * @param timeStep The length of the update being prepared, in seconds.
+     */
+    @Override
+    public void prepare(double timeStep) {
+        preparedRoute = null;
+        Order order = robotModel.getOrder();
+        if (!(order instanceof NavigateOrder) || warehouseStateModel.isCooperativePlanningEnabled()) {
+            return;
+        }
+
+        Tile source;
+        Tile destination;
+        if (order.getStatus() == OrderStatus.ASSIGNED) {
+            // The first leg goes from the tile the Robot is on to the first waypoint
+            List<Tile> waypoints = ((NavigateOrder) order).getWaypoints();
+            if (waypoints.isEmpty()) {
+                return;
+            }
+            RobotMapper<Point> robotMapper = warehouseStateModel.getRobotMapper();
+            source = warehouseStateModel.getLayout().getTileAt(robotMapper.getRobotPosition(robotModel));
+            destination = waypoints.get(0);
+            if (robotModel.getPlannedRoute() != null) {
+                // The leg was planned jointly with other Robots
+                return;
+            }
+        } else if (order.getStatus() == OrderStatus.IN_PROGRESS && currentRouteNodes == null
+                && currentWaypointIndex < currentWaypoints.size() - 1) {
+            source = currentWaypoints.get(currentWaypointIndex);
+            destination = currentWaypoints.get(currentWaypointIndex + 1);
+        } else {
+            return;
+        }
+        preparedRoute = findRoute(source, destination);
+        preparedSource = source;
+        preparedDestination = destination;
+    }
+
+    /**
+     * Update the Robot associated with this adapter, moving it as far as it travels in the given time.
+     * @param timeStep The time since the last update, in seconds.
+     */
+    @Override
+    public void update(double timeStep) {
+        if (warehouseStateModel.isCooperativePlanningEnabled()) {
+            // The cooperative planner moves the Robot
+            followPlan();
+            preparedRoute = null;
+            return;
+        }
+        handleOrder(timeStep);
+        preparedRoute = null;
 
         RobotMapper<Point> robotMapper = warehouseStateModel.getRobotMapper();
-        robotMapper.setRobotPosition(robotModel, new Point(Math.round(x), Math.round(y)));
+        GridWarehouseCoordinateSystem coordinateSystem = warehouseStateModel.getCoordinateSystem();
+        robotMapper.setRobotPosition(robotModel, coordinateSystem.getPoint(Math.round(x), Math.round(y)));
     }
 
     /**
      * Handle current order.
+     * @param timeStep The time since the last update, in seconds.
      */
-    private void handleOrder() {
+    private void handleOrder(double timeStep) {
         Order order = robotModel.getOrder();
         if (order == null || order.getStatus() == OrderStatus.COMPLETE) {
             return;
@@ -102,32 +171,47 @@ public class PhysicalGridRobot extends RobotAdapter<GridWarehouseCoordinateSyste
             if (currentRouteNodes == null) {
                 Tile source = currentWaypoints.get(currentWaypointIndex);
                 Tile destination = currentWaypoints.get(currentWaypointIndex + 1);
-                List<TileNode> nodes = robotModel.getRoutefinder().findRoute(
-                        graphConverter.convert(warehouseStateModel),
-                        new TileNode(source),
-                        new TileNode(destination));
-                currentRouteNodes = new ArrayList<>();
-                for (TileNode node : nodes) {
-                    currentRouteNodes.add(node.getTile());
+                // A route planned jointly with other Robots is only used for the leg it was planned for
+                List<Tile> plannedRoute = robotModel.getPlannedRoute();
+                robotModel.setPlannedRoute(null);
+                if (plannedRoute != null && currentWaypointIndex == 0 && plannedRoute.get(0).equals(source)
+                        && plannedRoute.get(plannedRoute.size() - 1).equals(destination)) {
+                    currentRouteNodes = plannedRoute;
+                } else if (preparedRoute != null && source.equals(preparedSource)
+                        && destination.equals(preparedDestination)) {
+                    currentRouteNodes = preparedRoute;
+                } else {
+                    currentRouteNodes = findRoute(source, destination);
+                }
+                if (currentRouteNodes == null) {
+                    // The destination cannot be reached, so wait where we are and try again on the next update,
+                    // e.g. once the tiles in the way are cleared.
+                    return;
                 }
                 currentSource = source;
                 currentRouteNodeIndex = 0;
             } else {
                 // Move in the direction of the route tiles...
                 if (currentRouteNodeIndex < currentRouteNodes.size() - 1) {
+                    // Increment linear interpolation parameter, carrying over to the next route tiles
+                    routeNodeLerpAlpha += speed * timeStep;
+                    while (routeNodeLerpAlpha >= 1 && currentRouteNodeIndex < currentRouteNodes.size() - 1) {
+                        routeNodeLerpAlpha -= 1;
+                        currentRouteNodeIndex += 1;
+                    }
                     GridWarehouseCoordinateSystem coordinateSystem = warehouseStateModel.getCoordinateSystem();
                     Tile source = currentRouteNodes.get(currentRouteNodeIndex);
                     Point p1 = coordinateSystem.projectIndexToCoordinate(source.getIndex());
-                    Tile destination = currentRouteNodes.get(currentRouteNodeIndex + 1);
-                    Point p2 = coordinateSystem.projectIndexToCoordinate(destination.getIndex());
-                    // Apply linear interpolation on p1 and p2
-                    x = p1.getX() + routeNodeLerpAlpha * (p2.getX() - p1.getX());
-                    y = p1.getY() + routeNodeLerpAlpha * (p2.getY() - p1.getY());
-                    // Increment linear interpolation parameter
-                    routeNodeLerpAlpha += speed;
-                    if (routeNodeLerpAlpha >= 1) {
+                    if (currentRouteNodeIndex < currentRouteNodes.size() - 1) {
+                        Tile destination = currentRouteNodes.get(currentRouteNodeIndex + 1);
+                        Point p2 = coordinateSystem.projectIndexToCoordinate(destination.getIndex());
+                        // Apply linear interpolation on p1 and p2
+                        x = p1.getX() + routeNodeLerpAlpha * (p2.getX() - p1.getX());
+                        y = p1.getY() + routeNodeLerpAlpha * (p2.getY() - p1.getY());
+                    } else {
                         routeNodeLerpAlpha = 0;
-                        currentRouteNodeIndex += 1;
+                        x = p1.getX();
+                        y = p1.getY();
                     }
                 } else {
                     currentRouteNodes = null;
@@ -140,6 +224,76 @@ public class PhysicalGridRobot extends RobotAdapter<GridWarehouseCoordinateSyste
         }
     }
 
+    /**
+     * Handle the current order while the cooperative planner of the Warehouse moves the Robot: give the planner the
+     * next waypoint as the goal of the Robot, and place the Robot between the tiles the planner is moving it between.
+     */
+    private void followPlan() {
+        CooperativePlanner<GridWarehouseCoordinateSystem, Point> planner = warehouseStateModel.getCooperativePlanner();
+        int robotIndex = warehouseStateModel.getRobotMapper().getRobotTileIndex(robotModel);
+        currentRouteNodes = null;
+
+        Order order = robotModel.getOrder();
+        if (order instanceof NavigateOrder && order.getStatus() != OrderStatus.COMPLETE) {
+            if (order.getStatus() == OrderStatus.ASSIGNED) {
+                order.setInProgress();
+                currentWaypoints = ((NavigateOrder) order).getWaypoints();
+                currentWaypoints.add(0, warehouseStateModel.getLayout().getTileAt(robotIndex));
+                currentWaypointIndex = 0;
+            }
+            // The planner moved the Robot onto the next waypoints
+            while (currentWaypointIndex < currentWaypoints.size() - 1
+                    && currentWaypoints.get(currentWaypointIndex + 1).getIndex() == robotIndex) {
+                currentWaypointIndex += 1;
+            }
+            if (currentWaypointIndex < currentWaypoints.size() - 1) {
+                int goal = currentWaypoints.get(currentWaypointIndex + 1).getIndex();
+                if (planner.getGoal(robotModel) != goal) {
+                    planner.setGoal(robotModel, goal);
+                }
+            } else {
+                order.setComplete();
+                planner.clearGoal(robotModel);
+            }
+        } else if (planner.getGoal(robotModel) != -1) {
+            planner.clearGoal(robotModel);
+        }
+
+        GridWarehouseCoordinateSystem coordinateSystem = warehouseStateModel.getCoordinateSystem();
+        List<Integer> route = planner.getPlannedRoute(robotModel);
+        Point p1 = coordinateSystem.projectIndexToCoordinate(route.isEmpty() ? robotIndex : route.get(0));
+        Point p2 = route.size() > 1 ? coordinateSystem.projectIndexToCoordinate(route.get(1)) : p1;
+        float alpha = (float) planner.getStepProgress();
+        x = p1.getX() + alpha * (p2.getX() - p1.getX());
+        y = p1.getY() + alpha * (p2.getY() - p1.getY());
+    }
+
+    /**
+     * Find the route of the Robot between two tiles.
+     * @return The tiles of the route, starting at the source, or null if the destination cannot be reached.
+     */
+    private List<Tile> findRoute(Tile source, Tile destination) {
+        WarehouseMetrics metrics = warehouseStateModel.getMetrics();
+        SearchBuffers buffers = SearchBuffers.forCurrentThread();
+        long expandedCount = buffers.getTotalExpandedCount();
+        long start = metrics.getRouteTimer().start();
+        List<TileNode> nodes = robotModel.getRoutefinder().findRoute(
+                warehouseStateModel.getRoutingGraph(),
+                new TileNode(source),
+                new TileNode(destination));
+        metrics.getRouteTimer().stop(start);
+        metrics.getRoutesPlanned().increment();
+        metrics.getNodesExpanded().add(buffers.getTotalExpandedCount() - expandedCount);
+        if (nodes == null) {
+            return null;
+        }
+        List<Tile> route = new ArrayList<>();
+        for (TileNode node : nodes) {
+            route.add(node.getTile());
+        }
+        return route;
+    }
+
     public float getX() {
         return x;
     }
@@ -191,7 +191,7 @@ public class GridWarehouseCanvasRenderer implements WarehouseCanvasRenderer<Grid
         // Draw tiles
         for (int y = 0; y < coordinateSystem.getHeight(); y++) {
             for (int x = 0; x < coordinateSystem.getWidth(); x++) {
-                Tile tile = layout.getTileAt(new Point(x, y));
+                Tile tile = layout.getTileAt(coordinateSystem.getPoint(x, y));
                 drawTile(drawList, tile, getTileTopLeft(origin, x, y), colourScheme);
             }
         }
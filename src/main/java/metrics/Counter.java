@@ -0,0 +1,56 @@
+package metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A count of events, e.g. the number of routes planned.
+ *
+ * @remark Counting does nothing while the MetricsRegistry of the counter is disabled. Counters can be incremented by
+ * many threads at once without contention.
+ */
+public class Counter {
+    private final MetricsRegistry registry;
+    private final LongAdder count;
+
+    /**
+     * Construct a Counter.
+     * @param registry The MetricsRegistry this counter belongs to.
+     */
+    Counter(MetricsRegistry registry) {
+        this.registry = registry;
+        this.count = new LongAdder();
+    }
+
+    /**
+     * Count one event.
+     */
+    public void increment() {
+        if (registry.isEnabled()) {
+            count.increment();
+        }
+    }
+
+    /**
+     * Count the given number of events.
+     * @param amount The number of events.
+     */
+    public void add(long amount) {
+        if (registry.isEnabled()) {
+            count.add(amount);
+        }
+    }
+
+    /**
+     * Get the number of events counted.
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Reset the count to zero.
+     */
+    public void reset() {
+        count.reset();
+    }
+}
@@ -0,0 +1,87 @@
+package metrics;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Writes each snapshot as one row of comma-separated values, after a header row written with the first snapshot.
+ *
+ * @remark The columns are the elapsed time in seconds; the count, 50th, 90th and 99th percentile and maximum of each
+ * timer in nanoseconds; each counter; and each gauge. They are fixed by the first snapshot, so metrics created after
+ * it are not written, and metrics missing from a later snapshot are left empty.
+ */
+public class CsvMetricsExporter implements MetricsExporter {
+    private static final double[] PERCENTILES = {50, 90, 99};
+
+    private final PrintStream stream;
+    private List<String> timerNames;
+    private List<String> counterNames;
+    private List<String> gaugeNames;
+
+    /**
+     * Construct a CsvMetricsExporter.
+     * @param stream The stream rows are written to.
+     */
+    public CsvMetricsExporter(PrintStream stream) {
+        this.stream = stream;
+    }
+
+    @Override
+    public void export(MetricsSnapshot snapshot) {
+        if (timerNames == null) {
+            timerNames = new ArrayList<>(snapshot.getHistograms().keySet());
+            counterNames = new ArrayList<>(snapshot.getCounters().keySet());
+            gaugeNames = new ArrayList<>(snapshot.getGauges().keySet());
+            writeHeader();
+        }
+        StringBuilder row = new StringBuilder(String.format(Locale.ROOT, "%.3f", snapshot.getElapsedTime() / 1e9));
+        for (String name : timerNames) {
+            LatencyHistogram histogram = snapshot.getHistogram(name);
+            if (histogram == null) {
+                row.append(",".repeat(PERCENTILES.length + 2));
+                continue;
+            }
+            row.append(',').append(histogram.getCount());
+            for (double percentile : PERCENTILES) {
+                row.append(',').append(histogram.getValueAtPercentile(percentile));
+            }
+            row.append(',').append(histogram.getMax());
+        }
+        for (String name : counterNames) {
+            row.append(',');
+            if (snapshot.getCounters().containsKey(name)) {
+                row.append(snapshot.getCounter(name));
+            }
+        }
+        for (String name : gaugeNames) {
+            row.append(',');
+            if (snapshot.getGauges().containsKey(name)) {
+                row.append(snapshot.getGauge(name));
+            }
+        }
+        stream.println(row);
+    }
+
+    /**
+     * Write the names of the columns.
+     */
+    private void writeHeader() {
+        StringBuilder header = new StringBuilder("elapsed_s");
+        for (String name : timerNames) {
+            header.append(',').append(name).append("_count");
+            for (double percentile : PERCENTILES) {
+                header.append(',').append(name).append("_p").append((int) percentile).append("_ns");
+            }
+            header.append(',').append(name).append("_max_ns");
+        }
+        for (String name : counterNames) {
+            header.append(',').append(name);
+        }
+        for (String name : gaugeNames) {
+            header.append(',').append(name);
+        }
+        stream.println(header);
+    }
+}
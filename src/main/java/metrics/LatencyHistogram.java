@@ -0,0 +1,182 @@
+package metrics;
+
+import java.util.Arrays;
+
+/**
+ * A histogram of durations, in nanoseconds, with a fixed relative precision.
+ *
+ * @remark Values are counted in log-linear buckets, as in an HDR histogram: values below 128 have a bucket each, and
+ * every larger power-of-two range is split into 64 equal buckets, so a value is reported to within 1/64 (about 1.6%)
+ * of its true value. Recording is O(1) and does not allocate, and the buckets cover every non-negative long, so no
+ * value is ever out of range. A histogram uses about 30 KB of memory.
+ *
+ * Recording and reading are synchronized, so a LatencyHistogram can be shared by threads.
+ */
+public class LatencyHistogram {
+    /**
+     * The number of values below which every value has its own bucket.
+     */
+    private static final int LINEAR_BUCKETS = 128;
+    /**
+     * The number of buckets each larger power-of-two range is split into.
+     */
+    private static final int SUB_BUCKETS = 64;
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int BUCKET_COUNT = LINEAR_BUCKETS + (Long.SIZE - 1 - (SUB_BUCKET_BITS + 1)) * SUB_BUCKETS;
+
+    private final long[] counts;
+    private long count;
+    private long sum;
+    private long min;
+    private long max;
+
+    /**
+     * Construct an empty LatencyHistogram.
+     */
+    public LatencyHistogram() {
+        counts = new long[BUCKET_COUNT];
+        min = Long.MAX_VALUE;
+        max = 0;
+    }
+
+    /**
+     * Record a duration.
+     * @param value The duration, in nanoseconds. Negative values are recorded as 0.
+     */
+    public synchronized void record(long value) {
+        value = Math.max(0, value);
+        counts[bucketOf(value)]++;
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Add every value recorded by another histogram to this one.
+     * @param other The other histogram.
+     */
+    public void add(LatencyHistogram other) {
+        LatencyHistogram copy = other.copy();
+        synchronized (this) {
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                counts[i] += copy.counts[i];
+            }
+            count += copy.count;
+            sum += copy.sum;
+            min = Math.min(min, copy.min);
+            max = Math.max(max, copy.max);
+        }
+    }
+
+    /**
+     * Forget every recorded value.
+     */
+    public synchronized void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        sum = 0;
+        min = Long.MAX_VALUE;
+        max = 0;
+    }
+
+    /**
+     * Make a copy of this histogram, e.g. to read it while values are still being recorded.
+     */
+    public synchronized LatencyHistogram copy() {
+        LatencyHistogram copy = new LatencyHistogram();
+        System.arraycopy(counts, 0, copy.counts, 0, BUCKET_COUNT);
+        copy.count = count;
+        copy.sum = sum;
+        copy.min = min;
+        copy.max = max;
+        return copy;
+    }
+
+    /**
+     * Get the value at the given percentile, i.e. the smallest recorded value such that at least the given percentage
+     * of the recorded values are no greater than it.
+     * @param percentile The percentile, in the range [0, 100].
+     * @return The highest value in the bucket of the value at the percentile, but no more than the largest recorded
+     * value, or 0 if no values were recorded.
+     * @throws IllegalArgumentException if the percentile is not in the range [0, 100].
+     */
+    public synchronized long getValueAtPercentile(double percentile) {
+        if (!(percentile >= 0 && percentile <= 100)) {
+            throw new IllegalArgumentException(String.format("Percentile must be in the range [0, 100], but got %s",
+                    percentile));
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.max(min, Math.min(max, highestValueOf(i)));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Get the number of recorded values.
+     */
+    public synchronized long getCount() {
+        return count;
+    }
+
+    /**
+     * Get the smallest recorded value, or 0 if no values were recorded.
+     */
+    public synchronized long getMin() {
+        return count == 0 ? 0 : min;
+    }
+
+    /**
+     * Get the largest recorded value, or 0 if no values were recorded.
+     */
+    public synchronized long getMax() {
+        return max;
+    }
+
+    /**
+     * Get the sum of the recorded values.
+     */
+    public synchronized long getSum() {
+        return sum;
+    }
+
+    /**
+     * Get the mean of the recorded values, or 0 if no values were recorded.
+     */
+    public synchronized double getMean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /**
+     * Get the bucket of a non-negative value.
+     */
+    private static int bucketOf(long value) {
+        if (value < LINEAR_BUCKETS) {
+            return (int) value;
+        }
+        // Shift the value so that its 7 highest bits remain, in the range [64, 128).
+        int shift = Long.SIZE - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS + 1);
+        int subBucket = (int) (value >>> shift) - SUB_BUCKETS;
+        return LINEAR_BUCKETS + (shift - 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Get the highest value that falls in the given bucket.
+     */
+    private static long highestValueOf(int bucket) {
+        if (bucket < LINEAR_BUCKETS) {
+            return bucket;
+        }
+        int shift = (bucket - LINEAR_BUCKETS) / SUB_BUCKETS + 1;
+        long subBucket = (bucket - LINEAR_BUCKETS) % SUB_BUCKETS + SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,69 @@
+package metrics;
+
+import java.io.PrintStream;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Writes each snapshot as one line of text, e.g.
+ * <pre>
+ *     metrics elapsed=10.0s tick[n=600 p50=41.2us p90=88.6us p99=210us max=1.31ms] routes.planned=57 orders.queued=3
+ * </pre>
+ */
+public class LogMetricsExporter implements MetricsExporter {
+    private final PrintStream stream;
+
+    /**
+     * Construct a LogMetricsExporter.
+     * @param stream The stream lines are written to.
+     */
+    public LogMetricsExporter(PrintStream stream) {
+        this.stream = stream;
+    }
+
+    /**
+     * Construct a LogMetricsExporter that writes to standard output.
+     */
+    public LogMetricsExporter() {
+        this(System.out);
+    }
+
+    @Override
+    public void export(MetricsSnapshot snapshot) {
+        StringBuilder line = new StringBuilder("metrics elapsed=")
+                .append(formatDuration(snapshot.getElapsedTime()));
+        for (Map.Entry<String, LatencyHistogram> entry : snapshot.getHistograms().entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            line.append(' ').append(entry.getKey())
+                    .append("[n=").append(histogram.getCount())
+                    .append(" p50=").append(formatDuration(histogram.getValueAtPercentile(50)))
+                    .append(" p90=").append(formatDuration(histogram.getValueAtPercentile(90)))
+                    .append(" p99=").append(formatDuration(histogram.getValueAtPercentile(99)))
+                    .append(" max=").append(formatDuration(histogram.getMax()))
+                    .append(']');
+        }
+        for (Map.Entry<String, Long> entry : snapshot.getCounters().entrySet()) {
+            line.append(' ').append(entry.getKey()).append('=').append(entry.getValue());
+        }
+        for (Map.Entry<String, Double> entry : snapshot.getGauges().entrySet()) {
+            line.append(' ').append(entry.getKey()).append('=')
+                    .append(String.format(Locale.ROOT, "%.3g", entry.getValue()));
+        }
+        stream.println(line);
+    }
+
+    /**
+     * Format a duration in nanoseconds with three significant figures and the largest unit it is at least one of.
+     */
+    private static String formatDuration(long nanos) {
+        if (nanos < 1_000) {
+            return nanos + "ns";
+        } else if (nanos < 1_000_000) {
+            return String.format(Locale.ROOT, "%.3gus", nanos / 1e3);
+        } else if (nanos < 1_000_000_000) {
+            return String.format(Locale.ROOT, "%.3gms", nanos / 1e6);
+        } else {
+            return String.format(Locale.ROOT, "%.3gs", nanos / 1e9);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package metrics;
+
+/**
+ * Publishes snapshots of a MetricsRegistry, e.g. by writing them to a log.
+ */
+public interface MetricsExporter {
+    /**
+     * Publish a snapshot.
+     * @param snapshot The snapshot.
+     */
+    void export(MetricsSnapshot snapshot);
+}
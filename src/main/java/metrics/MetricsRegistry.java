@@ -0,0 +1,142 @@
+package metrics;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.DoubleSupplier;
+
+/**
+ * A named set of timers, counters and gauges, and the exporters their snapshots are published to.
+ *
+ * @remark A registry is created disabled, so that instrumented code pays almost nothing for it: timers do not read the
+ * clock and counters do not count until setEnabled(true) is called. Gauges are only evaluated when a snapshot is
+ * taken, so they cost nothing between snapshots; since they read the state they measure, snapshots should be taken
+ * on the thread that changes that state, e.g. between ticks of a simulation.
+ *
+ * Metrics are kept in the order they were first requested, so snapshots and exports list them in a stable order.
+ */
+public class MetricsRegistry {
+    private final Map<String, Timer> timers;
+    private final Map<String, Counter> counters;
+    private final Map<String, DoubleSupplier> gauges;
+    private final List<MetricsExporter> exporters;
+
+    private volatile boolean enabled;
+    /**
+     * The time metrics were last reset, in nanoseconds.
+     */
+    private long resetTime;
+
+    /**
+     * Construct a disabled MetricsRegistry with no metrics.
+     */
+    public MetricsRegistry() {
+        timers = new LinkedHashMap<>();
+        counters = new LinkedHashMap<>();
+        gauges = new LinkedHashMap<>();
+        exporters = new ArrayList<>();
+        resetTime = System.nanoTime();
+    }
+
+    /**
+     * Get the Timer with the given name, creating it if there is none.
+     * @param name The name of the timer, e.g. "tick".
+     */
+    public synchronized Timer timer(String name) {
+        return timers.computeIfAbsent(name, key -> new Timer(this));
+    }
+
+    /**
+     * Get the Counter with the given name, creating it if there is none.
+     * @param name The name of the counter, e.g. "routes.planned".
+     */
+    public synchronized Counter counter(String name) {
+        return counters.computeIfAbsent(name, key -> new Counter(this));
+    }
+
+    /**
+     * Add a gauge, replacing any gauge with the same name.
+     * @param name The name of the gauge, e.g. "orders.queued".
+     * @param gauge The function that reads the current value of the gauge.
+     */
+    public synchronized void gauge(String name, DoubleSupplier gauge) {
+        gauges.put(name, gauge);
+    }
+
+    /**
+     * Take a snapshot of every metric.
+     */
+    public synchronized MetricsSnapshot snapshot() {
+        Map<String, LatencyHistogram> histograms = new LinkedHashMap<>();
+        for (Map.Entry<String, Timer> entry : timers.entrySet()) {
+            histograms.put(entry.getKey(), entry.getValue().getHistogram().copy());
+        }
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+            counts.put(entry.getKey(), entry.getValue().getCount());
+        }
+        Map<String, Double> values = new LinkedHashMap<>();
+        for (Map.Entry<String, DoubleSupplier> entry : gauges.entrySet()) {
+            values.put(entry.getKey(), entry.getValue().getAsDouble());
+        }
+        return new MetricsSnapshot(System.nanoTime() - resetTime, histograms, counts, values);
+    }
+
+    /**
+     * Take a snapshot of every metric and publish it to every exporter.
+     * @return The snapshot.
+     */
+    public MetricsSnapshot export() {
+        MetricsSnapshot snapshot = snapshot();
+        List<MetricsExporter> currentExporters;
+        synchronized (this) {
+            currentExporters = new ArrayList<>(exporters);
+        }
+        for (MetricsExporter exporter : currentExporters) {
+            exporter.export(snapshot);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Forget every recorded duration and reset every counter to zero. Gauges are kept.
+     */
+    public synchronized void reset() {
+        for (Timer timer : timers.values()) {
+            timer.getHistogram().reset();
+        }
+        for (Counter counter : counters.values()) {
+            counter.reset();
+        }
+        resetTime = System.nanoTime();
+    }
+
+    /**
+     * Add an exporter that snapshots are published to by export.
+     */
+    public synchronized void addExporter(MetricsExporter exporter) {
+        exporters.add(exporter);
+    }
+
+    /**
+     * Remove an exporter.
+     */
+    public synchronized void removeExporter(MetricsExporter exporter) {
+        exporters.remove(exporter);
+    }
+
+    /**
+     * Return whether metrics are being recorded.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Set whether metrics are recorded. Recorded metrics are kept while recording is disabled.
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+}
@@ -0,0 +1,80 @@
+package metrics;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * The values of the metrics of a MetricsRegistry at one point in time.
+ *
+ * @remark Histograms in a snapshot are copies, so they do not change as more durations are recorded.
+ */
+public class MetricsSnapshot {
+    private final long elapsedTime;
+    private final Map<String, LatencyHistogram> histograms;
+    private final Map<String, Long> counters;
+    private final Map<String, Double> gauges;
+
+    /**
+     * Construct a MetricsSnapshot.
+     * @param elapsedTime The time since the metrics were last reset, in nanoseconds.
+     * @param histograms The histogram of each timer, by name.
+     * @param counters The count of each counter, by name.
+     * @param gauges The value of each gauge, by name.
+     */
+    public MetricsSnapshot(long elapsedTime, Map<String, LatencyHistogram> histograms, Map<String, Long> counters,
+                           Map<String, Double> gauges) {
+        this.elapsedTime = elapsedTime;
+        this.histograms = Collections.unmodifiableMap(histograms);
+        this.counters = Collections.unmodifiableMap(counters);
+        this.gauges = Collections.unmodifiableMap(gauges);
+    }
+
+    /**
+     * Get the time between the last reset of the metrics and this snapshot, in nanoseconds.
+     */
+    public long getElapsedTime() {
+        return elapsedTime;
+    }
+
+    /**
+     * Get the histogram of the timer with the given name, or null if there is no such timer.
+     */
+    public LatencyHistogram getHistogram(String name) {
+        return histograms.get(name);
+    }
+
+    /**
+     * Get the count of the counter with the given name, or 0 if there is no such counter.
+     */
+    public long getCounter(String name) {
+        return counters.getOrDefault(name, 0L);
+    }
+
+    /**
+     * Get the value of the gauge with the given name, or NaN if there is no such gauge.
+     */
+    public double getGauge(String name) {
+        return gauges.getOrDefault(name, Double.NaN);
+    }
+
+    /**
+     * Get the histogram of every timer, by name.
+     */
+    public Map<String, LatencyHistogram> getHistograms() {
+        return histograms;
+    }
+
+    /**
+     * Get the count of every counter, by name.
+     */
+    public Map<String, Long> getCounters() {
+        return counters;
+    }
+
+    /**
+     * Get the value of every gauge, by name.
+     */
+    public Map<String, Double> getGauges() {
+        return gauges;
+    }
+}
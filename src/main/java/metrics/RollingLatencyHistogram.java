@@ -0,0 +1,106 @@
+package metrics;
+
+/**
+ * A histogram of the durations recorded in a sliding window of time, e.g. the last five minutes.
+ *
+ * @remark The window is split into a fixed number of slots, each with its own LatencyHistogram. A duration is recorded
+ * in the slot of the time it was recorded at, and a slot is cleared when it is reused for a later period, so the
+ * window covers the current slot and the slots before it: between windowLength - slotLength and windowLength of the
+ * most recent time. More slots make the window more exact, at about 30 KB of memory each.
+ *
+ * Times are read from any clock in nanoseconds, e.g. System.nanoTime or the simulated time of a simulation, and must
+ * not decrease. A RollingLatencyHistogram can be shared by threads.
+ */
+public class RollingLatencyHistogram {
+    private final long slotLength;
+    private final LatencyHistogram[] slots;
+    /**
+     * The period of each slot, as the number of slot lengths since time 0, or Long.MIN_VALUE if unused.
+     */
+    private final long[] slotPeriods;
+
+    /**
+     * Construct a RollingLatencyHistogram.
+     * @param windowLength The length of the window, in nanoseconds.
+     * @param slotCount The number of slots the window is split into.
+     * @throws IllegalArgumentException if the slot count is not positive, or the window is shorter than the slot count.
+     */
+    public RollingLatencyHistogram(long windowLength, int slotCount) {
+        if (slotCount <= 0) {
+            throw new IllegalArgumentException(String.format("Slot count must be positive, but got %d", slotCount));
+        }
+        if (windowLength < slotCount) {
+            throw new IllegalArgumentException(String.format("Window length must be at least %d ns, but got %d",
+                    slotCount, windowLength));
+        }
+        this.slotLength = windowLength / slotCount;
+        this.slots = new LatencyHistogram[slotCount];
+        this.slotPeriods = new long[slotCount];
+        for (int i = 0; i < slotCount; i++) {
+            slots[i] = new LatencyHistogram();
+            slotPeriods[i] = Long.MIN_VALUE;
+        }
+    }
+
+    /**
+     * Record a duration.
+     * @param time The current time, in nanoseconds.
+     * @param value The duration, in nanoseconds.
+     */
+    public synchronized void record(long time, long value) {
+        long period = Math.floorDiv(time, slotLength);
+        int slot = (int) Math.floorMod(period, (long) slots.length);
+        if (slotPeriods[slot] != period) {
+            slots[slot].reset();
+            slotPeriods[slot] = period;
+        }
+        slots[slot].record(value);
+    }
+
+    /**
+     * Get a histogram of the durations recorded in the window ending at the given time.
+     * @param time The current time, in nanoseconds.
+     */
+    public synchronized LatencyHistogram getHistogram(long time) {
+        long oldestPeriod = Math.floorDiv(time, slotLength) - slots.length + 1;
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < slots.length; i++) {
+            if (slotPeriods[i] >= oldestPeriod) {
+                histogram.add(slots[i]);
+            }
+        }
+        return histogram;
+    }
+
+    /**
+     * Get the start of the window ending at the given time, i.e. the start of the oldest slot in it.
+     * @param time The current time, in nanoseconds.
+     */
+    public long getWindowStart(long time) {
+        return (Math.floorDiv(time, slotLength) - slots.length + 1) * slotLength;
+    }
+
+    /**
+     * Forget every recorded duration.
+     */
+    public synchronized void reset() {
+        for (int i = 0; i < slots.length; i++) {
+            slots[i].reset();
+            slotPeriods[i] = Long.MIN_VALUE;
+        }
+    }
+
+    /**
+     * Get the length of each slot of the window, in nanoseconds.
+     */
+    public long getSlotLength() {
+        return slotLength;
+    }
+
+    /**
+     * Get the number of slots the window is split into.
+     */
+    public int getSlotCount() {
+        return slots.length;
+    }
+}
@@ -0,0 +1,20 @@
+package metrics;
+
+/**
+ * Keeps the latest exported snapshot in memory, e.g. for a user interface to display from another thread.
+ */
+public class SnapshotMetricsExporter implements MetricsExporter {
+    private volatile MetricsSnapshot latest;
+
+    @Override
+    public void export(MetricsSnapshot snapshot) {
+        latest = snapshot;
+    }
+
+    /**
+     * Get the latest exported snapshot, or null if none has been exported.
+     */
+    public MetricsSnapshot getLatest() {
+        return latest;
+    }
+}
@@ -0,0 +1,67 @@
+package metrics;
+
+/**
+ * Times a phase of work, recording each duration in a LatencyHistogram.
+ *
+ * @remark A phase is timed by calling start before it and stop after it:
+ * <pre>
+ *     long start = timer.start();
+ *     doWork();
+ *     timer.stop(start);
+ * </pre>
+ * While the MetricsRegistry of the timer is disabled, start does not read the clock and stop does nothing, so an
+ * untimed phase costs no more than a field read.
+ */
+public class Timer {
+    /**
+     * The start time returned while timing is disabled.
+     */
+    private static final long NOT_STARTED = Long.MIN_VALUE;
+
+    private final MetricsRegistry registry;
+    private final LatencyHistogram histogram;
+
+    /**
+     * Construct a Timer.
+     * @param registry The MetricsRegistry this timer belongs to.
+     */
+    Timer(MetricsRegistry registry) {
+        this.registry = registry;
+        this.histogram = new LatencyHistogram();
+    }
+
+    /**
+     * Start timing a phase.
+     * @return The start time of the phase, to pass to stop.
+     */
+    public long start() {
+        return registry.isEnabled() ? System.nanoTime() : NOT_STARTED;
+    }
+
+    /**
+     * Stop timing a phase, and record its duration.
+     * @param start The start time returned by start.
+     */
+    public void stop(long start) {
+        if (start != NOT_STARTED) {
+            histogram.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Record the duration of a phase timed by other means.
+     * @param duration The duration, in nanoseconds.
+     */
+    public void record(long duration) {
+        if (registry.isEnabled()) {
+            histogram.record(duration);
+        }
+    }
+
+    /**
+     * Get the histogram of the recorded durations.
+     */
+    public LatencyHistogram getHistogram() {
+        return histogram;
+    }
+}
@@ -0,0 +1,99 @@
+package utils;
+
+import java.util.Arrays;
+
+/**
+ * Solves the rectangular assignment problem with the Hungarian algorithm.
+ *
+ * @remark Given an n x m cost matrix with n <= m, this finds a column for every row, with no column used twice, such
+ * that the total cost is minimized. Rows are added one at a time, and each is placed with a shortest augmenting path
+ * over reduced costs (kept non-negative by row and column potentials), which takes O(n^2 m) time in total.
+ */
+public final class HungarianAlgorithm {
+    private HungarianAlgorithm() {
+    }
+
+    /**
+     * Find an assignment of rows to columns with minimal total cost.
+     * @param costs The cost matrix, with at most as many rows as columns. Every cost must be finite.
+     * @return The column assigned to each row.
+     * @throws IllegalArgumentException if the matrix has more rows than columns, is not rectangular, or contains a
+     * cost that is not finite.
+     */
+    public static int[] solve(double[][] costs) {
+        int n = costs.length;
+        if (n == 0) {
+            return new int[0];
+        }
+        int m = costs[0].length;
+        if (n > m) {
+            throw new IllegalArgumentException(String.format(
+                    "Cannot assign %d rows to %d columns", n, m));
+        }
+        for (double[] row : costs) {
+            if (row.length != m) {
+                throw new IllegalArgumentException("The cost matrix must be rectangular");
+            }
+            for (double cost : row) {
+                if (!Double.isFinite(cost)) {
+                    throw new IllegalArgumentException("Every cost must be finite");
+                }
+            }
+        }
+
+        // Rows and columns are numbered from 1, and column 0 is a virtual column holding the row being added.
+        double[] rowPotentials = new double[n + 1];
+        double[] columnPotentials = new double[m + 1];
+        int[] columnRows = new int[m + 1];
+        int[] way = new int[m + 1];
+        double[] minima = new double[m + 1];
+        boolean[] used = new boolean[m + 1];
+        for (int row = 1; row <= n; row++) {
+            columnRows[0] = row;
+            int column = 0;
+            Arrays.fill(minima, Double.POSITIVE_INFINITY);
+            Arrays.fill(used, false);
+            do {
+                used[column] = true;
+                int currentRow = columnRows[column];
+                double delta = Double.POSITIVE_INFINITY;
+                int nextColumn = 0;
+                for (int j = 1; j <= m; j++) {
+                    if (used[j]) continue;
+                    double reduced = costs[currentRow - 1][j - 1] - rowPotentials[currentRow] - columnPotentials[j];
+                    if (reduced < minima[j]) {
+                        minima[j] = reduced;
+                        way[j] = column;
+                    }
+                    if (minima[j] < delta) {
+                        delta = minima[j];
+                        nextColumn = j;
+                    }
+                }
+                for (int j = 0; j <= m; j++) {
+                    if (used[j]) {
+                        rowPotentials[columnRows[j]] += delta;
+                        columnPotentials[j] -= delta;
+                    } else {
+                        minima[j] -= delta;
+                    }
+                }
+                column = nextColumn;
+            } while (columnRows[column] != 0);
+            // Flip the augmenting path back to the virtual column
+            do {
+                int previousColumn = way[column];
+                columnRows[column] = columnRows[previousColumn];
+                column = previousColumn;
+            } while (column != 0);
+        }
+
+        int[] assignment = new int[n];
+        for (int j = 1; j <= m; j++) {
+            if (columnRows[j] != 0) {
+                assignment[columnRows[j] - 1] = j - 1;
+            }
+        }
+        return assignment;
+    }
+}
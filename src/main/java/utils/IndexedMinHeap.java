@@ -0,0 +1,194 @@
+package utils;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A binary min-heap of integer keys ordered by a double priority, supporting decrease-key.
+ *
+ * @remark Keys must be in the range [0, capacity). The position of each key in the heap is tracked in an array, so
+ * looking up, inserting, and updating a key do not allocate. Clearing the heap is O(size), not O(capacity), so the
+ * same heap can be reused cheaply between searches.
+ */
+public class IndexedMinHeap {
+    /**
+     * The keys in heap order.
+     */
+    private int[] heap;
+    /**
+     * The priority of each key, indexed by key.
+     */
+    private double[] priorities;
+    /**
+     * The position of each key in the heap, or -1 if the key is not in the heap.
+     */
+    private int[] positions;
+    private int size;
+
+    /**
+     * Construct an empty IndexedMinHeap.
+     * @param capacity The number of keys that can be stored, e.g. keys must be in the range [0, capacity).
+     */
+    public IndexedMinHeap(int capacity) {
+        heap = new int[capacity];
+        priorities = new double[capacity];
+        positions = new int[capacity];
+        Arrays.fill(positions, -1);
+    }
+
+    /**
+     * Grow this heap so that it can store keys in the range [0, capacity). Does nothing if the heap is large enough.
+     */
+    public void ensureCapacity(int capacity) {
+        if (capacity <= positions.length) return;
+        int oldCapacity = positions.length;
+        heap = Arrays.copyOf(heap, capacity);
+        priorities = Arrays.copyOf(priorities, capacity);
+        positions = Arrays.copyOf(positions, capacity);
+        Arrays.fill(positions, oldCapacity, capacity, -1);
+    }
+
+    /**
+     * Get the number of keys that can be stored in this heap.
+     */
+    public int getCapacity() {
+        return positions.length;
+    }
+
+    /**
+     * Get the number of keys in this heap.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Return whether this heap is empty.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Return whether the given key is in this heap.
+     */
+    public boolean contains(int key) {
+        return key >= 0 && key < positions.length && positions[key] != -1;
+    }
+
+    /**
+     * Get the priority of the given key.
+     * @throws NoSuchElementException if the key is not in this heap.
+     */
+    public double getPriority(int key) {
+        if (!contains(key)) {
+            throw new NoSuchElementException("Key " + key + " is not in the heap");
+        }
+        return priorities[key];
+    }
+
+    /**
+     * Insert the given key, or lower its priority if it is already in this heap.
+     * @param key The key.
+     * @param priority The priority of the key.
+     * @return True if the key was inserted or its priority was lowered, and False if the key is already in the heap
+     * with a priority less than or equal to the given priority.
+     */
+    public boolean insertOrDecrease(int key, double priority) {
+        if (key < 0 || key >= positions.length) {
+            throw new IllegalArgumentException(String.format("Key %d is out of range [0, %d)", key, positions.length));
+        }
+        int position = positions[key];
+        if (position == -1) {
+            heap[size] = key;
+            positions[key] = size;
+            priorities[key] = priority;
+            siftUp(size++);
+            return true;
+        } else if (priority < priorities[key]) {
+            priorities[key] = priority;
+            siftUp(position);
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    /**
+     * Get the key with the lowest priority without removing it.
+     * @throws NoSuchElementException if this heap is empty.
+     */
+    public int peek() {
+        if (size == 0) {
+            throw new NoSuchElementException("The heap is empty");
+        }
+        return heap[0];
+    }
+
+    /**
+     * Remove and return the key with the lowest priority.
+     * @throws NoSuchElementException if this heap is empty.
+     */
+    public int poll() {
+        int key = peek();
+        size--;
+        positions[key] = -1;
+        if (size > 0) {
+            heap[0] = heap[size];
+            positions[heap[0]] = 0;
+            siftDown(0);
+        }
+        return key;
+    }
+
+    /**
+     * Remove all keys from this heap.
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            positions[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    /**
+     * Move the key at the given heap position towards the root until the heap property holds.
+     */
+    private void siftUp(int position) {
+        int key = heap[position];
+        double priority = priorities[key];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            int parentKey = heap[parent];
+            if (priorities[parentKey] <= priority) break;
+            heap[position] = parentKey;
+            positions[parentKey] = position;
+            position = parent;
+        }
+        heap[position] = key;
+        positions[key] = position;
+    }
+
+    /**
+     * Move the key at the given heap position towards the leaves until the heap property holds.
+     */
+    private void siftDown(int position) {
+        int key = heap[position];
+        double priority = priorities[key];
+        int half = size >>> 1;
+        while (position < half) {
+            int child = 2 * position + 1;
+            int right = child + 1;
+            if (right < size && priorities[heap[right]] < priorities[heap[child]]) {
+                child = right;
+            }
+            int childKey = heap[child];
+            if (priority <= priorities[childKey]) break;
+            heap[position] = childKey;
+            positions[childKey] = position;
+            position = child;
+        }
+        heap[position] = key;
+        positions[key] = position;
+    }
+}
@@ -0,0 +1,124 @@
+package utils;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A binary min-heap of integer values ordered by a double priority, which may hold the same value more than once.
+ *
+ * @remark Unlike an IndexedMinHeap, values are not tracked, so there is no decrease-key and no array indexed by value:
+ * the heap takes memory in the number of entries it holds, whatever the range of the values. A search can instead
+ * insert a value again with a lower priority, and skip the stale entries it polls later.
+ */
+public class IntMinHeap {
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * The values and their priorities, in heap order.
+     */
+    private int[] values = new int[INITIAL_CAPACITY];
+    private double[] priorities = new double[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Get the number of entries in this heap.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Return whether this heap is empty.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Get the number of entries this heap can hold before it grows.
+     */
+    public int getCapacity() {
+        return values.length;
+    }
+
+    /**
+     * Insert the given value with the given priority.
+     */
+    public void insert(int value, double priority) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, 2 * size);
+            priorities = Arrays.copyOf(priorities, 2 * size);
+        }
+        int position = size++;
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (priorities[parent] <= priority) break;
+            values[position] = values[parent];
+            priorities[position] = priorities[parent];
+            position = parent;
+        }
+        values[position] = value;
+        priorities[position] = priority;
+    }
+
+    /**
+     * Get the value with the lowest priority without removing it.
+     * @throws NoSuchElementException if this heap is empty.
+     */
+    public int peek() {
+        if (size == 0) {
+            throw new NoSuchElementException("The heap is empty");
+        }
+        return values[0];
+    }
+
+    /**
+     * Get the lowest priority in this heap.
+     * @throws NoSuchElementException if this heap is empty.
+     */
+    public double peekPriority() {
+        peek();
+        return priorities[0];
+    }
+
+    /**
+     * Remove and return the value with the lowest priority.
+     * @throws NoSuchElementException if this heap is empty.
+     */
+    public int poll() {
+        int result = peek();
+        size--;
+        if (size > 0) {
+            siftDown(values[size], priorities[size]);
+        }
+        return result;
+    }
+
+    /**
+     * Remove all entries from this heap.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Place the given entry at the root, then move it down until the heap property holds.
+     */
+    private void siftDown(int value, double priority) {
+        int position = 0;
+        int half = size >>> 1;
+        while (position < half) {
+            int child = 2 * position + 1;
+            int right = child + 1;
+            if (right < size && priorities[right] < priorities[child]) {
+                child = right;
+            }
+            if (priority <= priorities[child]) break;
+            values[position] = values[child];
+            priorities[position] = priorities[child];
+            position = child;
+        }
+        values[position] = value;
+        priorities[position] = priority;
+    }
+}
@@ -0,0 +1,198 @@
+package utils;
+
+import java.util.Arrays;
+
+/**
+ * A hash map from long keys to int values that does not box its keys or values.
+ *
+ * @remark Entries are stored in two parallel arrays with open addressing and linear probing. Removing an entry shifts
+ * the entries after it back into place rather than leaving a tombstone, so the table never fills up with removed
+ * entries. The key Long.MIN_VALUE marks an empty slot, and cannot be stored.
+ */
+public class LongIntHashMap {
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+    /**
+     * The capacity minus one. The capacity is always a power of two.
+     */
+    private int mask;
+
+    /**
+     * Construct an empty LongIntHashMap.
+     */
+    public LongIntHashMap() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * Construct an empty LongIntHashMap with room for the given number of entries before it grows.
+     * @param expectedSize The expected number of entries.
+     */
+    public LongIntHashMap(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    /**
+     * Get the number of entries in this map.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the number of entries this map can hold before it grows, divided by the load factor.
+     */
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Return whether this map has no entries.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Return whether this map has an entry for the given key.
+     */
+    public boolean containsKey(long key) {
+        return find(key) != -1;
+    }
+
+    /**
+     * Get the value of the given key.
+     * @param key The key.
+     * @param defaultValue The value to return if there is no entry for the key.
+     * @return The value of the key, or defaultValue if there is no entry for the key.
+     */
+    public int getOrDefault(long key, int defaultValue) {
+        int slot = find(key);
+        return slot == -1 ? defaultValue : values[slot];
+    }
+
+    /**
+     * Set the value of the given key, replacing any previous value.
+     * @param key The key. This must not be Long.MIN_VALUE.
+     * @param value The value.
+     * @throws IllegalArgumentException if the key is Long.MIN_VALUE.
+     */
+    public void put(long key, int value) {
+        if (key == EMPTY) {
+            throw new IllegalArgumentException("Long.MIN_VALUE cannot be used as a key in a LongIntHashMap");
+        }
+        int slot = slotOf(key);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+        if (size * 4 > keys.length * 3) {
+            rehash(keys.length * 2);
+        }
+    }
+
+    /**
+     * Remove the entry of the given key, if there is one.
+     * @return True if an entry was removed, and False otherwise.
+     */
+    public boolean remove(long key) {
+        int slot = find(key);
+        if (slot == -1) {
+            return false;
+        }
+        // Shift back the entries of the probe sequence after the removed slot that would no longer be reachable
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (keys[next] != EMPTY) {
+            int home = slotOf(keys[next]);
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[gap] = EMPTY;
+        size--;
+        return true;
+    }
+
+    /**
+     * Remove every entry from this map, keeping its capacity.
+     */
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+    }
+
+    /**
+     * Get the slot of the given key, or -1 if there is no entry for it.
+     */
+    private int find(long key) {
+        if (key == EMPTY) {
+            return -1;
+        }
+        int slot = slotOf(key);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Get the first slot to probe for the given key.
+     */
+    private int slotOf(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    /**
+     * Move every entry into new arrays of the given capacity.
+     */
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    /**
+     * Replace the arrays with empty arrays of the given capacity.
+     */
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        values = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Get the smallest power of two capacity that holds the given number of entries below the load factor.
+     */
+    private static int capacityFor(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * 3 < expectedSize * 4) {
+            capacity *= 2;
+        }
+        return capacity;
+    }
+}
@@ -1,9 +1,13 @@
 package utils;
 
 import java.security.SecureRandom;
+import java.util.Random;
 
 /**
  * Random number generation and assorted helper functionality.
+ *
+ * @remark Ids are generated from a SecureRandom unless a source of random numbers is given, e.g. the seeded Random of
+ * a simulation, so that a simulation run with the same seed generates the same ids.
  */
 public class RandomUtils {
     private static final String ALPHA_NUMERIC_CHARACTERS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
@@ -14,6 +18,22 @@ public class RandomUtils {
      * @param n The number of characters in the id.
      */
     public static String randomId(int n) {
+        return randomId(random, n);
+    }
+
+    /**
+     * Generate a random 8-character id.
+     */
+    public static String randomId() {
+        return randomId(8);
+    }
+
+    /**
+     * Generate a random id from the given source of random numbers.
+     * @param random The source of random numbers.
+     * @param n The number of characters in the id.
+     */
+    public static String randomId(Random random, int n) {
         StringBuilder sb = new StringBuilder(n);
         for(int i = 0; i < n; i++) {
             int k = random.nextInt(ALPHA_NUMERIC_CHARACTERS.length());
@@ -24,9 +44,10 @@ public class RandomUtils {
     }
 
     /**
-     * Generate a random 8-character id.
+     * Generate a random 8-character id from the given source of random numbers.
+     * @param random The source of random numbers.
      */
-    public static String randomId() {
-        return randomId(8);
+    public static String randomId(Random random) {
+        return randomId(random, 8);
     }
 }
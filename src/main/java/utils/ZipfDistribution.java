@@ -0,0 +1,78 @@
+package utils;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * A Zipf distribution over the ranks [0, n), where rank k is drawn with probability proportional to 1 / (k + 1)^s.
+ *
+ * @remark An exponent of 0 gives a uniform distribution, and larger exponents concentrate the draws on the first
+ * ranks, e.g. an exponent of about 1 matches the popularity of products in many warehouses. Draws take O(log n) time,
+ * by binary search over the cumulative probabilities.
+ */
+public class ZipfDistribution {
+    private final double exponent;
+    /**
+     * The cumulative probability of each rank, with the last equal to 1.
+     */
+    private final double[] cumulative;
+
+    /**
+     * Construct a ZipfDistribution.
+     * @param n The number of ranks.
+     * @param exponent The exponent s, which controls the skew of the distribution.
+     * @throws IllegalArgumentException if n is not positive or the exponent is negative.
+     */
+    public ZipfDistribution(int n, double exponent) {
+        if (n <= 0) {
+            throw new IllegalArgumentException(String.format("Number of ranks must be positive, but got %d", n));
+        }
+        if (!(exponent >= 0) || Double.isInfinite(exponent)) {
+            throw new IllegalArgumentException(String.format("Exponent must be non-negative, but got %s", exponent));
+        }
+        this.exponent = exponent;
+        this.cumulative = new double[n];
+        double total = 0;
+        for (int k = 0; k < n; k++) {
+            total += Math.pow(k + 1, -exponent);
+            cumulative[k] = total;
+        }
+        for (int k = 0; k < n; k++) {
+            cumulative[k] /= total;
+        }
+        cumulative[n - 1] = 1;
+    }
+
+    /**
+     * Draw a rank.
+     * @param random The source of random numbers.
+     * @return A rank in the range [0, getSize()).
+     */
+    public int sample(Random random) {
+        int k = Arrays.binarySearch(cumulative, random.nextDouble());
+        // A miss gives -(insertion point) - 1, and the insertion point is the first rank above the draw
+        return k >= 0 ? k + 1 : -k - 1;
+    }
+
+    /**
+     * Get the probability of drawing the given rank.
+     * @param k The rank, in the range [0, getSize()).
+     */
+    public double getProbability(int k) {
+        return k == 0 ? cumulative[0] : cumulative[k] - cumulative[k - 1];
+    }
+
+    /**
+     * Get the number of ranks.
+     */
+    public int getSize() {
+        return cumulative.length;
+    }
+
+    /**
+     * Get the exponent of this distribution.
+     */
+    public double getExponent() {
+        return exponent;
+    }
+}
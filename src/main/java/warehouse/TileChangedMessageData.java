@@ -0,0 +1,37 @@
+package warehouse;
+
+import warehouse.tiles.Tile;
+
+/**
+ * Data for the onTileChanged message on the WarehouseLayout.
+ */
+public class TileChangedMessageData {
+    private final int index;
+    private final Tile previousTile;
+    private final Tile tile;
+
+    /**
+     * Construct TileChangedMessageData given the changed tile index and the Tiles before and after the change.
+     *
+     * @param index The tile index that was changed.
+     * @param previousTile The Tile that was previously at the tile index.
+     * @param tile The Tile that is now at the tile index.
+     */
+    public TileChangedMessageData(int index, Tile previousTile, Tile tile) {
+        this.index = index;
+        this.previousTile = previousTile;
+        this.tile = tile;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public Tile getPreviousTile() {
+        return previousTile;
+    }
+
+    public Tile getTile() {
+        return tile;
+    }
+}
@@ -1,20 +1,43 @@
 package warehouse;
 
+import messaging.MessageListener;
+import utils.RandomUtils;
 import warehouse.geometry.WarehouseCoordinate;
 import warehouse.geometry.WarehouseCoordinateSystem;
 import warehouse.inventory.Item;
-import warehouse.logistics.assignment.BasicRackAssignmentPolicy;
 import warehouse.logistics.assignment.BasicReceiveDepotAssignmentPolicy;
 import warehouse.logistics.assignment.BasicShipDepotAssignmentPolicy;
+import warehouse.logistics.assignment.IndexedRackAssignmentPolicy;
+import warehouse.logistics.assignment.NearestRackAssignmentPolicy;
+import warehouse.logistics.assignment.RackCapacityIndex;
 import warehouse.logistics.assignment.StorageTileAssignmentPolicy;
+import warehouse.logistics.optimization.routefinding.cooperative.ConflictBasedSearch;
+import warehouse.logistics.optimization.routefinding.cooperative.MultiAgentPlan;
+import warehouse.logistics.orders.BatchOrderMatchingStrategy;
+import warehouse.logistics.orders.GreedyOrderMatchingStrategy;
+import warehouse.logistics.orders.Order;
 import warehouse.logistics.orders.OrderMatcher;
 import warehouse.logistics.orders.PlaceOrder;
+import warehouse.logistics.orders.RouteDistanceOrderHandlerCostFunction;
+import warehouse.logistics.orders.RouteDistanceOrderHandlerSelectionPolicy;
+import warehouse.robots.Robot;
+import warehouse.storage.StorageUnitItemMessageData;
 import warehouse.tiles.Rack;
 import warehouse.tiles.ReceiveDepot;
 import warehouse.tiles.ShipDepot;
+import warehouse.tiles.Tile;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
 
 /**
  * The main level controller for the Warehouse.
+ *
+ * @remark While Orders are matched in batches, the first legs of each batch are planned jointly with a
+ * ConflictBasedSearch, and every Robot of the batch is given its route, so that Robots starting together do not run
+ * into each other. Robots moved by the cooperative planner of the WarehouseState are not given routes.
  */
 public class Warehouse<T extends WarehouseCoordinateSystem<U>, U extends WarehouseCoordinate> {
     private final WarehouseState<T, U> state;
@@ -24,6 +47,19 @@ public class Warehouse<T extends WarehouseCoordinateSystem<U>, U extends Warehou
     private final StorageTileAssignmentPolicy<ShipDepot> shipDepotAssignmentPolicy;
     private final StorageTileAssignmentPolicy<Rack> rackAssignmentPolicy;
 
+    /**
+     * Invalidates the order queue when an Item is removed from a Rack, since that may make Orders ready.
+     */
+    private final MessageListener<StorageUnitItemMessageData> itemRemovedListener;
+    /**
+     * The planner of the first legs of batches of Orders, created when first needed.
+     */
+    private ConflictBasedSearch<T, U> batchPlanner;
+    /**
+     * The source of the ids of the Orders this Warehouse creates.
+     */
+    private Random idRandom = new SecureRandom();
+
     /**
      * Construct a Warehouse.
      * @param state The warehouse state.
@@ -37,29 +73,83 @@ public class Warehouse<T extends WarehouseCoordinateSystem<U>, U extends Warehou
                      StorageTileAssignmentPolicy<Rack> rackAssignmentPolicy)
     {
         this.state = state;
-        this.orderMatcher = new OrderMatcher(state.getOrderQueue(), state.getRobotMapper());
+        this.orderMatcher = new OrderMatcher(state.getOrderQueue(), state.getRobotMapper(),
+                new GreedyOrderMatchingStrategy(), new RouteDistanceOrderHandlerCostFunction(this));
+        orderMatcher.addSelectionPolicy(PlaceOrder.class, new RouteDistanceOrderHandlerSelectionPolicy<>(this));
         // Assignment policies
         this.receiveDepotAssignmentPolicy = receiveDepotAssignmentPolicy;
         this.shipDepotAssignmentPolicy = shipDepotAssignmentPolicy;
         this.rackAssignmentPolicy = rackAssignmentPolicy;
+
+        // Orders waiting for space in a Rack can only become ready when a Tile is set or an Item is removed from a
+        // Rack, so Items leaving depots do not wake them
+        this.itemRemovedListener = data -> state.getOrderQueue().invalidate();
+        for (Rack rack : state.getLayout().findTilesOfType(Rack.class)) {
+            rack.getStorageUnit().getOnItemRemovedMessage().addListener(itemRemovedListener);
+        }
+        state.getLayout().getOnTileChangedMessage().addListener(this::onTileChanged);
+        orderMatcher.getOnMatched().addListener(this::onMatched);
     }
 
     /**
-     * Construct a Warehouse with basic assignment policies.
+     * Construct a Warehouse with basic assignment policies, and a Rack assignment policy that prefers the Rack nearest
+     * to where an Item comes from, falling back to an indexed Rack assignment policy. The table of travel distances
+     * the Rack assignment policy uses is only created on its first lookup with an origin.
      * @param state The warehouse state to manage.
      */
     public Warehouse(WarehouseState<T, U> state) {
         this(state,
                 new BasicReceiveDepotAssignmentPolicy(),
                 new BasicShipDepotAssignmentPolicy(),
-                new BasicRackAssignmentPolicy());
+                new NearestRackAssignmentPolicy(state::getKeyTileDistanceTable, state.getLayout(),
+                        new IndexedRackAssignmentPolicy(new RackCapacityIndex(state.getLayout()))));
+    }
+
+    /**
+     * Called when a Tile is set in the layout of this Warehouse.
+     */
+    private void onTileChanged(TileChangedMessageData data) {
+        if (data.getPreviousTile() instanceof Rack) {
+            ((Rack) data.getPreviousTile()).getStorageUnit().getOnItemRemovedMessage()
+                    .removeListener(itemRemovedListener);
+        }
+        if (data.getTile() instanceof Rack) {
+            ((Rack) data.getTile()).getStorageUnit().getOnItemRemovedMessage().addListener(itemRemovedListener);
+        }
+        state.getOrderQueue().invalidate();
+    }
+
+    /**
+     * Called when the OrderMatcher assigned Orders, with the Orders it assigned.
+     */
+    private void onMatched(List<Order> orders) {
+        if (!(orderMatcher.getMatchingStrategy() instanceof BatchOrderMatchingStrategy)
+                || state.isCooperativePlanningEnabled()) {
+            return;
+        }
+        if (batchPlanner == null) {
+            batchPlanner = new ConflictBasedSearch<>(state);
+        }
+        MultiAgentPlan plan = batchPlanner.planOrders(orders);
+        for (Robot robot : plan.getRobots()) {
+            List<Tile> route = new ArrayList<>();
+            for (int index : plan.getRoute(robot)) {
+                route.add(state.getLayout().getTileAt(index));
+            }
+            robot.setPlannedRoute(route);
+        }
     }
 
     /**
      * Update the Warehouse for this timestep.
      */
     public void update() {
+        WarehouseMetrics metrics = state.getMetrics();
+        int matchedOrderCount = orderMatcher.getMatchedOrderCount();
+        long start = metrics.getMatchTimer().start();
         orderMatcher.match();
+        metrics.getMatchTimer().stop(start);
+        metrics.getOrdersMatched().add(orderMatcher.getMatchedOrderCount() - matchedOrderCount);
     }
 
     /**
@@ -76,12 +166,29 @@ public class Warehouse<T extends WarehouseCoordinateSystem<U>, U extends Warehou
             return null;
         } else {
             receiveDepot.getStorageUnit().addItem(item);
-            PlaceOrder order = new PlaceOrder(receiveDepot, item, state.getLayout(), rackAssignmentPolicy);
+            PlaceOrder order = new PlaceOrder(RandomUtils.randomId(idRandom), receiveDepot, item, state.getLayout(),
+                    rackAssignmentPolicy);
             state.getOrderQueue().add(order);
             return order;
         }
     }
 
+    /**
+     * Get the OrderMatcher of this Warehouse, e.g. to change its matching strategy.
+     */
+    public OrderMatcher getOrderMatcher() {
+        return orderMatcher;
+    }
+
+    /**
+     * Set the source of the random ids of the Orders this Warehouse creates from now on, e.g. a seeded Random so that
+     * a simulation run with the same seed creates the same Orders. This is a SecureRandom by default.
+     * @param idRandom The source of random numbers.
+     */
+    public void setIdRandom(Random idRandom) {
+        this.idRandom = idRandom;
+    }
+
     /**
      * Get the warehouse state for this Warehouse.
      */
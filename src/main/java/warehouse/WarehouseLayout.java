@@ -1,29 +1,92 @@
 package warehouse;
 
+import messaging.Message;
 import warehouse.geometry.WarehouseCoordinateSystem;
 import warehouse.tiles.EmptyTile;
 import warehouse.tiles.EmptyTileChecker;
+import warehouse.tiles.Rack;
+import warehouse.tiles.ReceiveDepot;
+import warehouse.tiles.ShipDepot;
+import warehouse.tiles.StorageTile;
 import warehouse.tiles.Tile;
+import warehouse.tiles.containers.InMemoryTileContainer;
+import warehouse.tiles.containers.TileContainer;
 import warehouse.geometry.WarehouseCoordinate;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 /**
  * A 2D representation of a warehouse as a grid of Tiles.
+ *
+ * @remark For each Tile type that has been looked up (and the common types StorageTile, Rack, ReceiveDepot and
+ * ShipDepot), the layout keeps the set of tile indices holding a Tile of that type, updated as Tiles are set.
+ * Streaming or counting the Tiles of a type therefore neither copies nor checks every Tile of the layout.
+ *
+ * The Tiles themselves are kept in a TileContainer, e.g. a CompactTileContainer or ChunkedTileContainer for very large
+ * layouts. Indexing a type that EmptyTiles do not belong to only visits the occupied tiles of the container, so a
+ * layout over a sparse container is created without visiting every tile.
  */
 public class WarehouseLayout<T extends WarehouseCoordinate> implements EmptyTileChecker {
     private final WarehouseCoordinateSystem<T> coordinateSystem;
-    private final List<Tile> tiles;
+    private final TileContainer tiles;
+    private final List<Tile> tilesView;
+    /**
+     * The tile indices of the Tiles of each indexed type.
+     */
+    private final Map<Class<?>, BitSet> typeIndices;
 
+    private final Message<TileChangedMessageData> onTileChangedMessage;
+    /**
+     * The number of times a Tile has been set in this layout.
+     */
+    private long version;
+
+    /**
+     * Construct an empty WarehouseLayout, keeping a Tile object for every tile.
+     * @param coordinateSystem The coordinate system of the layout.
+     */
     public WarehouseLayout(WarehouseCoordinateSystem<T> coordinateSystem) {
-        this.coordinateSystem = coordinateSystem;
-        int size = coordinateSystem.getSize();
-        this.tiles = new ArrayList<>(size);
-        // Initialises tiles
-        for (int i = 0; i < size; i++) {
-            tiles.add(new EmptyTile(i));
+        this(coordinateSystem, new InMemoryTileContainer(coordinateSystem.getSize()));
+    }
+
+    /**
+     * Construct a WarehouseLayout with the given TileContainer.
+     * @param coordinateSystem The coordinate system of the layout.
+     * @param tiles The container of the Tiles of the layout, with one Tile for every tile index.
+     * @throws IllegalArgumentException if the size of the container does not match the coordinate system.
+     */
+    public WarehouseLayout(WarehouseCoordinateSystem<T> coordinateSystem, TileContainer tiles) {
+        if (tiles.getSize() != coordinateSystem.getSize()) {
+            throw new IllegalArgumentException(String.format(
+                    "The TileContainer has %d tiles, but the coordinate system has %d",
+                    tiles.getSize(), coordinateSystem.getSize()));
         }
+        this.coordinateSystem = coordinateSystem;
+        this.onTileChangedMessage = new Message<>();
+        this.tiles = tiles;
+        this.tilesView = new AbstractList<>() {
+            @Override
+            public Tile get(int index) {
+                return tiles.get(index);
+            }
+
+            @Override
+            public int size() {
+                return tiles.getSize();
+            }
+        };
+        this.typeIndices = new HashMap<>();
+        getTypeIndices(StorageTile.class);
+        getTypeIndices(Rack.class);
+        getTypeIndices(ReceiveDepot.class);
+        getTypeIndices(ShipDepot.class);
     }
 
     /**
@@ -45,7 +108,7 @@ public class WarehouseLayout<T extends WarehouseCoordinate> implements EmptyTile
      * @return the Tile at the given tile index, or null if the coordinates are invalid.
      */
     public Tile getTileAt(int index) {
-        if (index >= 0 && index < getTiles().size()) {
+        if (index >= 0 && index < tiles.getSize()) {
             return tiles.get(index);
         } else {
             return null;
@@ -72,33 +135,93 @@ public class WarehouseLayout<T extends WarehouseCoordinate> implements EmptyTile
      */
     public void setTileAt(int index, Tile tile) {
         if (tile == null) return;
-        if (index >= 0 && index <= tiles.size()) {
-            tiles.set(index, tile);
+        if (index >= 0 && index < tiles.getSize()) {
+            Tile previousTile = tiles.set(index, tile);
             tile.setIndex(index);
+            version++;
+            for (Map.Entry<Class<?>, BitSet> entry : typeIndices.entrySet()) {
+                if (entry.getKey().isInstance(previousTile)) {
+                    entry.getValue().clear(index);
+                }
+                if (entry.getKey().isInstance(tile)) {
+                    entry.getValue().set(index);
+                }
+            }
+            onTileChangedMessage.execute(new TileChangedMessageData(index, previousTile, tile));
         }
     }
 
+    /**
+     * Get the version of this layout, which increases every time a Tile is set. Anything computed from the layout
+     * (e.g. a route) is still valid if the version has not changed since.
+     */
+    public long getVersion() {
+        return version;
+    }
+
     /**
      * Find all tiles of Type clazz in this WarehouseLayout.
      * @param clazz The type of the Tile to find.
-     * @return A List of Tile objects.
+     * @return A List of Tile objects, in order of tile index.
      */
     public <U extends Tile> List<U> findTilesOfType(Class<U> clazz) {
-        List<U> tiles = new ArrayList<>();
-        for (Tile tile : getTiles()) {
-            if (clazz.isInstance(tile)) {
-                tiles.add(clazz.cast(tile));
-            }
+        List<U> tiles = new ArrayList<>(countTilesOfType(clazz));
+        BitSet indices = getTypeIndices(clazz);
+        for (int i = indices.nextSetBit(0); i >= 0; i = indices.nextSetBit(i + 1)) {
+            tiles.add(clazz.cast(this.tiles.get(i)));
         }
         return tiles;
     }
 
+    /**
+     * Stream the tiles of Type clazz in this WarehouseLayout, without copying them.
+     * @param clazz The type of the Tile to find.
+     * @return A Stream of Tile objects, in order of tile index. The layout must not be changed while it is consumed.
+     */
+    public <U extends Tile> Stream<U> streamTilesOfType(Class<U> clazz) {
+        return getTypeIndices(clazz).stream().mapToObj(i -> clazz.cast(tiles.get(i)));
+    }
+
+    /**
+     * Count the tiles of Type clazz in this WarehouseLayout.
+     * @param clazz The type of the Tile to count.
+     * @return The number of Tiles of the given type.
+     */
+    public int countTilesOfType(Class<? extends Tile> clazz) {
+        return getTypeIndices(clazz).cardinality();
+    }
+
+    /**
+     * Get the tile indices of the Tiles of the given type, indexing the type if it is not indexed yet.
+     */
+    private BitSet getTypeIndices(Class<?> clazz) {
+        BitSet indices = typeIndices.get(clazz);
+        if (indices == null) {
+            BitSet newIndices = new BitSet();
+            IntStream candidates = clazz.isAssignableFrom(EmptyTile.class)
+                    ? IntStream.range(0, tiles.getSize())
+                    : tiles.streamOccupiedIndices();
+            candidates.filter(i -> clazz.isAssignableFrom(tiles.getTileClass(i))).forEach(newIndices::set);
+            typeIndices.put(clazz, newIndices);
+            indices = newIndices;
+        }
+        return indices;
+    }
+
     /**
      * Project this WarehouseLayout to a single dimension.
-     * @return the Tiles of this Warehouse projected to a single dimension.
+     * @return a copy of the Tiles of this Warehouse projected to a single dimension.
      */
     public List<Tile> getTiles() {
-        return new ArrayList<>(tiles);
+        return new ArrayList<>(tilesView);
+    }
+
+    /**
+     * Get a read-only view of the Tiles of this WarehouseLayout, projected to a single dimension.
+     * @return the Tiles of this Warehouse, indexed by tile index. The view reflects later changes to the layout.
+     */
+    public List<Tile> getTilesView() {
+        return tilesView;
     }
 
     /**
@@ -111,6 +234,21 @@ public class WarehouseLayout<T extends WarehouseCoordinate> implements EmptyTile
         return tile instanceof EmptyTile;
     }
 
+    /**
+     * This event is called when a Tile in this WarehouseLayout is set.
+     */
+    public Message<TileChangedMessageData> getOnTileChangedMessage() {
+        return onTileChangedMessage;
+    }
+
+    /**
+     * Get the container of the Tiles of this WarehouseLayout, e.g. to visit the populated chunks of a
+     * ChunkedTileContainer. Tiles must be set through the layout, not the container.
+     */
+    public TileContainer getTileContainer() {
+        return tiles;
+    }
+
     /**
      * Get the coordinate system.
      */
@@ -0,0 +1,154 @@
+package warehouse;
+
+import metrics.Counter;
+import metrics.MetricsRegistry;
+import metrics.Timer;
+import warehouse.geometry.WarehouseCoordinate;
+import warehouse.geometry.WarehouseCoordinateSystem;
+import warehouse.logistics.orders.OrderLifecycleStage;
+import warehouse.logistics.orders.OrderLifecycleTracker;
+import warehouse.robots.Robot;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The metrics of the update loop of a Warehouse: how long each phase of a tick takes, how much work it does, and how
+ * busy the Warehouse is.
+ *
+ * @remark Metrics are recorded in a MetricsRegistry, which is disabled until getRegistry().setEnabled(true) is called.
+ * The timers are:
+ * <ul>
+ *     <li>tick: a whole tick of a SimulationEngine;</li>
+ *     <li>match: matching Orders to Robots in Warehouse.update;</li>
+ *     <li>robots.update: updating every RobotAdapter for a time step, made up of</li>
+ *     <li>robots.prepare: the prepare phase, which may run in parallel, and</li>
+ *     <li>robots.commit: the commit phase;</li>
+ *     <li>route: planning one route for a Robot.</li>
+ * </ul>
+ * The counters are orders.matched, routes.planned and nodes.expanded (by searches that use the SearchBuffers of their
+ * thread). The gauges are orders.queued, the number of Orders waiting to be matched, robots.utilisation, the
+ * fraction of Robots with an Order, and, from the OrderLifecycleTracker of the state, orders.throughput in Orders per
+ * minute and the 50th and 99th percentile of each OrderLifecycleStage in nanoseconds, e.g. orders.queue_wait.p99.
+ */
+public class WarehouseMetrics {
+    private final MetricsRegistry registry;
+    private final Timer tickTimer;
+    private final Timer matchTimer;
+    private final Timer robotUpdateTimer;
+    private final Timer robotPrepareTimer;
+    private final Timer robotCommitTimer;
+    private final Timer routeTimer;
+    private final Counter ordersMatched;
+    private final Counter routesPlanned;
+    private final Counter nodesExpanded;
+
+    /**
+     * Construct WarehouseMetrics for the given state, with a disabled registry.
+     * @param state The state of the Warehouse.
+     */
+    public <T extends WarehouseCoordinateSystem<U>, U extends WarehouseCoordinate> WarehouseMetrics(
+            WarehouseState<T, U> state) {
+        registry = new MetricsRegistry();
+        tickTimer = registry.timer("tick");
+        matchTimer = registry.timer("match");
+        robotUpdateTimer = registry.timer("robots.update");
+        robotPrepareTimer = registry.timer("robots.prepare");
+        robotCommitTimer = registry.timer("robots.commit");
+        routeTimer = registry.timer("route");
+        ordersMatched = registry.counter("orders.matched");
+        routesPlanned = registry.counter("routes.planned");
+        nodesExpanded = registry.counter("nodes.expanded");
+        registry.gauge("orders.queued", () -> state.getOrderQueue().size());
+        registry.gauge("robots.utilisation", () -> {
+            List<Robot> robots = state.getRobotMapper().getRobots();
+            if (robots.isEmpty()) {
+                return 0;
+            }
+            int busy = 0;
+            for (Robot robot : robots) {
+                if (robot.getIsBusy()) {
+                    busy++;
+                }
+            }
+            return (double) busy / robots.size();
+        });
+        OrderLifecycleTracker orderLifecycleTracker = state.getOrderLifecycleTracker();
+        registry.gauge("orders.throughput", orderLifecycleTracker::getThroughput);
+        for (OrderLifecycleStage stage : OrderLifecycleStage.values()) {
+            String name = "orders." + stage.name().toLowerCase(Locale.ROOT);
+            registry.gauge(name + ".p50", () -> orderLifecycleTracker.getPercentile(stage, 50));
+            registry.gauge(name + ".p99", () -> orderLifecycleTracker.getPercentile(stage, 99));
+        }
+    }
+
+    /**
+     * Get the registry the metrics are recorded in, e.g. to enable it or add exporters.
+     */
+    public MetricsRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * Get the timer of whole ticks.
+     */
+    public Timer getTickTimer() {
+        return tickTimer;
+    }
+
+    /**
+     * Get the timer of matching Orders to Robots.
+     */
+    public Timer getMatchTimer() {
+        return matchTimer;
+    }
+
+    /**
+     * Get the timer of updating every RobotAdapter for a time step.
+     */
+    public Timer getRobotUpdateTimer() {
+        return robotUpdateTimer;
+    }
+
+    /**
+     * Get the timer of the prepare phase of updating RobotAdapters.
+     */
+    public Timer getRobotPrepareTimer() {
+        return robotPrepareTimer;
+    }
+
+    /**
+     * Get the timer of the commit phase of updating RobotAdapters.
+     */
+    public Timer getRobotCommitTimer() {
+        return robotCommitTimer;
+    }
+
+    /**
+     * Get the timer of planning one route.
+     */
+    public Timer getRouteTimer() {
+        return routeTimer;
+    }
+
+    /**
+     * Get the counter of Orders matched to Robots.
+     */
+    public Counter getOrdersMatched() {
+        return ordersMatched;
+    }
+
+    /**
+     * Get the counter of routes planned.
+     */
+    public Counter getRoutesPlanned() {
+        return routesPlanned;
+    }
+
+    /**
+     * Get the counter of nodes expanded by route searches.
+     */
+    public Counter getNodesExpanded() {
+        return nodesExpanded;
+    }
+}
@@ -2,22 +2,59 @@ package warehouse;
 
 import warehouse.geometry.WarehouseCoordinateSystem;
 import warehouse.inventory.PartCatalogue;
+import warehouse.logistics.optimization.distances.DistanceFieldCache;
+import warehouse.logistics.optimization.distances.KeyTileDistanceTable;
+import warehouse.logistics.optimization.graph.TileGraph;
+import warehouse.logistics.optimization.graph.converters.IncrementalWarehouseGraph;
+import warehouse.logistics.optimization.graph.converters.SimpleWarehouseGraphConverter;
+import warehouse.logistics.optimization.routefinding.cooperative.CooperativePlanner;
+import warehouse.logistics.orders.OrderLifecycleTracker;
 import warehouse.logistics.orders.OrderQueue;
 import warehouse.robots.RobotAdapterFactory;
 import warehouse.robots.RobotAdapterUpdater;
 import warehouse.robots.RobotMapper;
 import warehouse.geometry.WarehouseCoordinate;
 
+import java.util.function.LongSupplier;
+
 /**
  * State of the warehouse.
  */
 public class WarehouseState<T extends WarehouseCoordinateSystem<U>, U extends WarehouseCoordinate> {
+    /**
+     * The maximum number of distance fields kept by the distance field cache.
+     */
+    private static final int DISTANCE_FIELD_CACHE_SIZE = 16;
+
     private final T coordinateSystem;
     private final PartCatalogue partCatalogue;
     private final WarehouseLayout<U> warehouseLayout;
     private final RobotMapper<U> robotMapper;
     private final RobotAdapterUpdater<T, U> robotAdapterUpdater;
     private final OrderQueue orderQueue;
+    private final OrderLifecycleTracker orderLifecycleTracker;
+    private final WarehouseMetrics metrics;
+    /**
+     * The clock of this warehouse, in nanoseconds.
+     */
+    private LongSupplier clock = System::nanoTime;
+    /**
+     * The routing graph of this warehouse, created when first requested.
+     */
+    private IncrementalWarehouseGraph<T, U> routingGraph;
+    /**
+     * The distances between key tiles of this warehouse, created when first requested.
+     */
+    private KeyTileDistanceTable<T, U> keyTileDistanceTable;
+    /**
+     * The distance fields of recently used targets in this warehouse, created when first requested.
+     */
+    private DistanceFieldCache<T, U> distanceFieldCache;
+    /**
+     * The planner of collision-free routes for the robots of this warehouse, created when first requested.
+     */
+    private CooperativePlanner<T, U> cooperativePlanner;
+    private boolean cooperativePlanningEnabled;
 
     /**
      * Construct a WarehouseState.
@@ -43,6 +80,9 @@ public class WarehouseState<T extends WarehouseCoordinateSystem<U>, U extends Wa
             this.robotAdapterUpdater = null;
         }
         this.orderQueue = orderQueue;
+        this.orderLifecycleTracker = new OrderLifecycleTracker(() -> clock.getAsLong());
+        orderLifecycleTracker.attach(orderQueue);
+        this.metrics = new WarehouseMetrics(this);
         // Verify coordinate systems match!
         assert warehouseLayout.getCoordinateSystem().equals(coordinateSystem);
         assert robotMapper.getCoordinateSystem().equals(coordinateSystem);
@@ -71,4 +111,98 @@ public class WarehouseState<T extends WarehouseCoordinateSystem<U>, U extends Wa
     public OrderQueue getOrderQueue() {
         return orderQueue;
     }
+
+    /**
+     * Get the tracker of the time Orders in the order queue spend in each stage of their lifecycle, and of their
+     * throughput.
+     */
+    public OrderLifecycleTracker getOrderLifecycleTracker() {
+        return orderLifecycleTracker;
+    }
+
+    /**
+     * Get the clock of this warehouse, which the order lifecycle tracker reads and stamps queued Orders with.
+     */
+    public LongSupplier getClock() {
+        return clock;
+    }
+
+    /**
+     * Set the clock of this warehouse, e.g. the simulated time of a SimulationEngine. This is System.nanoTime by
+     * default. Orders already queued read the new clock too, so their timings are only meaningful if the clock is set
+     * before Orders are queued.
+     * @param clock A function that returns the current time, in nanoseconds.
+     */
+    public void setClock(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Get the metrics of the update loop of this warehouse. They are not recorded until enabled.
+     */
+    public WarehouseMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Get the routing graph of this warehouse. The graph is converted when first requested, and is then kept up to
+     * date as the layout changes, so it is cheap to call this method repeatedly.
+     */
+    public TileGraph getRoutingGraph() {
+        if (routingGraph == null) {
+            routingGraph = new IncrementalWarehouseGraph<>(this, new SimpleWarehouseGraphConverter<>());
+        }
+        return routingGraph.getGraph();
+    }
+
+    /**
+     * Get the table of travel distances between the key tiles of this warehouse. The table is created when first
+     * requested, and is then kept up to date as the layout changes.
+     */
+    public KeyTileDistanceTable<T, U> getKeyTileDistanceTable() {
+        if (keyTileDistanceTable == null) {
+            keyTileDistanceTable = new KeyTileDistanceTable<>(this);
+        }
+        return keyTileDistanceTable;
+    }
+
+    /**
+     * Get the cache of distance fields of this warehouse. The cache is created when first requested, and discards the
+     * fields affected by each change to the layout.
+     */
+    public DistanceFieldCache<T, U> getDistanceFieldCache() {
+        if (distanceFieldCache == null) {
+            distanceFieldCache = new DistanceFieldCache<>(this, DISTANCE_FIELD_CACHE_SIZE);
+        }
+        return distanceFieldCache;
+    }
+
+    /**
+     * Get the planner of collision-free routes for the robots of this warehouse. The planner is created when first
+     * requested, and plans for every robot in the robot mapper.
+     */
+    public CooperativePlanner<T, U> getCooperativePlanner() {
+        if (cooperativePlanner == null) {
+            cooperativePlanner = new CooperativePlanner<>(this);
+        }
+        return cooperativePlanner;
+    }
+
+    /**
+     * Return whether the robots of this warehouse are moved by its cooperative planner, rather than each following a
+     * route of its own.
+     */
+    public boolean isCooperativePlanningEnabled() {
+        return cooperativePlanningEnabled;
+    }
+
+    /**
+     * Set whether the robots of this warehouse are moved by its cooperative planner. While enabled, the robot adapter
+     * updater advances the planner after every update, and robot adapters give the planner the goals of their robots
+     * instead of moving them.
+     * @param cooperativePlanningEnabled True to move robots with the cooperative planner.
+     */
+    public void setCooperativePlanningEnabled(boolean cooperativePlanningEnabled) {
+        this.cooperativePlanningEnabled = cooperativePlanningEnabled;
+    }
 }
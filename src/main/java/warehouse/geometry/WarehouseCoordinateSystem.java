@@ -2,6 +2,7 @@ package warehouse.geometry;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.IntConsumer;
 
 /**
  * The coordinate system defining a Warehouse. This is a vector space containing all the coordinates that can be used
@@ -84,6 +85,51 @@ public interface WarehouseCoordinateSystem<T extends WarehouseCoordinate> {
         return neighbours;
     }
 
+    /**
+     * Get the largest number of neighbours any tile index can have, e.g. the length of a buffer that is large enough
+     * for every call to getNeighbours(int, int[]).
+     */
+    default int getMaxNeighbourCount() {
+        return getSize() == 0 ? 0 : getNeighbours(0).size();
+    }
+
+    /**
+     * Write the neighbouring tile indices of the given tile index into the given buffer, skipping neighbours that are
+     * not in this coordinate system.
+     * @remark Neighbours are written in the same order as getNeighbours(int) returns them. Implementations should
+     * override this to avoid creating coordinates, since it is called in the inner loops of graph conversion and
+     * routefinding.
+     * @param index The tile index whose neighbours to find.
+     * @param buffer The buffer to write the neighbours into. This must hold at least getMaxNeighbourCount() elements.
+     * @return The number of neighbours written, or 0 if the given tile index is unassociated.
+     */
+    default int getNeighbours(int index, int[] buffer) {
+        if (projectIndexToCoordinate(index) == null) {
+            return 0;
+        }
+        int count = 0;
+        for (int neighbour : getNeighbours(index)) {
+            if (neighbour != -1) {
+                buffer[count++] = neighbour;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Call the given consumer with each neighbouring tile index of the given tile index that is in this coordinate
+     * system, in the same order as getNeighbours(int).
+     * @param index The tile index whose neighbours to visit.
+     * @param consumer The consumer to call with each neighbour.
+     */
+    default void forEachNeighbour(int index, IntConsumer consumer) {
+        int[] buffer = new int[getMaxNeighbourCount()];
+        int count = getNeighbours(index, buffer);
+        for (int k = 0; k < count; k++) {
+            consumer.accept(buffer[k]);
+        }
+    }
+
     /**
      * Get the distance between the two coordinates. This function should be a metric.
      * See https://en.wikipedia.org/wiki/Metric_(mathematics) for more details.
@@ -104,4 +150,17 @@ public interface WarehouseCoordinateSystem<T extends WarehouseCoordinate> {
         T p2 = projectIndexToCoordinate(i2);
         return getDistance(p1, p2);
     }
+
+    /**
+     * Get an estimate of the length of a route between the two tile indices that moves between neighbouring tiles.
+     * @remark The estimate must never exceed the length of the shortest such route when moves cost getDistance, so
+     * that it can be used as an A* heuristic. Implementations should return the tightest such estimate they can, since
+     * the closer the estimate, the fewer nodes a search expands.
+     * @param i1 The start tile index.
+     * @param i2 The end tile index.
+     * @return An admissible estimate of the route length between i1 and i2. By default, this is getDistance(i1, i2).
+     */
+    default double getHeuristicDistance(int i1, int i2) {
+        return getDistance(i1, i2);
+    }
 }
@@ -0,0 +1,84 @@
+package warehouse.geometry.grid;
+
+/**
+ * A distance metric on the tiles of a grid, computed from the differences between the x and y coordinates of two
+ * tiles.
+ *
+ * @remark A metric is an admissible routefinding heuristic if it never overestimates the length of a route. With
+ * cardinal neighbours only, MANHATTAN is the length of a shortest route on an open grid; with diagonal neighbours,
+ * OCTILE is. Both are therefore the tightest admissible heuristics for their neighbour mode, while EUCLIDEAN and
+ * CHEBYSHEV are admissible in either mode but looser. SQUARED_EUCLIDEAN is not admissible, and is only meant for
+ * comparing distances.
+ */
+public enum GridDistanceMetric {
+    /**
+     * The straight-line distance between two tiles.
+     */
+    EUCLIDEAN {
+        @Override
+        public double getDistance(int dx, int dy) {
+            return Math.sqrt((double) dx * dx + (double) dy * dy);
+        }
+    },
+    /**
+     * The square of the straight-line distance between two tiles. This orders tiles the same way as EUCLIDEAN, without
+     * taking a square root.
+     */
+    SQUARED_EUCLIDEAN {
+        @Override
+        public double getDistance(int dx, int dy) {
+            return (double) dx * dx + (double) dy * dy;
+        }
+    },
+    /**
+     * The number of cardinal moves between two tiles.
+     */
+    MANHATTAN {
+        @Override
+        public double getDistance(int dx, int dy) {
+            return Math.abs(dx) + Math.abs(dy);
+        }
+    },
+    /**
+     * The length of the shortest route between two tiles when cardinal moves cost 1 and diagonal moves cost the square
+     * root of 2.
+     */
+    OCTILE {
+        @Override
+        public double getDistance(int dx, int dy) {
+            int ax = Math.abs(dx);
+            int ay = Math.abs(dy);
+            int min = Math.min(ax, ay);
+            return SQRT_2 * min + (Math.max(ax, ay) - min);
+        }
+    },
+    /**
+     * The number of moves between two tiles when cardinal and diagonal moves both cost 1.
+     */
+    CHEBYSHEV {
+        @Override
+        public double getDistance(int dx, int dy) {
+            return Math.max(Math.abs(dx), Math.abs(dy));
+        }
+    };
+
+    private static final double SQRT_2 = Math.sqrt(2);
+
+    /**
+     * Get the distance between two tiles.
+     * @param dx The difference between the x coordinates of the tiles.
+     * @param dy The difference between the y coordinates of the tiles.
+     * @return The distance between the tiles.
+     */
+    public abstract double getDistance(int dx, int dy);
+
+    /**
+     * Get the tightest admissible heuristic for routes between neighbouring tiles whose moves cost the euclidean
+     * distance between them.
+     * @param allowDiagonalNeighbours Whether tiles are connected to their diagonal neighbours.
+     * @return OCTILE if diagonal neighbours are allowed, and MANHATTAN otherwise.
+     */
+    public static GridDistanceMetric forNeighbours(boolean allowDiagonalNeighbours) {
+        return allowDiagonalNeighbours ? OCTILE : MANHATTAN;
+    }
+}
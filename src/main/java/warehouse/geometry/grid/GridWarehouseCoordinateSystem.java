@@ -4,24 +4,84 @@ import warehouse.geometry.WarehouseCoordinateSystem;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.IntConsumer;
 
 /**
  * A WarehouseCoordinateSystem that consists of a rectangular grid of tiles.
+ *
+ * @remark The neighbours of a tile index are found by arithmetic on the index alone: the offsets from a tile index to
+ * its neighbours are the same for every tile, so they are computed once, and only tiles on the border of the grid
+ * need their neighbours checked against the bounds of the grid.
+ *
+ * Points are immutable, so by default the Point of each tile index is created the first time it is needed and reused
+ * from then on, rather than creating a new Point on every projection. The cache holds a reference for every tile of
+ * the grid, so it is off by default for grids larger than DEFAULT_POINT_CACHE_LIMIT, and can be turned off for large,
+ * sparsely used grids. Points should still be compared with equals, since the same tile may project to different
+ * (equal) Points when the cache is off, or when projected for the first time on several threads at once.
  */
 public class GridWarehouseCoordinateSystem implements WarehouseCoordinateSystem<Point> {
+    /**
+     * The x and y steps to each neighbour, in the order north, east, south, west, north-east, south-east, south-west,
+     * north-west.
+     */
+    private static final int[] NEIGHBOUR_DX = {0, 1, 0, -1, 1, 1, -1, -1};
+    private static final int[] NEIGHBOUR_DY = {-1, 0, 1, 0, -1, 1, 1, -1};
+    /**
+     * The largest grid, in number of tiles, for which Points are cached unless specified otherwise.
+     */
+    public static final int DEFAULT_POINT_CACHE_LIMIT = 1 << 22;
+
     private final boolean allowDiagonalNeighbours;
     private final int width;
     private final int height;
+    /**
+     * The number of neighbours of a tile that is not on the border of the grid.
+     */
+    private final int neighbourCount;
+    /**
+     * The difference between the tile index of each neighbour and the tile index of the tile.
+     */
+    private final int[] neighbourOffsets;
+    /**
+     * The tightest admissible heuristic for the neighbours of this grid.
+     */
+    private final GridDistanceMetric heuristicMetric;
+    private final boolean cachePoints;
+    /**
+     * The Point of each tile index, or null if it has not been projected yet. The array is created on the first
+     * projection.
+     */
+    private Point[] points;
 
     /**
      * Construct a GridWarehouseCoordinateSystem.
      * @param width The width of the coordinate system, in number of tiles.
      * @param height The height of the coordinate system, in number of tiles.
+     * @param allowDiagonalNeighbours Whether tiles are connected to their diagonal neighbours.
+     * @param cachePoints Whether to reuse the Point of each tile index instead of creating one on every projection.
      */
-    public GridWarehouseCoordinateSystem(int width, int height, boolean allowDiagonalNeighbours) {
+    public GridWarehouseCoordinateSystem(int width, int height, boolean allowDiagonalNeighbours, boolean cachePoints) {
         this.width = width;
         this.height = height;
         this.allowDiagonalNeighbours = allowDiagonalNeighbours;
+        this.cachePoints = cachePoints;
+        this.neighbourCount = allowDiagonalNeighbours ? 8 : 4;
+        this.neighbourOffsets = new int[neighbourCount];
+        for (int k = 0; k < neighbourCount; k++) {
+            neighbourOffsets[k] = NEIGHBOUR_DY[k] * width + NEIGHBOUR_DX[k];
+        }
+        this.heuristicMetric = GridDistanceMetric.forNeighbours(allowDiagonalNeighbours);
+    }
+
+    /**
+     * Construct a GridWarehouseCoordinateSystem, caching Points if the grid has at most DEFAULT_POINT_CACHE_LIMIT
+     * tiles.
+     * @param width The width of the coordinate system, in number of tiles.
+     * @param height The height of the coordinate system, in number of tiles.
+     * @param allowDiagonalNeighbours Whether tiles are connected to their diagonal neighbours.
+     */
+    public GridWarehouseCoordinateSystem(int width, int height, boolean allowDiagonalNeighbours) {
+        this(width, height, allowDiagonalNeighbours, (long) width * height <= DEFAULT_POINT_CACHE_LIMIT);
     }
 
     /**
@@ -70,11 +130,36 @@ public class GridWarehouseCoordinateSystem implements WarehouseCoordinateSystem<
      */
     @Override
     public Point projectIndexToCoordinate(int index) {
-        if (index >= 0 && index < getSize()) {
-            return new Point(index % width, index / width);
-        } else {
+        if (index < 0 || index >= getSize()) {
             return null;
         }
+        if (!cachePoints) {
+            return new Point(index % width, index / width);
+        }
+        Point[] cache = points;
+        if (cache == null) {
+            cache = new Point[getSize()];
+            points = cache;
+        }
+        Point point = cache[index];
+        if (point == null) {
+            point = new Point(index % width, index / width);
+            cache[index] = point;
+        }
+        return point;
+    }
+
+    /**
+     * Get the Point at the given position, reusing the cached Point if the position is in the grid.
+     * @param x The horizontal position of the tile.
+     * @param y The vertical position of the tile.
+     * @return A Point at (x, y).
+     */
+    public Point getPoint(int x, int y) {
+        if (x >= 0 && x < width && y >= 0 && y < height) {
+            return projectIndexToCoordinate(y * width + x);
+        }
+        return new Point(x, y);
     }
 
     /**
@@ -98,32 +183,105 @@ public class GridWarehouseCoordinateSystem implements WarehouseCoordinateSystem<
      */
     @Override
     public List<Point> getNeighbours(Point coordinate) {
-        List<Point> neighbours = new ArrayList<>();
-        // Add cardinal directions
-        Point north = new Point(coordinate.getX(), coordinate.getY() - 1);
-        neighbours.add(contains(north) ? north : null);
-        Point east = new Point(coordinate.getX() + 1, coordinate.getY());
-        neighbours.add(contains(east) ? east : null);
-        Point south = new Point(coordinate.getX(), coordinate.getY() + 1);
-        neighbours.add(contains(south) ? south : null);
-        Point west = new Point(coordinate.getX() - 1, coordinate.getY());
-        neighbours.add(contains(west) ? west : null);
-        // Add diagonals
-        if (allowDiagonalNeighbours) {
-            Point northEast = new Point(coordinate.getX() + 1, coordinate.getY() - 1);
-            neighbours.add(contains(northEast) ? northEast : null);
-            Point southEast = new Point(coordinate.getX() + 1, coordinate.getY() + 1);
-            neighbours.add(contains(southEast) ? southEast : null);
-            Point southWest = new Point(coordinate.getX() - 1, coordinate.getY() + 1);
-            neighbours.add(contains(southWest) ? southWest : null);
-            Point northWest = new Point(coordinate.getX() - 1, coordinate.getY() - 1);
-            neighbours.add(contains(southWest) ? northWest : null);
+        List<Point> neighbours = new ArrayList<>(neighbourCount);
+        int x = coordinate.getX();
+        int y = coordinate.getY();
+        for (int k = 0; k < neighbourCount; k++) {
+            int nx = x + NEIGHBOUR_DX[k];
+            int ny = y + NEIGHBOUR_DY[k];
+            boolean inGrid = nx >= 0 && nx < width && ny >= 0 && ny < height;
+            neighbours.add(inGrid ? projectIndexToCoordinate(ny * width + nx) : null);
         }
+        return neighbours;
+    }
 
-        // Done!
+    /**
+     * Return the neighbouring tile indices to the given tile index.
+     * @param index The tile index whose neighbours to find.
+     * @return A list of tile indices containing the neighbours of the given tile index, in the same order as
+     * getNeighbours(Point). If a neighbour is not in the grid, then the corresponding index is -1.
+     */
+    @Override
+    public List<Integer> getNeighbours(int index) {
+        List<Integer> neighbours = new ArrayList<>(neighbourCount);
+        if (index < 0 || index >= getSize()) {
+            return neighbours;
+        }
+        int x = index % width;
+        int y = index / width;
+        for (int k = 0; k < neighbourCount; k++) {
+            neighbours.add(isNeighbourInGrid(x, y, k) ? index + neighbourOffsets[k] : -1);
+        }
         return neighbours;
     }
 
+    /**
+     * Get the largest number of neighbours any tile index can have.
+     * @return 8 if diagonal neighbours are allowed, and 4 otherwise.
+     */
+    @Override
+    public int getMaxNeighbourCount() {
+        return neighbourCount;
+    }
+
+    /**
+     * Write the neighbouring tile indices of the given tile index into the given buffer, skipping neighbours that are
+     * not in the grid.
+     * @param index The tile index whose neighbours to find.
+     * @param buffer The buffer to write the neighbours into. This must hold at least getMaxNeighbourCount() elements.
+     * @return The number of neighbours written, or 0 if the given tile index is not in the grid.
+     */
+    @Override
+    public int getNeighbours(int index, int[] buffer) {
+        if (index < 0 || index >= getSize()) {
+            return 0;
+        }
+        int x = index % width;
+        int y = index / width;
+        if (x > 0 && x < width - 1 && y > 0 && y < height - 1) {
+            // Not on the border, so every neighbour is in the grid
+            for (int k = 0; k < neighbourCount; k++) {
+                buffer[k] = index + neighbourOffsets[k];
+            }
+            return neighbourCount;
+        }
+        int count = 0;
+        for (int k = 0; k < neighbourCount; k++) {
+            if (isNeighbourInGrid(x, y, k)) {
+                buffer[count++] = index + neighbourOffsets[k];
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Call the given consumer with each neighbouring tile index of the given tile index that is in the grid.
+     * @param index The tile index whose neighbours to visit.
+     * @param consumer The consumer to call with each neighbour.
+     */
+    @Override
+    public void forEachNeighbour(int index, IntConsumer consumer) {
+        if (index < 0 || index >= getSize()) {
+            return;
+        }
+        int x = index % width;
+        int y = index / width;
+        for (int k = 0; k < neighbourCount; k++) {
+            if (isNeighbourInGrid(x, y, k)) {
+                consumer.accept(index + neighbourOffsets[k]);
+            }
+        }
+    }
+
+    /**
+     * Return whether the k-th neighbour of the tile at (x, y) is in the grid.
+     */
+    private boolean isNeighbourInGrid(int x, int y, int k) {
+        int nx = x + NEIGHBOUR_DX[k];
+        int ny = y + NEIGHBOUR_DY[k];
+        return nx >= 0 && nx < width && ny >= 0 && ny < height;
+    }
+
     /**
      * Return the 2-norm of the given points (euclidean distance).
      * @param p1 The start point.
@@ -132,9 +290,62 @@ public class GridWarehouseCoordinateSystem implements WarehouseCoordinateSystem<
      */
     @Override
     public double getDistance(Point p1, Point p2) {
-        double dx = p1.getX() - p2.getX();
-        double dy = p1.getY() - p2.getY();
-        return Math.sqrt(Math.pow(dx, 2) + Math.pow(dy, 2));
+        return GridDistanceMetric.EUCLIDEAN.getDistance(p1.getX() - p2.getX(), p1.getY() - p2.getY());
+    }
+
+    /**
+     * Return the euclidean distance between the given tile indices, without creating Points.
+     * @param i1 The start tile index.
+     * @param i2 The end tile index.
+     * @return The distance between the tiles at i1 and i2.
+     */
+    @Override
+    public double getDistance(int i1, int i2) {
+        return getDistance(i1, i2, GridDistanceMetric.EUCLIDEAN);
+    }
+
+    /**
+     * Return the distance between the given tile indices in the given metric.
+     * @param i1 The start tile index.
+     * @param i2 The end tile index.
+     * @param metric The metric to measure the distance in.
+     * @return The distance between the tiles at i1 and i2.
+     */
+    public double getDistance(int i1, int i2, GridDistanceMetric metric) {
+        return metric.getDistance(i1 % width - i2 % width, i1 / width - i2 / width);
+    }
+
+    /**
+     * Return the length of the shortest route between the given tile indices on an open grid, e.g. the Manhattan
+     * distance with cardinal neighbours only, or the octile distance with diagonal neighbours.
+     * @param i1 The start tile index.
+     * @param i2 The end tile index.
+     * @return An admissible estimate of the route length between i1 and i2.
+     */
+    @Override
+    public double getHeuristicDistance(int i1, int i2) {
+        return getDistance(i1, i2, heuristicMetric);
+    }
+
+    /**
+     * Get the metric used by getHeuristicDistance.
+     */
+    public GridDistanceMetric getHeuristicMetric() {
+        return heuristicMetric;
+    }
+
+    /**
+     * Return whether the Point of each tile index is reused instead of created on every projection.
+     */
+    public boolean isPointCacheEnabled() {
+        return cachePoints;
+    }
+
+    /**
+     * Return whether tiles are connected to their diagonal neighbours as well as those in the cardinal directions.
+     */
+    public boolean isDiagonalNeighboursAllowed() {
+        return allowDiagonalNeighbours;
     }
 
     /**
@@ -10,11 +10,9 @@ import warehouse.tiles.Rack;
 public class BasicRackAssignmentPolicy implements StorageTileAssignmentPolicy<Rack> {
     @Override
     public Rack assign(WarehouseLayout<?> warehouseLayout, Item item) {
-        for(Rack rack : warehouseLayout.findTilesOfType(Rack.class)) {
-            if(rack.getStorageUnit().canAddItem(item)) {
-                return rack;
-            }
-        }
-        return null;
+        return warehouseLayout.streamTilesOfType(Rack.class)
+                .filter(rack -> rack.getStorageUnit().canAddItem(item))
+                .findFirst()
+                .orElse(null);
     }
 }
@@ -10,11 +10,9 @@ import warehouse.tiles.ReceiveDepot;
 public class BasicReceiveDepotAssignmentPolicy implements StorageTileAssignmentPolicy<ReceiveDepot> {
     @Override
     public ReceiveDepot assign(WarehouseLayout<?> warehouseLayout, Item item) {
-        for(ReceiveDepot receiveDepot : warehouseLayout.findTilesOfType(ReceiveDepot.class)) {
-            if(receiveDepot.getStorageUnit().canAddItem(item)) {
-                return receiveDepot;
-            }
-        }
-        return null;
+        return warehouseLayout.streamTilesOfType(ReceiveDepot.class)
+                .filter(receiveDepot -> receiveDepot.getStorageUnit().canAddItem(item))
+                .findFirst()
+                .orElse(null);
     }
 }
@@ -10,11 +10,9 @@ import warehouse.tiles.ShipDepot;
 public class BasicShipDepotAssignmentPolicy implements StorageTileAssignmentPolicy<ShipDepot> {
     @Override
     public ShipDepot assign(WarehouseLayout<?> warehouseLayout, Item item) {
-        for(ShipDepot shipDepot : warehouseLayout.findTilesOfType(ShipDepot.class)) {
-            if(shipDepot.getStorageUnit().canAddItem(item)) {
-                return shipDepot;
-            }
-        }
-        return null;
+        return warehouseLayout.streamTilesOfType(ShipDepot.class)
+                .filter(shipDepot -> shipDepot.getStorageUnit().canAddItem(item))
+                .findFirst()
+                .orElse(null);
     }
 }
@@ -0,0 +1,32 @@
+package warehouse.logistics.assignment;
+
+import warehouse.WarehouseLayout;
+import warehouse.inventory.Item;
+import warehouse.tiles.Rack;
+
+/**
+ * An assignment policy that finds a Rack that can store the given item with a RackCapacityIndex, preferring Racks
+ * that already hold Items of the same Part.
+ *
+ * @remark Layouts other than the one indexed are searched like in a BasicRackAssignmentPolicy.
+ */
+public class IndexedRackAssignmentPolicy implements StorageTileAssignmentPolicy<Rack> {
+    private final RackCapacityIndex index;
+    private final BasicRackAssignmentPolicy fallbackPolicy = new BasicRackAssignmentPolicy();
+
+    /**
+     * Construct an IndexedRackAssignmentPolicy.
+     * @param index The index of the Racks of the layout to assign Items in.
+     */
+    public IndexedRackAssignmentPolicy(RackCapacityIndex index) {
+        this.index = index;
+    }
+
+    @Override
+    public Rack assign(WarehouseLayout<?> layout, Item item) {
+        if (layout != index.getLayout()) {
+            return fallbackPolicy.assign(layout, item);
+        }
+        return index.findRack(item);
+    }
+}
@@ -0,0 +1,86 @@
+package warehouse.logistics.assignment;
+
+import warehouse.WarehouseLayout;
+import warehouse.inventory.Item;
+import warehouse.logistics.optimization.distances.KeyTileDistanceTable;
+import warehouse.tiles.Rack;
+import warehouse.tiles.Tile;
+
+import java.util.function.Supplier;
+
+/**
+ * An assignment policy that finds the Rack nearest to where an Item comes from, by travel distance, that can store
+ * the Item.
+ *
+ * @remark Travel distances are looked up in a KeyTileDistanceTable, so only Racks within its search radius of the
+ * origin are considered. If the origin is not in the table or no Rack within the radius can store the Item, or no
+ * origin is given, the Rack is chosen by another policy. The table may be given as a Supplier, which is only called on
+ * the first lookup with an origin, so a Warehouse that never stores Items from an origin never builds the table.
+ */
+public class NearestRackAssignmentPolicy implements StorageTileAssignmentPolicy<Rack> {
+    private final Supplier<? extends KeyTileDistanceTable<?, ?>> distanceTableSupplier;
+    private KeyTileDistanceTable<?, ?> distanceTable;
+    private final WarehouseLayout<?> layout;
+    private final StorageTileAssignmentPolicy<Rack> fallbackPolicy;
+
+    /**
+     * Construct a NearestRackAssignmentPolicy.
+     * @param distanceTable The table of travel distances between the key tiles of the layout.
+     * @param layout The layout the table measures. Other layouts are left to the fallback policy.
+     * @param fallbackPolicy The policy used when there is no Rack near the origin.
+     */
+    public NearestRackAssignmentPolicy(KeyTileDistanceTable<?, ?> distanceTable, WarehouseLayout<?> layout,
+                                       StorageTileAssignmentPolicy<Rack> fallbackPolicy) {
+        this(() -> distanceTable, layout, fallbackPolicy);
+    }
+
+    /**
+     * Construct a NearestRackAssignmentPolicy that gets its table on the first lookup with an origin.
+     * @param distanceTableSupplier Supplies the table of travel distances between the key tiles of the layout.
+     * @param layout The layout the table measures. Other layouts are left to the fallback policy.
+     * @param fallbackPolicy The policy used when there is no Rack near the origin.
+     */
+    public NearestRackAssignmentPolicy(Supplier<? extends KeyTileDistanceTable<?, ?>> distanceTableSupplier,
+                                       WarehouseLayout<?> layout, StorageTileAssignmentPolicy<Rack> fallbackPolicy) {
+        this.distanceTableSupplier = distanceTableSupplier;
+        this.layout = layout;
+        this.fallbackPolicy = fallbackPolicy;
+    }
+
+    @Override
+    public Rack assign(WarehouseLayout<?> layout, Item item) {
+        return fallbackPolicy.assign(layout, item);
+    }
+
+    @Override
+    public Rack assign(WarehouseLayout<?> layout, Item item, Tile origin) {
+        if (origin != null && layout == this.layout) {
+            KeyTileDistanceTable<?, ?> distanceTable = getDistanceTable();
+            if (!distanceTable.contains(origin.getIndex())) {
+                return fallbackPolicy.assign(layout, item);
+            }
+            for (int index : distanceTable.getKeyTilesByDistance(origin.getIndex())) {
+                Tile tile = layout.getTileAt(index);
+                if (tile instanceof Rack && ((Rack) tile).getStorageUnit().canAddItem(item)) {
+                    return (Rack) tile;
+                }
+            }
+        }
+        return fallbackPolicy.assign(layout, item);
+    }
+
+    /**
+     * Get the table of travel distances, getting it from the supplier on the first call.
+     */
+    private synchronized KeyTileDistanceTable<?, ?> getDistanceTable() {
+        if (distanceTable == null) {
+            distanceTable = distanceTableSupplier.get();
+        }
+        return distanceTable;
+    }
+
+    @Override
+    public boolean isAssignable(WarehouseLayout<?> layout, Item item) {
+        return fallbackPolicy.isAssignable(layout, item);
+    }
+}
@@ -0,0 +1,182 @@
+package warehouse.logistics.assignment;
+
+import messaging.MessageListener;
+import warehouse.TileChangedMessageData;
+import warehouse.WarehouseLayout;
+import warehouse.inventory.Item;
+import warehouse.storage.StorageUnit;
+import warehouse.storage.StorageUnitItemMessageData;
+import warehouse.storage.strategies.SingleTypeStorageStrategy;
+import warehouse.tiles.Rack;
+
+import java.util.*;
+
+/**
+ * An index of the Racks in a WarehouseLayout that have space for more Items, grouped by the Part they hold.
+ *
+ * @remark Racks with a SingleTypeStorageStrategy are indexed: an empty Rack can take any Item, and a Rack holding
+ * Items of a Part can only take more Items of that Part. The index keeps the empty Racks, and for each Part the Racks
+ * holding it that are not full, so a Rack for an Item is found in O(1) time. Racks with any other strategy are kept
+ * in a separate list that is searched in full.
+ *
+ * The index listens for Tiles being set in the layout, and for Items being added to or removed from the StorageUnit
+ * of each Rack, so it is always up to date.
+ */
+public class RackCapacityIndex {
+    private final WarehouseLayout<?> layout;
+
+    private final Map<String, LinkedHashSet<Rack>> racksByPartId = new HashMap<>();
+    private final LinkedHashSet<Rack> emptyRacks = new LinkedHashSet<>();
+    private final LinkedHashSet<Rack> otherRacks = new LinkedHashSet<>();
+    /**
+     * The Part id each indexed Rack is filed under, or null if it is empty or not filed under any Part.
+     */
+    private final Map<Rack, String> rackPartIds = new HashMap<>();
+    private final Map<StorageUnit, Rack> racksByStorageUnit = new IdentityHashMap<>();
+
+    private final MessageListener<StorageUnitItemMessageData> itemListener = this::onItemChanged;
+    private final MessageListener<TileChangedMessageData> tileChangedListener = this::onTileChanged;
+
+    /**
+     * Construct a RackCapacityIndex for the given WarehouseLayout, listening for changes to it.
+     * @param layout The layout whose Racks to index.
+     */
+    public RackCapacityIndex(WarehouseLayout<?> layout) {
+        this.layout = layout;
+        for (Rack rack : layout.findTilesOfType(Rack.class)) {
+            addRack(rack);
+        }
+        layout.getOnTileChangedMessage().addListener(tileChangedListener);
+    }
+
+    /**
+     * Find a Rack that can store the given Item, preferring Racks that already hold Items of the same Part.
+     * @param item The Item to store.
+     * @return a Rack that can store the Item, or null if there is none.
+     */
+    public Rack findRack(Item item) {
+        if (item.getPart() != null) {
+            LinkedHashSet<Rack> racks = racksByPartId.get(item.getPart().getId());
+            if (racks != null) {
+                for (Rack rack : racks) {
+                    // Racks are filed by Part id, so check that the rest of the Part matches too
+                    if (rack.getStorageUnit().canAddItem(item)) {
+                        return rack;
+                    }
+                }
+            }
+        }
+        if (!emptyRacks.isEmpty()) {
+            return emptyRacks.iterator().next();
+        }
+        for (Rack rack : otherRacks) {
+            if (rack.getStorageUnit().canAddItem(item)) {
+                return rack;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get the WarehouseLayout indexed by this RackCapacityIndex.
+     */
+    public WarehouseLayout<?> getLayout() {
+        return layout;
+    }
+
+    /**
+     * Stop listening for changes to the layout and its Racks.
+     */
+    public void dispose() {
+        layout.getOnTileChangedMessage().removeListener(tileChangedListener);
+        for (StorageUnit storageUnit : racksByStorageUnit.keySet()) {
+            storageUnit.getOnItemAddedMessage().removeListener(itemListener);
+            storageUnit.getOnItemRemovedMessage().removeListener(itemListener);
+        }
+    }
+
+    /**
+     * Start indexing the given Rack.
+     */
+    private void addRack(Rack rack) {
+        StorageUnit storageUnit = rack.getStorageUnit();
+        racksByStorageUnit.put(storageUnit, rack);
+        storageUnit.getOnItemAddedMessage().addListener(itemListener);
+        storageUnit.getOnItemRemovedMessage().addListener(itemListener);
+        file(rack);
+    }
+
+    /**
+     * Stop indexing the given Rack.
+     */
+    private void removeRack(Rack rack) {
+        StorageUnit storageUnit = rack.getStorageUnit();
+        if (racksByStorageUnit.remove(storageUnit) == null) return;
+        storageUnit.getOnItemAddedMessage().removeListener(itemListener);
+        storageUnit.getOnItemRemovedMessage().removeListener(itemListener);
+        unfile(rack);
+    }
+
+    /**
+     * File the given Rack under the Part it holds, or as an empty or other Rack.
+     */
+    private void file(Rack rack) {
+        StorageUnit storageUnit = rack.getStorageUnit();
+        if (!(storageUnit.getStrategy() instanceof SingleTypeStorageStrategy)) {
+            otherRacks.add(rack);
+            return;
+        }
+        if (!storageUnit.hasInfiniteCapacity() && storageUnit.getSize() >= storageUnit.getCapacity()) {
+            // The Rack is full
+            return;
+        }
+        if (storageUnit.getSize() == 0) {
+            emptyRacks.add(rack);
+            return;
+        }
+        Item first = storageUnit.getContainer().getItems().iterator().next();
+        if (first.getPart() == null) return;
+        String partId = first.getPart().getId();
+        racksByPartId.computeIfAbsent(partId, key -> new LinkedHashSet<>()).add(rack);
+        rackPartIds.put(rack, partId);
+    }
+
+    /**
+     * Remove the given Rack from wherever it is filed.
+     */
+    private void unfile(Rack rack) {
+        emptyRacks.remove(rack);
+        otherRacks.remove(rack);
+        String partId = rackPartIds.remove(rack);
+        if (partId != null) {
+            LinkedHashSet<Rack> racks = racksByPartId.get(partId);
+            racks.remove(rack);
+            if (racks.isEmpty()) {
+                racksByPartId.remove(partId);
+            }
+        }
+    }
+
+    /**
+     * File a Rack again when an Item is added to or removed from it.
+     */
+    private void onItemChanged(StorageUnitItemMessageData data) {
+        Rack rack = racksByStorageUnit.get(data.getStorageUnit());
+        if (rack != null) {
+            unfile(rack);
+            file(rack);
+        }
+    }
+
+    /**
+     * Start or stop indexing Racks when a Tile is set.
+     */
+    private void onTileChanged(TileChangedMessageData data) {
+        if (data.getPreviousTile() instanceof Rack) {
+            removeRack((Rack) data.getPreviousTile());
+        }
+        if (data.getTile() instanceof Rack) {
+            addRack((Rack) data.getTile());
+        }
+    }
+}
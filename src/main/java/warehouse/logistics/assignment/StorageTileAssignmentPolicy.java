@@ -3,6 +3,7 @@ package warehouse.logistics.assignment;
 import warehouse.WarehouseLayout;
 import warehouse.inventory.Item;
 import warehouse.tiles.StorageTile;
+import warehouse.tiles.Tile;
 
 /**
  * A policy for assigning items to a StorageTile.
@@ -15,6 +16,17 @@ public interface StorageTileAssignmentPolicy<T extends StorageTile> {
      */
     T assign(WarehouseLayout<?> layout, Item item);
 
+    /**
+     * Assign the given item to a StorageTile in the given WarehouseLayout, for an Item that is taken from the given
+     * tile, e.g. to prefer StorageTiles near it. By default, the origin is ignored.
+     * @param item The incoming item.
+     * @param origin The tile the item is taken from, or null if unknown.
+     * @return the StorageTile assigned to the item, or null if the item could not be assigned a StorageTile.
+     */
+    default T assign(WarehouseLayout<?> layout, Item item, Tile origin) {
+        return assign(layout, item);
+    }
+
     /**
      * Return whether the given Item can be assigned to a StorageTile in the given WarehouseLayout. Note that this does not
      * actually assign any StorageTile to this Item, and thus does not mutate any data.
@@ -6,6 +6,10 @@ import warehouse.logistics.optimization.routefinding.GraphNodeScorer;
 
 /**
  * Score metric for Tiles using distance metric.
+ *
+ * @remark The score is the heuristic distance of the coordinate system, which is admissible for routes between
+ * neighbouring tiles and equals the distance between neighbouring tiles, so the same scorer serves as both the cost
+ * between connected nodes and the estimate to the destination of an AStarRoutefinder.
  */
 public class DistanceTileScorer implements GraphNodeScorer<TileNode> {
     private final WarehouseCoordinateSystem<?> coordinateSystem;
@@ -26,6 +30,6 @@ public class DistanceTileScorer implements GraphNodeScorer<TileNode> {
      */
     @Override
     public double computeCost(TileNode from, TileNode to) {
-        return coordinateSystem.getDistance(from.getTile().getIndex(), to.getTile().getIndex());
+        return coordinateSystem.getHeuristicDistance(from.getTile().getIndex(), to.getTile().getIndex());
     }
 }
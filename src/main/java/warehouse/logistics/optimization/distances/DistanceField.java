@@ -0,0 +1,269 @@
+package warehouse.logistics.optimization.distances;
+
+import utils.IntMinHeap;
+import utils.LongIntHashMap;
+import warehouse.geometry.WarehouseCoordinateSystem;
+import warehouse.logistics.optimization.graph.TileGraph;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * The travel distances from every tile of a TileGraph to a single target tile.
+ *
+ * @remark The distances are found by a Dijkstra search outwards from the target, which is resumed only as far as
+ * needed: asking for the distance of a tile settles tiles in order of distance until that tile is settled, and asking
+ * again (or for any closer tile) is O(1). Asking for the distances of a few nearby tiles therefore costs a small part
+ * of a full search.
+ *
+ * Routes may start on any tile and end on the target, but may only pass through walkable tiles, i.e. tiles whose score
+ * multiplier is 1. Moves cost the distance between tiles in the coordinate system, so the distance from a tile to the
+ * target is the length of the shortest route from it to the target.
+ *
+ * While the search has reached few tiles, i.e. the settled tiles and the tiles next to them, their scores are stored
+ * in slots found through a LongIntHashMap, so a small field takes memory in the number of tiles it has reached rather
+ * than the size of the layout. Once it has reached an eighth of the graph, the slots cost more than dense arrays
+ * would, so the scores are moved into arrays indexed by tile. The open set is an IntMinHeap, which holds only the
+ * frontier of the search: a tile whose score is lowered is inserted again, and the stale entry is skipped when
+ * polled. getMemoryUsage estimates the size of the field either way.
+ *
+ * A DistanceField does not follow changes to the graph. Use a DistanceFieldCache to get fields that are discarded when
+ * the layout changes.
+ */
+public class DistanceField {
+    private static final int INITIAL_CAPACITY = 16;
+    /**
+     * The share of the graph, as a divisor of its size, that the search must reach before scores are stored densely.
+     */
+    private static final int DENSE_DIVISOR = 8;
+
+    private final TileGraph graph;
+    private final WarehouseCoordinateSystem<?> coordinateSystem;
+    private final int target;
+
+    /**
+     * The slot of each reached tile, and the tile, best known distance, and whether the distance is final of each
+     * slot, while the scores are stored sparsely. These are null once the scores are stored densely.
+     */
+    private LongIntHashMap slots = new LongIntHashMap();
+    private int[] slotTiles = new int[INITIAL_CAPACITY];
+    private double[] slotScores = new double[INITIAL_CAPACITY];
+    private boolean[] slotSettled = new boolean[INITIAL_CAPACITY];
+    /**
+     * The best known distance of each tile, or positive infinity if it was not reached, and the settled tiles, once
+     * the scores are stored densely. These are null while the scores are stored sparsely.
+     */
+    private double[] scores;
+    private BitSet settled;
+    private int reachedCount;
+    private int settledCount;
+    /**
+     * The reached tiles that are not settled, by distance, along with stale entries of tiles whose score was lowered.
+     */
+    private final IntMinHeap openSet = new IntMinHeap();
+
+    /**
+     * Construct a DistanceField.
+     * @param graph The graph to measure distances on.
+     * @param coordinateSystem The coordinate system of the graph.
+     * @param target The tile index to measure distances to.
+     * @throws IllegalArgumentException if the target is not a node of the graph.
+     */
+    public DistanceField(TileGraph graph, WarehouseCoordinateSystem<?> coordinateSystem, int target) {
+        if (!graph.contains(target)) {
+            throw new IllegalArgumentException(String.format("Tile index %d is not in the graph", target));
+        }
+        this.graph = graph;
+        this.coordinateSystem = coordinateSystem;
+        this.target = target;
+        setScore(target, 0);
+    }
+
+    /**
+     * Get the tile index that distances are measured to.
+     */
+    public int getTarget() {
+        return target;
+    }
+
+    /**
+     * Get the travel distance from the given tile to the target, resuming the search until the tile is settled.
+     * @param index The tile index.
+     * @return The length of the shortest route from the tile to the target, or positive infinity if there is none.
+     */
+    public double getDistance(int index) {
+        if (index < 0 || index >= graph.getSize()) {
+            return Double.POSITIVE_INFINITY;
+        }
+        while (!isSettledTile(index) && !openSet.isEmpty()) {
+            settleNext();
+        }
+        return getScore(index);
+    }
+
+    /**
+     * Return whether the distance of the given tile is already known, i.e. getDistance would not resume the search.
+     */
+    public boolean isSettled(int index) {
+        if (index < 0 || index >= graph.getSize()) {
+            return false;
+        }
+        return isSettledTile(index) || openSet.isEmpty();
+    }
+
+    /**
+     * Return whether the search has reached the given tile, i.e. the tile is settled or next to a settled tile.
+     */
+    public boolean isReached(int index) {
+        return index >= 0 && index < graph.getSize() && getScore(index) != Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Get the number of tiles settled so far.
+     */
+    public int getSettledCount() {
+        return settledCount;
+    }
+
+    /**
+     * Get the number of tiles reached so far.
+     */
+    public int getReachedCount() {
+        return reachedCount;
+    }
+
+    /**
+     * Estimate the number of bytes taken by the scores and open set of this field.
+     */
+    public long getMemoryUsage() {
+        long bytes = (long) openSet.getCapacity() * (Integer.BYTES + Double.BYTES);
+        if (scores == null) {
+            bytes += (long) slots.getCapacity() * (Long.BYTES + Integer.BYTES);
+            bytes += (long) slotScores.length * (Integer.BYTES + Double.BYTES + 1);
+        } else {
+            bytes += (long) scores.length * Double.BYTES + settled.size() / Byte.SIZE;
+        }
+        return bytes;
+    }
+
+    /**
+     * Settle the closest tile in the open set, and relax its connections if a route may pass through it. Stale entries
+     * of the open set are skipped.
+     */
+    private void settleNext() {
+        double score = openSet.peekPriority();
+        int current = openSet.poll();
+        if (isSettledTile(current) || score > getScore(current)) return;
+        markSettled(current);
+        if (current != target && !isWalkable(current)) {
+            // A route can start here, but not pass through
+            return;
+        }
+        for (int k = 0, degree = graph.getDegree(current); k < degree; k++) {
+            int connection = graph.getConnection(current, k);
+            if (!graph.contains(connection)) continue;
+            double newScore = score + coordinateSystem.getDistance(current, connection);
+            if (newScore < getScore(connection) && !isSettledTile(connection)) {
+                setScore(connection, newScore);
+            }
+        }
+    }
+
+    /**
+     * Get the best known distance of the given tile, or positive infinity if it was not reached.
+     */
+    private double getScore(int index) {
+        if (scores != null) {
+            return scores[index];
+        }
+        int slot = slots.getOrDefault(index, -1);
+        return slot == -1 ? Double.POSITIVE_INFINITY : slotScores[slot];
+    }
+
+    /**
+     * Return whether the distance of the given tile is final.
+     */
+    private boolean isSettledTile(int index) {
+        if (scores != null) {
+            return settled.get(index);
+        }
+        int slot = slots.getOrDefault(index, -1);
+        return slot != -1 && slotSettled[slot];
+    }
+
+    /**
+     * Mark the distance of the given reached tile as final.
+     */
+    private void markSettled(int index) {
+        if (scores != null) {
+            settled.set(index);
+        } else {
+            slotSettled[slots.getOrDefault(index, -1)] = true;
+        }
+        settledCount++;
+    }
+
+    /**
+     * Lower the best known distance of the given tile that is not settled, and add it to the open set.
+     */
+    private void setScore(int index, double score) {
+        if (scores == null) {
+            int slot = slots.getOrDefault(index, -1);
+            if (slot == -1) {
+                slot = addSlot(index);
+            }
+            slotScores[slot] = score;
+            if (reachedCount > graph.getSize() / DENSE_DIVISOR) {
+                storeDensely();
+            }
+        } else {
+            if (scores[index] == Double.POSITIVE_INFINITY) {
+                reachedCount++;
+            }
+            scores[index] = score;
+        }
+        openSet.insert(index, score);
+    }
+
+    /**
+     * Add a slot for a newly reached tile.
+     * @return The slot.
+     */
+    private int addSlot(int index) {
+        if (reachedCount == slotTiles.length) {
+            int capacity = 2 * reachedCount;
+            slotTiles = Arrays.copyOf(slotTiles, capacity);
+            slotScores = Arrays.copyOf(slotScores, capacity);
+            slotSettled = Arrays.copyOf(slotSettled, capacity);
+        }
+        int slot = reachedCount++;
+        slotTiles[slot] = index;
+        slotSettled[slot] = false;
+        slots.put(index, slot);
+        return slot;
+    }
+
+    /**
+     * Move the scores of the reached tiles from their slots into arrays indexed by tile.
+     */
+    private void storeDensely() {
+        scores = new double[graph.getSize()];
+        Arrays.fill(scores, Double.POSITIVE_INFINITY);
+        settled = new BitSet(graph.getSize());
+        for (int slot = 0; slot < reachedCount; slot++) {
+            scores[slotTiles[slot]] = slotScores[slot];
+            settled.set(slotTiles[slot], slotSettled[slot]);
+        }
+        slots = null;
+        slotTiles = null;
+        slotScores = null;
+        slotSettled = null;
+    }
+
+    /**
+     * Return whether a route may pass through the given tile.
+     */
+    private boolean isWalkable(int index) {
+        return graph.isWalkable(index);
+    }
+}
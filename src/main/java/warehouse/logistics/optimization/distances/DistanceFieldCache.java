@@ -0,0 +1,161 @@
+package warehouse.logistics.optimization.distances;
+
+import messaging.MessageListener;
+import warehouse.TileChangedMessageData;
+import warehouse.WarehouseState;
+import warehouse.geometry.WarehouseCoordinate;
+import warehouse.geometry.WarehouseCoordinateSystem;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * A cache of the DistanceFields of the most recently used targets in a Warehouse.
+ *
+ * @remark Many Orders share targets (e.g. the access tile of a busy ReceiveDepot), so a field that was partially
+ * searched for one Order is usually reused, and resumed, for the next. A field grows as it is searched, so the cache is
+ * bounded both by a number of fields and by the memory they use, as estimated by DistanceField.getMemoryUsage: least
+ * recently used fields are evicted when a field is requested and either bound is exceeded. The requested field
+ * itself is never evicted, and may grow past the bound until the next request.
+ *
+ * When a Tile of the layout is set, only the fields that have reached the tile or one of its neighbours are discarded,
+ * since the search of any other field has not yet looked at the connections the edit changes.
+ */
+public class DistanceFieldCache<T extends WarehouseCoordinateSystem<U>, U extends WarehouseCoordinate> {
+    /**
+     * The default maximum memory used by the fields of a cache, in bytes.
+     */
+    public static final long DEFAULT_MAXIMUM_BYTES = 256L << 20;
+
+    private final WarehouseState<T, U> warehouseState;
+    private final int maximumSize;
+    private final long maximumBytes;
+    private final LinkedHashMap<Integer, DistanceField> fields;
+    private final MessageListener<TileChangedMessageData> tileChangedListener = this::onTileChanged;
+    /**
+     * Scratch space for the neighbours of a changed tile.
+     */
+    private final int[] neighbours;
+    private int fieldCreateCount;
+
+    /**
+     * Construct a DistanceFieldCache for the given Warehouse, listening for changes to its layout.
+     * @param warehouseState The Warehouse. Distances are measured on its routing graph.
+     * @param maximumSize The maximum number of fields to keep.
+     * @param maximumBytes The maximum memory used by the fields to keep, in bytes.
+     * @throws IllegalArgumentException if the maximum size or the maximum memory is not positive.
+     */
+    public DistanceFieldCache(WarehouseState<T, U> warehouseState, int maximumSize, long maximumBytes) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("The maximum size of a DistanceFieldCache must be positive");
+        }
+        if (maximumBytes <= 0) {
+            throw new IllegalArgumentException(String.format(
+                    "The maximum memory of a DistanceFieldCache must be positive, but got %d", maximumBytes));
+        }
+        this.warehouseState = warehouseState;
+        this.maximumSize = maximumSize;
+        this.maximumBytes = maximumBytes;
+        this.fields = new LinkedHashMap<>(16, 0.75f, true);
+        this.neighbours = new int[warehouseState.getCoordinateSystem().getMaxNeighbourCount()];
+        warehouseState.getLayout().getOnTileChangedMessage().addListener(tileChangedListener);
+    }
+
+    /**
+     * Construct a DistanceFieldCache for the given Warehouse with the default maximum memory.
+     * @param warehouseState The Warehouse. Distances are measured on its routing graph.
+     * @param maximumSize The maximum number of fields to keep.
+     * @throws IllegalArgumentException if the maximum size is not positive.
+     */
+    public DistanceFieldCache(WarehouseState<T, U> warehouseState, int maximumSize) {
+        this(warehouseState, maximumSize, DEFAULT_MAXIMUM_BYTES);
+    }
+
+    /**
+     * Get the DistanceField to the given target, creating it if it is not cached.
+     * @param target The tile index to measure distances to.
+     * @throws IllegalArgumentException if the target is not in the Warehouse.
+     */
+    public synchronized DistanceField get(int target) {
+        DistanceField field = fields.get(target);
+        if (field == null) {
+            field = new DistanceField(warehouseState.getRoutingGraph(), warehouseState.getCoordinateSystem(), target);
+            fields.put(target, field);
+            fieldCreateCount++;
+        }
+        evict(field);
+        return field;
+    }
+
+    /**
+     * Estimate the memory used by the fields in this cache, in bytes.
+     */
+    public synchronized long getMemoryUsage() {
+        long total = 0;
+        for (DistanceField field : fields.values()) {
+            total += field.getMemoryUsage();
+        }
+        return total;
+    }
+
+    /**
+     * Get the number of fields in this cache.
+     */
+    public synchronized int size() {
+        return fields.size();
+    }
+
+    /**
+     * Get the number of fields created since this cache was created.
+     */
+    public synchronized int getFieldCreateCount() {
+        return fieldCreateCount;
+    }
+
+    /**
+     * Remove all fields from this cache.
+     */
+    public synchronized void clear() {
+        fields.clear();
+    }
+
+    /**
+     * Stop listening for changes to the layout of the Warehouse.
+     */
+    public void dispose() {
+        warehouseState.getLayout().getOnTileChangedMessage().removeListener(tileChangedListener);
+    }
+
+    /**
+     * Evict the least recently used fields other than the given one until both bounds of this cache are met.
+     */
+    private void evict(DistanceField keep) {
+        long total = getMemoryUsage();
+        Iterator<DistanceField> iterator = fields.values().iterator();
+        while ((fields.size() > maximumSize || total > maximumBytes) && iterator.hasNext()) {
+            DistanceField field = iterator.next();
+            if (field != keep) {
+                total -= field.getMemoryUsage();
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Discard the fields that have reached the changed tile or one of its neighbours when a Tile is set.
+     */
+    private synchronized void onTileChanged(TileChangedMessageData data) {
+        int index = data.getIndex();
+        WarehouseCoordinateSystem<U> coordinateSystem = warehouseState.getCoordinateSystem();
+        if (index < 0 || index >= coordinateSystem.getSize()) return;
+
+        int count = coordinateSystem.getNeighbours(index, neighbours);
+        fields.values().removeIf(field -> {
+            if (field.isReached(index)) return true;
+            for (int k = 0; k < count; k++) {
+                if (field.isReached(neighbours[k])) return true;
+            }
+            return false;
+        });
+    }
+}
@@ -0,0 +1,612 @@
+package warehouse.logistics.optimization.distances;
+
+import messaging.MessageListener;
+import utils.IntMinHeap;
+import utils.LongIntHashMap;
+import warehouse.TileChangedMessageData;
+import warehouse.WarehouseState;
+import warehouse.geometry.WarehouseCoordinate;
+import warehouse.geometry.WarehouseCoordinateSystem;
+import warehouse.logistics.optimization.graph.TileGraph;
+import warehouse.tiles.Rack;
+import warehouse.tiles.StorageTile;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * A table of travel distances between nearby key tiles of a Warehouse: every StorageTile (Rack, ReceiveDepot and
+ * ShipDepot), and any walkable spots registered with registerSpot, such as robot parking spots.
+ *
+ * @remark Each key tile has a slot in the table. Robots never stand on a StorageTile, but on the walkable tiles next
+ * to it (its access tiles), so the row of a StorageTile is filled by one multi-source search from all of its access
+ * tiles, and another key tile is reached as soon as one of its access tiles is. Rows are stored in one flat float
+ * array, and the slots of removed key tiles are reused. Key tiles are found from the StorageTile index of the layout,
+ * and the slot of each key tile is kept in a hash map, so the table takes memory in the number of key tiles rather than
+ * the size of the floor.
+ *
+ * Each search is bounded by a travel radius, so a row only holds the distances to key tiles within the radius of its
+ * key tile; the distance to any other key tile is reported as infinite. This keeps each search local, so each row
+ * also records which regions of the layout its search touched, and when the walkability of a tile changes only the
+ * rows that touched the region of the tile (or of its neighbours) are marked dirty. Dirty rows are recomputed the next
+ * time they are needed, and a lookup is O(1) while its row is clean. The scratch space of the search holds only the
+ * tiles it reaches, so it grows with the area within the radius rather than with the floor.
+ *
+ * The table holds at most a fixed number of key tiles, since its size grows with the square of their number.
+ * Depots and registered spots get a slot before Racks; key tiles beyond the limit are not in the table until a slot
+ * frees up, and callers should fall back to another way of measuring distance for them.
+ */
+public class KeyTileDistanceTable<T extends WarehouseCoordinateSystem<U>, U extends WarehouseCoordinate> {
+    /**
+     * The default travel radius of the search that fills a row.
+     */
+    public static final double DEFAULT_SEARCH_RADIUS = 64;
+    /**
+     * The default maximum number of key tiles, for a table of at most 64 MB.
+     */
+    public static final int DEFAULT_MAXIMUM_CAPACITY = 4096;
+    /**
+     * The most entries the distance array can hold.
+     */
+    private static final long MAXIMUM_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+    /**
+     * The number of consecutive tile indices in a region.
+     */
+    private static final int REGION_SIZE = 64;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final WarehouseState<T, U> warehouseState;
+    private final int size;
+    private final double searchRadius;
+    private final int maximumCapacity;
+
+    /**
+     * The slot of each key tile in the table, by tile index.
+     */
+    private final LongIntHashMap slots = new LongIntHashMap();
+    /**
+     * The tile index of each slot, or -1 if the slot is free.
+     */
+    private int[] keyTiles;
+    /**
+     * Free slots, used as a stack.
+     */
+    private int[] freeSlots;
+    private int freeSlotCount;
+    private int slotCount;
+    private int keyTileCount;
+
+    /**
+     * The distances between key tiles, in row-major order with a stride of capacity.
+     */
+    private float[] distances;
+    private int capacity;
+    /**
+     * The slots reached by the search that filled each row, in order of distance.
+     */
+    private int[][] rowOrders;
+    /**
+     * The regions touched by the search that filled each row, sorted and without duplicates.
+     */
+    private int[][] rowRegions;
+    private boolean[] rowDirty;
+    /**
+     * The version at which each row was computed, and at which each slot was last assigned. A row only holds a valid
+     * distance to a slot if it was computed after the slot was assigned.
+     */
+    private long[] rowVersions;
+    private long[] slotVersions;
+    private long version;
+    /**
+     * The version at which a slot was last assigned.
+     */
+    private long lastSlotVersion;
+    private int rowComputeCount;
+
+    private final BitSet registeredSpots = new BitSet();
+    /**
+     * Tiles whose key tile status must be checked before the next lookup.
+     */
+    private final BitSet pendingTiles = new BitSet();
+    /**
+     * Key tiles that did not get a slot because the table was full.
+     */
+    private final BitSet overflowTiles = new BitSet();
+
+    /**
+     * Scratch space for a search: the local slot of each tile it reached, the score of each local slot, and a lazy
+     * open set which may hold stale entries.
+     */
+    private final LongIntHashMap searchSlots = new LongIntHashMap();
+    private double[] searchScores = new double[INITIAL_CAPACITY];
+    private int searchCount;
+    private final IntMinHeap openSet = new IntMinHeap();
+    /**
+     * Scratch space for the neighbours of a tile.
+     */
+    private final int[] neighbours;
+    /**
+     * Scratch space for the slots reached by a search.
+     */
+    private int[] reached;
+    /**
+     * Scratch space for the regions touched by a search.
+     */
+    private int[] touchedRegions = new int[INITIAL_CAPACITY];
+    private int touchedRegionCount;
+    private final MessageListener<TileChangedMessageData> tileChangedListener = this::onTileChanged;
+
+    /**
+     * Construct a KeyTileDistanceTable for the given Warehouse, listening for changes to its layout.
+     * @param warehouseState The Warehouse. Distances are measured on its routing graph.
+     * @param searchRadius The travel radius of the search that fills a row.
+     * @param maximumCapacity The most key tiles the table holds.
+     * @throws IllegalArgumentException if the radius is not positive, or the maximum capacity is not positive or too
+     * large for the distances to fit in one array.
+     */
+    public KeyTileDistanceTable(WarehouseState<T, U> warehouseState, double searchRadius, int maximumCapacity) {
+        if (!(searchRadius > 0)) {
+            throw new IllegalArgumentException(String.format("Search radius must be positive, but got %s",
+                    searchRadius));
+        }
+        if (maximumCapacity <= 0 || (long) maximumCapacity * maximumCapacity > MAXIMUM_ARRAY_LENGTH) {
+            throw new IllegalArgumentException(String.format(
+                    "Maximum capacity must be in the range [1, %d], but got %d",
+                    (long) Math.sqrt(MAXIMUM_ARRAY_LENGTH), maximumCapacity));
+        }
+        this.warehouseState = warehouseState;
+        this.size = warehouseState.getCoordinateSystem().getSize();
+        this.searchRadius = searchRadius;
+        this.maximumCapacity = maximumCapacity;
+        this.neighbours = new int[warehouseState.getCoordinateSystem().getMaxNeighbourCount()];
+        allocate(Math.min(INITIAL_CAPACITY, maximumCapacity));
+        warehouseState.getLayout().streamTilesOfType(StorageTile.class)
+                .forEach(tile -> pendingTiles.set(tile.getIndex()));
+        warehouseState.getLayout().getOnTileChangedMessage().addListener(tileChangedListener);
+    }
+
+    /**
+     * Construct a KeyTileDistanceTable with the default search radius and maximum capacity.
+     * @param warehouseState The Warehouse. Distances are measured on its routing graph.
+     */
+    public KeyTileDistanceTable(WarehouseState<T, U> warehouseState) {
+        this(warehouseState, DEFAULT_SEARCH_RADIUS, DEFAULT_MAXIMUM_CAPACITY);
+    }
+
+    /**
+     * Register the given walkable tile as a key tile, e.g. a robot parking spot.
+     * @param index The tile index.
+     */
+    public synchronized void registerSpot(int index) {
+        checkIndex(index);
+        registeredSpots.set(index);
+        pendingTiles.set(index);
+    }
+
+    /**
+     * Unregister a tile registered with registerSpot.
+     * @param index The tile index.
+     */
+    public synchronized void unregisterSpot(int index) {
+        checkIndex(index);
+        registeredSpots.clear(index);
+        pendingTiles.set(index);
+    }
+
+    /**
+     * Return whether distances to and from the given tile index can be looked up in this table, i.e. whether it is a
+     * key tile with a slot.
+     */
+    public synchronized boolean contains(int index) {
+        if (index < 0 || index >= size) return false;
+        updateKeyTiles();
+        return getSlot(index) != -1;
+    }
+
+    /**
+     * Get the travel distance between two key tiles.
+     * @param from The tile index to travel from.
+     * @param to The tile index to travel to.
+     * @return The length of the shortest route between the tiles, or positive infinity if there is none or it is
+     * longer than the search radius.
+     * @throws IllegalArgumentException if either tile is not in this table.
+     */
+    public synchronized double getDistance(int from, int to) {
+        if (!contains(from) || !contains(to)) {
+            throw new IllegalArgumentException(String.format(
+                    "Tiles %d and %d must both be in the KeyTileDistanceTable", from, to));
+        }
+        int fromSlot = getSlot(from);
+        int toSlot = getSlot(to);
+        if (fromSlot == toSlot) {
+            return 0;
+        }
+        // Routes are symmetric, so either row will do
+        if (!isValid(fromSlot, toSlot) && isValid(toSlot, fromSlot)) {
+            return distances[toSlot * capacity + fromSlot];
+        }
+        if (!isValid(fromSlot, toSlot)) {
+            computeRow(fromSlot);
+        }
+        return distances[fromSlot * capacity + toSlot];
+    }
+
+    /**
+     * Get the key tiles within the search radius of the given key tile, nearest first.
+     * @param from The tile index of the key tile.
+     * @return The tile indices of the key tiles, starting with the given key tile itself.
+     * @throws IllegalArgumentException if the tile is not in this table.
+     */
+    public synchronized int[] getKeyTilesByDistance(int from) {
+        if (!contains(from)) {
+            throw new IllegalArgumentException(String.format("Tile %d must be in the KeyTileDistanceTable", from));
+        }
+        int row = getSlot(from);
+        if (rowDirty[row] || rowVersions[row] < lastSlotVersion) {
+            // Key tiles may have been added since the row was computed
+            computeRow(row);
+        }
+        int[] order = rowOrders[row];
+        int[] indices = new int[order.length];
+        int count = 0;
+        for (int slot : order) {
+            // Skip key tiles removed since the row was computed
+            if (keyTiles[slot] != -1) {
+                indices[count++] = keyTiles[slot];
+            }
+        }
+        return Arrays.copyOf(indices, count);
+    }
+
+    /**
+     * Get the number of key tiles in this table.
+     */
+    public synchronized int getKeyTileCount() {
+        updateKeyTiles();
+        return keyTileCount;
+    }
+
+    /**
+     * Get the number of times a row has been computed since this table was created.
+     */
+    public synchronized int getRowComputeCount() {
+        return rowComputeCount;
+    }
+
+    /**
+     * Get the travel radius of the search that fills a row.
+     */
+    public double getSearchRadius() {
+        return searchRadius;
+    }
+
+    /**
+     * Get the most key tiles this table holds.
+     */
+    public int getMaximumCapacity() {
+        return maximumCapacity;
+    }
+
+    /**
+     * Stop listening for changes to the layout of the Warehouse.
+     */
+    public void dispose() {
+        warehouseState.getLayout().getOnTileChangedMessage().removeListener(tileChangedListener);
+    }
+
+    /**
+     * Return whether the given row holds a valid distance to the given slot.
+     */
+    private boolean isValid(int row, int slot) {
+        return !rowDirty[row] && rowVersions[row] >= slotVersions[slot];
+    }
+
+    /**
+     * Fill the given row with a search from the access tiles of its key tile, stopping at the search radius or once
+     * every key tile has been reached.
+     */
+    private void computeRow(int row) {
+        TileGraph graph = warehouseState.getRoutingGraph();
+        WarehouseCoordinateSystem<U> coordinateSystem = warehouseState.getCoordinateSystem();
+        touchedRegionCount = 0;
+        int base = row * capacity;
+        Arrays.fill(distances, base, base + capacity, Float.POSITIVE_INFINITY);
+
+        searchSlots.clear();
+        searchCount = 0;
+        openSet.clear();
+        int start = keyTiles[row];
+        touchRegion(start / REGION_SIZE);
+        if (isWalkable(graph, start)) {
+            visit(start, 0);
+        } else {
+            int neighbourCount = coordinateSystem.getNeighbours(start, neighbours);
+            for (int k = 0; k < neighbourCount; k++) {
+                if (isWalkable(graph, neighbours[k])) {
+                    visit(neighbours[k], 0);
+                }
+            }
+        }
+        distances[base + row] = 0;
+        int reachedCount = 0;
+        reached[reachedCount++] = row;
+        int remaining = keyTileCount - 1;
+        while (!openSet.isEmpty() && remaining > 0) {
+            double score = openSet.peekPriority();
+            int current = openSet.poll();
+            if (score > getScore(current)) continue;
+            if (score > searchRadius) break;
+            touchRegion(current / REGION_SIZE);
+            // The tile itself may be a registered spot, and its neighbours may be StorageTiles it gives access to
+            int slot = getSlot(current);
+            if (slot != -1 && distances[base + slot] == Float.POSITIVE_INFINITY) {
+                distances[base + slot] = (float) score;
+                reached[reachedCount++] = slot;
+                remaining--;
+            }
+            int neighbourCount = coordinateSystem.getNeighbours(current, neighbours);
+            for (int k = 0; k < neighbourCount; k++) {
+                slot = getSlot(neighbours[k]);
+                if (slot != -1 && distances[base + slot] == Float.POSITIVE_INFINITY
+                        && !registeredSpots.get(neighbours[k])) {
+                    distances[base + slot] = (float) score;
+                    reached[reachedCount++] = slot;
+                    remaining--;
+                }
+            }
+            for (int k = 0, degree = graph.getDegree(current); k < degree; k++) {
+                int connection = graph.getConnection(current, k);
+                if (!isWalkable(graph, connection)) continue;
+                double newScore = score + coordinateSystem.getDistance(current, connection);
+                if (newScore < getScore(connection)) {
+                    visit(connection, newScore);
+                }
+            }
+        }
+        rowOrders[row] = Arrays.copyOf(reached, reachedCount);
+        rowRegions[row] = sortedRegions();
+        rowDirty[row] = false;
+        rowVersions[row] = ++version;
+        rowComputeCount++;
+    }
+
+    /**
+     * Get the slot of the given tile index, or -1 if the tile is not a key tile in the table.
+     */
+    private int getSlot(int index) {
+        return slots.getOrDefault(index, -1);
+    }
+
+    /**
+     * Get the score the current search reached the given tile with, or positive infinity if it has not reached it.
+     */
+    private double getScore(int index) {
+        int local = searchSlots.getOrDefault(index, -1);
+        return local == -1 ? Double.POSITIVE_INFINITY : searchScores[local];
+    }
+
+    /**
+     * Record that the current search reached the given tile with the given score, and add it to the open set.
+     */
+    private void visit(int index, double score) {
+        int local = searchSlots.getOrDefault(index, -1);
+        if (local == -1) {
+            if (searchCount == searchScores.length) {
+                searchScores = Arrays.copyOf(searchScores, 2 * searchCount);
+            }
+            local = searchCount++;
+            searchSlots.put(index, local);
+        }
+        searchScores[local] = score;
+        openSet.insert(index, score);
+    }
+
+    /**
+     * Record that the current search touched the given region. Consecutive tiles of a search are often in the same
+     * region, so only a repeat of the last region is skipped here, and sortedRegions removes the rest.
+     */
+    private void touchRegion(int region) {
+        if (touchedRegionCount > 0 && touchedRegions[touchedRegionCount - 1] == region) return;
+        if (touchedRegionCount == touchedRegions.length) {
+            touchedRegions = Arrays.copyOf(touchedRegions, 2 * touchedRegionCount);
+        }
+        touchedRegions[touchedRegionCount++] = region;
+    }
+
+    /**
+     * Get the regions touched by the current search, sorted and without duplicates.
+     */
+    private int[] sortedRegions() {
+        Arrays.sort(touchedRegions, 0, touchedRegionCount);
+        int count = 0;
+        for (int i = 0; i < touchedRegionCount; i++) {
+            if (count == 0 || touchedRegions[count - 1] != touchedRegions[i]) {
+                touchedRegions[count++] = touchedRegions[i];
+            }
+        }
+        return Arrays.copyOf(touchedRegions, count);
+    }
+
+    /**
+     * Return whether the given sorted regions contain any of the given regions.
+     */
+    private static boolean touchesAny(int[] regions, int[] candidates, int candidateCount) {
+        for (int i = 0; i < candidateCount; i++) {
+            if (Arrays.binarySearch(regions, candidates[i]) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Mark the rows affected by a changed tile dirty, and schedule the key tile status of the tile to be checked.
+     */
+    private synchronized void onTileChanged(TileChangedMessageData data) {
+        int index = data.getIndex();
+        if (index < 0 || index >= size) return;
+        pendingTiles.set(index);
+
+        boolean wasWalkable = warehouseState.getLayout().isEmpty(data.getPreviousTile());
+        boolean isWalkable = warehouseState.getLayout().isEmpty(data.getTile());
+        if (wasWalkable == isWalkable) return;
+        // A tile that became blocked only affects searches that reached it; a tile that opened up only affects
+        // searches that reached one of its neighbours. Either way, it changes the access tiles of its neighbours.
+        int neighbourCount = warehouseState.getCoordinateSystem().getNeighbours(index, neighbours);
+        int[] affected = new int[neighbourCount + 1];
+        int affectedCount = 0;
+        affected[affectedCount++] = index / REGION_SIZE;
+        for (int k = 0; k < neighbourCount; k++) {
+            if (isWalkable) {
+                affected[affectedCount++] = neighbours[k] / REGION_SIZE;
+            }
+            int slot = getSlot(neighbours[k]);
+            if (slot != -1) {
+                rowDirty[slot] = true;
+            }
+        }
+        for (int row = 0; row < slotCount; row++) {
+            if (keyTiles[row] != -1 && !rowDirty[row] && touchesAny(rowRegions[row], affected, affectedCount)) {
+                rowDirty[row] = true;
+            }
+        }
+    }
+
+    /**
+     * Add or remove key tiles for the tiles whose status may have changed. Depots and registered spots are added
+     * before Racks, so that they get a slot if the table is nearly full.
+     */
+    private void updateKeyTiles() {
+        if (pendingTiles.isEmpty()) return;
+        TileGraph graph = warehouseState.getRoutingGraph();
+        BitSet pending = (BitSet) pendingTiles.clone();
+        pendingTiles.clear();
+        BitSet added = new BitSet();
+        for (int index = pending.nextSetBit(0); index >= 0; index = pending.nextSetBit(index + 1)) {
+            if (!isKeyTile(graph, index)) {
+                overflowTiles.clear(index);
+                if (getSlot(index) != -1) {
+                    removeKeyTile(index);
+                }
+            } else if (getSlot(index) == -1) {
+                added.set(index);
+            }
+        }
+        if (freeSlotCount > 0 || capacity < maximumCapacity) {
+            added.or(overflowTiles);
+        }
+        for (int index = added.nextSetBit(0); index >= 0; index = added.nextSetBit(index + 1)) {
+            if (!(warehouseState.getLayout().getTileAt(index) instanceof Rack)) {
+                addKeyTile(index);
+            }
+        }
+        for (int index = added.nextSetBit(0); index >= 0; index = added.nextSetBit(index + 1)) {
+            if (warehouseState.getLayout().getTileAt(index) instanceof Rack) {
+                addKeyTile(index);
+            }
+        }
+    }
+
+    /**
+     * Assign a slot to the given tile, or remember it as an overflow tile if the table is full.
+     */
+    private void addKeyTile(int index) {
+        int slot;
+        if (freeSlotCount > 0) {
+            slot = freeSlots[--freeSlotCount];
+        } else {
+            if (slotCount == capacity) {
+                if (capacity == maximumCapacity) {
+                    overflowTiles.set(index);
+                    return;
+                }
+                allocate((int) Math.min(2L * capacity, maximumCapacity));
+            }
+            slot = slotCount++;
+        }
+        overflowTiles.clear(index);
+        slots.put(index, slot);
+        keyTiles[slot] = index;
+        rowDirty[slot] = true;
+        slotVersions[slot] = ++version;
+        lastSlotVersion = version;
+        keyTileCount++;
+    }
+
+    /**
+     * Free the slot of the given tile.
+     */
+    private void removeKeyTile(int index) {
+        int slot = getSlot(index);
+        slots.remove(index);
+        keyTiles[slot] = -1;
+        rowRegions[slot] = new int[0];
+        rowOrders[slot] = new int[0];
+        freeSlots[freeSlotCount++] = slot;
+        keyTileCount--;
+    }
+
+    /**
+     * Grow the table to hold the given number of slots, keeping existing rows.
+     */
+    private void allocate(int newCapacity) {
+        float[] newDistances = new float[Math.toIntExact((long) newCapacity * newCapacity)];
+        Arrays.fill(newDistances, Float.POSITIVE_INFINITY);
+        for (int row = 0; row < slotCount; row++) {
+            System.arraycopy(distances, row * capacity, newDistances, row * newCapacity, capacity);
+        }
+        distances = newDistances;
+        keyTiles = grow(keyTiles, newCapacity, -1);
+        freeSlots = grow(freeSlots, newCapacity, 0);
+        reached = new int[newCapacity];
+        rowDirty = rowDirty == null ? new boolean[newCapacity] : Arrays.copyOf(rowDirty, newCapacity);
+        rowVersions = rowVersions == null ? new long[newCapacity] : Arrays.copyOf(rowVersions, newCapacity);
+        slotVersions = slotVersions == null ? new long[newCapacity] : Arrays.copyOf(slotVersions, newCapacity);
+        int[][] newRowRegions = new int[newCapacity][];
+        int[][] newRowOrders = new int[newCapacity][];
+        for (int row = 0; row < newCapacity; row++) {
+            boolean existing = rowRegions != null && row < capacity;
+            newRowRegions[row] = existing ? rowRegions[row] : new int[0];
+            newRowOrders[row] = existing ? rowOrders[row] : new int[0];
+        }
+        rowRegions = newRowRegions;
+        rowOrders = newRowOrders;
+        capacity = newCapacity;
+    }
+
+    /**
+     * Copy the given array into a new array of the given length, filling new elements with the given value.
+     */
+    private static int[] grow(int[] array, int length, int value) {
+        int oldLength = array == null ? 0 : array.length;
+        int[] grown = array == null ? new int[length] : Arrays.copyOf(array, length);
+        Arrays.fill(grown, oldLength, length, value);
+        return grown;
+    }
+
+    /**
+     * Return whether the given tile is a key tile: a StorageTile, or a walkable registered spot.
+     */
+    private boolean isKeyTile(TileGraph graph, int index) {
+        if (registeredSpots.get(index)) {
+            return isWalkable(graph, index);
+        }
+        return warehouseState.getLayout().getTileAt(index) instanceof StorageTile;
+    }
+
+    /**
+     * Return whether a route may pass through the given tile.
+     */
+    private static boolean isWalkable(TileGraph graph, int index) {
+        return graph.isWalkable(index);
+    }
+
+    /**
+     * Check that the given tile index is in the Warehouse.
+     */
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IllegalArgumentException(String.format("Tile index %d is out of range [0, %d)", index, size));
+        }
+    }
+}
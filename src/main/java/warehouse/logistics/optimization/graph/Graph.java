@@ -1,18 +1,19 @@
 package warehouse.logistics.optimization.graph;
 
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * Represents a graph (in the "graph theory" sense), e.g. a collection of vertices connected by edges.
  */
 public class Graph<T extends GraphNode> {
     /**
-     * A list
+     * A mapping from a GraphNode id to the GraphNode with that id.
      */
-    private final Set<T> nodes;
+    private final Map<String, T> nodes;
     /**
      * A mapping from a GraphNode (given by its id) to a Set giving all the nodes that it's connected to.
      */
@@ -25,22 +26,27 @@ public class Graph<T extends GraphNode> {
      */
     public Graph(Set<T> nodes, Map<String, Set<String>> connections)
     {
-        this.nodes = nodes;
+        this.nodes = new HashMap<>();
+        for (T node : nodes) {
+            this.nodes.put(node.getId(), node);
+        }
         this.connections = connections;
     }
 
+    /**
+     * Creates an empty Graph. Used by subclasses that provide their own node and connection storage.
+     */
+    protected Graph() {
+        this(new HashSet<>(), new HashMap<>());
+    }
+
     /**
      * Return the GraphNode with the given id.
      * @param id id of intended node
-     * @return The node with the given id.
+     * @return The node with the given id, or null if no such node exists.
      */
     public T getNode(String id) {
-        for (T node : this.nodes){
-            if(node.getId().equals(id)){
-                return node;
-            }
-        }
-        return null;
+        return nodes.get(id);
     }
 
     /**
@@ -49,12 +55,19 @@ public class Graph<T extends GraphNode> {
      * @return the connections
      */
     public Set<T> getConnections(T node) {
-
         Set<T> set = new HashSet<>();
+        forEachConnection(node, set::add);
+        return set;
+    }
+
+    /**
+     * Visit each node connected to the given node. Unlike getConnections, this does not allocate a new collection.
+     * @param node The node whose connections to visit.
+     * @param consumer The function to call for each connected node.
+     */
+    public void forEachConnection(T node, Consumer<T> consumer) {
         for (String id : connections.get(node.getId())) {
-            T t = getNode(id);
-            set.add(t);
+            consumer.accept(getNode(id));
         }
-        return set;
     }
 }
@@ -0,0 +1,264 @@
+package warehouse.logistics.optimization.graph;
+
+import warehouse.tiles.Tile;
+import warehouse.tiles.containers.TileContainer;
+
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * A Graph of TileNodes keyed by tile index.
+ *
+ * @remark Connections are stored in compressed sparse row (CSR) form: the connections of the node at tile index i
+ * are the tile indices connections[offsets[i]], ..., connections[offsets[i] + degrees[i] - 1]. Looking up a node or
+ * iterating its connections is therefore O(1) per connection, and does not allocate.
+ *
+ * Each row may reserve more space than it uses (offsets[i + 1] - offsets[i] is the capacity of row i), which lets
+ * a row be rewritten in place when the tiles around it change.
+ *
+ * Nodes are either given up front, one per tile index, or created on demand from a TileContainer, so that a graph of
+ * a CompactTileContainer or ChunkedTileContainer does not hold an object for every empty tile. In the latter case,
+ * getNode returns a new but equal TileNode on every call; searches should use contains, getScoreMultiplier and
+ * isWalkable, which look tiles up by index without creating nodes.
+ */
+public class TileGraph extends Graph<TileNode> {
+    /**
+     * The node at each tile index, or null if the tile is not in this graph. This is null if nodes are created on
+     * demand.
+     */
+    private final TileNode[] nodes;
+    /**
+     * The container to create nodes from, or null if nodes are given up front.
+     */
+    private final TileContainer tiles;
+    /**
+     * The tile indices in this graph, if nodes are created on demand.
+     */
+    private final BitSet members;
+    private final int size;
+    /**
+     * The start of each row in the connections array. This has one more element than there are tile indices.
+     */
+    private final int[] offsets;
+    /**
+     * The number of connections used in each row.
+     */
+    private final int[] degrees;
+    /**
+     * The tile indices of connected nodes, grouped into rows by tile index.
+     */
+    private final int[] connections;
+
+    /**
+     * Construct a TileGraph.
+     * @param nodes The node at each tile index, or null if the tile is not in this graph.
+     * @param offsets The start of each row in the connections array, with offsets[nodes.length] marking the end of
+     *                the last row.
+     * @param degrees The number of connections used in each row.
+     * @param connections The tile indices of connected nodes, grouped into rows by tile index.
+     */
+    public TileGraph(TileNode[] nodes, int[] offsets, int[] degrees, int[] connections) {
+        this.nodes = nodes;
+        this.tiles = null;
+        this.members = null;
+        this.size = nodes.length;
+        this.offsets = offsets;
+        this.degrees = degrees;
+        this.connections = connections;
+    }
+
+    /**
+     * Construct a TileGraph whose nodes are created on demand from the given TileContainer.
+     * @param tiles The Tiles of the graph, indexed by tile index.
+     * @param members The tile indices in this graph. This is owned by the graph afterwards.
+     * @param offsets The start of each row in the connections array, with offsets[tiles.getSize()] marking the end of
+     *                the last row.
+     * @param degrees The number of connections used in each row.
+     * @param connections The tile indices of connected nodes, grouped into rows by tile index.
+     */
+    public TileGraph(TileContainer tiles, BitSet members, int[] offsets, int[] degrees, int[] connections) {
+        this.nodes = null;
+        this.tiles = tiles;
+        this.members = members;
+        this.size = tiles.getSize();
+        this.offsets = offsets;
+        this.degrees = degrees;
+        this.connections = connections;
+    }
+
+    /**
+     * Construct a TileGraph where every row is full.
+     * @param nodes The node at each tile index, or null if the tile is not in this graph.
+     * @param offsets The start of each row in the connections array, with offsets[nodes.length] marking the end of
+     *                the last row.
+     * @param connections The tile indices of connected nodes, grouped into rows by tile index.
+     */
+    public TileGraph(TileNode[] nodes, int[] offsets, int[] connections) {
+        this(nodes, offsets, computeDegrees(offsets), connections);
+    }
+
+    /**
+     * Return the TileNode with the given id.
+     * @param id The id of the node, e.g. its tile index in string form.
+     * @return The node with the given id, or null if no such node exists.
+     */
+    @Override
+    public TileNode getNode(String id) {
+        try {
+            return getNode(Integer.parseInt(id));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Return the TileNode at the given tile index.
+     * @param index The tile index of the node.
+     * @return The node at the given tile index, or null if no such node exists.
+     */
+    public TileNode getNode(int index) {
+        if (!contains(index)) {
+            return null;
+        }
+        return nodes != null ? nodes[index] : new TileNode(tiles.get(index));
+    }
+
+    /**
+     * Return whether the tile at the given tile index is in this graph.
+     * @param index The tile index.
+     */
+    public boolean contains(int index) {
+        if (index < 0 || index >= size) {
+            return false;
+        }
+        return nodes != null ? nodes[index] != null : members.get(index);
+    }
+
+    /**
+     * Get the score multiplier of the node at the given tile index, without creating the node.
+     * @param index The tile index of the node.
+     * @return the score multiplier, or positive infinity if there is no node at the given tile index.
+     */
+    public double getScoreMultiplier(int index) {
+        if (!contains(index)) {
+            return Double.POSITIVE_INFINITY;
+        }
+        if (nodes != null) {
+            return nodes[index].getScoreMultiplier();
+        }
+        return TileNode.getScoreMultiplier(tiles.getTileClass(index));
+    }
+
+    /**
+     * Return whether a route may pass through the tile at the given tile index, i.e. whether it is in this graph with
+     * a score multiplier of 1.
+     * @param index The tile index.
+     */
+    public boolean isWalkable(int index) {
+        return getScoreMultiplier(index) == 1;
+    }
+
+    @Override
+    public Set<TileNode> getConnections(TileNode node) {
+        Set<TileNode> set = new HashSet<>();
+        forEachConnection(node, set::add);
+        return set;
+    }
+
+    @Override
+    public void forEachConnection(TileNode node, Consumer<TileNode> consumer) {
+        int index = node.getTile().getIndex();
+        int degree = getDegree(index);
+        for (int k = 0; k < degree; k++) {
+            consumer.accept(getNode(getConnection(index, k)));
+        }
+    }
+
+    /**
+     * Get the number of tile indices addressable in this graph.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Get the number of connections of the node at the given tile index.
+     * @param index The tile index of the node.
+     * @return the number of connections, or 0 if there is no node at the given tile index.
+     */
+    public int getDegree(int index) {
+        if (index >= 0 && index < size) {
+            return degrees[index];
+        } else {
+            return 0;
+        }
+    }
+
+    /**
+     * Get the maximum number of connections the node at the given tile index can have without rebuilding this graph.
+     * @param index The tile index of the node.
+     */
+    public int getCapacity(int index) {
+        return offsets[index + 1] - offsets[index];
+    }
+
+    /**
+     * Get a connection of the node at the given tile index.
+     * @param index The tile index of the node.
+     * @param k The position of the connection, in the range [0, getDegree(index)).
+     * @return the tile index of the k-th connected node.
+     */
+    public int getConnection(int index, int k) {
+        return connections[offsets[index] + k];
+    }
+
+    /**
+     * Set the node at the given tile index.
+     * @param index The tile index of the node.
+     * @param node The new node, or null to remove the tile from this graph. If nodes are created on demand, only
+     *             whether the node is null matters, and later nodes are created from the Tile in the container.
+     */
+    public void setNode(int index, TileNode node) {
+        if (nodes != null) {
+            nodes[index] = node;
+        } else {
+            members.set(index, node != null);
+        }
+    }
+
+    /**
+     * Return whether the nodes of this graph are created on demand from a TileContainer.
+     */
+    public boolean isCreatingNodesOnDemand() {
+        return nodes == null;
+    }
+
+    /**
+     * Replace the connections of the node at the given tile index.
+     * @param index The tile index of the node.
+     * @param connected The tile indices of the connected nodes.
+     * @param count The number of connected nodes, e.g. the number of elements of connected to use.
+     * @throws IllegalArgumentException if count exceeds the capacity of the row.
+     */
+    public void setConnections(int index, int[] connected, int count) {
+        if (count > getCapacity(index)) {
+            throw new IllegalArgumentException(String.format("Tile %d can have at most %d connections, but got %d",
+                    index, getCapacity(index), count));
+        }
+        System.arraycopy(connected, 0, connections, offsets[index], count);
+        degrees[index] = count;
+    }
+
+    /**
+     * Compute the degree of each row from the row offsets, assuming every row is full.
+     */
+    private static int[] computeDegrees(int[] offsets) {
+        int[] degrees = new int[offsets.length - 1];
+        for (int i = 0; i < degrees.length; i++) {
+            degrees[i] = offsets[i + 1] - offsets[i];
+        }
+        return degrees;
+    }
+}
@@ -30,7 +30,14 @@ public class TileNode implements GraphNode {
      */
     @Override
     public double getScoreMultiplier() {
-        return tile instanceof EmptyTile ? 1 : Double.MAX_VALUE;
+        return getScoreMultiplier(tile.getClass());
+    }
+
+    /**
+     * Get the score multiplier of a node for a Tile of the given class.
+     */
+    public static double getScoreMultiplier(Class<? extends Tile> tileClass) {
+        return EmptyTile.class.isAssignableFrom(tileClass) ? 1 : Double.MAX_VALUE;
     }
 
     /**
@@ -40,6 +47,21 @@ public class TileNode implements GraphNode {
         return tile;
     }
 
+    /**
+     * Two TileNodes are equal if their Tiles are, so that nodes created on demand for the same tile are equal.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof TileNode)) return false;
+        return tile.equals(((TileNode) o).tile);
+    }
+
+    @Override
+    public int hashCode() {
+        return tile.hashCode();
+    }
+
     @Override
     public String toString() {
         return "TileNode{" +
@@ -0,0 +1,90 @@
+package warehouse.logistics.optimization.graph.converters;
+
+import messaging.MessageListener;
+import warehouse.TileChangedMessageData;
+import warehouse.WarehouseLayout;
+import warehouse.WarehouseState;
+import warehouse.geometry.WarehouseCoordinate;
+import warehouse.geometry.WarehouseCoordinateSystem;
+import warehouse.logistics.optimization.graph.TileGraph;
+
+/**
+ * A routing graph of a Warehouse that is kept up to date as the layout of the Warehouse changes.
+ *
+ * @remark The graph is converted once, then patched whenever a Tile is set in the WarehouseLayout: only the node of
+ * the changed tile and the connections of the changed tile and its neighbours are rewritten, rather than converting
+ * the whole Warehouse again.
+ */
+public class IncrementalWarehouseGraph<T extends WarehouseCoordinateSystem<U>, U extends WarehouseCoordinate> {
+    private final WarehouseState<T, U> warehouseState;
+    private final WarehouseGraphConverter<T, U> converter;
+    private final TileGraph graph;
+    /**
+     * Scratch space for rewriting the connections of a single node.
+     */
+    private final int[] buffer;
+    /**
+     * Scratch space for the neighbours of a changed tile.
+     */
+    private final int[] neighbours;
+
+    private final MessageListener<TileChangedMessageData> tileChangedListener = this::onTileChanged;
+
+    /**
+     * Construct an IncrementalWarehouseGraph, converting the given Warehouse and listening for changes to its layout.
+     * @param warehouseState The Warehouse to convert.
+     * @param converter The converter deciding which tiles are in the graph.
+     */
+    public IncrementalWarehouseGraph(WarehouseState<T, U> warehouseState, WarehouseGraphConverter<T, U> converter) {
+        this.warehouseState = warehouseState;
+        this.converter = converter;
+        this.graph = converter.convert(warehouseState);
+
+        int maxNeighbourCount = warehouseState.getCoordinateSystem().getMaxNeighbourCount();
+        this.buffer = new int[maxNeighbourCount];
+        this.neighbours = new int[maxNeighbourCount];
+
+        warehouseState.getLayout().getOnTileChangedMessage().addListener(tileChangedListener);
+    }
+
+    /**
+     * Get the routing graph. The same graph is returned for the lifetime of this object, and reflects the current
+     * layout of the Warehouse.
+     */
+    public TileGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Stop listening for changes to the layout of the Warehouse. The graph will no longer be updated.
+     */
+    public void dispose() {
+        warehouseState.getLayout().getOnTileChangedMessage().removeListener(tileChangedListener);
+    }
+
+    /**
+     * Patch the graph after a Tile was set in the layout.
+     */
+    private void onTileChanged(TileChangedMessageData data) {
+        int index = data.getIndex();
+        if (index < 0 || index >= graph.getSize()) return;
+
+        WarehouseLayout<U> layout = warehouseState.getLayout();
+        WarehouseCoordinateSystem<U> coordinateSystem = layout.getCoordinateSystem();
+        graph.setNode(index, converter.createNode(warehouseState, data.getTile()));
+
+        // Whether the changed tile is in the graph affects its own connections and those of its neighbours.
+        updateRow(coordinateSystem, index);
+        for (int k = 0, count = coordinateSystem.getNeighbours(index, neighbours); k < count; k++) {
+            updateRow(coordinateSystem, neighbours[k]);
+        }
+    }
+
+    /**
+     * Rewrite the connections of the node at the given tile index.
+     */
+    private void updateRow(WarehouseCoordinateSystem<U> coordinateSystem, int index) {
+        int count = WarehouseGraphConverter.fillRow(coordinateSystem, graph, index, buffer);
+        graph.setConnections(index, buffer, count);
+    }
+}
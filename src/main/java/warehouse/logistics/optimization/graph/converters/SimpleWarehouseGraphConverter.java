@@ -15,4 +15,9 @@ public class SimpleWarehouseGraphConverter<T extends WarehouseCoordinateSystem<U
     protected boolean canAddTile(WarehouseState<T, U> warehouseState, Tile tile) {
         return true;
     }
+
+    @Override
+    protected boolean canAddTile(WarehouseState<T, U> warehouseState, int index) {
+        return true;
+    }
 }
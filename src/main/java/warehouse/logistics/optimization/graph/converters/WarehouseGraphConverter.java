@@ -4,65 +4,131 @@ import warehouse.WarehouseLayout;
 import warehouse.WarehouseState;
 import warehouse.geometry.WarehouseCoordinate;
 import warehouse.geometry.WarehouseCoordinateSystem;
-import warehouse.logistics.optimization.graph.Graph;
+import warehouse.logistics.optimization.graph.TileGraph;
 import warehouse.logistics.optimization.graph.TileNode;
 import warehouse.tiles.Tile;
+import warehouse.tiles.containers.InMemoryTileContainer;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
+import java.util.BitSet;
+import java.util.List;
 
 /**
  * Converts an arbitrary Warehouse to a Graph that can be used for routefinding.
+ *
+ * @remark If the layout keeps an object for every Tile, as an InMemoryTileContainer does, the graph keeps a TileNode
+ * for every tile in it. Otherwise, e.g. for a CompactTileContainer, the graph only records which tile indices are in
+ * it and creates nodes on demand, so converting does not create an object for every empty tile.
  */
 public abstract class WarehouseGraphConverter<T extends WarehouseCoordinateSystem<U>, U extends WarehouseCoordinate> {
     /**
      * Convert the given Warehouse to a graph.
      * @param warehouseState The Warehouse to convert.
-     * @return A graph of WarehouseNodes.
+     * @return A graph of WarehouseNodes, indexed by tile index.
      */
-    public Graph<TileNode> convert(WarehouseState<T, U> warehouseState) {
-        Set<TileNode> emptyNodes = getEmptyTilesAsNodes(warehouseState);
-        Map<String, Set<String>> connections = new HashMap<>();
-        for (TileNode node : emptyNodes) {
-            connections.put(node.getId(), getNeighboursTo(warehouseState, node.getTile()));
+    public TileGraph convert(WarehouseState<T, U> warehouseState) {
+        WarehouseLayout<U> layout = warehouseState.getLayout();
+        WarehouseCoordinateSystem<U> coordinateSystem = layout.getCoordinateSystem();
+        int size = layout.getTileContainer().getSize();
+
+        // Reserve space in each row for every neighbouring tile, so that rows can be patched in place when the
+        // layout changes, even if the neighbouring tile is not currently in the graph.
+        int[] offsets = new int[size + 1];
+        int[] buffer = new int[coordinateSystem.getMaxNeighbourCount()];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            offsets[i] = count;
+            count += coordinateSystem.getNeighbours(i, buffer);
+        }
+        offsets[size] = count;
+
+        TileGraph graph;
+        if (layout.getTileContainer() instanceof InMemoryTileContainer) {
+            graph = new TileGraph(getTilesAsNodes(warehouseState), offsets, new int[size], new int[count]);
+        } else {
+            graph = new TileGraph(layout.getTileContainer(), getMembers(warehouseState), offsets, new int[size],
+                    new int[count]);
+        }
+        for (int i = 0; i < size; i++) {
+            graph.setConnections(i, buffer, fillRow(coordinateSystem, graph, i, buffer));
+        }
+        return graph;
+    }
+
+    /**
+     * Create the node for the given Tile.
+     * @param warehouseState The Warehouse being converted.
+     * @param tile The tile to convert.
+     * @return A TileNode for the given tile, or null if the tile should not be in the graph.
+     */
+    TileNode createNode(WarehouseState<T, U> warehouseState, Tile tile) {
+        if (tile != null && canAddTile(warehouseState, tile)) {
+            return new TileNode(tile);
+        } else {
+            return null;
         }
-        return new Graph<>(emptyNodes, connections);
     }
 
     /**
-     * Return the empty tiles of the given Warehouse as TileNode objects.
+     * Write the tile indices of the nodes connected to the node at the given tile index into the given buffer.
+     * @param coordinateSystem The coordinate system of the Warehouse.
+     * @param graph The graph containing the node.
+     * @param index The tile index of the node whose connections to find.
+     * @param buffer The buffer to write the connections into. This must hold at least
+     *               coordinateSystem.getMaxNeighbourCount() elements.
+     * @return The number of connections written.
      */
-    private Set<TileNode> getEmptyTilesAsNodes(WarehouseState<T, U> warehouseState) {
-        Set<TileNode> nodes = new HashSet<>();
-        WarehouseLayout<U> layout = warehouseState.getLayout();
-        for (Tile tile : layout.getTiles()) {
-            if (canAddTile(warehouseState, tile)) {
-                nodes.add(new TileNode(tile));
+    static <U extends WarehouseCoordinate> int fillRow(WarehouseCoordinateSystem<U> coordinateSystem, TileGraph graph,
+                                                       int index, int[] buffer) {
+        if (!graph.contains(index)) {
+            return 0;
+        }
+        // Write every neighbour, then compact the buffer in place down to the neighbours in the graph
+        int neighbourCount = coordinateSystem.getNeighbours(index, buffer);
+        int count = 0;
+        for (int k = 0; k < neighbourCount; k++) {
+            if (graph.contains(buffer[k])) {
+                buffer[count++] = buffer[k];
             }
         }
-        return nodes;
+        return count;
     }
 
     /**
-     * Return the ids of neighbouring nodes to the given node.
+     * Return the tiles of the given Warehouse that should be in the graph as TileNode objects, indexed by tile index.
+     * Tiles that should not be in the graph are null.
      */
-    private Set<String> getNeighboursTo(WarehouseState<T, U> warehouseState, Tile tile) {
-        HashSet<String> neighbours = new HashSet<>();
+    private TileNode[] getTilesAsNodes(WarehouseState<T, U> warehouseState) {
         WarehouseLayout<U> layout = warehouseState.getLayout();
-        WarehouseCoordinateSystem<U> coordinateSystem = layout.getCoordinateSystem();
+        List<Tile> tiles = layout.getTilesView();
+        TileNode[] nodes = new TileNode[tiles.size()];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = createNode(warehouseState, tiles.get(i));
+        }
+        return nodes;
+    }
 
-        U tilePosition = coordinateSystem.projectIndexToCoordinate(tile.getIndex());
-        for (U point : coordinateSystem.getNeighbours(tilePosition)) {
-            if (point == null) continue;
-            Tile neighbour = layout.getTileAt(point);
-            if (canAddTile(warehouseState, neighbour) && neighbour != null) {
-                neighbours.add(new TileNode(neighbour).getId());
-            }
+    /**
+     * Return the tile indices of the given Warehouse that should be in the graph.
+     */
+    private BitSet getMembers(WarehouseState<T, U> warehouseState) {
+        int size = warehouseState.getLayout().getTileContainer().getSize();
+        BitSet members = new BitSet(size);
+        for (int i = 0; i < size; i++) {
+            members.set(i, canAddTile(warehouseState, i));
         }
+        return members;
+    }
 
-        return neighbours;
+    /**
+     * Return whether to include the Tile at the given tile index in the graph. By default, the Tile is looked up and
+     * passed to canAddTile; converters that do not need the Tile object can override this to avoid creating it.
+     * @param warehouseState The Warehouse being converted.
+     * @param index The tile index to check.
+     * @return True if the Tile should be added to the graph, and False otherwise.
+     */
+    protected boolean canAddTile(WarehouseState<T, U> warehouseState, int index) {
+        Tile tile = warehouseState.getLayout().getTileAt(index);
+        return tile != null && canAddTile(warehouseState, tile);
     }
 
     /**
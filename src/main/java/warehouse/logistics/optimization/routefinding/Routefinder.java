@@ -7,6 +7,9 @@ import java.util.List;
 
 /**
  * The base class for all routefinding algorithms.
+ *
+ * @remark findRoute may be called from several threads at once on the same graph, e.g. while a RobotAdapterUpdater
+ * prepares its adapters in parallel, so implementations must not share mutable search state between calls.
  */
 public interface Routefinder<T extends GraphNode> {
     /**
@@ -0,0 +1,146 @@
+package warehouse.logistics.optimization.routefinding;
+
+import utils.IndexedMinHeap;
+
+import java.util.Arrays;
+
+/**
+ * Reusable working memory for searches over tile indices.
+ *
+ * @remark Rather than clearing the score and parent arrays before each search, every entry is stamped with the
+ * generation of the search that wrote it; entries with an older stamp are treated as unvisited. Starting a new search
+ * is therefore O(1), and a search on a graph no larger than any previous one does not allocate.
+ *
+ * SearchBuffers are not thread-safe. Use forCurrentThread to get buffers owned by the calling thread.
+ */
+public class SearchBuffers {
+    private static final ThreadLocal<SearchBuffers> THREAD_BUFFERS =
+            ThreadLocal.withInitial(() -> new SearchBuffers(0));
+
+    private int[] parents;
+    private double[] scores;
+    private int[] stamps;
+    private int generation;
+    private final IndexedMinHeap openSet;
+    /**
+     * The number of nodes expanded by the current search.
+     */
+    private int expandedCount;
+    /**
+     * The number of nodes expanded by every search that used these buffers.
+     */
+    private long totalExpandedCount;
+
+    /**
+     * Construct SearchBuffers for graphs with up to the given number of nodes.
+     * @param capacity The number of nodes. The buffers grow as needed if a larger graph is searched.
+     */
+    public SearchBuffers(int capacity) {
+        parents = new int[capacity];
+        scores = new double[capacity];
+        stamps = new int[capacity];
+        openSet = new IndexedMinHeap(capacity);
+    }
+
+    /**
+     * Get the SearchBuffers owned by the calling thread, prepared for a new search over the given number of nodes.
+     * @param size The number of nodes in the graph being searched.
+     */
+    public static SearchBuffers forCurrentThread(int size) {
+        SearchBuffers buffers = THREAD_BUFFERS.get();
+        buffers.reset(size);
+        return buffers;
+    }
+
+    /**
+     * Get the SearchBuffers owned by the calling thread as left by the last search on this thread, e.g. to inspect
+     * how many nodes it expanded.
+     */
+    public static SearchBuffers forCurrentThread() {
+        return THREAD_BUFFERS.get();
+    }
+
+    /**
+     * Prepare for a new search over the given number of nodes, forgetting the results of the previous search.
+     * @param size The number of nodes in the graph being searched.
+     */
+    public void reset(int size) {
+        if (size > stamps.length) {
+            parents = Arrays.copyOf(parents, size);
+            scores = Arrays.copyOf(scores, size);
+            stamps = Arrays.copyOf(stamps, size);
+            openSet.ensureCapacity(size);
+        }
+        openSet.clear();
+        expandedCount = 0;
+        generation++;
+        if (generation == 0) {
+            // The stamps wrapped around, so old stamps could be mistaken for the current generation.
+            Arrays.fill(stamps, 0);
+            generation = 1;
+        }
+    }
+
+    /**
+     * Return whether the given node has been reached in the current search.
+     */
+    public boolean isVisited(int index) {
+        return stamps[index] == generation;
+    }
+
+    /**
+     * Get the best known score of the given node, or positive infinity if it has not been reached.
+     */
+    public double getScore(int index) {
+        return isVisited(index) ? scores[index] : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Get the node the given node was reached from, or -1 if it has not been reached or is the source.
+     */
+    public int getParent(int index) {
+        return isVisited(index) ? parents[index] : -1;
+    }
+
+    /**
+     * Record that the given node was reached with the given score.
+     * @param index The node.
+     * @param score The score of the best known route to the node.
+     * @param parent The node the best known route passes through before the given node, or -1 if it is the source.
+     */
+    public void visit(int index, double score, int parent) {
+        stamps[index] = generation;
+        scores[index] = score;
+        parents[index] = parent;
+    }
+
+    /**
+     * Get the open set of the current search.
+     */
+    public IndexedMinHeap getOpenSet() {
+        return openSet;
+    }
+
+    /**
+     * Record that a node was expanded by the current search.
+     */
+    public void incrementExpandedCount() {
+        expandedCount++;
+        totalExpandedCount++;
+    }
+
+    /**
+     * Get the number of nodes expanded by the current search.
+     */
+    public int getExpandedCount() {
+        return expandedCount;
+    }
+
+    /**
+     * Get the number of nodes expanded by every search that used these buffers, e.g. to count the nodes expanded by a
+     * search that may not have run, such as one answered from a cache.
+     */
+    public long getTotalExpandedCount() {
+        return totalExpandedCount;
+    }
+}
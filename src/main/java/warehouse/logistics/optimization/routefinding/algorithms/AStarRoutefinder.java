@@ -42,7 +42,7 @@ public class AStarRoutefinder<T extends GraphNode> implements Routefinder<T> {
         //targetCost *= destination.getScoreMultiplier();
         AStarRouteNode<T> start = new AStarRouteNode<>(source, null, 0, targetCost);
         openSet.add(start);
-        allNodes.put(destination, start);
+        allNodes.put(source, start);
 
         String destinationId = destination.getId();
         while (!openSet.isEmpty()) {
@@ -53,7 +53,7 @@ public class AStarRoutefinder<T extends GraphNode> implements Routefinder<T> {
                 return buildRoute(allNodes, next);
             }
 
-            graph.getConnections(next.getCurrent()).forEach(connection -> {
+            graph.forEachConnection(next.getCurrent(), connection -> {
                 AStarRouteNode<T> nextNode = allNodes.getOrDefault(connection, new AStarRouteNode<T>(connection));
                 allNodes.put(connection, nextNode);
 
@@ -80,10 +80,12 @@ public class AStarRoutefinder<T extends GraphNode> implements Routefinder<T> {
         List<T> route = new ArrayList<>();
         AStarRouteNode<T> current = destination;
         route.add(0, current.getCurrent());
-        current = allNodes.get(current.getPrevious());
-        while (current != null) {
-            route.add(0, current.getCurrent());
+        // The start node has no previous node, and is left out of the route unless it is also the destination
+        while (current.getPrevious() != null) {
             current = allNodes.get(current.getPrevious());
+            if (current.getPrevious() != null) {
+                route.add(0, current.getCurrent());
+            }
         }
         return route;
     }
@@ -0,0 +1,142 @@
+package warehouse.logistics.optimization.routefinding.algorithms;
+
+import warehouse.WarehouseLayout;
+import warehouse.logistics.optimization.graph.Graph;
+import warehouse.logistics.optimization.graph.TileNode;
+import warehouse.logistics.optimization.routefinding.Routefinder;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A Routefinder that remembers the routes found by another Routefinder, so that a route that was found before is
+ * returned without searching again.
+ *
+ * @remark Robots repeat the same legs over and over, e.g. every PlaceOrder from a ReceiveDepot starts at the same
+ * neighbour of the depot, so most routes have been found before. Routes are keyed by the tile indices of their source
+ * and destination, and are valid for one version of the WarehouseLayout: once a Tile is set, the whole cache is
+ * discarded on the next query. The least recently used route is evicted once the cache is full. A route that does not
+ * exist is cached too, as null, so that a Robot waiting for an unreachable destination does not search again on every
+ * update until the layout changes; callers must handle the null route.
+ *
+ * Searches run outside the lock of the cache, so a CachingRoutefinder can be shared by many Robots and used from
+ * several threads at once if the wrapped Routefinder can.
+ */
+public class CachingRoutefinder implements Routefinder<TileNode> {
+    /**
+     * The default maximum number of routes to keep.
+     */
+    public static final int DEFAULT_MAXIMUM_SIZE = 1024;
+    /**
+     * Stands in for a null route, i.e. one that does not exist.
+     */
+    private static final List<TileNode> NO_ROUTE = new ArrayList<>();
+
+    private final Routefinder<TileNode> routefinder;
+    private final WarehouseLayout<?> layout;
+    private final LinkedHashMap<Long, List<TileNode>> routes;
+
+    /**
+     * The version of the layout and the graph the cached routes were found for.
+     */
+    private long version;
+    private Graph<TileNode> graph;
+    private long hitCount;
+    private long missCount;
+
+    /**
+     * Construct a CachingRoutefinder.
+     * @param routefinder The Routefinder to find routes that are not cached.
+     * @param layout The layout that routes are found in.
+     * @param maximumSize The maximum number of routes to keep.
+     * @throws IllegalArgumentException if the maximum size is not positive.
+     */
+    public CachingRoutefinder(Routefinder<TileNode> routefinder, WarehouseLayout<?> layout, int maximumSize) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("The maximum size of a CachingRoutefinder must be positive");
+        }
+        this.routefinder = routefinder;
+        this.layout = layout;
+        this.routes = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, List<TileNode>> eldest) {
+                return size() > maximumSize;
+            }
+        };
+        this.version = layout.getVersion();
+    }
+
+    /**
+     * Construct a CachingRoutefinder with the default maximum size.
+     * @param routefinder The Routefinder to find routes that are not cached.
+     * @param layout The layout that routes are found in.
+     */
+    public CachingRoutefinder(Routefinder<TileNode> routefinder, WarehouseLayout<?> layout) {
+        this(routefinder, layout, DEFAULT_MAXIMUM_SIZE);
+    }
+
+    @Override
+    public List<TileNode> findRoute(Graph<TileNode> graph, TileNode source, TileNode destination) {
+        long key = ((long) source.getTile().getIndex() << 32) | (destination.getTile().getIndex() & 0xffffffffL);
+        long currentVersion = layout.getVersion();
+        synchronized (this) {
+            if (currentVersion != version || graph != this.graph) {
+                routes.clear();
+                version = currentVersion;
+                this.graph = graph;
+            }
+            List<TileNode> route = routes.get(key);
+            if (route != null) {
+                hitCount++;
+                return route == NO_ROUTE ? null : new ArrayList<>(route);
+            }
+            missCount++;
+        }
+
+        List<TileNode> route = routefinder.findRoute(graph, source, destination);
+        synchronized (this) {
+            // Do not cache a route found for a layout that changed during the search
+            if (currentVersion == version && graph == this.graph) {
+                routes.put(key, route == null ? NO_ROUTE : new ArrayList<>(route));
+            }
+        }
+        return route;
+    }
+
+    /**
+     * Get the Routefinder that finds routes that are not cached.
+     */
+    public Routefinder<TileNode> getRoutefinder() {
+        return routefinder;
+    }
+
+    /**
+     * Get the number of routes in this cache.
+     */
+    public synchronized int size() {
+        return routes.size();
+    }
+
+    /**
+     * Get the number of routes returned from the cache.
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Get the number of routes that were not cached and had to be searched for.
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Remove all routes from this cache.
+     */
+    public synchronized void clear() {
+        routes.clear();
+    }
+}
@@ -0,0 +1,130 @@
+package warehouse.logistics.optimization.routefinding.algorithms;
+
+import utils.IndexedMinHeap;
+import warehouse.geometry.grid.GridDistanceMetric;
+import warehouse.geometry.grid.GridWarehouseCoordinateSystem;
+import warehouse.logistics.optimization.graph.Graph;
+import warehouse.logistics.optimization.graph.TileGraph;
+import warehouse.logistics.optimization.graph.TileNode;
+import warehouse.logistics.optimization.routefinding.Routefinder;
+import warehouse.logistics.optimization.routefinding.SearchBuffers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A Routefinder that implements the A* algorithm on a TileGraph over a grid, using the euclidean distance between
+ * tiles as the cost between connected tiles, and the heuristic metric of the coordinate system (Manhattan or octile
+ * distance) as the estimate to the destination.
+ *
+ * @remark This finds the same routes as an AStarRoutefinder with DistanceTileScorer metrics, but works directly on
+ * tile indices with primitive arrays and an indexed heap that are reused between calls on the same thread, so the
+ * search itself does not allocate.
+ */
+public class GridAStarRoutefinder implements Routefinder<TileNode> {
+    private final int width;
+    /**
+     * The estimate of the remaining distance to the destination.
+     */
+    private final GridDistanceMetric heuristicMetric;
+
+    /**
+     * Construct a GridAStarRoutefinder.
+     * @param coordinateSystem The coordinate system of the graphs to find routes on.
+     */
+    public GridAStarRoutefinder(GridWarehouseCoordinateSystem coordinateSystem) {
+        this.width = coordinateSystem.getWidth();
+        this.heuristicMetric = coordinateSystem.getHeuristicMetric();
+    }
+
+    /**
+     * Find an optimal Route between the given source and destination nodes such that the sum of distances between
+     * nodes on the route is minimized.
+     * @param graph The graph to find routes on. This must be a TileGraph.
+     * @param source The source node.
+     * @param destination The destination node.
+     * @return the optimal Route, excluding the source node unless it is also the destination, or null if no such
+     * Route could be found.
+     * @throws IllegalArgumentException if the graph is not a TileGraph.
+     */
+    @Override
+    public List<TileNode> findRoute(Graph<TileNode> graph, TileNode source, TileNode destination) {
+        if (!(graph instanceof TileGraph)) {
+            throw new IllegalArgumentException("GridAStarRoutefinder can only find routes on a TileGraph");
+        }
+        TileGraph tileGraph = (TileGraph) graph;
+        int sourceIndex = source.getTile().getIndex();
+        int destinationIndex = destination.getTile().getIndex();
+        if (!tileGraph.contains(sourceIndex) || !tileGraph.contains(destinationIndex)) {
+            return null;
+        }
+
+        SearchBuffers buffers = SearchBuffers.forCurrentThread(tileGraph.getSize());
+        if (!search(tileGraph, sourceIndex, destinationIndex, buffers)) {
+            return null;
+        }
+        return buildRoute(tileGraph, sourceIndex, destinationIndex, buffers);
+    }
+
+    /**
+     * Run the search from the source to the destination tile index, recording scores and parents in the buffers.
+     * @return True if the destination was reached, and False otherwise.
+     */
+    private boolean search(TileGraph graph, int sourceIndex, int destinationIndex, SearchBuffers buffers) {
+        IndexedMinHeap openSet = buffers.getOpenSet();
+        buffers.visit(sourceIndex, 0, -1);
+        openSet.insertOrDecrease(sourceIndex, getHeuristic(sourceIndex, destinationIndex));
+
+        while (!openSet.isEmpty()) {
+            int current = openSet.poll();
+            if (current == destinationIndex) {
+                return true;
+            }
+            buffers.incrementExpandedCount();
+
+            double score = buffers.getScore(current);
+            for (int k = 0, degree = graph.getDegree(current); k < degree; k++) {
+                int connection = graph.getConnection(current, k);
+                double newScore = score + getDistance(current, connection);
+                newScore *= graph.getScoreMultiplier(connection);
+                if (newScore < buffers.getScore(connection)) {
+                    buffers.visit(connection, newScore, current);
+                    openSet.insertOrDecrease(connection, newScore + getHeuristic(connection, destinationIndex));
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Build a Route by backtracking from the destination to the source through the recorded parents.
+     */
+    private List<TileNode> buildRoute(TileGraph graph, int sourceIndex, int destinationIndex, SearchBuffers buffers) {
+        List<TileNode> route = new ArrayList<>();
+        int current = destinationIndex;
+        route.add(graph.getNode(current));
+        while (buffers.getParent(current) != -1 && buffers.getParent(current) != sourceIndex) {
+            current = buffers.getParent(current);
+            route.add(graph.getNode(current));
+        }
+        Collections.reverse(route);
+        return route;
+    }
+
+    /**
+     * Get the estimated distance between two tile indices.
+     */
+    private double getHeuristic(int i1, int i2) {
+        return heuristicMetric.getDistance(i1 % width - i2 % width, i1 / width - i2 / width);
+    }
+
+    /**
+     * Get the euclidean distance between two tile indices.
+     */
+    private double getDistance(int i1, int i2) {
+        double dx = i1 % width - i2 % width;
+        double dy = i1 / width - i2 / width;
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+}
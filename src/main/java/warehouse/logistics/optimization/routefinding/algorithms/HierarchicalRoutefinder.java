@@ -0,0 +1,727 @@
+package warehouse.logistics.optimization.routefinding.algorithms;
+
+import messaging.MessageListener;
+import utils.IndexedMinHeap;
+import warehouse.TileChangedMessageData;
+import warehouse.WarehouseState;
+import warehouse.geometry.grid.GridWarehouseCoordinateSystem;
+import warehouse.geometry.grid.Point;
+import warehouse.logistics.optimization.graph.Graph;
+import warehouse.logistics.optimization.graph.TileGraph;
+import warehouse.logistics.optimization.graph.TileNode;
+import warehouse.logistics.optimization.routefinding.Routefinder;
+import warehouse.logistics.optimization.routefinding.SearchBuffers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A Routefinder that implements hierarchical pathfinding (HPA*) on a TileGraph over a grid.
+ *
+ * @remark The grid is split into square clusters. Wherever two neighbouring clusters share a run of walkable tiles
+ * along their border, one or two transitions are placed across the border. If the graph allows diagonal moves, a
+ * transition is also placed across each corner where the corner tiles of two diagonally neighbouring clusters are
+ * connected, as routes through such a corner may not touch either of the other two clusters. The cost between every
+ * pair of transition tiles inside a cluster is precomputed with a search bounded to the cluster. A route is found by
+ * searching this small abstract graph, then refining each abstract edge into tiles with another bounded search.
+ * Routes are therefore near-optimal rather than optimal, but query time depends on the number of clusters crossed
+ * rather than the area of the floor.
+ *
+ * When a Tile in the layout is set, only the cluster containing it (and the neighbouring clusters, if the tile is on
+ * a shared border or corner) is marked dirty. Dirty clusters are rebuilt on the next query.
+ *
+ * A tile is walkable if it is in the graph and its score multiplier is 1 (e.g. it is an EmptyTile). The destination
+ * may be any tile in the graph. Moves cost the euclidean distance between tiles.
+ */
+public class HierarchicalRoutefinder implements Routefinder<TileNode> {
+    /**
+     * The default width and height of a cluster, in tiles.
+     */
+    public static final int DEFAULT_CLUSTER_SIZE = 16;
+    /**
+     * Groups of border crossings spanning fewer tiles than this get a single transition in the middle; larger groups
+     * get one at each end.
+     */
+    private static final int MIN_DOUBLE_TRANSITION_LENGTH = 6;
+
+    private final WarehouseState<GridWarehouseCoordinateSystem, Point> warehouseState;
+    private final int width;
+    private final int height;
+    private final int clusterSize;
+    private final int clustersX;
+    private final int clustersY;
+
+    private final Cluster[] clusters;
+    /**
+     * The transitions across the east and south border of each cluster, as (inside, outside) pairs of tile indices.
+     */
+    private final int[][] eastBorders;
+    private final int[][] southBorders;
+    private final boolean[] eastBorderDirty;
+    private final boolean[] southBorderDirty;
+    /**
+     * The transitions across the south-east and south-west corner of each cluster to the diagonally neighbouring
+     * cluster, as an (inside, outside) pair of tile indices, or empty if the corner tiles are not connected.
+     */
+    private final int[][] southEastCorners;
+    private final int[][] southWestCorners;
+    private final boolean[] cornersDirty;
+    /**
+     * The position of each tile in the entrances of its cluster, or -1 if the tile is not an entrance.
+     */
+    private final int[] entranceSlots;
+
+    private final SearchBuffers abstractBuffers;
+    private final SearchBuffers localBuffers;
+    /**
+     * The graph the abstract graph was built from.
+     */
+    private TileGraph graph;
+    private int clusterRebuildCount;
+
+    private final MessageListener<TileChangedMessageData> tileChangedListener = this::onTileChanged;
+
+    /**
+     * A cluster of tiles, with the tiles where routes can enter and leave it.
+     */
+    private static class Cluster {
+        /**
+         * Tile indices of the entrances to this cluster.
+         */
+        private int[] entrances = new int[0];
+        /**
+         * The tile indices of the tiles in neighbouring clusters that each entrance connects to.
+         */
+        private int[][] partners = new int[0][];
+        /**
+         * The cost of the best route between each pair of entrances within this cluster, in row-major order.
+         */
+        private double[] costs = new double[0];
+        private boolean dirty = true;
+    }
+
+    /**
+     * Construct a HierarchicalRoutefinder with the default cluster size.
+     * @param warehouseState The Warehouse to find routes in. Changes to its layout mark clusters dirty.
+     */
+    public HierarchicalRoutefinder(WarehouseState<GridWarehouseCoordinateSystem, Point> warehouseState) {
+        this(warehouseState, DEFAULT_CLUSTER_SIZE);
+    }
+
+    /**
+     * Construct a HierarchicalRoutefinder.
+     * @param warehouseState The Warehouse to find routes in. Changes to its layout mark clusters dirty.
+     * @param clusterSize The width and height of a cluster, in tiles.
+     * @throws IllegalArgumentException if clusterSize is not positive.
+     */
+    public HierarchicalRoutefinder(WarehouseState<GridWarehouseCoordinateSystem, Point> warehouseState,
+                                   int clusterSize) {
+        if (clusterSize <= 0) {
+            throw new IllegalArgumentException("Cluster size must be positive, but got " + clusterSize);
+        }
+        this.warehouseState = warehouseState;
+        GridWarehouseCoordinateSystem coordinateSystem = warehouseState.getCoordinateSystem();
+        this.width = coordinateSystem.getWidth();
+        this.height = coordinateSystem.getHeight();
+        this.clusterSize = clusterSize;
+        this.clustersX = (width + clusterSize - 1) / clusterSize;
+        this.clustersY = (height + clusterSize - 1) / clusterSize;
+
+        int clusterCount = clustersX * clustersY;
+        clusters = new Cluster[clusterCount];
+        for (int i = 0; i < clusterCount; i++) {
+            clusters[i] = new Cluster();
+        }
+        eastBorders = new int[clusterCount][];
+        southBorders = new int[clusterCount][];
+        eastBorderDirty = new boolean[clusterCount];
+        southBorderDirty = new boolean[clusterCount];
+        southEastCorners = new int[clusterCount][];
+        southWestCorners = new int[clusterCount][];
+        cornersDirty = new boolean[clusterCount];
+        entranceSlots = new int[width * height];
+        Arrays.fill(entranceSlots, -1);
+
+        abstractBuffers = new SearchBuffers(width * height);
+        localBuffers = new SearchBuffers(width * height);
+        warehouseState.getLayout().getOnTileChangedMessage().addListener(tileChangedListener);
+    }
+
+    /**
+     * Find a near-optimal Route between the given source and destination nodes.
+     * @param graph The graph to find routes on. This must be a TileGraph of the Warehouse given at construction.
+     * @param source The source node.
+     * @param destination The destination node.
+     * @return the Route, visiting every tile along the way and excluding the source node unless it is also the
+     * destination, or null if no Route could be found.
+     * @throws IllegalArgumentException if the graph is not a TileGraph.
+     */
+    @Override
+    public synchronized List<TileNode> findRoute(Graph<TileNode> graph, TileNode source, TileNode destination) {
+        if (!(graph instanceof TileGraph)) {
+            throw new IllegalArgumentException("HierarchicalRoutefinder can only find routes on a TileGraph");
+        }
+        TileGraph tileGraph = (TileGraph) graph;
+        int sourceIndex = source.getTile().getIndex();
+        int destinationIndex = destination.getTile().getIndex();
+        if (!tileGraph.contains(sourceIndex) || !tileGraph.contains(destinationIndex)) {
+            return null;
+        }
+        if (sourceIndex == destinationIndex) {
+            List<TileNode> route = new ArrayList<>();
+            route.add(tileGraph.getNode(destinationIndex));
+            return route;
+        }
+        if (tileGraph != this.graph) {
+            this.graph = tileGraph;
+            invalidateAll();
+        }
+        update();
+
+        List<Integer> abstractRoute = findAbstractRoute(sourceIndex, destinationIndex);
+        if (abstractRoute == null) {
+            return null;
+        }
+        return refine(abstractRoute, destinationIndex);
+    }
+
+    /**
+     * Get the number of times a cluster has been rebuilt since this routefinder was created.
+     */
+    public synchronized int getClusterRebuildCount() {
+        return clusterRebuildCount;
+    }
+
+    /**
+     * Stop listening for changes to the layout of the Warehouse.
+     */
+    public void dispose() {
+        warehouseState.getLayout().getOnTileChangedMessage().removeListener(tileChangedListener);
+    }
+
+    /**
+     * Search the abstract graph from the source to the destination.
+     * @remark The source and destination are connected to the abstract graph through the entrances of their clusters.
+     * A source or destination on the edge of its cluster may also be left or entered directly from a neighbouring
+     * cluster, so its walkable neighbours in other clusters (its ports) are connected to the entrances of their
+     * clusters too.
+     * @return the tile indices of the abstract route from source to destination, or null if there is none.
+     */
+    private List<Integer> findAbstractRoute(int source, int destination) {
+        int[] sources = getEndpoints(source, destination);
+        int[] destinations = getEndpoints(destination, destination);
+        double[][] sourceCosts = new double[sources.length][];
+        double[][] destinationCosts = new double[destinations.length][];
+        // The cost between each source and destination endpoint in the same cluster, without leaving the cluster
+        double[][] directCosts = new double[sources.length][destinations.length];
+        for (int i = 0; i < destinations.length; i++) {
+            destinationCosts[i] = getCostsToEntrances(destinations[i], destination);
+        }
+        for (int i = 0; i < sources.length; i++) {
+            if (sources[i] == destination) continue;
+            sourceCosts[i] = getCostsToEntrances(sources[i], destination);
+            for (int j = 0; j < destinations.length; j++) {
+                boolean sameCluster = getClusterIndex(sources[i]) == getClusterIndex(destinations[j]);
+                directCosts[i][j] = sameCluster ? localBuffers.getScore(destinations[j]) : Double.POSITIVE_INFINITY;
+            }
+        }
+
+        abstractBuffers.reset(width * height);
+        IndexedMinHeap openSet = abstractBuffers.getOpenSet();
+        abstractBuffers.visit(source, 0, -1);
+        openSet.insertOrDecrease(source, getDistance(source, destination));
+        while (!openSet.isEmpty()) {
+            int current = openSet.poll();
+            if (current == destination) {
+                List<Integer> route = new ArrayList<>();
+                for (int node = destination; node != -1; node = abstractBuffers.getParent(node)) {
+                    route.add(0, node);
+                }
+                return route;
+            }
+            abstractBuffers.incrementExpandedCount();
+            int clusterIndex = getClusterIndex(current);
+            Cluster cluster = clusters[clusterIndex];
+
+            // Edges out of the source and its ports
+            for (int i = 0; i < sources.length; i++) {
+                if (sources[i] != current) continue;
+                if (i == 0) {
+                    for (int j = 1; j < sources.length; j++) {
+                        relax(current, sources[j], getDistance(current, sources[j]), destination);
+                    }
+                }
+                for (int k = 0; k < cluster.entrances.length; k++) {
+                    relax(current, cluster.entrances[k], sourceCosts[i][k], destination);
+                }
+                for (int j = 0; j < destinations.length; j++) {
+                    relax(current, destinations[j], directCosts[i][j], destination);
+                }
+            }
+            // Edges out of an entrance
+            int slot = entranceSlots[current];
+            if (slot != -1) {
+                int count = cluster.entrances.length;
+                for (int k = 0; k < count; k++) {
+                    if (k != slot) {
+                        relax(current, cluster.entrances[k], cluster.costs[slot * count + k], destination);
+                    }
+                }
+                for (int partner : cluster.partners[slot]) {
+                    relax(current, partner, getDistance(current, partner), destination);
+                }
+                for (int j = 0; j < destinations.length; j++) {
+                    if (getClusterIndex(destinations[j]) == clusterIndex) {
+                        relax(current, destinations[j], destinationCosts[j][slot], destination);
+                    }
+                }
+            }
+            // The last step from a port of the destination
+            for (int j = 1; j < destinations.length; j++) {
+                if (destinations[j] == current) {
+                    relax(current, destination, getDistance(current, destination), destination);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get the given tile followed by its ports: the tiles connected to it in other clusters that routes can pass
+     * through.
+     */
+    private int[] getEndpoints(int tile, int destination) {
+        int clusterIndex = getClusterIndex(tile);
+        int degree = graph.getDegree(tile);
+        int[] endpoints = new int[degree + 1];
+        int count = 0;
+        endpoints[count++] = tile;
+        for (int k = 0; k < degree; k++) {
+            int connection = graph.getConnection(tile, k);
+            if (getClusterIndex(connection) != clusterIndex &&
+                    (connection == destination || isWalkable(connection))) {
+                endpoints[count++] = connection;
+            }
+        }
+        return Arrays.copyOf(endpoints, count);
+    }
+
+    /**
+     * Relax an edge of the abstract graph.
+     */
+    private void relax(int from, int to, double cost, int destination) {
+        double newScore = abstractBuffers.getScore(from) + cost;
+        if (newScore < abstractBuffers.getScore(to)) {
+            abstractBuffers.visit(to, newScore, from);
+            abstractBuffers.getOpenSet().insertOrDecrease(to, newScore + getDistance(to, destination));
+        }
+    }
+
+    /**
+     * Get the cost from the given tile to each entrance of its cluster, staying within the cluster.
+     * @remark Leaves the scores of the search in localBuffers.
+     */
+    private double[] getCostsToEntrances(int start, int destination) {
+        int clusterIndex = getClusterIndex(start);
+        searchCluster(clusterIndex, start, -1, destination);
+        int[] entrances = clusters[clusterIndex].entrances;
+        double[] costs = new double[entrances.length];
+        for (int k = 0; k < entrances.length; k++) {
+            costs[k] = localBuffers.getScore(entrances[k]);
+        }
+        return costs;
+    }
+
+    /**
+     * Refine an abstract route into the tiles along it.
+     */
+    private List<TileNode> refine(List<Integer> abstractRoute, int destination) {
+        List<TileNode> route = new ArrayList<>();
+        for (int i = 1; i < abstractRoute.size(); i++) {
+            int from = abstractRoute.get(i - 1);
+            int to = abstractRoute.get(i);
+            int clusterIndex = getClusterIndex(from);
+            if (clusterIndex != getClusterIndex(to)) {
+                // A transition between neighbouring clusters
+                route.add(graph.getNode(to));
+                continue;
+            }
+            searchCluster(clusterIndex, from, to, destination);
+            int start = route.size();
+            for (int node = to; node != from; node = localBuffers.getParent(node)) {
+                route.add(start, graph.getNode(node));
+            }
+        }
+        return route;
+    }
+
+    /**
+     * Search outwards from the start tile without leaving the given cluster, leaving scores and parents in
+     * localBuffers.
+     * @param clusterIndex The cluster to search in.
+     * @param start The tile index to start from.
+     * @param target The tile index to stop at, or -1 to search the whole cluster.
+     * @param destination The destination of the current query, which may be entered even if it is not walkable, or -1.
+     */
+    private void searchCluster(int clusterIndex, int start, int target, int destination) {
+        localBuffers.reset(width * height);
+        IndexedMinHeap openSet = localBuffers.getOpenSet();
+        localBuffers.visit(start, 0, -1);
+        openSet.insertOrDecrease(start, target == -1 ? 0 : getDistance(start, target));
+        while (!openSet.isEmpty()) {
+            int current = openSet.poll();
+            if (current == target) {
+                return;
+            }
+            if (current == destination && current != start) {
+                // Routes may end at the destination, but not pass through it
+                continue;
+            }
+            double score = localBuffers.getScore(current);
+            for (int k = 0, degree = graph.getDegree(current); k < degree; k++) {
+                int connection = graph.getConnection(current, k);
+                if (getClusterIndex(connection) != clusterIndex) continue;
+                if (connection != destination && !isWalkable(connection)) continue;
+                double newScore = score + getDistance(current, connection);
+                if (newScore < localBuffers.getScore(connection)) {
+                    localBuffers.visit(connection, newScore, current);
+                    openSet.insertOrDecrease(connection,
+                            target == -1 ? newScore : newScore + getDistance(connection, target));
+                }
+            }
+        }
+    }
+
+    /**
+     * Recompute dirty borders, then rebuild dirty clusters.
+     */
+    private void update() {
+        for (int i = 0; i < clusters.length; i++) {
+            if (eastBorderDirty[i]) {
+                eastBorders[i] = computeBorder(i, 1, 0);
+                eastBorderDirty[i] = false;
+            }
+            if (southBorderDirty[i]) {
+                southBorders[i] = computeBorder(i, 0, 1);
+                southBorderDirty[i] = false;
+            }
+            if (cornersDirty[i]) {
+                southEastCorners[i] = computeCorner(i, 1);
+                southWestCorners[i] = computeCorner(i, -1);
+                cornersDirty[i] = false;
+            }
+        }
+        for (int i = 0; i < clusters.length; i++) {
+            if (clusters[i].dirty) {
+                rebuildCluster(i);
+            }
+        }
+    }
+
+    /**
+     * Compute the transitions across the east (dx = 1) or south (dy = 1) border of the given cluster.
+     * @remark Every connected pair of walkable tiles across the border is a crossing, and crossings are grouped when
+     * their inside tiles and their outside tiles are each the same or connected to each other, since a route can then
+     * move from one crossing to the other along the border. Without diagonal moves a group is a run of tiles with
+     * walkable tiles straight across; with them a tile may cross to up to three tiles, which need not be connected to
+     * each other. Small groups get a single transition in the middle, larger groups one at each end.
+     * @return The transitions as (inside, outside) pairs of tile indices.
+     */
+    private int[] computeBorder(int clusterIndex, int dx, int dy) {
+        int clusterX = clusterIndex % clustersX;
+        int clusterY = clusterIndex / clustersX;
+        if ((dx == 1 && clusterX == clustersX - 1) || (dy == 1 && clusterY == clustersY - 1)) {
+            return new int[0];
+        }
+        // Walk along the inside edge of the border
+        int x0 = dx == 1 ? (clusterX + 1) * clusterSize - 1 : clusterX * clusterSize;
+        int y0 = dy == 1 ? (clusterY + 1) * clusterSize - 1 : clusterY * clusterSize;
+        int length = dx == 1
+                ? Math.min(clusterSize, height - y0)
+                : Math.min(clusterSize, width - x0);
+        int step = dx == 1 ? width : 1;
+        int across = dy * width + dx;
+
+        // The crossings in order along the border, as inside and outside tile indices
+        int[] insides = new int[3 * length];
+        int[] outsides = new int[3 * length];
+        int crossingCount = 0;
+        for (int i = 0; i < length; i++) {
+            int inside = y0 * width + x0 + i * step;
+            if (!isWalkable(inside)) continue;
+            for (int offset = -1; offset <= 1; offset++) {
+                if (i + offset < 0 || i + offset >= length) continue;
+                int outside = inside + across + offset * step;
+                if (isWalkable(outside) && isConnected(inside, outside)) {
+                    insides[crossingCount] = inside;
+                    outsides[crossingCount] = outside;
+                    crossingCount++;
+                }
+            }
+        }
+
+        // Each group is labelled with its first crossing
+        int[] groups = new int[crossingCount];
+        for (int i = 0; i < crossingCount; i++) {
+            groups[i] = i;
+            for (int j = i - 1; j >= 0 && (insides[i] - insides[j]) / step <= 1; j--) {
+                if (isSameOrConnected(insides[j], insides[i]) && isSameOrConnected(outsides[j], outsides[i])) {
+                    int first = Math.min(findGroup(groups, i), findGroup(groups, j));
+                    groups[findGroup(groups, i)] = first;
+                    groups[findGroup(groups, j)] = first;
+                }
+            }
+        }
+
+        int[] transitions = new int[4 * crossingCount];
+        int[] members = new int[crossingCount];
+        int count = 0;
+        for (int i = 0; i < crossingCount; i++) {
+            if (findGroup(groups, i) != i) continue;
+            int memberCount = 0;
+            for (int j = i; j < crossingCount; j++) {
+                if (findGroup(groups, j) == i) {
+                    members[memberCount++] = j;
+                }
+            }
+            int first = members[0];
+            int last = members[memberCount - 1];
+            if ((insides[last] - insides[first]) / step + 1 < MIN_DOUBLE_TRANSITION_LENGTH) {
+                int middle = members[memberCount / 2];
+                transitions[count++] = insides[middle];
+                transitions[count++] = outsides[middle];
+            } else {
+                transitions[count++] = insides[first];
+                transitions[count++] = outsides[first];
+                transitions[count++] = insides[last];
+                transitions[count++] = outsides[last];
+            }
+        }
+        return Arrays.copyOf(transitions, count);
+    }
+
+    /**
+     * Compute the transition across the south-east (dx = 1) or south-west (dx = -1) corner of the given cluster.
+     * @return The transition as an (inside, outside) pair of tile indices, or an empty array if there is none.
+     */
+    private int[] computeCorner(int clusterIndex, int dx) {
+        int clusterX = clusterIndex % clustersX;
+        int clusterY = clusterIndex / clustersX;
+        if (clusterY == clustersY - 1 || clusterX + dx < 0 || clusterX + dx >= clustersX) {
+            return new int[0];
+        }
+        int x = dx == 1 ? (clusterX + 1) * clusterSize - 1 : clusterX * clusterSize;
+        int y = (clusterY + 1) * clusterSize - 1;
+        int inside = y * width + x;
+        int outside = inside + width + dx;
+        if (isWalkable(inside) && isWalkable(outside) && isConnected(inside, outside)) {
+            return new int[] {inside, outside};
+        }
+        return new int[0];
+    }
+
+    /**
+     * Get the first crossing of the group of the given crossing, shortening the chain of labels on the way.
+     */
+    private static int findGroup(int[] groups, int crossing) {
+        while (groups[crossing] != crossing) {
+            groups[crossing] = groups[groups[crossing]];
+            crossing = groups[crossing];
+        }
+        return crossing;
+    }
+
+    /**
+     * Return whether the two tile indices are the same, or the graph connects the first to the second.
+     */
+    private boolean isSameOrConnected(int from, int to) {
+        return from == to || isConnected(from, to);
+    }
+
+    /**
+     * Rebuild the entrances of the given cluster, and the costs between them.
+     */
+    private void rebuildCluster(int clusterIndex) {
+        Cluster cluster = clusters[clusterIndex];
+        for (int entrance : cluster.entrances) {
+            entranceSlots[entrance] = -1;
+        }
+
+        // Gather the transitions across all four borders and corners, from the inside of this cluster
+        int clusterX = clusterIndex % clustersX;
+        int clusterY = clusterIndex / clustersX;
+        int[] empty = new int[0];
+        int[][] outgoing = {
+                eastBorders[clusterIndex],
+                southBorders[clusterIndex],
+                southEastCorners[clusterIndex],
+                southWestCorners[clusterIndex]
+        };
+        int[][] incoming = {
+                clusterX > 0 ? eastBorders[clusterIndex - 1] : empty,
+                clusterY > 0 ? southBorders[clusterIndex - clustersX] : empty,
+                clusterX > 0 && clusterY > 0 ? southEastCorners[clusterIndex - clustersX - 1] : empty,
+                clusterX < clustersX - 1 && clusterY > 0 ? southWestCorners[clusterIndex - clustersX + 1] : empty
+        };
+        int total = 0;
+        for (int k = 0; k < outgoing.length; k++) {
+            total += (outgoing[k].length + incoming[k].length) / 2;
+        }
+        int[] insides = new int[total];
+        int[] outsides = new int[total];
+        int count = 0;
+        for (int[] transitions : outgoing) {
+            for (int i = 0; i < transitions.length; i += 2, count++) {
+                insides[count] = transitions[i];
+                outsides[count] = transitions[i + 1];
+            }
+        }
+        for (int[] transitions : incoming) {
+            for (int i = 0; i < transitions.length; i += 2, count++) {
+                insides[count] = transitions[i + 1];
+                outsides[count] = transitions[i];
+            }
+        }
+
+        // A tile on a corner of the cluster can be an entrance across two borders
+        int[] entrances = new int[total];
+        int entranceCount = 0;
+        for (int i = 0; i < total; i++) {
+            if (entranceSlots[insides[i]] == -1) {
+                entranceSlots[insides[i]] = entranceCount;
+                entrances[entranceCount++] = insides[i];
+            }
+        }
+        int[][] partners = new int[entranceCount][];
+        int[] partnerCounts = new int[entranceCount];
+        for (int i = 0; i < total; i++) {
+            partnerCounts[entranceSlots[insides[i]]]++;
+        }
+        for (int k = 0; k < entranceCount; k++) {
+            partners[k] = new int[partnerCounts[k]];
+            partnerCounts[k] = 0;
+        }
+        for (int i = 0; i < total; i++) {
+            int slot = entranceSlots[insides[i]];
+            partners[slot][partnerCounts[slot]++] = outsides[i];
+        }
+
+        cluster.entrances = Arrays.copyOf(entrances, entranceCount);
+        cluster.partners = partners;
+        cluster.costs = new double[entranceCount * entranceCount];
+        for (int i = 0; i < entranceCount; i++) {
+            searchCluster(clusterIndex, cluster.entrances[i], -1, -1);
+            for (int j = 0; j < entranceCount; j++) {
+                cluster.costs[i * entranceCount + j] = localBuffers.getScore(cluster.entrances[j]);
+            }
+        }
+        cluster.dirty = false;
+        clusterRebuildCount++;
+    }
+
+    /**
+     * Mark the cluster containing the changed tile dirty, along with the border and neighbouring cluster if the tile
+     * is on the edge of its cluster.
+     */
+    private synchronized void onTileChanged(TileChangedMessageData data) {
+        int index = data.getIndex();
+        if (index < 0 || index >= width * height) return;
+        int x = index % width;
+        int y = index / width;
+        int clusterIndex = getClusterIndex(index);
+        int clusterX = x / clusterSize;
+        int clusterY = y / clusterSize;
+        clusters[clusterIndex].dirty = true;
+
+        if (x % clusterSize == 0 && clusterX > 0) {
+            eastBorderDirty[clusterIndex - 1] = true;
+            clusters[clusterIndex - 1].dirty = true;
+        }
+        if (x % clusterSize == clusterSize - 1 && clusterX < clustersX - 1) {
+            eastBorderDirty[clusterIndex] = true;
+            clusters[clusterIndex + 1].dirty = true;
+        }
+        if (y % clusterSize == 0 && clusterY > 0) {
+            southBorderDirty[clusterIndex - clustersX] = true;
+            clusters[clusterIndex - clustersX].dirty = true;
+        }
+        if (y % clusterSize == clusterSize - 1 && clusterY < clustersY - 1) {
+            southBorderDirty[clusterIndex] = true;
+            clusters[clusterIndex + clustersX].dirty = true;
+        }
+
+        // A tile on a corner of its cluster affects the transitions across that corner, and the clusters around it
+        for (int cornerX = x / clusterSize - 1; cornerX <= x / clusterSize; cornerX++) {
+            for (int cornerY = y / clusterSize - 1; cornerY <= y / clusterSize; cornerY++) {
+                boolean touchesX = x == (cornerX + 1) * clusterSize - 1 || x == (cornerX + 1) * clusterSize;
+                boolean touchesY = y == (cornerY + 1) * clusterSize - 1 || y == (cornerY + 1) * clusterSize;
+                if (touchesX && touchesY) {
+                    invalidateCorner(cornerX, cornerY);
+                }
+            }
+        }
+    }
+
+    /**
+     * Mark the corner between the given cluster and the clusters to its east, south and south-east dirty, along with
+     * the clusters around it.
+     */
+    private void invalidateCorner(int clusterX, int clusterY) {
+        if (clusterX < 0 || clusterY < 0 || clusterX >= clustersX - 1 || clusterY >= clustersY - 1) return;
+        int clusterIndex = clusterY * clustersX + clusterX;
+        cornersDirty[clusterIndex] = true;
+        cornersDirty[clusterIndex + 1] = true;
+        clusters[clusterIndex].dirty = true;
+        clusters[clusterIndex + 1].dirty = true;
+        clusters[clusterIndex + clustersX].dirty = true;
+        clusters[clusterIndex + clustersX + 1].dirty = true;
+    }
+
+    /**
+     * Mark every border and cluster dirty.
+     */
+    private void invalidateAll() {
+        Arrays.fill(eastBorderDirty, true);
+        Arrays.fill(southBorderDirty, true);
+        Arrays.fill(cornersDirty, true);
+        for (Cluster cluster : clusters) {
+            cluster.dirty = true;
+        }
+    }
+
+    /**
+     * Get the index of the cluster containing the given tile index.
+     */
+    private int getClusterIndex(int index) {
+        return (index / width / clusterSize) * clustersX + (index % width) / clusterSize;
+    }
+
+    /**
+     * Return whether a route may pass through the given tile index.
+     */
+    private boolean isWalkable(int index) {
+        return graph.isWalkable(index);
+    }
+
+    /**
+     * Return whether the graph connects the first tile index to the second.
+     */
+    private boolean isConnected(int from, int to) {
+        for (int k = 0, degree = graph.getDegree(from); k < degree; k++) {
+            if (graph.getConnection(from, k) == to) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the euclidean distance between two tile indices.
+     */
+    private double getDistance(int i1, int i2) {
+        double dx = i1 % width - i2 % width;
+        double dy = i1 / width - i2 / width;
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+}
@@ -0,0 +1,293 @@
+package warehouse.logistics.optimization.routefinding.algorithms;
+
+import utils.IndexedMinHeap;
+import warehouse.geometry.grid.GridDistanceMetric;
+import warehouse.geometry.grid.GridWarehouseCoordinateSystem;
+import warehouse.logistics.optimization.graph.Graph;
+import warehouse.logistics.optimization.graph.TileGraph;
+import warehouse.logistics.optimization.graph.TileNode;
+import warehouse.logistics.optimization.routefinding.Routefinder;
+import warehouse.logistics.optimization.routefinding.SearchBuffers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A Routefinder that implements Jump Point Search on a TileGraph over a grid with uniform movement costs.
+ *
+ * @remark Jump Point Search is A* with symmetry pruning: instead of adding every neighbour to the open set, the search
+ * "jumps" in a straight line until it reaches a tile where an optimal route could turn (a jump point), and only jump
+ * points are expanded. On open layouts this expands far fewer nodes than A*, while finding routes of the same cost.
+ *
+ * A tile is walkable if it is in the graph and its score multiplier is 1 (e.g. it is an EmptyTile). The destination
+ * may be any tile in the graph, and is always entered at the cost of the move. Movement follows the neighbours of the
+ * coordinate system: cardinal moves only, or cardinal and diagonal moves (which may cut corners) if diagonal
+ * neighbours are allowed. Moves cost the euclidean distance between tiles.
+ */
+public class JumpPointSearchRoutefinder implements Routefinder<TileNode> {
+    private final int width;
+    /**
+     * The estimate of the remaining distance to the destination.
+     */
+    private final GridDistanceMetric heuristicMetric;
+    private final int height;
+    private final boolean allowDiagonals;
+
+    /**
+     * Construct a JumpPointSearchRoutefinder.
+     * @param coordinateSystem The coordinate system of the graphs to find routes on.
+     */
+    public JumpPointSearchRoutefinder(GridWarehouseCoordinateSystem coordinateSystem) {
+        this.width = coordinateSystem.getWidth();
+        this.heuristicMetric = coordinateSystem.getHeuristicMetric();
+        this.height = coordinateSystem.getHeight();
+        this.allowDiagonals = coordinateSystem.isDiagonalNeighboursAllowed();
+    }
+
+    /**
+     * Find an optimal Route between the given source and destination nodes such that the distance travelled is
+     * minimized.
+     * @param graph The graph to find routes on. This must be a TileGraph.
+     * @param source The source node.
+     * @param destination The destination node.
+     * @return the optimal Route, visiting every tile along the way and excluding the source node unless it is also the
+     * destination, or null if no such Route could be found.
+     * @throws IllegalArgumentException if the graph is not a TileGraph.
+     */
+    @Override
+    public List<TileNode> findRoute(Graph<TileNode> graph, TileNode source, TileNode destination) {
+        if (!(graph instanceof TileGraph)) {
+            throw new IllegalArgumentException("JumpPointSearchRoutefinder can only find routes on a TileGraph");
+        }
+        TileGraph tileGraph = (TileGraph) graph;
+        int sourceIndex = source.getTile().getIndex();
+        int destinationIndex = destination.getTile().getIndex();
+        if (!tileGraph.contains(sourceIndex) || !tileGraph.contains(destinationIndex)) {
+            return null;
+        }
+
+        SearchBuffers buffers = SearchBuffers.forCurrentThread(tileGraph.getSize());
+        IndexedMinHeap openSet = buffers.getOpenSet();
+        buffers.visit(sourceIndex, 0, -1);
+        openSet.insertOrDecrease(sourceIndex, getHeuristic(sourceIndex, destinationIndex));
+        while (!openSet.isEmpty()) {
+            int current = openSet.poll();
+            if (current == destinationIndex) {
+                return buildRoute(tileGraph, destinationIndex, buffers);
+            }
+            buffers.incrementExpandedCount();
+            expand(tileGraph, current, destinationIndex, buffers);
+        }
+        return null;
+    }
+
+    /**
+     * Jump from the given jump point in every direction an optimal route could continue in, and add the jump points
+     * found to the open set.
+     */
+    private void expand(TileGraph graph, int current, int destination, SearchBuffers buffers) {
+        int x = current % width;
+        int y = current / width;
+        int parent = buffers.getParent(current);
+        if (parent == -1) {
+            // The source: every direction is possible
+            for (int dy = -1; dy <= 1; dy++) {
+                for (int dx = -1; dx <= 1; dx++) {
+                    if ((dx != 0 || dy != 0) && (allowDiagonals || dx == 0 || dy == 0)) {
+                        jumpAndRelax(graph, current, dx, dy, destination, buffers);
+                    }
+                }
+            }
+            return;
+        }
+
+        int dx = Integer.signum(x - parent % width);
+        int dy = Integer.signum(y - parent / width);
+        if (!allowDiagonals) {
+            // Continue straight, or turn onto either perpendicular
+            if (dx != 0) {
+                jumpAndRelax(graph, current, dx, 0, destination, buffers);
+                jumpAndRelax(graph, current, 0, 1, destination, buffers);
+                jumpAndRelax(graph, current, 0, -1, destination, buffers);
+            } else {
+                jumpAndRelax(graph, current, 0, dy, destination, buffers);
+                jumpAndRelax(graph, current, 1, 0, destination, buffers);
+                jumpAndRelax(graph, current, -1, 0, destination, buffers);
+            }
+        } else if (dx != 0 && dy != 0) {
+            // Natural neighbours of a diagonal move, and forced neighbours around blocked tiles behind it
+            jumpAndRelax(graph, current, 0, dy, destination, buffers);
+            jumpAndRelax(graph, current, dx, 0, destination, buffers);
+            jumpAndRelax(graph, current, dx, dy, destination, buffers);
+            if (!isWalkable(graph, x - dx, y, destination)) {
+                jumpAndRelax(graph, current, -dx, dy, destination, buffers);
+            }
+            if (!isWalkable(graph, x, y - dy, destination)) {
+                jumpAndRelax(graph, current, dx, -dy, destination, buffers);
+            }
+        } else if (dx != 0) {
+            jumpAndRelax(graph, current, dx, 0, destination, buffers);
+            if (!isWalkable(graph, x, y + 1, destination)) {
+                jumpAndRelax(graph, current, dx, 1, destination, buffers);
+            }
+            if (!isWalkable(graph, x, y - 1, destination)) {
+                jumpAndRelax(graph, current, dx, -1, destination, buffers);
+            }
+        } else {
+            jumpAndRelax(graph, current, 0, dy, destination, buffers);
+            if (!isWalkable(graph, x + 1, y, destination)) {
+                jumpAndRelax(graph, current, 1, dy, destination, buffers);
+            }
+            if (!isWalkable(graph, x - 1, y, destination)) {
+                jumpAndRelax(graph, current, -1, dy, destination, buffers);
+            }
+        }
+    }
+
+    /**
+     * Jump from the given jump point in the given direction, and add the jump point found (if any) to the open set.
+     */
+    private void jumpAndRelax(TileGraph graph, int current, int dx, int dy, int destination, SearchBuffers buffers) {
+        int x = current % width;
+        int y = current / width;
+        int jumpPoint = allowDiagonals
+                ? jumpWithDiagonals(graph, x + dx, y + dy, dx, dy, destination)
+                : jumpCardinal(graph, x + dx, y + dy, dx, dy, destination);
+        if (jumpPoint == -1) return;
+
+        double newScore = buffers.getScore(current) + getDistance(current, jumpPoint);
+        if (newScore < buffers.getScore(jumpPoint)) {
+            buffers.visit(jumpPoint, newScore, current);
+            buffers.getOpenSet().insertOrDecrease(jumpPoint, newScore + getHeuristic(jumpPoint, destination));
+        }
+    }
+
+    /**
+     * Move from (x, y) in the given direction until a jump point is found, when only cardinal moves are allowed.
+     * @return The tile index of the jump point, or -1 if there is none in this direction.
+     */
+    private int jumpCardinal(TileGraph graph, int x, int y, int dx, int dy, int destination) {
+        while (isWalkable(graph, x, y, destination)) {
+            int index = y * width + x;
+            if (index == destination) {
+                return index;
+            }
+            if (dx != 0) {
+                if ((isWalkable(graph, x, y - 1, destination) && !isWalkable(graph, x - dx, y - 1, destination)) ||
+                        (isWalkable(graph, x, y + 1, destination) && !isWalkable(graph, x - dx, y + 1, destination))) {
+                    return index;
+                }
+            } else {
+                if ((isWalkable(graph, x - 1, y, destination) && !isWalkable(graph, x - 1, y - dy, destination)) ||
+                        (isWalkable(graph, x + 1, y, destination) && !isWalkable(graph, x + 1, y - dy, destination))) {
+                    return index;
+                }
+                // Moving vertically, a horizontal jump point makes this tile a jump point too
+                if (jumpCardinal(graph, x + 1, y, 1, 0, destination) != -1 ||
+                        jumpCardinal(graph, x - 1, y, -1, 0, destination) != -1) {
+                    return index;
+                }
+            }
+            x += dx;
+            y += dy;
+        }
+        return -1;
+    }
+
+    /**
+     * Move from (x, y) in the given direction until a jump point is found, when diagonal moves are allowed.
+     * @return The tile index of the jump point, or -1 if there is none in this direction.
+     */
+    private int jumpWithDiagonals(TileGraph graph, int x, int y, int dx, int dy, int destination) {
+        while (isWalkable(graph, x, y, destination)) {
+            int index = y * width + x;
+            if (index == destination) {
+                return index;
+            }
+            if (dx != 0 && dy != 0) {
+                if ((isWalkable(graph, x - dx, y + dy, destination) && !isWalkable(graph, x - dx, y, destination))
+                        || (isWalkable(graph, x + dx, y - dy, destination)
+                        && !isWalkable(graph, x, y - dy, destination))) {
+                    return index;
+                }
+                // Moving diagonally, a straight jump point makes this tile a jump point too
+                if (jumpWithDiagonals(graph, x + dx, y, dx, 0, destination) != -1 ||
+                        jumpWithDiagonals(graph, x, y + dy, 0, dy, destination) != -1) {
+                    return index;
+                }
+            } else if (dx != 0) {
+                if ((isWalkable(graph, x + dx, y + 1, destination) && !isWalkable(graph, x, y + 1, destination)) ||
+                        (isWalkable(graph, x + dx, y - 1, destination) && !isWalkable(graph, x, y - 1, destination))) {
+                    return index;
+                }
+            } else {
+                if ((isWalkable(graph, x + 1, y + dy, destination) && !isWalkable(graph, x + 1, y, destination)) ||
+                        (isWalkable(graph, x - 1, y + dy, destination) && !isWalkable(graph, x - 1, y, destination))) {
+                    return index;
+                }
+            }
+            x += dx;
+            y += dy;
+        }
+        return -1;
+    }
+
+    /**
+     * Return whether a route may pass through the tile at (x, y).
+     */
+    private boolean isWalkable(TileGraph graph, int x, int y, int destination) {
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            return false;
+        }
+        int index = y * width + x;
+        if (index == destination) {
+            return true;
+        }
+        return graph.isWalkable(index);
+    }
+
+    /**
+     * Build a Route by backtracking through the jump points from the destination to the source, filling in the tiles
+     * between consecutive jump points.
+     */
+    private List<TileNode> buildRoute(TileGraph graph, int destination, SearchBuffers buffers) {
+        List<Integer> jumpPoints = new ArrayList<>();
+        for (int current = destination; current != -1; current = buffers.getParent(current)) {
+            jumpPoints.add(current);
+        }
+
+        List<TileNode> route = new ArrayList<>();
+        if (jumpPoints.size() == 1) {
+            route.add(graph.getNode(destination));
+            return route;
+        }
+        for (int i = jumpPoints.size() - 1; i > 0; i--) {
+            int from = jumpPoints.get(i);
+            int to = jumpPoints.get(i - 1);
+            int dx = Integer.signum(to % width - from % width);
+            int dy = Integer.signum(to / width - from / width);
+            int current = from;
+            while (current != to) {
+                current += dy * width + dx;
+                route.add(graph.getNode(current));
+            }
+        }
+        return route;
+    }
+
+    /**
+     * Get the estimated distance between two tile indices.
+     */
+    private double getHeuristic(int i1, int i2) {
+        return heuristicMetric.getDistance(i1 % width - i2 % width, i1 / width - i2 / width);
+    }
+
+    /**
+     * Get the euclidean distance between two tile indices.
+     */
+    private double getDistance(int i1, int i2) {
+        double dx = i1 % width - i2 % width;
+        double dy = i1 / width - i2 / width;
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+}
@@ -0,0 +1,793 @@
+package warehouse.logistics.optimization.routefinding.cooperative;
+
+import utils.IndexedMinHeap;
+import utils.LongIntHashMap;
+import warehouse.WarehouseState;
+import warehouse.geometry.WarehouseCoordinate;
+import warehouse.geometry.WarehouseCoordinateSystem;
+import warehouse.logistics.optimization.distances.DistanceField;
+import warehouse.logistics.optimization.distances.DistanceFieldCache;
+import warehouse.logistics.optimization.graph.TileGraph;
+import warehouse.logistics.orders.NavigateOrder;
+import warehouse.logistics.orders.Order;
+import warehouse.robots.Robot;
+import warehouse.tiles.Tile;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Plans collision-free routes for a batch of agents jointly with Conflict-Based Search (CBS), e.g. for the Robots of
+ * a wave of Orders matched in the same time step.
+ *
+ * @remark Time is divided into steps, and in each step an agent either waits or moves to a neighbouring tile. Two
+ * agents conflict if they are on the same tile at the same time step, or swap tiles between two time steps. CBS
+ * first plans each agent on its own, then repeatedly takes the earliest conflict of a plan and splits it in two: in
+ * one branch the first agent may not take its part of the conflict, and in the other the second agent may not. Only
+ * the constrained agent is replanned in each branch, with a space-time A* search that prefers routes that conflict
+ * with fewer other agents.
+ *
+ * With a suboptimality bound w of 1 the branches are searched cheapest first and the plan has the lowest
+ * sum-of-costs. With a bound w above 1, any branch costing at most w times the cheapest is eligible, and the one with
+ * the fewest conflicts is searched first, which usually finds a plan much sooner at a cost of at most w times the
+ * optimum.
+ *
+ * The search stops when its time budget runs out, in which case the agents are planned one at a time in order on a
+ * ReservationTable, each avoiding the routes of the agents before it (prioritised planning). An agent whose goal
+ * cannot be reached, or that finds no route, stays where it is, and the agents whose routes cross its tile are
+ * planned again around it. A ConflictBasedSearch is not thread-safe.
+ */
+public class ConflictBasedSearch<T extends WarehouseCoordinateSystem<U>, U extends WarehouseCoordinate> {
+    /**
+     * The default time budget of a joint search, in milliseconds.
+     */
+    public static final long DEFAULT_TIME_BUDGET_MILLIS = 100;
+    /**
+     * The default maximum memory used by the distance fields of the goals, in bytes.
+     */
+    public static final long DEFAULT_HEURISTIC_CACHE_BYTES = DistanceFieldCache.DEFAULT_MAXIMUM_BYTES;
+    /**
+     * The number of nodes a route search expands between checks of the time budget.
+     */
+    private static final int DEADLINE_CHECK_INTERVAL = 256;
+    /**
+     * The number of time steps, on top of the longest route so far, that a prioritised route may wait and detour.
+     */
+    private static final int FALLBACK_SLACK = 64;
+
+    private final WarehouseState<T, U> warehouseState;
+    private final double suboptimalityBound;
+    private final long timeBudgetNanos;
+    private final DistanceFieldCache<T, U> heuristics;
+    /**
+     * The longest distance between two neighbouring tiles, used to turn distances into a number of time steps.
+     */
+    private final double maximumStepLength;
+
+    /**
+     * The nodes of the current route search, indexed by node id, and the node id of each (tile, time step) slot.
+     */
+    private final LongIntHashMap searchNodes = new LongIntHashMap();
+    private int[] nodeTiles = new int[64];
+    private int[] nodeTimes = new int[64];
+    private int[] nodeParents = new int[64];
+    private int[] nodeConflicts = new int[64];
+    private boolean[] nodeClosed = new boolean[64];
+    private int nodeCount;
+    private final IndexedMinHeap openSet = new IndexedMinHeap(64);
+
+    private long deadline;
+    private boolean timedOut;
+    private int expansionCount;
+
+    /**
+     * The moves an agent may make in a route search.
+     */
+    private interface MoveRule {
+        /**
+         * Return whether the agent may move from one tile at the given time step to another at the next time step.
+         */
+        boolean canMove(int from, int to, int time);
+
+        /**
+         * Return whether the agent may stay on its goal from the given time step onwards.
+         */
+        boolean canStay(int goal, int time);
+
+        /**
+         * Return 1 if the agent would conflict with another agent on the given tile at the given time step, and 0
+         * otherwise.
+         */
+        int getConflicts(int index, int time);
+    }
+
+    /**
+     * An agent that may not be on a tile at a time step, or, if from is not -1, may not move from a tile to the tile
+     * at that time step.
+     */
+    private static class Constraint {
+        private final int agent;
+        private final int from;
+        private final int to;
+        private final int time;
+
+        private Constraint(int agent, int from, int to, int time) {
+            this.agent = agent;
+            this.from = from;
+            this.to = to;
+            this.time = time;
+        }
+    }
+
+    /**
+     * A node of the joint search: a route for every agent, following the constraints on the path to the root.
+     */
+    private static class SearchNode {
+        private final SearchNode parent;
+        private final Constraint constraint;
+        private final int[][] routes;
+        private final int cost;
+        private int conflictCount;
+        /**
+         * The earliest conflict, as two constraints that each resolve it, or null if there is none.
+         */
+        private Constraint[] conflict;
+        private boolean expanded;
+
+        private SearchNode(SearchNode parent, Constraint constraint, int[][] routes) {
+            this.parent = parent;
+            this.constraint = constraint;
+            this.routes = routes;
+            int sum = 0;
+            for (int[] route : routes) {
+                sum += route.length - 1;
+            }
+            this.cost = sum;
+        }
+    }
+
+    /**
+     * Construct a ConflictBasedSearch for the given Warehouse.
+     * @param warehouseState The Warehouse. Routes are planned on its routing graph.
+     * @param suboptimalityBound The factor the sum-of-costs of a plan may be of the optimum, at least 1.
+     * @param timeBudgetMillis The time the joint search may take before falling back to prioritised planning.
+     * @throws IllegalArgumentException if the bound is less than 1 or the time budget is negative.
+     */
+    public ConflictBasedSearch(WarehouseState<T, U> warehouseState, double suboptimalityBound,
+                               long timeBudgetMillis) {
+        if (!(suboptimalityBound >= 1)) {
+            throw new IllegalArgumentException(String.format("Suboptimality bound must be at least 1, but got %s",
+                    suboptimalityBound));
+        }
+        if (timeBudgetMillis < 0) {
+            throw new IllegalArgumentException(String.format("Time budget must not be negative, but got %d",
+                    timeBudgetMillis));
+        }
+        this.warehouseState = warehouseState;
+        this.suboptimalityBound = suboptimalityBound;
+        this.timeBudgetNanos = timeBudgetMillis * 1_000_000;
+        this.heuristics = new DistanceFieldCache<>(warehouseState, Integer.MAX_VALUE,
+                DEFAULT_HEURISTIC_CACHE_BYTES);
+
+        WarehouseCoordinateSystem<U> coordinateSystem = warehouseState.getCoordinateSystem();
+        int[] neighbours = new int[coordinateSystem.getMaxNeighbourCount()];
+        double longest = 0;
+        for (int index = 0; index < coordinateSystem.getSize(); index++) {
+            int count = coordinateSystem.getNeighbours(index, neighbours);
+            for (int k = 0; k < count; k++) {
+                longest = Math.max(longest, coordinateSystem.getDistance(index, neighbours[k]));
+            }
+        }
+        this.maximumStepLength = longest;
+    }
+
+    /**
+     * Construct an optimal ConflictBasedSearch for the given Warehouse with the default time budget.
+     * @param warehouseState The Warehouse.
+     */
+    public ConflictBasedSearch(WarehouseState<T, U> warehouseState) {
+        this(warehouseState, 1, DEFAULT_TIME_BUDGET_MILLIS);
+    }
+
+    /**
+     * Plan routes for the Robots of the given Orders to their first waypoints, e.g. the Orders assigned in one call to
+     * OrderMatcher.match.
+     * @param orders The Orders. Orders that are not NavigateOrders or have no handler are skipped, as are Orders whose
+     *               first waypoint is the goal of an earlier Order, since two Robots cannot wait on the same tile.
+     * @return The plan, whose Robots are the handlers of the planned Orders, in order.
+     */
+    public MultiAgentPlan planOrders(List<? extends Order> orders) {
+        List<Robot> robots = new ArrayList<>();
+        List<Integer> goals = new ArrayList<>();
+        Set<Integer> claimedGoals = new HashSet<>();
+        for (Order order : orders) {
+            if (!(order instanceof NavigateOrder) || order.getHandler() == null) continue;
+            List<Tile> waypoints = ((NavigateOrder) order).getWaypoints();
+            if (waypoints.isEmpty() || waypoints.get(0) == null) continue;
+            int goal = waypoints.get(0).getIndex();
+            if (robots.contains(order.getHandler()) || !claimedGoals.add(goal)) continue;
+            robots.add(order.getHandler());
+            goals.add(goal);
+        }
+        return solve(robots, goals.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    /**
+     * Plan routes for the given Robots from their tiles in the RobotMapper to the given goals.
+     * @param robots The Robots. These must be in the RobotMapper of the Warehouse.
+     * @param goals The goal tile index of each Robot. No two Robots may share a goal.
+     * @return The plan, whose Robots are the given Robots.
+     * @throws IllegalArgumentException if a Robot is not in the RobotMapper, or the goals are invalid.
+     */
+    public MultiAgentPlan solve(List<Robot> robots, int[] goals) {
+        int[] starts = new int[robots.size()];
+        for (int i = 0; i < starts.length; i++) {
+            starts[i] = warehouseState.getRobotMapper().getRobotTileIndex(robots.get(i));
+            if (starts[i] == -1) {
+                throw new IllegalArgumentException(String.format("Robot %s is not in the RobotMapper",
+                        robots.get(i).getId()));
+            }
+        }
+        return solve(new ArrayList<>(robots), starts, goals);
+    }
+
+    /**
+     * Plan routes for agents from the given start tiles to the given goals.
+     * @param starts The start tile index of each agent. No two agents may share a start.
+     * @param goals The goal tile index of each agent. No two agents may share a goal.
+     * @return The plan.
+     * @throws IllegalArgumentException if the starts or goals are not in the routing graph, or are shared.
+     */
+    public MultiAgentPlan solve(int[] starts, int[] goals) {
+        return solve(new ArrayList<>(), starts, goals);
+    }
+
+    /**
+     * Get the factor the sum-of-costs of a plan may be of the optimum.
+     */
+    public double getSuboptimalityBound() {
+        return suboptimalityBound;
+    }
+
+    /**
+     * Get the time a joint search may take before falling back to prioritised planning, in milliseconds.
+     */
+    public long getTimeBudgetMillis() {
+        return timeBudgetNanos / 1_000_000;
+    }
+
+    /**
+     * Stop listening for changes to the layout of the Warehouse.
+     */
+    public void dispose() {
+        heuristics.dispose();
+    }
+
+    /**
+     * Plan routes for agents from the given start tiles to the given goals, with CBS if the time budget allows and
+     * with prioritised planning otherwise.
+     */
+    private MultiAgentPlan solve(List<Robot> robots, int[] starts, int[] goals) {
+        checkAgents(starts, goals);
+        long startTime = System.nanoTime();
+        deadline = startTime + timeBudgetNanos;
+        timedOut = false;
+        expansionCount = 0;
+
+        // Agents that cannot reach their goals stay where they are
+        int agentCount = starts.length;
+        int[] targets = new int[agentCount];
+        int failedAgentCount = 0;
+        for (int agent = 0; agent < agentCount; agent++) {
+            if (getStepEstimate(heuristics.get(goals[agent]), starts[agent]) == Integer.MAX_VALUE) {
+                targets[agent] = starts[agent];
+                failedAgentCount++;
+            } else {
+                targets[agent] = goals[agent];
+            }
+        }
+
+        int expandedNodeCount = 0;
+        SearchNode root = createRoot(starts, targets);
+        if (root != null) {
+            Comparator<SearchNode> byCost = Comparator.comparingInt((SearchNode node) -> node.cost)
+                    .thenComparingInt(node -> node.conflictCount);
+            PriorityQueue<SearchNode> open = new PriorityQueue<>(byCost);
+            PriorityQueue<SearchNode> unfocused = new PriorityQueue<>(byCost);
+            PriorityQueue<SearchNode> focal = new PriorityQueue<>(Comparator
+                    .comparingInt((SearchNode node) -> node.conflictCount)
+                    .thenComparingInt(node -> node.cost));
+            open.add(root);
+            focal.add(root);
+            while (!timedOut) {
+                SearchNode node = pollFocal(open, unfocused, focal);
+                if (node == null) break;
+                expandedNodeCount++;
+                if (node.conflict == null) {
+                    return new MultiAgentPlan(robots, node.routes, false, suboptimalityBound, failedAgentCount,
+                            root.cost, getMakespan(root.routes), expandedNodeCount, System.nanoTime() - startTime);
+                }
+                double bound = suboptimalityBound * open.peek().cost;
+                for (Constraint constraint : node.conflict) {
+                    SearchNode child = createChild(node, constraint, starts, targets);
+                    if (child == null) continue;
+                    open.add(child);
+                    (child.cost <= bound ? focal : unfocused).add(child);
+                }
+                if (System.nanoTime() > deadline) {
+                    timedOut = true;
+                }
+            }
+        }
+
+        int[][] routes = planPrioritised(starts, targets);
+        for (int agent = 0; agent < agentCount; agent++) {
+            // Agents whose goals cannot be reached are already counted
+            if (routes[agent] == null) {
+                routes[agent] = new int[] {starts[agent]};
+                if (targets[agent] != starts[agent]) failedAgentCount++;
+            }
+        }
+        return new MultiAgentPlan(robots, routes, true, Double.POSITIVE_INFINITY, failedAgentCount,
+                root == null ? -1 : root.cost, root == null ? -1 : getMakespan(root.routes), expandedNodeCount,
+                System.nanoTime() - startTime);
+    }
+
+    /**
+     * Poll the unexpanded node with the fewest conflicts among those costing at most the suboptimality bound times
+     * the cheapest unexpanded node.
+     * @return The node, or null if every node has been expanded.
+     */
+    private SearchNode pollFocal(PriorityQueue<SearchNode> open, PriorityQueue<SearchNode> unfocused,
+                                 PriorityQueue<SearchNode> focal) {
+        while (!open.isEmpty() && open.peek().expanded) {
+            open.poll();
+        }
+        if (open.isEmpty()) {
+            return null;
+        }
+        // The cheapest cost never decreases, so nodes only ever move into the focal list
+        double bound = suboptimalityBound * open.peek().cost;
+        while (!unfocused.isEmpty() && unfocused.peek().cost <= bound) {
+            focal.add(unfocused.poll());
+        }
+        SearchNode node = focal.poll();
+        while (node != null && node.expanded) {
+            node = focal.poll();
+        }
+        if (node == null) {
+            return null;
+        }
+        node.expanded = true;
+        return node;
+    }
+
+    /**
+     * Plan each agent on its own, preferring routes that conflict with the agents planned before it.
+     * @return The root of the joint search, or null if the time budget ran out.
+     */
+    private SearchNode createRoot(int[] starts, int[] targets) {
+        int[][] routes = new int[starts.length][];
+        for (int agent = 0; agent < starts.length; agent++) {
+            int[] route = search(starts[agent], targets[agent],
+                    new ConstraintRule(null, null, agent, targets[agent], routes), getHorizon(0));
+            if (route == null) {
+                return null;
+            }
+            routes[agent] = route;
+        }
+        SearchNode root = new SearchNode(null, null, routes);
+        findConflicts(root);
+        return root;
+    }
+
+    /**
+     * Add a constraint to the given node and replan the constrained agent.
+     * @return The child node, or null if the agent has no route under its constraints.
+     */
+    private SearchNode createChild(SearchNode parent, Constraint constraint, int[] starts, int[] targets) {
+        int agent = constraint.agent;
+        ConstraintRule rule = new ConstraintRule(parent, constraint, agent, targets[agent], parent.routes);
+        int[] route = search(starts[agent], targets[agent], rule, getHorizon(rule.latestTime));
+        if (route == null) {
+            return null;
+        }
+        int[][] routes = parent.routes.clone();
+        routes[agent] = route;
+        SearchNode child = new SearchNode(parent, constraint, routes);
+        findConflicts(child);
+        return child;
+    }
+
+    /**
+     * Count the conflicts between the routes of the given node, and record its earliest conflict.
+     */
+    private void findConflicts(SearchNode node) {
+        int[][] routes = node.routes;
+        int makespan = getMakespan(routes);
+        LongIntHashMap previous = new LongIntHashMap(routes.length);
+        LongIntHashMap current = new LongIntHashMap(routes.length);
+        int count = 0;
+        for (int t = 0; t <= makespan; t++) {
+            current.clear();
+            for (int agent = 0; agent < routes.length; agent++) {
+                int index = getPosition(routes[agent], t);
+                int other = current.getOrDefault(index, -1);
+                if (other != -1) {
+                    if (node.conflict == null) {
+                        node.conflict = new Constraint[] {
+                                new Constraint(other, -1, index, t),
+                                new Constraint(agent, -1, index, t)
+                        };
+                    }
+                    count++;
+                } else {
+                    current.put(index, agent);
+                }
+                if (t == 0) continue;
+                int from = getPosition(routes[agent], t - 1);
+                other = previous.getOrDefault(index, -1);
+                if (from != index && other > agent && getPosition(routes[other], t) == from) {
+                    if (node.conflict == null) {
+                        node.conflict = new Constraint[] {
+                                new Constraint(agent, from, index, t),
+                                new Constraint(other, index, from, t)
+                        };
+                    }
+                    count++;
+                }
+            }
+            LongIntHashMap swap = previous;
+            previous = current;
+            current = swap;
+        }
+        node.conflictCount = count;
+    }
+
+    /**
+     * Plan the agents one at a time in order, each avoiding the routes of the agents planned before it and the starts
+     * of the agents not yet planned.
+     * @remark The starts of agents not yet planned are only held at time step 0, since they will usually move off
+     * them. An agent that then finds no route must wait on its start for good, so it parks there, and every planned
+     * agent whose route crosses its start is released and planned again around it. Each failure fixes one more agent
+     * in place, so this ends after at most one round of replanning per agent, and the plan is free of conflicts.
+     * @return The route of each agent, or null for agents that have no route.
+     */
+    private int[][] planPrioritised(int[] starts, int[] targets) {
+        deadline = Long.MAX_VALUE;
+        timedOut = false;
+        ReservationTable reservationTable = new ReservationTable(warehouseState.getCoordinateSystem().getSize());
+        for (int agent = 0; agent < starts.length; agent++) {
+            reservationTable.reserve(starts[agent], 0, agent);
+        }
+        int[][] routes = new int[starts.length][];
+        boolean[] parked = new boolean[starts.length];
+        int latestEnd = 0;
+        int agent = 0;
+        while (agent < starts.length) {
+            if (routes[agent] != null || parked[agent]) {
+                agent++;
+                continue;
+            }
+            int estimate = getStepEstimate(heuristics.get(targets[agent]), starts[agent]);
+            int horizon = latestEnd + 4 * estimate + FALLBACK_SLACK;
+            int[] route = search(starts[agent], targets[agent], new ReservationRule(reservationTable, agent), horizon);
+            if (route != null) {
+                for (int t = 0; t < route.length; t++) {
+                    reservationTable.reserve(route[t], t, agent);
+                }
+                reservationTable.park(route[route.length - 1], route.length - 1, agent);
+                routes[agent] = route;
+                latestEnd = Math.max(latestEnd, route.length - 1);
+                agent++;
+                continue;
+            }
+
+            // Release the agents that cross the start, then plan again from the first of them
+            int next = agent + 1;
+            for (int other = 0; other < starts.length; other++) {
+                if (routes[other] == null || !crosses(routes[other], starts[agent])) continue;
+                reservationTable.release(other);
+                reservationTable.reserve(starts[other], 0, other);
+                routes[other] = null;
+                next = Math.min(next, other);
+            }
+            reservationTable.park(starts[agent], 0, agent);
+            parked[agent] = true;
+            agent = next;
+        }
+        return routes;
+    }
+
+    /**
+     * Return whether the given route is on the given tile at any time step.
+     */
+    private static boolean crosses(int[] route, int index) {
+        for (int tile : route) {
+            if (tile == index) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Search for the shortest route from the start to the goal that follows the given rule and lets the agent stay on
+     * the goal, breaking ties in favour of routes with fewer conflicts.
+     * @param horizon The latest time step a route may reach the goal.
+     * @return The tile at each time step of the route, starting at time step 0, or null if there is none within the
+     * horizon or the time budget ran out.
+     */
+    private int[] search(int start, int goal, MoveRule rule, int horizon) {
+        TileGraph graph = warehouseState.getRoutingGraph();
+        DistanceField field = heuristics.get(goal);
+        int startEstimate = getStepEstimate(field, start);
+        if (startEstimate == Integer.MAX_VALUE) {
+            return null;
+        }
+        // A route is in conflict on at most every time step, so conflicts only break ties between equal costs
+        double conflictWeight = 1.0 / ((double) horizon + 2);
+
+        searchNodes.clear();
+        openSet.clear();
+        nodeCount = 0;
+        openSet.insertOrDecrease(addNode(start, 0, -1, 0), startEstimate);
+        while (!openSet.isEmpty()) {
+            if (++expansionCount % DEADLINE_CHECK_INTERVAL == 0 && System.nanoTime() > deadline) {
+                timedOut = true;
+                return null;
+            }
+            int node = openSet.poll();
+            nodeClosed[node] = true;
+            int tile = nodeTiles[node];
+            int t = nodeTimes[node];
+            if (tile == goal && rule.canStay(goal, t)) {
+                return buildRoute(node);
+            }
+            if (t >= horizon) continue;
+
+            // Wait, then move to each connected tile
+            for (int k = -1, degree = graph.getDegree(tile); k < degree; k++) {
+                int next = k == -1 ? tile : graph.getConnection(tile, k);
+                if (next != tile && !canEnter(graph, next, goal)) continue;
+                if (!rule.canMove(tile, next, t)) continue;
+                int estimate = getStepEstimate(field, next);
+                if (estimate == Integer.MAX_VALUE) continue;
+                int conflicts = nodeConflicts[node] + rule.getConflicts(next, t + 1);
+                double priority = t + 1 + estimate + conflictWeight * conflicts;
+
+                long key = (long) (t + 1) * graph.getSize() + next;
+                int existing = searchNodes.getOrDefault(key, -1);
+                if (existing == -1) {
+                    openSet.insertOrDecrease(addNode(next, t + 1, node, conflicts), priority);
+                } else if (!nodeClosed[existing] && conflicts < nodeConflicts[existing]) {
+                    nodeConflicts[existing] = conflicts;
+                    nodeParents[existing] = node;
+                    openSet.insertOrDecrease(existing, priority);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Add a node to the current route search.
+     * @return The node id.
+     */
+    private int addNode(int tile, int t, int parent, int conflicts) {
+        if (nodeCount == nodeTiles.length) {
+            int capacity = 2 * nodeCount;
+            nodeTiles = Arrays.copyOf(nodeTiles, capacity);
+            nodeTimes = Arrays.copyOf(nodeTimes, capacity);
+            nodeParents = Arrays.copyOf(nodeParents, capacity);
+            nodeConflicts = Arrays.copyOf(nodeConflicts, capacity);
+            nodeClosed = Arrays.copyOf(nodeClosed, capacity);
+            openSet.ensureCapacity(capacity);
+        }
+        int node = nodeCount++;
+        nodeTiles[node] = tile;
+        nodeTimes[node] = t;
+        nodeParents[node] = parent;
+        nodeConflicts[node] = conflicts;
+        nodeClosed[node] = false;
+        searchNodes.put((long) t * warehouseState.getRoutingGraph().getSize() + tile, node);
+        return node;
+    }
+
+    /**
+     * Build a route by backtracking from the given node to the start of the search.
+     */
+    private int[] buildRoute(int node) {
+        int[] route = new int[nodeTimes[node] + 1];
+        for (int current = node; current != -1; current = nodeParents[current]) {
+            route[nodeTimes[current]] = nodeTiles[current];
+        }
+        return route;
+    }
+
+    /**
+     * Get the latest time step a route may reach its goal in the joint search, given the latest time step its agent
+     * is constrained at. After that, a route that takes no more steps than there are tiles always exists.
+     */
+    private int getHorizon(int latestTime) {
+        long horizon = (long) latestTime + 1 + warehouseState.getRoutingGraph().getSize();
+        return (int) Math.min(Integer.MAX_VALUE - 2L, horizon);
+    }
+
+    /**
+     * Get a lower bound on the number of time steps from the given tile to the target of the given field.
+     * @return The number of time steps, or Integer.MAX_VALUE if the target cannot be reached.
+     */
+    private int getStepEstimate(DistanceField field, int index) {
+        double distance = field.getDistance(index);
+        if (distance == Double.POSITIVE_INFINITY) {
+            return Integer.MAX_VALUE;
+        }
+        return distance == 0 ? 0 : (int) Math.ceil(distance / maximumStepLength - 1e-9);
+    }
+
+    /**
+     * Check that every start and goal is a distinct tile of the routing graph.
+     * @throws IllegalArgumentException if they are not.
+     */
+    private void checkAgents(int[] starts, int[] goals) {
+        if (starts.length != goals.length) {
+            throw new IllegalArgumentException(String.format("Got %d starts but %d goals", starts.length,
+                    goals.length));
+        }
+        TileGraph graph = warehouseState.getRoutingGraph();
+        Set<Integer> seenStarts = new HashSet<>();
+        Set<Integer> seenGoals = new HashSet<>();
+        for (int agent = 0; agent < starts.length; agent++) {
+            for (int index : new int[] {starts[agent], goals[agent]}) {
+                if (!graph.contains(index)) {
+                    throw new IllegalArgumentException(String.format("Tile index %d is not in the routing graph",
+                            index));
+                }
+            }
+            if (!seenStarts.add(starts[agent])) {
+                throw new IllegalArgumentException(String.format("Two agents start on tile %d", starts[agent]));
+            }
+            if (!seenGoals.add(goals[agent])) {
+                throw new IllegalArgumentException(String.format("Two agents have goal %d", goals[agent]));
+            }
+        }
+    }
+
+    /**
+     * Get the tile a route is on at the given time step. Agents stay on their goal after their route ends.
+     */
+    private static int getPosition(int[] route, int t) {
+        return route[Math.min(t, route.length - 1)];
+    }
+
+    /**
+     * Get the number of time steps until every route has ended.
+     */
+    private static int getMakespan(int[][] routes) {
+        int makespan = 0;
+        for (int[] route : routes) {
+            makespan = Math.max(makespan, route.length - 1);
+        }
+        return makespan;
+    }
+
+    /**
+     * Return whether a Robot may move onto the given tile: it must be walkable, unless it is the goal.
+     */
+    private static boolean canEnter(TileGraph graph, int index, int goal) {
+        return graph.contains(index) && (index == goal || graph.isWalkable(index));
+    }
+
+    /**
+     * The moves of an agent in the joint search: it must follow the constraints of its node, and prefers not to
+     * conflict with the routes of the other agents.
+     */
+    private class ConstraintRule implements MoveRule {
+        private final int size = warehouseState.getRoutingGraph().getSize();
+        private final LongIntHashMap vertexConstraints = new LongIntHashMap();
+        private final LongIntHashMap edgeConstraints = new LongIntHashMap();
+        /**
+         * The (tile, time step) slots other agents are on before they reach their goals, and the time step from which
+         * other agents stay on each goal tile.
+         */
+        private final LongIntHashMap occupancy = new LongIntHashMap();
+        private final LongIntHashMap goalTimes = new LongIntHashMap();
+        private int latestGoalConstraint = -1;
+        private int latestTime;
+
+        /**
+         * Construct a ConstraintRule.
+         * @param node The node whose constraints to follow, or null for none.
+         * @param constraint A constraint to follow on top of those of the node, or null for none.
+         * @param agent The agent.
+         * @param goal The goal of the agent.
+         * @param routes The routes of the agents. Null routes are ignored.
+         */
+        private ConstraintRule(SearchNode node, Constraint constraint, int agent, int goal, int[][] routes) {
+            if (constraint != null) {
+                addConstraint(constraint, goal);
+            }
+            for (SearchNode current = node; current != null; current = current.parent) {
+                if (current.constraint != null && current.constraint.agent == agent) {
+                    addConstraint(current.constraint, goal);
+                }
+            }
+            for (int other = 0; other < routes.length; other++) {
+                int[] route = routes[other];
+                if (other == agent || route == null) continue;
+                for (int t = 0; t < route.length - 1; t++) {
+                    occupancy.put(toKey(route[t], t), 1);
+                }
+                goalTimes.put(route[route.length - 1], route.length - 1);
+            }
+        }
+
+        @Override
+        public boolean canMove(int from, int to, int time) {
+            return !vertexConstraints.containsKey(toKey(to, time + 1))
+                    && !edgeConstraints.containsKey(toKey(from, time + 1) * size + to);
+        }
+
+        @Override
+        public boolean canStay(int goal, int time) {
+            return time > latestGoalConstraint;
+        }
+
+        @Override
+        public int getConflicts(int index, int time) {
+            boolean occupied = occupancy.containsKey(toKey(index, time));
+            return occupied || goalTimes.getOrDefault(index, Integer.MAX_VALUE) <= time ? 1 : 0;
+        }
+
+        /**
+         * Add a constraint on the agent.
+         */
+        private void addConstraint(Constraint constraint, int goal) {
+            if (constraint.from == -1) {
+                vertexConstraints.put(toKey(constraint.to, constraint.time), 1);
+                if (constraint.to == goal) {
+                    latestGoalConstraint = Math.max(latestGoalConstraint, constraint.time);
+                }
+            } else {
+                edgeConstraints.put(toKey(constraint.from, constraint.time) * size + constraint.to, 1);
+            }
+            latestTime = Math.max(latestTime, constraint.time);
+        }
+
+        private long toKey(int index, int time) {
+            return (long) time * size + index;
+        }
+    }
+
+    /**
+     * The moves of an agent in prioritised planning: it must keep off the slots reserved by other agents.
+     */
+    private static class ReservationRule implements MoveRule {
+        private final ReservationTable reservationTable;
+        private final int agent;
+
+        private ReservationRule(ReservationTable reservationTable, int agent) {
+            this.reservationTable = reservationTable;
+            this.agent = agent;
+        }
+
+        @Override
+        public boolean canMove(int from, int to, int time) {
+            return reservationTable.canMove(from, to, time, agent);
+        }
+
+        @Override
+        public boolean canStay(int goal, int time) {
+            return reservationTable.canPark(goal, time, agent);
+        }
+
+        @Override
+        public int getConflicts(int index, int time) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,623 @@
+package warehouse.logistics.optimization.routefinding.cooperative;
+
+import utils.IndexedMinHeap;
+import utils.LongIntHashMap;
+import warehouse.WarehouseState;
+import warehouse.geometry.WarehouseCoordinate;
+import warehouse.geometry.WarehouseCoordinateSystem;
+import warehouse.logistics.optimization.distances.DistanceField;
+import warehouse.logistics.optimization.distances.DistanceFieldCache;
+import warehouse.logistics.optimization.graph.TileGraph;
+import warehouse.robots.Robot;
+import warehouse.robots.RobotMapper;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Plans collision-free routes for all the Robots in a Warehouse with Windowed Hierarchical Cooperative A* (WHCA*).
+ *
+ * @remark Time is divided into steps, and in each step a Robot either waits or moves to a neighbouring tile. Every
+ * Robot in the RobotMapper is an agent, and all agents share a ReservationTable: an agent plans a route through
+ * (tile, time step) slots that no other agent has reserved, then reserves the slots of its route. Routes are planned
+ * with a space-time A* search over the next window time steps, using the distance to the goal on the routing graph
+ * (ignoring other agents) as the estimate beyond the window. These distances come from DistanceFields, which are only
+ * searched as far as needed. An agent that reaches its goal, or has no goal, parks: it holds its tile until it is
+ * given a new goal.
+ *
+ * Replanning is incremental: an agent only replans when it is given a new goal, when its route stops short of the
+ * goal and is halfway through its window, when its route crosses a tile that is no longer walkable, or when it was
+ * moved by something other than this planner. Agents that replan in the same time step do so in the order they were
+ * added, so earlier agents have priority. If an agent cannot find a route, it keeps its previous route if that is
+ * still free and it can park at its end, and otherwise waits where it is, in which case only the agents whose routes
+ * cross its tile replan.
+ *
+ * While cooperative planning is enabled on the WarehouseState, the RobotAdapterUpdater advances the planner after
+ * every update, and the planner owns the positions of the Robots: adapters set the goals of their Robots and follow
+ * the planned routes, but do not move Robots in the RobotMapper themselves. A time step lasts getStepLength seconds of
+ * simulated time.
+ *
+ * Like all windowed planners, this is not complete: a parked agent is an obstacle to the others, and two agents that
+ * must pass each other in a corridor without room to step aside will wait for each other. A CooperativePlanner is not
+ * thread-safe.
+ */
+public class CooperativePlanner<T extends WarehouseCoordinateSystem<U>, U extends WarehouseCoordinate> {
+    /**
+     * The default number of time steps each agent plans ahead.
+     */
+    public static final int DEFAULT_WINDOW = 16;
+    /**
+     * The default maximum memory used by the distance fields of the goals, in bytes.
+     */
+    public static final long DEFAULT_HEURISTIC_CACHE_BYTES = DistanceFieldCache.DEFAULT_MAXIMUM_BYTES;
+    /**
+     * The default length of a time step, in seconds: the time a Robot moving 3 tiles per second takes to move a tile.
+     */
+    public static final double DEFAULT_STEP_LENGTH = 1.0 / 3;
+    /**
+     * The cost of waiting on a tile for one time step.
+     */
+    private static final double WAIT_COST = 1;
+    /**
+     * The number of nodes a search may expand per time step of the window before it settles for a shorter route.
+     */
+    private static final int EXPANSIONS_PER_STEP = 32;
+
+    private final WarehouseState<T, U> warehouseState;
+    private final int window;
+    private final ReservationTable reservationTable;
+    private final DistanceFieldCache<T, U> heuristics;
+
+    /**
+     * The agents, in order of priority: agents that replan in the same time step do so in this order.
+     */
+    private final Map<Robot, Agent> agents = new LinkedHashMap<>();
+    private final Deque<Integer> freeAgentIds = new ArrayDeque<>();
+    private int nextAgentId;
+    private int time;
+    private int replanCount;
+    private double stepLength = DEFAULT_STEP_LENGTH;
+    /**
+     * The time passed to advance that has not yet been stepped through, in seconds.
+     */
+    private double accumulatedTime;
+
+    /**
+     * The nodes of the current search, indexed by node id, and the node id of each (tile, time step) slot.
+     */
+    private final LongIntHashMap searchNodes = new LongIntHashMap();
+    private int[] nodeTiles = new int[64];
+    private int[] nodeTimes = new int[64];
+    private int[] nodeParents = new int[64];
+    private double[] nodeScores = new double[64];
+    private boolean[] nodeClosed = new boolean[64];
+    private int nodeCount;
+    private final IndexedMinHeap openSet = new IndexedMinHeap(64);
+
+    /**
+     * A Robot being planned for.
+     */
+    private static class Agent {
+        private final Robot robot;
+        private final int id;
+        private int goal = -1;
+        /**
+         * The tile the agent is planned to be on at each time step from pathStart. If the last tile is the goal, or
+         * the agent has no goal, the agent is parked on it after the last time step.
+         */
+        private int[] path;
+        private int pathStart;
+        private boolean replanRequested;
+        /**
+         * Whether the agent may fall back to its previous route if it cannot find a new one.
+         */
+        private boolean mayKeepRoute;
+
+        private Agent(Robot robot, int id) {
+            this.robot = robot;
+            this.id = id;
+        }
+    }
+
+    /**
+     * Construct a CooperativePlanner for the Robots of the given Warehouse.
+     * @param warehouseState The Warehouse.
+     * @param window The number of time steps each agent plans ahead.
+     * @throws IllegalArgumentException if the window is not positive.
+     */
+    public CooperativePlanner(WarehouseState<T, U> warehouseState, int window) {
+        if (window < 1) {
+            throw new IllegalArgumentException(String.format("Window must be positive, but got %d", window));
+        }
+        this.warehouseState = warehouseState;
+        this.window = window;
+        this.reservationTable = new ReservationTable(warehouseState.getCoordinateSystem().getSize());
+        this.heuristics = new DistanceFieldCache<>(warehouseState, Integer.MAX_VALUE,
+                DEFAULT_HEURISTIC_CACHE_BYTES);
+    }
+
+    /**
+     * Construct a CooperativePlanner for the Robots of the given Warehouse with the default window.
+     * @param warehouseState The Warehouse.
+     */
+    public CooperativePlanner(WarehouseState<T, U> warehouseState) {
+        this(warehouseState, DEFAULT_WINDOW);
+    }
+
+    /**
+     * Set the tile the given Robot should travel to. The Robot replans in the next step.
+     * @param robot The Robot. This must be in the RobotMapper of the Warehouse.
+     * @param goal The tile index to travel to. This may be any tile in the routing graph.
+     * @throws IllegalArgumentException if the Robot is not in the RobotMapper, or the goal is not in the routing graph.
+     */
+    public void setGoal(Robot robot, int goal) {
+        TileGraph graph = warehouseState.getRoutingGraph();
+        if (!graph.contains(goal)) {
+            throw new IllegalArgumentException(String.format("Tile index %d is not in the routing graph", goal));
+        }
+        Agent agent = getOrAddAgent(robot);
+        agent.goal = goal;
+        agent.replanRequested = true;
+    }
+
+    /**
+     * Remove the goal of the given Robot, so that it parks where it is in the next step.
+     * @param robot The Robot.
+     */
+    public void clearGoal(Robot robot) {
+        Agent agent = agents.get(robot);
+        if (agent != null) {
+            agent.goal = -1;
+            agent.replanRequested = true;
+        }
+    }
+
+    /**
+     * Get the tile the given Robot is travelling to, or -1 if it has no goal.
+     */
+    public int getGoal(Robot robot) {
+        Agent agent = agents.get(robot);
+        return agent == null ? -1 : agent.goal;
+    }
+
+    /**
+     * Advance time by one step: add agents for new Robots, replan the agents that need it, then move every Robot in
+     * the RobotMapper to the tile it is planned to be on at the new time step.
+     */
+    public void step() {
+        synchronizeAgents();
+
+        Deque<Agent> pending = new ArrayDeque<>();
+        for (Agent agent : agents.values()) {
+            if (needsReplan(agent)) {
+                agent.mayKeepRoute = !agent.replanRequested && isPathValid(agent);
+                pending.add(agent);
+            }
+        }
+        // Replanning agents only hold their current tile, so that they do not block each other with old routes
+        for (Agent agent : pending) {
+            releaseRoute(agent);
+        }
+        // Waiting agents may displace others, which may displace others in turn; bound the cascade
+        int budget = 4 * agents.size() + 16;
+        while (!pending.isEmpty()) {
+            replan(pending.poll(), pending, budget-- > 0);
+        }
+
+        time++;
+        RobotMapper<U> robotMapper = warehouseState.getRobotMapper();
+        for (Agent agent : agents.values()) {
+            int position = getPosition(agent, time);
+            if (robotMapper.getRobotTileIndex(agent.robot) != position) {
+                robotMapper.setRobotTileIndex(agent.robot, position);
+            }
+        }
+        reservationTable.prune(time);
+    }
+
+    /**
+     * Run as many time steps as fit in the given amount of time, together with the time left over from previous calls.
+     * @param elapsedTime The time since the last call, in seconds.
+     * @return The number of time steps run.
+     */
+    public int advance(double elapsedTime) {
+        accumulatedTime += Math.max(0, elapsedTime);
+        int steps = 0;
+        while (accumulatedTime >= stepLength) {
+            step();
+            accumulatedTime -= stepLength;
+            steps++;
+        }
+        return steps;
+    }
+
+    /**
+     * Get how far the current time step has progressed, i.e. the time passed to advance since the last step as a
+     * fraction of the step length, in the range [0, 1).
+     */
+    public double getStepProgress() {
+        return accumulatedTime / stepLength;
+    }
+
+    /**
+     * Get the length of a time step, in seconds.
+     */
+    public double getStepLength() {
+        return stepLength;
+    }
+
+    /**
+     * Set the length of a time step, i.e. the time a Robot takes to move one tile.
+     * @param stepLength The length, in seconds.
+     * @throws IllegalArgumentException if the length is not positive.
+     */
+    public void setStepLength(double stepLength) {
+        if (!(stepLength > 0) || Double.isInfinite(stepLength)) {
+            throw new IllegalArgumentException(String.format("Step length must be positive, but got %s", stepLength));
+        }
+        this.stepLength = stepLength;
+    }
+
+    /**
+     * Get the tiles the given Robot is planned to be on, starting with its tile at the current time step and ending
+     * with the tile it parks on.
+     * @param robot The Robot.
+     * @return The tile indices of the planned route, or an empty list if the Robot is not planned for.
+     */
+    public List<Integer> getPlannedRoute(Robot robot) {
+        Agent agent = agents.get(robot);
+        List<Integer> route = new ArrayList<>();
+        if (agent == null || agent.path == null) {
+            return route;
+        }
+        for (int k = Math.max(0, time - agent.pathStart); k < agent.path.length; k++) {
+            route.add(agent.path[k]);
+        }
+        if (route.isEmpty()) {
+            route.add(agent.path[agent.path.length - 1]);
+        }
+        return route;
+    }
+
+    /**
+     * Get the current time step.
+     */
+    public int getTime() {
+        return time;
+    }
+
+    /**
+     * Get the number of time steps each agent plans ahead.
+     */
+    public int getWindow() {
+        return window;
+    }
+
+    /**
+     * Get the number of routes planned since this planner was created.
+     */
+    public int getReplanCount() {
+        return replanCount;
+    }
+
+    /**
+     * Get the reservation table shared by all agents.
+     */
+    public ReservationTable getReservationTable() {
+        return reservationTable;
+    }
+
+    /**
+     * Stop listening for changes to the layout of the Warehouse.
+     */
+    public void dispose() {
+        heuristics.dispose();
+    }
+
+    /**
+     * Add agents for Robots that were added to the RobotMapper, remove agents of Robots that were removed, and replan
+     * agents of Robots that were moved by something other than this planner.
+     */
+    private void synchronizeAgents() {
+        RobotMapper<U> robotMapper = warehouseState.getRobotMapper();
+        List<Robot> robots = robotMapper.getRobots();
+        Set<Robot> present = new HashSet<>(robots);
+        for (Iterator<Agent> iterator = agents.values().iterator(); iterator.hasNext(); ) {
+            Agent agent = iterator.next();
+            if (!present.contains(agent.robot)) {
+                reservationTable.release(agent.id);
+                freeAgentIds.push(agent.id);
+                iterator.remove();
+            }
+        }
+        for (Robot robot : robots) {
+            Agent agent = getOrAddAgent(robot);
+            int index = robotMapper.getRobotTileIndex(robot);
+            if (getPosition(agent, time) != index) {
+                reservationTable.release(agent.id);
+                agent.path = new int[] {index};
+                agent.pathStart = time;
+                agent.replanRequested = true;
+                reservationTable.reserve(index, time, agent.id);
+            }
+        }
+    }
+
+    /**
+     * Get the agent of the given Robot, adding one parked at its tile if it has none.
+     * @throws IllegalArgumentException if the Robot is not in the RobotMapper.
+     */
+    private Agent getOrAddAgent(Robot robot) {
+        Agent agent = agents.get(robot);
+        if (agent != null) {
+            return agent;
+        }
+        int index = warehouseState.getRobotMapper().getRobotTileIndex(robot);
+        if (index == -1) {
+            throw new IllegalArgumentException(String.format("Robot %s is not in the RobotMapper", robot.getId()));
+        }
+        int id = freeAgentIds.isEmpty() ? nextAgentId++ : freeAgentIds.pop();
+        agent = new Agent(robot, id);
+        agent.path = new int[] {index};
+        agent.pathStart = time;
+        reservationTable.reserve(index, time, id);
+        if (!reservationTable.park(index, time, id)) {
+            // Another agent is planned through this tile
+            agent.replanRequested = true;
+        }
+        agents.put(robot, agent);
+        return agent;
+    }
+
+    /**
+     * Return whether the given agent should plan a new route in this time step.
+     */
+    private boolean needsReplan(Agent agent) {
+        if (agent.replanRequested || !isPathValid(agent)) {
+            return true;
+        }
+        // A route that reaches the goal is kept; a windowed route is extended when half of it is used up
+        int pathEnd = agent.pathStart + agent.path.length - 1;
+        return agent.goal != -1 && agent.path[agent.path.length - 1] != agent.goal && pathEnd - time <= window / 2;
+    }
+
+    /**
+     * Return whether the rest of the route of the given agent only crosses tiles a Robot may travel through.
+     */
+    private boolean isPathValid(Agent agent) {
+        TileGraph graph = warehouseState.getRoutingGraph();
+        for (int k = Math.max(1, time - agent.pathStart + 1); k < agent.path.length; k++) {
+            int index = agent.path[k];
+            if (index != agent.path[k - 1] && !canEnter(graph, index, agent.goal)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Plan a new route for the given agent from its current tile, and reserve it.
+     * @param agent The agent to replan.
+     * @param pending The agents still to be replanned in this time step. Agents displaced by this agent are added.
+     * @param mayDisplace Whether this agent may make other agents replan if it has to wait.
+     */
+    private void replan(Agent agent, Deque<Agent> pending, boolean mayDisplace) {
+        replanCount++;
+        int start = getPosition(agent, time);
+        agent.replanRequested = false;
+        int[] route = agent.goal == -1 ? null : search(agent, start);
+        if (route != null) {
+            // A route that ends early holds its last tile until the agent replans
+            setRoute(agent, route, time, route.length <= window);
+            return;
+        }
+        if (agent.mayKeepRoute && isRouteFree(agent)) {
+            // The kept route may stop short of the goal, so the agent parks at its end
+            setRoute(agent, agent.path, agent.pathStart, true);
+            return;
+        }
+
+        // Wait where it is, and make any agent planned through this tile plan around it. Once the budget for
+        // displacing is spent, only the agent planned onto the tile in the next time step is displaced.
+        agent.path = new int[] {start};
+        agent.pathStart = time;
+        if (reservationTable.park(start, time, agent.id)) {
+            return;
+        }
+        int latest = mayDisplace ? time + window + 1 : time + 1;
+        for (int t = time + 1; t <= latest; t++) {
+            int other = reservationTable.getReservation(start, t);
+            if (other != ReservationTable.NO_AGENT && other != agent.id) {
+                displace(other, pending);
+            }
+        }
+        if (!reservationTable.park(start, time, agent.id)) {
+            // Hold the tile for the next time step, and try to park again then
+            reservationTable.reserve(start, time + 1, agent.id);
+            agent.replanRequested = true;
+        }
+    }
+
+    /**
+     * Release the route of the agent with the given id, keeping only its current tile, and schedule it to replan.
+     */
+    private void displace(int id, Deque<Agent> pending) {
+        for (Agent other : agents.values()) {
+            if (other.id == id) {
+                releaseRoute(other);
+                other.replanRequested = true;
+                other.mayKeepRoute = false;
+                if (!pending.contains(other)) {
+                    pending.add(other);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Release the reservations of the given agent, except for its tile at the current time step.
+     */
+    private void releaseRoute(Agent agent) {
+        reservationTable.release(agent.id);
+        reservationTable.reserve(getPosition(agent, time), time, agent.id);
+    }
+
+    /**
+     * Return whether the rest of the current route of the given agent is free for it, without swapping tiles with
+     * another agent, and it can park at its end.
+     */
+    private boolean isRouteFree(Agent agent) {
+        for (int k = Math.max(1, time - agent.pathStart + 1); k < agent.path.length; k++) {
+            if (!reservationTable.canMove(agent.path[k - 1], agent.path[k], agent.pathStart + k - 1, agent.id)) {
+                return false;
+            }
+        }
+        int last = agent.path[agent.path.length - 1];
+        return reservationTable.canPark(last, Math.max(time, agent.pathStart + agent.path.length - 1), agent.id);
+    }
+
+    /**
+     * Set and reserve the route of the given agent. The agent parks at the end of the route if it is at its goal.
+     * @param agent The agent.
+     * @param path The tile at each time step of the route, from the given start time step.
+     * @param pathStart The time step of the first tile of the route.
+     * @param park Whether the agent should park at the end of the route even if it is not at its goal.
+     */
+    private void setRoute(Agent agent, int[] path, int pathStart, boolean park) {
+        agent.path = path;
+        agent.pathStart = pathStart;
+        for (int k = Math.max(0, time - pathStart); k < path.length; k++) {
+            reservationTable.reserve(path[k], pathStart + k, agent.id);
+        }
+        int last = path[path.length - 1];
+        if (park || last == agent.goal) {
+            reservationTable.park(last, Math.max(time, pathStart + path.length - 1), agent.id);
+        }
+    }
+
+    /**
+     * Search for the cheapest route from the given tile that respects the reservations of other agents, and either
+     * reaches the goal of the agent and parks there, or lasts the whole window. If the search expands too many nodes,
+     * it settles for the route to the node closest to the goal that the agent can park on.
+     * @return The tile at each time step of the route, starting at the current time step, or null if there is none.
+     */
+    private int[] search(Agent agent, int start) {
+        TileGraph graph = warehouseState.getRoutingGraph();
+        if (!graph.contains(agent.goal)) {
+            return null;
+        }
+        WarehouseCoordinateSystem<U> coordinateSystem = warehouseState.getCoordinateSystem();
+        DistanceField field = heuristics.get(agent.goal);
+        double startEstimate = field.getDistance(start);
+        if (startEstimate == Double.POSITIVE_INFINITY) {
+            return null;
+        }
+
+        searchNodes.clear();
+        openSet.clear();
+        nodeCount = 0;
+        openSet.insertOrDecrease(addNode(start, time, -1, 0), startEstimate);
+        int horizon = time + window;
+        int expansions = EXPANSIONS_PER_STEP * window;
+        int closest = -1;
+        double closestEstimate = Double.POSITIVE_INFINITY;
+        while (!openSet.isEmpty()) {
+            int node = openSet.poll();
+            nodeClosed[node] = true;
+            int tile = nodeTiles[node];
+            int t = nodeTimes[node];
+            if (t == horizon || (tile == agent.goal && reservationTable.canPark(tile, t, agent.id))) {
+                return buildRoute(node);
+            }
+            double nodeEstimate = field.getDistance(tile);
+            if (nodeEstimate < closestEstimate && reservationTable.canPark(tile, t, agent.id)) {
+                closest = node;
+                closestEstimate = nodeEstimate;
+            }
+            if (--expansions < 0) {
+                break;
+            }
+
+            double score = nodeScores[node];
+            // Wait, then move to each connected tile
+            for (int k = -1, degree = graph.getDegree(tile); k < degree; k++) {
+                int next = k == -1 ? tile : graph.getConnection(tile, k);
+                if (next != tile && !canEnter(graph, next, agent.goal)) continue;
+                if (!reservationTable.canMove(tile, next, t, agent.id)) continue;
+                double estimate = field.getDistance(next);
+                if (estimate == Double.POSITIVE_INFINITY) continue;
+                double newScore = score + (next == tile ? WAIT_COST : coordinateSystem.getDistance(tile, next));
+
+                long key = (long) (t + 1) * graph.getSize() + next;
+                int existing = searchNodes.getOrDefault(key, -1);
+                if (existing == -1) {
+                    openSet.insertOrDecrease(addNode(next, t + 1, node, newScore), newScore + estimate);
+                } else if (!nodeClosed[existing] && newScore < nodeScores[existing]) {
+                    nodeScores[existing] = newScore;
+                    nodeParents[existing] = node;
+                    openSet.insertOrDecrease(existing, newScore + estimate);
+                }
+            }
+        }
+        return closest == -1 ? null : buildRoute(closest);
+    }
+
+    /**
+     * Add a node to the current search.
+     * @return The node id.
+     */
+    private int addNode(int tile, int t, int parent, double score) {
+        if (nodeCount == nodeTiles.length) {
+            int capacity = 2 * nodeCount;
+            nodeTiles = Arrays.copyOf(nodeTiles, capacity);
+            nodeTimes = Arrays.copyOf(nodeTimes, capacity);
+            nodeParents = Arrays.copyOf(nodeParents, capacity);
+            nodeScores = Arrays.copyOf(nodeScores, capacity);
+            nodeClosed = Arrays.copyOf(nodeClosed, capacity);
+            openSet.ensureCapacity(capacity);
+        }
+        int node = nodeCount++;
+        nodeTiles[node] = tile;
+        nodeTimes[node] = t;
+        nodeParents[node] = parent;
+        nodeScores[node] = score;
+        nodeClosed[node] = false;
+        searchNodes.put((long) t * warehouseState.getRoutingGraph().getSize() + tile, node);
+        return node;
+    }
+
+    /**
+     * Build a route by backtracking from the given node to the start of the search.
+     */
+    private int[] buildRoute(int node) {
+        int[] route = new int[nodeTimes[node] - time + 1];
+        for (int current = node; current != -1; current = nodeParents[current]) {
+            route[nodeTimes[current] - time] = nodeTiles[current];
+        }
+        return route;
+    }
+
+    /**
+     * Get the tile the given agent is planned to be on at the given time step.
+     */
+    private static int getPosition(Agent agent, int t) {
+        int k = Math.min(Math.max(0, t - agent.pathStart), agent.path.length - 1);
+        return agent.path[k];
+    }
+
+    /**
+     * Return whether a Robot may move onto the given tile: it must be walkable, unless it is the goal.
+     */
+    private static boolean canEnter(TileGraph graph, int index, int goal) {
+        return graph.contains(index) && (index == goal || graph.isWalkable(index));
+    }
+}
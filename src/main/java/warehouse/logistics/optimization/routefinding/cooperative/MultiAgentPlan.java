@@ -0,0 +1,181 @@
+package warehouse.logistics.optimization.routefinding.cooperative;
+
+import warehouse.robots.Robot;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Routes planned jointly for a batch of agents, with statistics to compare them against planning each agent on its
+ * own.
+ *
+ * @remark The route of an agent is the tile it is on at each time step, starting at time step 0 and ending when it
+ * reaches its goal; it stays on its goal afterwards. The cost of a route is its number of time steps, so the
+ * sum-of-costs of a plan is the total number of time steps agents spend before they are at their goals, and the
+ * makespan is the time step at which the last agent arrives.
+ */
+public class MultiAgentPlan {
+    private final List<Robot> robots;
+    private final int[][] routes;
+    private final boolean fallback;
+    private final double suboptimalityBound;
+    private final int failedAgentCount;
+    private final int independentSumOfCosts;
+    private final int independentMakespan;
+    private final int expandedNodeCount;
+    private final long planningTimeNanos;
+    private final int sumOfCosts;
+    private final int makespan;
+
+    /**
+     * Construct a MultiAgentPlan.
+     * @param robots The Robot of each agent, or an empty list if the agents are not Robots.
+     * @param routes The route of each agent.
+     * @param fallback Whether the routes were planned one agent at a time because the time budget ran out.
+     * @param suboptimalityBound The factor the sum-of-costs is at most of the optimum, or positive infinity if unknown.
+     * @param failedAgentCount The number of agents that could not be given a route, and wait where they are.
+     * @param independentSumOfCosts The sum-of-costs of planning each agent on its own, or -1 if unknown.
+     * @param independentMakespan The makespan of planning each agent on its own, or -1 if unknown.
+     * @param expandedNodeCount The number of nodes of the joint search that were expanded.
+     * @param planningTimeNanos The time taken to plan, in nanoseconds.
+     */
+    public MultiAgentPlan(List<Robot> robots, int[][] routes, boolean fallback, double suboptimalityBound,
+                          int failedAgentCount, int independentSumOfCosts, int independentMakespan,
+                          int expandedNodeCount, long planningTimeNanos) {
+        this.robots = robots;
+        this.routes = routes;
+        this.fallback = fallback;
+        this.suboptimalityBound = suboptimalityBound;
+        this.failedAgentCount = failedAgentCount;
+        this.independentSumOfCosts = independentSumOfCosts;
+        this.independentMakespan = independentMakespan;
+        this.expandedNodeCount = expandedNodeCount;
+        this.planningTimeNanos = planningTimeNanos;
+
+        int sum = 0;
+        int longest = 0;
+        for (int[] route : routes) {
+            sum += route.length - 1;
+            longest = Math.max(longest, route.length - 1);
+        }
+        this.sumOfCosts = sum;
+        this.makespan = longest;
+    }
+
+    /**
+     * Get the number of agents in this plan.
+     */
+    public int getAgentCount() {
+        return routes.length;
+    }
+
+    /**
+     * Get the Robot of each agent, in agent order, or an empty list if the agents are not Robots.
+     */
+    public List<Robot> getRobots() {
+        return robots;
+    }
+
+    /**
+     * Get the route of the given agent.
+     * @param agent The agent, in the range [0, getAgentCount()).
+     * @return The tile index at each time step of the route, starting at time step 0.
+     */
+    public List<Integer> getRoute(int agent) {
+        List<Integer> route = new ArrayList<>();
+        for (int index : routes[agent]) {
+            route.add(index);
+        }
+        return route;
+    }
+
+    /**
+     * Get the route of the given Robot.
+     * @return The tile index at each time step of the route, starting at time step 0.
+     * @throws IllegalArgumentException if the Robot is not in this plan.
+     */
+    public List<Integer> getRoute(Robot robot) {
+        int agent = robots.indexOf(robot);
+        if (agent == -1) {
+            throw new IllegalArgumentException(String.format("Robot %s is not in this plan", robot.getId()));
+        }
+        return getRoute(agent);
+    }
+
+    /**
+     * Get the tile the given agent is on at the given time step.
+     * @param agent The agent, in the range [0, getAgentCount()).
+     * @param time The time step. Agents stay on their goal after their route ends.
+     */
+    public int getPosition(int agent, int time) {
+        int[] route = routes[agent];
+        return route[Math.min(Math.max(0, time), route.length - 1)];
+    }
+
+    /**
+     * Get the total number of time steps agents take to reach their goals.
+     */
+    public int getSumOfCosts() {
+        return sumOfCosts;
+    }
+
+    /**
+     * Get the number of time steps until every agent is at its goal.
+     */
+    public int getMakespan() {
+        return makespan;
+    }
+
+    /**
+     * Get the sum-of-costs of planning each agent on its own, ignoring the others, or -1 if the time budget ran out
+     * first. This is a lower bound on the sum-of-costs of any collision-free plan.
+     */
+    public int getIndependentSumOfCosts() {
+        return independentSumOfCosts;
+    }
+
+    /**
+     * Get the makespan of planning each agent on its own, ignoring the others, or -1 if the time budget ran out first.
+     */
+    public int getIndependentMakespan() {
+        return independentMakespan;
+    }
+
+    /**
+     * Return whether the routes were planned one agent at a time because the time budget of the joint search ran
+     * out, in which case they are collision-free but have no bound on their cost.
+     */
+    public boolean isFallback() {
+        return fallback;
+    }
+
+    /**
+     * Get the factor the sum-of-costs of this plan is at most of the optimum, e.g. 1 if it is optimal, or positive
+     * infinity if there is no bound.
+     */
+    public double getSuboptimalityBound() {
+        return suboptimalityBound;
+    }
+
+    /**
+     * Get the number of agents that could not be given a route. These agents wait where they are, and their routes
+     * are not guaranteed to be collision-free.
+     */
+    public int getFailedAgentCount() {
+        return failedAgentCount;
+    }
+
+    /**
+     * Get the number of nodes of the joint search that were expanded.
+     */
+    public int getExpandedNodeCount() {
+        return expandedNodeCount;
+    }
+
+    /**
+     * Get the time taken to plan, in nanoseconds.
+     */
+    public long getPlanningTimeNanos() {
+        return planningTimeNanos;
+    }
+}
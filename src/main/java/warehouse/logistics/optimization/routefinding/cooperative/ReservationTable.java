@@ -0,0 +1,275 @@
+package warehouse.logistics.optimization.routefinding.cooperative;
+
+import utils.LongIntHashMap;
+
+import java.util.Arrays;
+
+/**
+ * A table of (tile, time step) slots reserved by agents, used to plan routes for several agents that never occupy the
+ * same tile at the same time.
+ *
+ * @remark An agent reserves the tile it will be on at each time step of its planned route, in increasing order of
+ * time, and parks at the last tile of the route: a parked agent holds its tile at every time step from the given time
+ * onwards, until it is released. Two agents conflict if they reserve the same tile at the same time step, or swap
+ * tiles between two consecutive time steps.
+ *
+ * Timed reservations are stored in a LongIntHashMap keyed by time step and tile index, so the table takes space in
+ * the number of reservations rather than the size of the layout. Reservations for time steps that have passed are
+ * dropped by prune.
+ */
+public class ReservationTable {
+    /**
+     * The agent id returned for a slot that is not reserved.
+     */
+    public static final int NO_AGENT = -1;
+
+    private final int size;
+    /**
+     * The agent holding each reserved (tile, time step) slot.
+     */
+    private final LongIntHashMap reservations = new LongIntHashMap();
+    /**
+     * The agent parked on each tile.
+     */
+    private final LongIntHashMap parkedAgents = new LongIntHashMap();
+    /**
+     * The latest time step at which each tile has a timed reservation. Entries are not lowered when reservations are
+     * released, so this is an upper bound.
+     */
+    private final LongIntHashMap latestTimes = new LongIntHashMap();
+
+    /**
+     * The keys of the timed reservations of each agent, in the order they were made. The reservations of an agent
+     * are the keys in [keyStarts[agent], keyEnds[agent]).
+     */
+    private long[][] agentKeys = new long[0][];
+    private int[] keyStarts = new int[0];
+    private int[] keyEnds = new int[0];
+    /**
+     * The tile each agent is parked on and the time step it is parked from, or -1 if the agent is not parked.
+     */
+    private int[] parkedTiles = new int[0];
+    private int[] parkedTimes = new int[0];
+
+    /**
+     * Construct an empty ReservationTable.
+     * @param size The number of tiles in the layout, e.g. tile indices are in the range [0, size).
+     */
+    public ReservationTable(int size) {
+        this.size = size;
+    }
+
+    /**
+     * Reserve the given tile at the given time step for the given agent.
+     * @param index The tile index.
+     * @param time The time step. This must not be earlier than the previous reservation of the agent.
+     * @param agent The agent id.
+     * @return True if the slot was free or already held by the agent, and False if another agent holds it, in which
+     * case nothing is reserved.
+     */
+    public boolean reserve(int index, int time, int agent) {
+        checkIndex(index);
+        int holder = getReservation(index, time);
+        if (holder == agent) {
+            return true;
+        } else if (holder != NO_AGENT) {
+            return false;
+        }
+        ensureAgent(agent);
+        long key = toKey(index, time);
+        reservations.put(key, agent);
+        if (keyEnds[agent] == agentKeys[agent].length) {
+            agentKeys[agent] = Arrays.copyOf(agentKeys[agent], Math.max(8, 2 * agentKeys[agent].length));
+        }
+        agentKeys[agent][keyEnds[agent]++] = key;
+        if (latestTimes.getOrDefault(index, Integer.MIN_VALUE) < time) {
+            latestTimes.put(index, time);
+        }
+        return true;
+    }
+
+    /**
+     * Park the given agent on the given tile from the given time step onwards, replacing any previous parking of the
+     * agent.
+     * @param index The tile index.
+     * @param time The first time step the agent is parked at.
+     * @param agent The agent id.
+     * @return True if the agent was parked, and False if the tile is reserved by another agent at or after the given
+     * time step, in which case nothing is changed.
+     */
+    public boolean park(int index, int time, int agent) {
+        checkIndex(index);
+        if (!canPark(index, time, agent)) {
+            return false;
+        }
+        ensureAgent(agent);
+        unpark(agent);
+        parkedAgents.put(index, agent);
+        parkedTiles[agent] = index;
+        parkedTimes[agent] = time;
+        return true;
+    }
+
+    /**
+     * Return whether the given agent could park on the given tile from the given time step onwards, e.g. whether no
+     * other agent reserves the tile at or after that time step.
+     */
+    public boolean canPark(int index, int time, int agent) {
+        int parked = parkedAgents.getOrDefault(index, NO_AGENT);
+        if (parked != NO_AGENT && parked != agent) {
+            return false;
+        }
+        int latest = latestTimes.getOrDefault(index, Integer.MIN_VALUE);
+        for (int t = time; t <= latest; t++) {
+            int holder = reservations.getOrDefault(toKey(index, t), NO_AGENT);
+            if (holder != NO_AGENT && holder != agent) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get the agent holding the given tile at the given time step.
+     * @param index The tile index.
+     * @param time The time step.
+     * @return The agent id, or NO_AGENT if the slot is free.
+     */
+    public int getReservation(int index, int time) {
+        int agent = reservations.getOrDefault(toKey(index, time), NO_AGENT);
+        if (agent != NO_AGENT) {
+            return agent;
+        }
+        int parked = parkedAgents.getOrDefault(index, NO_AGENT);
+        return parked != NO_AGENT && parkedTimes[parked] <= time ? parked : NO_AGENT;
+    }
+
+    /**
+     * Return whether the given tile is free for the given agent at the given time step, e.g. it is not reserved, or it
+     * is reserved by the agent.
+     */
+    public boolean isFree(int index, int time, int agent) {
+        int holder = getReservation(index, time);
+        return holder == NO_AGENT || holder == agent;
+    }
+
+    /**
+     * Return whether the given agent can move from one tile at the given time step to another at the next time step,
+     * e.g. the destination is free at the next time step and no other agent makes the opposite move at the same time.
+     * @param from The tile index the agent moves from.
+     * @param to The tile index the agent moves to. This may equal from, to wait.
+     * @param time The time step the agent is on the from tile.
+     * @param agent The agent id.
+     */
+    public boolean canMove(int from, int to, int time, int agent) {
+        if (!isFree(to, time + 1, agent)) {
+            return false;
+        }
+        if (from == to) {
+            return true;
+        }
+        int other = getReservation(to, time);
+        return other == NO_AGENT || other == agent || getReservation(from, time + 1) != other;
+    }
+
+    /**
+     * Remove every reservation and the parking of the given agent.
+     */
+    public void release(int agent) {
+        if (agent < 0 || agent >= keyEnds.length) return;
+        for (int k = keyStarts[agent]; k < keyEnds[agent]; k++) {
+            reservations.remove(agentKeys[agent][k]);
+        }
+        keyStarts[agent] = 0;
+        keyEnds[agent] = 0;
+        unpark(agent);
+    }
+
+    /**
+     * Remove the timed reservations for time steps before the given time step. Parked agents stay parked.
+     */
+    public void prune(int time) {
+        for (int agent = 0; agent < keyEnds.length; agent++) {
+            int k = keyStarts[agent];
+            while (k < keyEnds[agent] && timeOf(agentKeys[agent][k]) < time) {
+                reservations.remove(agentKeys[agent][k]);
+                k++;
+            }
+            if (k == keyEnds[agent]) {
+                keyStarts[agent] = 0;
+                keyEnds[agent] = 0;
+            } else {
+                keyStarts[agent] = k;
+            }
+        }
+    }
+
+    /**
+     * Get the tile the given agent is parked on, or -1 if it is not parked.
+     */
+    public int getParkedTile(int agent) {
+        return agent >= 0 && agent < parkedTiles.length ? parkedTiles[agent] : -1;
+    }
+
+    /**
+     * Get the number of timed reservations in this table.
+     */
+    public int getReservationCount() {
+        return reservations.size();
+    }
+
+    /**
+     * Remove the parking of the given agent, if it is parked.
+     */
+    private void unpark(int agent) {
+        if (agent >= parkedTiles.length || parkedTiles[agent] == -1) return;
+        parkedAgents.remove(parkedTiles[agent]);
+        parkedTiles[agent] = -1;
+        parkedTimes[agent] = -1;
+    }
+
+    /**
+     * Grow the per-agent arrays to hold the given agent id.
+     */
+    private void ensureAgent(int agent) {
+        if (agent < 0) {
+            throw new IllegalArgumentException(String.format("Agent id %d must not be negative", agent));
+        }
+        if (agent < keyEnds.length) return;
+        int oldLength = keyEnds.length;
+        int length = Math.max(agent + 1, 2 * oldLength);
+        agentKeys = Arrays.copyOf(agentKeys, length);
+        keyStarts = Arrays.copyOf(keyStarts, length);
+        keyEnds = Arrays.copyOf(keyEnds, length);
+        parkedTiles = Arrays.copyOf(parkedTiles, length);
+        parkedTimes = Arrays.copyOf(parkedTimes, length);
+        for (int i = oldLength; i < length; i++) {
+            agentKeys[i] = new long[0];
+            parkedTiles[i] = -1;
+            parkedTimes[i] = -1;
+        }
+    }
+
+    /**
+     * Get the key of the given (tile, time step) slot.
+     */
+    private long toKey(int index, int time) {
+        return (long) time * size + index;
+    }
+
+    /**
+     * Get the time step of the given key.
+     */
+    private int timeOf(long key) {
+        return (int) Math.floorDiv(key, (long) size);
+    }
+
+    /**
+     * Check that the given tile index is in the layout.
+     */
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IllegalArgumentException(String.format("Tile index %d is out of range [0, %d)", index, size));
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package warehouse.logistics.orders;
+
+import utils.HungarianAlgorithm;
+import warehouse.robots.Robot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * An order matching strategy that takes a batch of ready Orders at once, and assigns them to Robots such that the
+ * total cost of the batch is minimized.
+ *
+ * @remark A greedy strategy gives each Order the best Robot left for it, which often leaves a later Order in the same
+ * time step with a Robot that is far away. This strategy builds a matrix of the cost of candidate Robots handling
+ * every Order in the batch, and solves it with the HungarianAlgorithm.
+ *
+ * A batch holds the oldest ready Orders, up to the number of available Robots and the maximum batch size, so Orders
+ * are still started oldest first. The candidates of a batch are the union of the k nearest Robots that can reach each
+ * of its Orders, by the cost function of the OrderMatcher; if Orders share so many of their nearest Robots that there
+ * are fewer candidates than Orders, the Robots nearest to any Order in the batch are added. For a batch of b Orders
+ * and r available Robots, the matrix therefore has b rows and at most min(r, b k) columns, and solving it takes
+ * O(b^2 min(r, b k)) time on top of the O(b r) cost lookups that pick the candidates; further batches are solved while
+ * Robots and ready Orders remain. A Robot is never given an Order it cannot reach: an Order that no available
+ * Robot can reach is left in the OrderQueue, and matched again once one can.
+ */
+public class BatchOrderMatchingStrategy implements OrderMatchingStrategy {
+    /**
+     * The cost used in place of an infinite cost, larger than any route in a Warehouse.
+     */
+    private static final double UNREACHABLE_COST = 1e12;
+    /**
+     * The default number of nearest Robots each Order contributes to the candidates of its batch.
+     */
+    public static final int DEFAULT_CANDIDATES_PER_ORDER = 8;
+
+    private final int maximumBatchSize;
+    private final int candidatesPerOrder;
+
+    /**
+     * Construct a BatchOrderMatchingStrategy.
+     * @param maximumBatchSize The maximum number of Orders in a batch.
+     * @param candidatesPerOrder The number of nearest Robots each Order contributes to the candidates of its batch.
+     * @throws IllegalArgumentException if the maximum batch size or the number of candidates per Order is not
+     * positive.
+     */
+    public BatchOrderMatchingStrategy(int maximumBatchSize, int candidatesPerOrder) {
+        if (maximumBatchSize <= 0) {
+            throw new IllegalArgumentException("The maximum batch size must be positive");
+        }
+        if (candidatesPerOrder <= 0) {
+            throw new IllegalArgumentException(String.format(
+                    "The number of candidates per Order must be positive, but got %d", candidatesPerOrder));
+        }
+        this.maximumBatchSize = maximumBatchSize;
+        this.candidatesPerOrder = candidatesPerOrder;
+    }
+
+    /**
+     * Construct a BatchOrderMatchingStrategy with the default number of candidates per Order.
+     * @param maximumBatchSize The maximum number of Orders in a batch.
+     * @throws IllegalArgumentException if the maximum batch size is not positive.
+     */
+    public BatchOrderMatchingStrategy(int maximumBatchSize) {
+        this(maximumBatchSize, DEFAULT_CANDIDATES_PER_ORDER);
+    }
+
+    /**
+     * Match ready Orders to the given Robots, one batch at a time.
+     * @param matcher The OrderMatcher to match for.
+     * @param availableRobots The available Robots. Matched Robots are removed from this list.
+     */
+    @Override
+    public void match(OrderMatcher matcher, List<Robot> availableRobots) {
+        OrderQueue orderQueue = matcher.getOrderQueue();
+        // Orders left unmatched are only put back in the queue at the end, so that they are not batched again
+        List<Order> unmatchedOrders = new ArrayList<>();
+        while (!orderQueue.isEmpty() && availableRobots.size() > 0) {
+            List<Order> batch = new ArrayList<>();
+            int batchSize = Math.min(maximumBatchSize, availableRobots.size());
+            while (batch.size() < batchSize) {
+                Order order = orderQueue.getNextOrder();
+                if (order == null) break;
+                batch.add(order);
+            }
+            if (batch.isEmpty()) {
+                // There are no more ready orders, so we are done.
+                break;
+            }
+
+            List<Robot> candidates = selectCandidates(matcher, batch, availableRobots);
+            double[][] costs = new double[batch.size()][candidates.size()];
+            for (int i = 0; i < batch.size(); i++) {
+                for (int j = 0; j < candidates.size(); j++) {
+                    double cost = matcher.getCostFunction().getCost(candidates.get(j), batch.get(i));
+                    costs[i][j] = Double.isFinite(cost) ? cost : UNREACHABLE_COST;
+                }
+            }
+            int[] assignment = HungarianAlgorithm.solve(costs);
+
+            List<Robot> matchedRobots = new ArrayList<>();
+            for (int i = 0; i < batch.size(); i++) {
+                if (costs[i][assignment[i]] >= UNREACHABLE_COST) {
+                    unmatchedOrders.add(batch.get(i));
+                    continue;
+                }
+                Robot robot = candidates.get(assignment[i]);
+                matcher.assign(batch.get(i), robot);
+                matchedRobots.add(robot);
+            }
+            availableRobots.removeAll(matchedRobots);
+        }
+        for (Order order : unmatchedOrders) {
+            orderQueue.add(order);
+        }
+    }
+
+    /**
+     * Select the Robots a batch may be matched to: the nearest Robots that can reach each Order, and then the Robots
+     * nearest to any Order until there are at least as many Robots as Orders.
+     * @param matcher The OrderMatcher whose cost function measures how near a Robot is.
+     * @param batch The Orders in the batch, no more than there are available Robots.
+     * @param availableRobots The available Robots.
+     * @return The candidate Robots.
+     */
+    private List<Robot> selectCandidates(OrderMatcher matcher, List<Order> batch, List<Robot> availableRobots) {
+        int robotCount = availableRobots.size();
+        if (robotCount <= candidatesPerOrder) {
+            return availableRobots;
+        }
+        // The lowest cost of each Robot over the batch, and the nearest Robots of the current Order by cost
+        double[] lowestCosts = new double[robotCount];
+        Arrays.fill(lowestCosts, Double.POSITIVE_INFINITY);
+        boolean[] selected = new boolean[robotCount];
+        int[] nearest = new int[candidatesPerOrder];
+        double[] nearestCosts = new double[candidatesPerOrder];
+        for (Order order : batch) {
+            int nearestCount = 0;
+            for (int j = 0; j < robotCount; j++) {
+                double cost = matcher.getCostFunction().getCost(availableRobots.get(j), order);
+                if (!(cost < Double.POSITIVE_INFINITY)) continue;
+                lowestCosts[j] = Math.min(lowestCosts[j], cost);
+                if (nearestCount == candidatesPerOrder && cost >= nearestCosts[nearestCount - 1]) continue;
+                // Insert the Robot in order of cost, dropping the farthest one if the list is full
+                int position = nearestCount < candidatesPerOrder ? nearestCount++ : nearestCount - 1;
+                while (position > 0 && nearestCosts[position - 1] > cost) {
+                    nearest[position] = nearest[position - 1];
+                    nearestCosts[position] = nearestCosts[position - 1];
+                    position--;
+                }
+                nearest[position] = j;
+                nearestCosts[position] = cost;
+            }
+            for (int k = 0; k < nearestCount; k++) {
+                selected[nearest[k]] = true;
+            }
+        }
+
+        List<Robot> candidates = new ArrayList<>();
+        List<Integer> others = new ArrayList<>();
+        for (int j = 0; j < robotCount; j++) {
+            if (selected[j]) {
+                candidates.add(availableRobots.get(j));
+            } else {
+                others.add(j);
+            }
+        }
+        if (candidates.size() < batch.size()) {
+            others.sort(Comparator.comparingDouble(j -> lowestCosts[j]));
+            for (int j : others.subList(0, batch.size() - candidates.size())) {
+                candidates.add(availableRobots.get(j));
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Get the maximum number of Orders in a batch.
+     */
+    public int getMaximumBatchSize() {
+        return maximumBatchSize;
+    }
+
+    /**
+     * Get the number of nearest Robots each Order contributes to the candidates of its batch.
+     */
+    public int getCandidatesPerOrder() {
+        return candidatesPerOrder;
+    }
+}
@@ -0,0 +1,36 @@
+package warehouse.logistics.orders;
+
+import warehouse.robots.Robot;
+
+import java.util.List;
+
+/**
+ * An order matching strategy that takes ready Orders one at a time, oldest first, and gives each to the Robot chosen
+ * by the selection policy of its type.
+ */
+public class GreedyOrderMatchingStrategy implements OrderMatchingStrategy {
+    /**
+     * Match ready Orders to the given Robots, one Order at a time.
+     * @param matcher The OrderMatcher to match for.
+     * @param availableRobots The available Robots. Matched Robots are removed from this list.
+     */
+    @Override
+    public void match(OrderMatcher matcher, List<Robot> availableRobots) {
+        OrderQueue orderQueue = matcher.getOrderQueue();
+        while (!orderQueue.isEmpty() && availableRobots.size() > 0) {
+            Order order = orderQueue.getNextOrder();
+            if (order == null) {
+                // A null next order means that there are no more ready orders, so we are done.
+                break;
+            }
+            Robot selectedRobot = matcher.selectRobot(availableRobots, order);
+            if (selectedRobot == null) {
+                // We could not select a Robot!
+                orderQueue.add(order);
+            } else {
+                matcher.assign(order, selectedRobot);
+                availableRobots.remove(selectedRobot);
+            }
+        }
+    }
+}
@@ -17,6 +17,16 @@ public abstract class NavigateOrder extends Order {
         this.waypoints = waypoints;
     }
 
+    /**
+     * Construct a NavigateOrder with the given id.
+     * @param id The id of the Order.
+     * @param waypoints A list of Tiles specifying where the Robot must go, in order.
+     */
+    public NavigateOrder(String id, List<Tile> waypoints) {
+        super(id);
+        this.waypoints = waypoints;
+    }
+
     public List<Tile> getWaypoints() {
         return waypoints;
     }
@@ -5,15 +5,42 @@ import utils.RandomUtils;
 import warehouse.robots.Robot;
 
 import java.text.SimpleDateFormat;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
 
 /**
  * The base Order class. Represents a command to do "work" in the WarehouseLayout.
+ *
+ * @remark Every Order records the time it first reached each OrderStatus, in nanoseconds, read from its clock. The
+ * clock is System.nanoTime until the Order is queued in a Warehouse, whose OrderLifecycleTracker stamps it with the
+ * clock of the Warehouse, e.g. the simulated time of a SimulationEngine, so that the timings of a simulation do not
+ * depend on how fast it is run. Times from different clocks cannot be compared.
  */
 public abstract class Order {
+    /**
+     * The time of a status that has not been reached.
+     */
+    public static final long NOT_REACHED = Long.MIN_VALUE;
+
+    /**
+     * The sequence number of the next Order to be created.
+     */
+    private static final AtomicLong nextSequenceNumber = new AtomicLong();
+
     private final String id;
     private final Date createdAt;
+    private final long sequenceNumber;
     private OrderStatus status;
+    /**
+     * The time this Order first reached each status, indexed by ordinal, or NOT_REACHED.
+     */
+    private final long[] statusTimes;
+    /**
+     * The clock the status times are read from, in nanoseconds.
+     */
+    private LongSupplier clock = System::nanoTime;
     private Robot handler;
 
     private final Message<Order> onAssigned;
@@ -24,10 +51,21 @@ public abstract class Order {
      * Construct an Order with a random UUID.
      */
     public Order() {
-        id = RandomUtils.randomId();
+        this(RandomUtils.randomId());
+    }
+
+    /**
+     * Construct an Order with the given id.
+     * @param id The id of the Order.
+     */
+    public Order(String id) {
+        this.id = id;
         createdAt = new Date(System.currentTimeMillis());
+        sequenceNumber = nextSequenceNumber.getAndIncrement();
         handler = null;
-        status = OrderStatus.PENDING;
+        statusTimes = new long[OrderStatus.values().length];
+        Arrays.fill(statusTimes, NOT_REACHED);
+        setStatus(OrderStatus.PENDING);
 
         onAssigned = new Message<>();
         onStarted = new Message<>();
@@ -40,6 +78,15 @@ public abstract class Order {
      */
     public abstract boolean isReady();
 
+    /**
+     * Return whether this Order only becomes ready after an event that invalidates the OrderQueue holding it, so the
+     * queue does not need to check it again until then. Orders that may become ready at any time must return False.
+     * @return True if the readiness of this Order is tracked, and False otherwise.
+     */
+    public boolean isReadinessTracked() {
+        return false;
+    }
+
     /**
      * Assign the given Robot to this order.
      * @param robot The Robot to assign this order to. If this Order is already assigned to a Robot, then that Robot
@@ -53,7 +100,7 @@ public abstract class Order {
         // Assign order
         handler = robot;
         handler.setOrder(this);
-        status = OrderStatus.ASSIGNED;
+        setStatus(OrderStatus.ASSIGNED);
         onAssigned.execute(this);
     }
 
@@ -61,7 +108,7 @@ public abstract class Order {
      * Mark this Order as in progress.
      */
     public void setInProgress() {
-        status = OrderStatus.IN_PROGRESS;
+        setStatus(OrderStatus.IN_PROGRESS);
         onStarted.execute(this);
     }
 
@@ -69,7 +116,7 @@ public abstract class Order {
      * Mark this Order as complete.
      */
     public void setComplete() {
-        status = OrderStatus.COMPLETE;
+        setStatus(OrderStatus.COMPLETE);
         if (handler != null) {
             handler.setOrder(null);
             handler = null;
@@ -77,6 +124,37 @@ public abstract class Order {
         onComplete.execute(this);
     }
 
+    /**
+     * Change the status of this Order, recording the time if it is the first time the status is reached.
+     */
+    private void setStatus(OrderStatus status) {
+        this.status = status;
+        if (statusTimes[status.ordinal()] == NOT_REACHED) {
+            statusTimes[status.ordinal()] = clock.getAsLong();
+        }
+    }
+
+    /**
+     * Get the time this Order first reached the given status, in nanoseconds of its clock.
+     * @param status The status.
+     * @return The time, or NOT_REACHED if this Order has not reached the status.
+     */
+    public long getStatusTime(OrderStatus status) {
+        return statusTimes[status.ordinal()];
+    }
+
+    /**
+     * Record the status times of this Order with the given clock from now on, e.g. when an OrderQueue accepts it. The
+     * current status is stamped with the current time of the clock, and the times of earlier statuses are forgotten,
+     * since they were read from another clock.
+     * @param clock A function that returns the current time, in nanoseconds.
+     */
+    public void setClock(LongSupplier clock) {
+        this.clock = clock;
+        Arrays.fill(statusTimes, NOT_REACHED);
+        statusTimes[status.ordinal()] = clock.getAsLong();
+    }
+
     /**
      * Retrieve the id of this order.
      */
@@ -91,6 +169,14 @@ public abstract class Order {
         return createdAt;
     }
 
+    /**
+     * Get the position of this order among all orders in the order they were created, which breaks ties between
+     * orders created in the same millisecond.
+     */
+    public long getSequenceNumber() {
+        return sequenceNumber;
+    }
+
     /**
      * Get the Robot handling this Order.
      */
@@ -3,11 +3,12 @@ package warehouse.logistics.orders;
 import java.util.Comparator;
 
 /**
- * A comparator that compares Orders by the time they were created at.
+ * A comparator that compares Orders by the time they were created at, and then by the order they were created in.
  */
 public class OrderCreatedAtComparator implements Comparator<Order> {
     @Override
     public int compare(Order o1, Order o2) {
-        return o1.getCreatedAt().compareTo(o2.getCreatedAt());
+        int result = o1.getCreatedAt().compareTo(o2.getCreatedAt());
+        return result != 0 ? result : Long.compare(o1.getSequenceNumber(), o2.getSequenceNumber());
     }
 }
@@ -0,0 +1,16 @@
+package warehouse.logistics.orders;
+
+import warehouse.robots.Robot;
+
+/**
+ * A function giving the cost of a Robot handling an Order, e.g. how far the Robot must travel to start it.
+ */
+public interface OrderHandlerCostFunction {
+    /**
+     * Get the cost of the given Robot handling the given Order.
+     * @param robot The Robot.
+     * @param order The Order.
+     * @return The cost, or positive infinity if the Robot cannot handle the Order.
+     */
+    double getCost(Robot robot, Order order);
+}
@@ -0,0 +1,59 @@
+package warehouse.logistics.orders;
+
+/**
+ * A stage in the life of an Order, between the times it first reached two OrderStatuses.
+ */
+public enum OrderLifecycleStage {
+    /**
+     * From the creation of the Order, or the time it was queued if it is tracked, until it is assigned to a Robot.
+     */
+    QUEUE_WAIT(OrderStatus.PENDING, OrderStatus.ASSIGNED),
+    /**
+     * From the assignment of the Order until its Robot starts it.
+     */
+    ASSIGNMENT_TO_START(OrderStatus.ASSIGNED, OrderStatus.IN_PROGRESS),
+    /**
+     * From the start of the Order until it is complete.
+     */
+    EXECUTION(OrderStatus.IN_PROGRESS, OrderStatus.COMPLETE),
+    /**
+     * From the creation of the Order, or the time it was queued if it is tracked, until it is complete.
+     */
+    END_TO_END(OrderStatus.PENDING, OrderStatus.COMPLETE);
+
+    private final OrderStatus start;
+    private final OrderStatus end;
+
+    OrderLifecycleStage(OrderStatus start, OrderStatus end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Get the duration of this stage for the given Order.
+     * @param order The Order.
+     * @return The duration, in nanoseconds, or -1 if the Order has not reached the start and end of this stage.
+     */
+    public long getDuration(Order order) {
+        long startTime = order.getStatusTime(start);
+        long endTime = order.getStatusTime(end);
+        if (startTime == Order.NOT_REACHED || endTime == Order.NOT_REACHED) {
+            return -1;
+        }
+        return endTime - startTime;
+    }
+
+    /**
+     * Get the status this stage starts at.
+     */
+    public OrderStatus getStart() {
+        return start;
+    }
+
+    /**
+     * Get the status this stage ends at.
+     */
+    public OrderStatus getEnd() {
+        return end;
+    }
+}
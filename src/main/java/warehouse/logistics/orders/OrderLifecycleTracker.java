@@ -0,0 +1,223 @@
+package warehouse.logistics.orders;
+
+import messaging.MessageListener;
+import metrics.LatencyHistogram;
+import metrics.RollingLatencyHistogram;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Tracks how long Orders spend in each OrderLifecycleStage, and how many are completed per minute, over a sliding
+ * window of time.
+ *
+ * @remark A tracker attached to an OrderQueue tracks every Order added to it, and stamps it with the clock of the
+ * tracker when it does, so that the Order is PENDING from the time it was queued (see Order.setClock). The duration of
+ * a stage is recorded when the Order reaches the end of the stage, from the status times of the Order. Each stage is
+ * recorded at most once per Order, even if the Order is assigned again. An Order completed without being started, e.g.
+ * one that was cancelled, has no assignment-to-start or execution time.
+ *
+ * Throughput is the number of Orders completed in the window, divided by the length of the window, or by the time
+ * since the first tracked Order if that is shorter.
+ */
+public class OrderLifecycleTracker {
+    /**
+     * The default length of the window, in nanoseconds.
+     */
+    public static final long DEFAULT_WINDOW_LENGTH = TimeUnit.MINUTES.toNanos(5);
+    /**
+     * The default number of slots the window is split into.
+     */
+    public static final int DEFAULT_SLOT_COUNT = 5;
+    private static final long NANOS_PER_MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+    private final LongSupplier clock;
+    private final RollingLatencyHistogram[] stageHistograms;
+    /**
+     * The Orders being tracked that are not complete, with a bit set for each stage already recorded.
+     */
+    private final Map<Order, Integer> openOrders;
+    private final MessageListener<Order> addedListener;
+    private final MessageListener<Order> assignedListener;
+    private final MessageListener<Order> startedListener;
+    private final MessageListener<Order> completeListener;
+
+    private long startTime;
+    private long trackedCount;
+    private long completedCount;
+
+    /**
+     * Construct an OrderLifecycleTracker.
+     * @param windowLength The length of the window, in nanoseconds.
+     * @param slotCount The number of slots the window is split into; see RollingLatencyHistogram.
+     * @param clock A function that returns the current time, in nanoseconds, e.g. System::nanoTime.
+     */
+    public OrderLifecycleTracker(long windowLength, int slotCount, LongSupplier clock) {
+        this.clock = clock;
+        OrderLifecycleStage[] stages = OrderLifecycleStage.values();
+        stageHistograms = new RollingLatencyHistogram[stages.length];
+        for (int i = 0; i < stages.length; i++) {
+            stageHistograms[i] = new RollingLatencyHistogram(windowLength, slotCount);
+        }
+        openOrders = new IdentityHashMap<>();
+        addedListener = this::track;
+        assignedListener = order -> record(order, OrderLifecycleStage.QUEUE_WAIT);
+        startedListener = order -> record(order, OrderLifecycleStage.ASSIGNMENT_TO_START);
+        completeListener = this::onComplete;
+        startTime = Order.NOT_REACHED;
+    }
+
+    /**
+     * Construct an OrderLifecycleTracker that reads System.nanoTime.
+     * @param windowLength The length of the window, in nanoseconds.
+     * @param slotCount The number of slots the window is split into; see RollingLatencyHistogram.
+     */
+    public OrderLifecycleTracker(long windowLength, int slotCount) {
+        this(windowLength, slotCount, System::nanoTime);
+    }
+
+    /**
+     * Construct an OrderLifecycleTracker with a window of five minutes.
+     * @param clock A function that returns the current time, in nanoseconds.
+     */
+    public OrderLifecycleTracker(LongSupplier clock) {
+        this(DEFAULT_WINDOW_LENGTH, DEFAULT_SLOT_COUNT, clock);
+    }
+
+    /**
+     * Construct an OrderLifecycleTracker with a window of five minutes that reads System.nanoTime.
+     */
+    public OrderLifecycleTracker() {
+        this(System::nanoTime);
+    }
+
+    /**
+     * Track every Order added to the given OrderQueue from now on.
+     */
+    public void attach(OrderQueue orderQueue) {
+        orderQueue.getOnAdded().addListener(addedListener);
+    }
+
+    /**
+     * Stop tracking Orders added to the given OrderQueue. Orders already tracked are still tracked.
+     */
+    public void detach(OrderQueue orderQueue) {
+        orderQueue.getOnAdded().removeListener(addedListener);
+    }
+
+    /**
+     * Track the given Order and stamp it with the clock of this tracker, unless it is already tracked or complete.
+     */
+    public synchronized void track(Order order) {
+        if (order.getStatus() == OrderStatus.COMPLETE || openOrders.containsKey(order)) {
+            return;
+        }
+        order.setClock(clock);
+        openOrders.put(order, 0);
+        order.getOnAssigned().addListener(assignedListener);
+        order.getOnStarted().addListener(startedListener);
+        order.getOnComplete().addListener(completeListener);
+        if (startTime == Order.NOT_REACHED) {
+            startTime = clock.getAsLong();
+        }
+        trackedCount++;
+    }
+
+    /**
+     * Record the final stages of an Order that was completed.
+     */
+    private synchronized void onComplete(Order order) {
+        if (!openOrders.containsKey(order)) {
+            return;
+        }
+        record(order, OrderLifecycleStage.EXECUTION);
+        record(order, OrderLifecycleStage.END_TO_END);
+        openOrders.remove(order);
+        completedCount++;
+    }
+
+    /**
+     * Record the duration of a stage of an Order, unless it was already recorded or the Order did not go through it.
+     */
+    private synchronized void record(Order order, OrderLifecycleStage stage) {
+        Integer recordedStages = openOrders.get(order);
+        int bit = 1 << stage.ordinal();
+        if (recordedStages == null || (recordedStages & bit) != 0) {
+            return;
+        }
+        long duration = stage.getDuration(order);
+        if (duration >= 0) {
+            stageHistograms[stage.ordinal()].record(order.getStatusTime(stage.getEnd()), duration);
+            openOrders.put(order, recordedStages | bit);
+        }
+    }
+
+    /**
+     * Get a histogram of the durations of the given stage in the window, in nanoseconds.
+     */
+    public LatencyHistogram getHistogram(OrderLifecycleStage stage) {
+        return stageHistograms[stage.ordinal()].getHistogram(clock.getAsLong());
+    }
+
+    /**
+     * Get the duration of the given stage at the given percentile in the window, e.g. the 99th percentile queue wait.
+     * @param stage The stage.
+     * @param percentile The percentile, in the range [0, 100].
+     * @return The duration, in nanoseconds, or 0 if no Order went through the stage in the window.
+     */
+    public long getPercentile(OrderLifecycleStage stage, double percentile) {
+        return getHistogram(stage).getValueAtPercentile(percentile);
+    }
+
+    /**
+     * Get the number of Orders completed per minute in the window, or 0 if no Order has been tracked.
+     */
+    public synchronized double getThroughput() {
+        if (startTime == Order.NOT_REACHED) {
+            return 0;
+        }
+        long now = clock.getAsLong();
+        RollingLatencyHistogram endToEnd = stageHistograms[OrderLifecycleStage.END_TO_END.ordinal()];
+        long elapsed = now - Math.max(startTime, endToEnd.getWindowStart(now));
+        if (elapsed <= 0) {
+            return 0;
+        }
+        return (double) endToEnd.getHistogram(now).getCount() * NANOS_PER_MINUTE / elapsed;
+    }
+
+    /**
+     * Get the number of Orders tracked, including completed Orders.
+     */
+    public synchronized long getTrackedCount() {
+        return trackedCount;
+    }
+
+    /**
+     * Get the number of tracked Orders that were completed.
+     */
+    public synchronized long getCompletedCount() {
+        return completedCount;
+    }
+
+    /**
+     * Get the number of tracked Orders that are not complete.
+     */
+    public synchronized int getOpenCount() {
+        return openOrders.size();
+    }
+
+    /**
+     * Forget every recorded duration and reset the counts to zero. Open Orders are still tracked, but their earlier
+     * stages are not recorded again.
+     */
+    public synchronized void reset() {
+        for (RollingLatencyHistogram histogram : stageHistograms) {
+            histogram.reset();
+        }
+        startTime = openOrders.isEmpty() ? Order.NOT_REACHED : clock.getAsLong();
+        trackedCount = openOrders.size();
+        completedCount = 0;
+    }
+}
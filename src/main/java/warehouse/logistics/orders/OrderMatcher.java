@@ -1,5 +1,6 @@
 package warehouse.logistics.orders;
 
+import messaging.Message;
 import warehouse.robots.Robot;
 import warehouse.robots.RobotMapper;
 
@@ -9,21 +10,53 @@ import java.util.List;
 
 /**
  * Matches Orders to available Robots.
+ *
+ * @remark How Orders are matched is decided by an OrderMatchingStrategy, which is greedy by default. The cost of
+ * every match, as given by the cost function, is added up, so the total travel distance of different strategies can
+ * be compared.
+ *
+ * The Orders assigned in each call to match are reported together by the onMatched Message, so that the routes of a
+ * wave of Orders can be planned jointly. The Warehouse does so with a ConflictBasedSearch while Orders are matched in
+ * batches.
  */
 public class OrderMatcher {
     private final OrderQueue orderQueue;
     private final RobotMapper<?> robotMapper;
     private final HashMap<Class<?>, WrappedOrderHandlerSelectionPolicy<?>> selectionPolicies;
+    private OrderMatchingStrategy matchingStrategy;
+    private final OrderHandlerCostFunction costFunction;
+    private final Message<List<Order>> onMatched = new Message<>();
+    /**
+     * The Orders assigned in the current call to match.
+     */
+    private final List<Order> currentMatches = new ArrayList<>();
+
+    private int matchedOrderCount;
+    private double totalTravelDistance;
 
     /**
      * Construct an OrderMatcher.
      * @param orderQueue The OrderQueue to read from.
      * @param robotMapper The robot mapper.
+     * @param matchingStrategy The strategy for matching Orders to Robots.
+     * @param costFunction The cost of a Robot handling an Order, e.g. the distance the Robot must travel to start it.
      */
-    public OrderMatcher(OrderQueue orderQueue, RobotMapper<?> robotMapper) {
+    public OrderMatcher(OrderQueue orderQueue, RobotMapper<?> robotMapper, OrderMatchingStrategy matchingStrategy,
+                        OrderHandlerCostFunction costFunction) {
         this.orderQueue = orderQueue;
         this.robotMapper = robotMapper;
         this.selectionPolicies = new HashMap<>();
+        this.matchingStrategy = matchingStrategy;
+        this.costFunction = costFunction;
+    }
+
+    /**
+     * Construct an OrderMatcher with a greedy matching strategy, where every match costs nothing.
+     * @param orderQueue The OrderQueue to read from.
+     * @param robotMapper The robot mapper.
+     */
+    public OrderMatcher(OrderQueue orderQueue, RobotMapper<?> robotMapper) {
+        this(orderQueue, robotMapper, new GreedyOrderMatchingStrategy(), (robot, order) -> 0);
     }
 
     /**
@@ -31,24 +64,41 @@ public class OrderMatcher {
      */
     public void match() {
         List<Robot> availableRobots = getAvailableRobots();
-        while (!orderQueue.isEmpty() && availableRobots.size() > 0) {
-            Order order = orderQueue.getNextOrder();
-            if (order == null) {
-                // A null next order means that there are no more ready orders, so we are done.
-                break;
-            }
-            Class<? extends Order> clazz = order.getClass();
-            Robot selectedRobot = availableRobots.get(0);
-            if (selectionPolicies.containsKey(clazz)) {
-                selectedRobot = selectionPolicies.get(clazz).select(availableRobots, order);
-            }
-            if (selectedRobot == null) {
-                // We could not select a Robot!
-                orderQueue.add(order);
-            } else {
-                order.assign(selectedRobot);
-                availableRobots.remove(selectedRobot);
-            }
+        if (availableRobots.isEmpty()) return;
+        currentMatches.clear();
+        matchingStrategy.match(this, availableRobots);
+        if (!currentMatches.isEmpty()) {
+            List<Order> matches = new ArrayList<>(currentMatches);
+            currentMatches.clear();
+            onMatched.execute(matches);
+        }
+    }
+
+    /**
+     * Select a Robot for the given Order with the selection policy of its type, or the first Robot if there is none.
+     * @param robots The Robots to select from.
+     * @param order The Order to find a handler for.
+     * @return the selected Robot, or null if no Robot could be selected.
+     */
+    public Robot selectRobot(List<Robot> robots, Order order) {
+        Class<? extends Order> clazz = order.getClass();
+        if (selectionPolicies.containsKey(clazz)) {
+            return selectionPolicies.get(clazz).select(robots, order);
+        }
+        return robots.isEmpty() ? null : robots.get(0);
+    }
+
+    /**
+     * Assign the given Order to the given Robot, and record the cost of the match.
+     */
+    public void assign(Order order, Robot robot) {
+        // The cost is measured before assigning, since assigning may change the waypoints of the Order
+        double cost = costFunction.getCost(robot, order);
+        order.assign(robot);
+        currentMatches.add(order);
+        matchedOrderCount++;
+        if (Double.isFinite(cost)) {
+            totalTravelDistance += cost;
         }
     }
 
@@ -71,4 +121,54 @@ public class OrderMatcher {
     public <T extends Order> void addSelectionPolicy(Class<T> clazz, OrderHandlerSelectionPolicy<T> selectionPolicy) {
         selectionPolicies.put(clazz, new WrappedOrderHandlerSelectionPolicy<>(clazz, selectionPolicy));
     }
+
+    public OrderQueue getOrderQueue() {
+        return orderQueue;
+    }
+
+    public OrderMatchingStrategy getMatchingStrategy() {
+        return matchingStrategy;
+    }
+
+    /**
+     * Set the strategy for matching Orders to Robots.
+     */
+    public void setMatchingStrategy(OrderMatchingStrategy matchingStrategy) {
+        this.matchingStrategy = matchingStrategy;
+    }
+
+    public OrderHandlerCostFunction getCostFunction() {
+        return costFunction;
+    }
+
+    /**
+     * Get the Message raised after each call to match that assigned Orders, with the Orders it assigned in the order
+     * they were assigned.
+     */
+    public Message<List<Order>> getOnMatched() {
+        return onMatched;
+    }
+
+    /**
+     * Get the number of Orders matched by this OrderMatcher.
+     */
+    public int getMatchedOrderCount() {
+        return matchedOrderCount;
+    }
+
+    /**
+     * Get the total cost of the matches made by this OrderMatcher, e.g. the total distance travelled by Robots to
+     * start their Orders. Matches with an infinite cost are not included.
+     */
+    public double getTotalTravelDistance() {
+        return totalTravelDistance;
+    }
+
+    /**
+     * Reset the number of matched Orders and the total travel distance to zero.
+     */
+    public void resetStatistics() {
+        matchedOrderCount = 0;
+        totalTravelDistance = 0;
+    }
 }
@@ -0,0 +1,17 @@
+package warehouse.logistics.orders;
+
+import warehouse.robots.Robot;
+
+import java.util.List;
+
+/**
+ * A strategy for matching the ready Orders of an OrderMatcher to its available Robots.
+ */
+public interface OrderMatchingStrategy {
+    /**
+     * Match ready Orders to the given Robots, assigning each match with OrderMatcher.assign.
+     * @param matcher The OrderMatcher to match for.
+     * @param availableRobots The available Robots. Matched Robots are removed from this list.
+     */
+    void match(OrderMatcher matcher, List<Robot> availableRobots);
+}
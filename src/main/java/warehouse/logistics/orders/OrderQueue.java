@@ -1,37 +1,39 @@
 package warehouse.logistics.orders;
 
+import messaging.Message;
+
 import java.util.*;
 
 /**
  * A queue of Orders.
+ *
+ * @remark Orders are kept in two parts: a priority queue of Orders that were ready when last checked, and a list of
+ * blocked Orders. Getting the next Order polls the priority queue, re-checking only the Order at its head, so it takes
+ * O(log n) time rather than re-checking every Order.
+ *
+ * Blocked Orders are only moved to the priority queue when they are checked again. Orders that track their readiness
+ * (see Order.isReadinessTracked) are checked again only after invalidate is called, e.g. when a Rack is added or
+ * frees up space. Other Orders may become ready at any time, so they are checked again every time the next Order is
+ * requested.
  */
 public class OrderQueue {
-    private final Queue<Order> orderQueue;
+    private final PriorityQueue<Order> readyOrders;
+    private final List<Order> trackedBlockedOrders;
+    private final List<Order> untrackedBlockedOrders;
+    private boolean trackedBlockedOrdersInvalid;
     private final List<Order> processedOrders;
+    private final Message<Order> onAdded;
 
     /**
      * Construct an OrderQueue.
      * @param orderComparator The comparator to use when comparing Orders.
      */
     public OrderQueue(Comparator<Order> orderComparator) {
-        // Create a new comparator that encodes the "readiness" of an order.
-        // This way, the priority queue will give the oldest READY Order in the queue, or a non-ready order,
-        // in which case we don't have to do anything.
-        orderQueue = new PriorityQueue<>((o1, o2) -> {
-            // We want to make sure that all ready orders are BEFORE unready orders.
-            boolean ready1 = o1.isReady();
-            boolean ready2 = o2.isReady();
-            if ((ready1 && ready2) || (!ready1 && !ready2)) {
-                return orderComparator.compare(o1, o2);
-            } else if (ready1) {
-                // o1 is ready and o2 is unready, so o1 < o2
-                return -1;
-            } else {
-                // o1 is not ready and o2 is ready, so o1 > o2
-                return 1;
-            }
-        });
+        readyOrders = new PriorityQueue<>(orderComparator);
+        trackedBlockedOrders = new ArrayList<>();
+        untrackedBlockedOrders = new ArrayList<>();
         processedOrders = new ArrayList<>();
+        onAdded = new Message<>();
     }
 
     /**
@@ -46,13 +48,16 @@ public class OrderQueue {
      * @param order the Order to add.
      */
     public void add(Order order) {
-        orderQueue.add(order);
+        if (order.isReady()) {
+            readyOrders.add(order);
+        } else {
+            block(order);
+        }
+        onAdded.execute(order);
     }
 
     /**
      * Remove and return the next Order in this OrderQueue that can be processed.
-     * @remark Since the ready status of an Order might have changed since we last updated the priority queue,
-     * this operation requires rebuilding the priority queue used to store orders, which is an O(nlog(n)) operation.
      * @return the next processable Order in this queue, or null if the queue is empty or there are no such orders.
      */
     public Order getNextOrder() {
@@ -61,56 +66,97 @@ public class OrderQueue {
 
     /**
      * Remove and return the next Order in this OrderQueue that can be processed.
-     * @param rebuild Whether to rebuild the priority queue. Note that if an order ready status changed and the priority
-     *                queue isn't rebuilt, then the return value of this method may not be accurate.
+     * @param rebuild Whether to check blocked Orders that do not track their readiness again. If not, such Orders
+     *                that became ready since they were last checked are not returned.
      * @return the next processable Order in this queue, or null if the queue is empty or there are no such orders.
      */
     public Order getNextOrder(boolean rebuild) {
+        if (trackedBlockedOrdersInvalid) {
+            recheck(trackedBlockedOrders);
+            trackedBlockedOrdersInvalid = false;
+        }
         if (rebuild) {
-            rebuild();
+            recheck(untrackedBlockedOrders);
         }
 
-        Order order = orderQueue.peek();
-        if (order == null || !order.isReady()) {
-            // There are no ready orders yet, so return null.
-            return null;
-        } else {
-            orderQueue.poll();
-            processedOrders.add(order);
-            return order;
+        while (!readyOrders.isEmpty()) {
+            Order order = readyOrders.poll();
+            if (order.isReady()) {
+                processedOrders.add(order);
+                return order;
+            }
+            // The order is no longer ready, so it waits with the other blocked orders.
+            block(order);
         }
+        // There are no ready orders yet, so return null.
+        return null;
     }
 
     /**
-     * Rebuild the priority queue representing the orders.
+     * Check every blocked Order again, including Orders that track their readiness.
      */
     public void rebuild() {
-        List<Order> orders = new ArrayList<>();
-        while (!orderQueue.isEmpty()) {
-            orders.add(orderQueue.remove());
+        invalidate();
+        recheck(untrackedBlockedOrders);
+    }
+
+    /**
+     * Mark the readiness of blocked Orders that track their readiness as out of date, e.g. because a Rack was added
+     * or an Item was removed from a StorageUnit. They are checked again the next time an Order is requested.
+     */
+    public void invalidate() {
+        trackedBlockedOrdersInvalid = true;
+    }
+
+    /**
+     * Move the Orders in the given list that are now ready to the priority queue.
+     */
+    private void recheck(List<Order> blockedOrders) {
+        if (blockedOrders.isEmpty()) return;
+        int blockedCount = 0;
+        for (Order order : blockedOrders) {
+            if (order.isReady()) {
+                readyOrders.add(order);
+            } else {
+                blockedOrders.set(blockedCount++, order);
+            }
+        }
+        blockedOrders.subList(blockedCount, blockedOrders.size()).clear();
+    }
+
+    /**
+     * Add the given Order to the blocked Orders.
+     */
+    private void block(Order order) {
+        if (order.isReadinessTracked()) {
+            trackedBlockedOrders.add(order);
+        } else {
+            untrackedBlockedOrders.add(order);
         }
-        orderQueue.addAll(orders);
     }
 
     /**
      * CLear this OrderQueue.
      */
     public void clear() {
-        orderQueue.clear();
+        readyOrders.clear();
+        trackedBlockedOrders.clear();
+        untrackedBlockedOrders.clear();
+        trackedBlockedOrdersInvalid = false;
     }
 
     /**
      * Returns the number of orders in this OrderQueue.
      */
     public int size() {
-        return orderQueue.size();
+        return readyOrders.size() + trackedBlockedOrders.size() + untrackedBlockedOrders.size();
     }
 
     /**
      * Returns whether this OrderQueue is empty.
      */
     public boolean isEmpty() {
-        return orderQueue.isEmpty();
+        return size() == 0;
     }
 
     /**
@@ -121,10 +167,17 @@ public class OrderQueue {
     }
 
     public List<Order> peekOrders() {
-        ArrayList<Order> orders = new ArrayList<>();
-        for (Object obj : orderQueue.toArray()) {
-            orders.add((Order) obj);
-        }
+        ArrayList<Order> orders = new ArrayList<>(readyOrders);
+        orders.addAll(trackedBlockedOrders);
+        orders.addAll(untrackedBlockedOrders);
         return orders;
     }
+
+    /**
+     * Get the Message raised whenever an Order is added to this OrderQueue, including Orders that are added back
+     * after failing to be matched.
+     */
+    public Message<Order> getOnAdded() {
+        return onAdded;
+    }
 }
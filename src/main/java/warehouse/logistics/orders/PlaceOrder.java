@@ -1,7 +1,9 @@
 package warehouse.logistics.orders;
 
 import query.Query;
+import utils.RandomUtils;
 import warehouse.WarehouseLayout;
+import warehouse.geometry.WarehouseCoordinateSystem;
 import warehouse.inventory.Item;
 import warehouse.logistics.assignment.StorageTileAssignmentPolicy;
 import warehouse.tiles.Rack;
@@ -9,7 +11,6 @@ import warehouse.tiles.Tile;
 import warehouse.transactions.Distributable;
 
 import java.util.ArrayList;
-import java.util.List;
 
 /**
  * An Order to place an Item into an available Rack in the WarehouseLayout.
@@ -30,7 +31,19 @@ public class PlaceOrder extends NavigateOrder {
      */
     public PlaceOrder(Distributable source, Item item, WarehouseLayout<?> layout,
                       StorageTileAssignmentPolicy<Rack> rackAssignmentPolicy) {
-        super(new ArrayList<>());
+        this(RandomUtils.randomId(), source, item, layout, rackAssignmentPolicy);
+    }
+
+    /**
+     * Construct an Order with the given id, given a source and Item to move.
+     * @param id The id of the Order.
+     * @param source The source Distributable to move the item from.
+     * @param item The Item to move.
+     * @param rackAssignmentPolicy The policy to use for assigning items to a Rack.
+     */
+    public PlaceOrder(String id, Distributable source, Item item, WarehouseLayout<?> layout,
+                      StorageTileAssignmentPolicy<Rack> rackAssignmentPolicy) {
+        super(id, new ArrayList<>());
         this.source = source;
         this.item = item;
         this.layout = layout;
@@ -48,7 +61,7 @@ public class PlaceOrder extends NavigateOrder {
     private void onAssigned(Order order) {
         waypoints.clear();
         this.waypoints.add(getFirstEmptyNeighbour(source.getTile()));
-        assignedRack = rackAssignmentPolicy.assign(layout, item);
+        assignedRack = rackAssignmentPolicy.assign(layout, item, source.getTile());
         waypoints.add(getFirstEmptyNeighbour(assignedRack));
     }
 
@@ -87,14 +100,25 @@ public class PlaceOrder extends NavigateOrder {
         return rackAssignmentPolicy.isAssignable(layout, item);
     }
 
+    /**
+     * A PlaceOrder can only become ready when a Rack is set in the WarehouseLayout or an Item is removed from a
+     * StorageUnit, which a Warehouse reports by invalidating its OrderQueue.
+     * @return True.
+     */
+    @Override
+    public boolean isReadinessTracked() {
+        return true;
+    }
+
     /**
      * Get the first empty neighbour of the given Tile.
      */
     private Tile getFirstEmptyNeighbour(Tile tile) {
-        List<Integer> neighbours = layout.getCoordinateSystem().getNeighbours(tile.getIndex());
-        for (int index : neighbours) {
-            if (index == -1) continue;
-            Tile neighbourTile = layout.getTileAt(index);
+        WarehouseCoordinateSystem<?> coordinateSystem = layout.getCoordinateSystem();
+        int[] neighbours = new int[coordinateSystem.getMaxNeighbourCount()];
+        int count = coordinateSystem.getNeighbours(tile.getIndex(), neighbours);
+        for (int k = 0; k < count; k++) {
+            Tile neighbourTile = layout.getTileAt(neighbours[k]);
             if (layout.isEmpty(neighbourTile)) {
                 return neighbourTile;
             }
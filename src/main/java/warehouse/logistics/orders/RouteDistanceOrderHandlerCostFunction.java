@@ -0,0 +1,43 @@
+package warehouse.logistics.orders;
+
+import warehouse.Warehouse;
+import warehouse.robots.Robot;
+import warehouse.tiles.Tile;
+
+import java.util.List;
+
+/**
+ * An order handler cost function giving the length of the shortest route from a Robot to the first waypoint of a
+ * NavigateOrder, measured with the DistanceFieldCache of the Warehouse.
+ *
+ * @remark Orders that are not NavigateOrders, or have no first waypoint, cost nothing.
+ */
+public class RouteDistanceOrderHandlerCostFunction implements OrderHandlerCostFunction {
+    private final Warehouse<?, ?> warehouse;
+
+    /**
+     * Construct a RouteDistanceOrderHandlerCostFunction given a Warehouse.
+     */
+    public RouteDistanceOrderHandlerCostFunction(Warehouse<?, ?> warehouse) {
+        this.warehouse = warehouse;
+    }
+
+    /**
+     * Get the length of the shortest route from the given Robot to the first waypoint of the given Order.
+     * @param robot The Robot.
+     * @param order The Order.
+     * @return The route length, or positive infinity if the Robot cannot reach the waypoint.
+     */
+    @Override
+    public double getCost(Robot robot, Order order) {
+        if (!(order instanceof NavigateOrder)) {
+            return 0;
+        }
+        List<Tile> waypoints = ((NavigateOrder) order).getWaypoints();
+        if (waypoints.isEmpty() || waypoints.get(0) == null) {
+            return 0;
+        }
+        int index = warehouse.getState().getRobotMapper().getRobotTileIndex(robot);
+        return warehouse.getState().getDistanceFieldCache().get(waypoints.get(0).getIndex()).getDistance(index);
+    }
+}
@@ -0,0 +1,71 @@
+package warehouse.logistics.orders;
+
+import warehouse.Warehouse;
+import warehouse.geometry.WarehouseCoordinateSystem;
+import warehouse.logistics.optimization.distances.DistanceField;
+import warehouse.robots.Robot;
+import warehouse.robots.RobotMapper;
+import warehouse.tiles.Tile;
+
+import java.util.List;
+
+/**
+ * An order handler selection policy that finds the Robot with the shortest route to the first waypoint of the
+ * NavigateOrder.
+ *
+ * @remark Routes are measured with the DistanceField of the waypoint, taken from the DistanceFieldCache of the
+ * Warehouse. The field is only searched as far as the farthest Robot, and is reused by later Orders with the same
+ * first waypoint until the layout changes.
+ *
+ * Robots with the same route length (e.g. Robots that cannot reach the waypoint at all) are ranked by their distance
+ * to the waypoint in the coordinate system. If the order has no first waypoint, the first Robot is selected.
+ */
+public class RouteDistanceOrderHandlerSelectionPolicy<T extends NavigateOrder>
+        implements OrderHandlerSelectionPolicy<T> {
+    private final Warehouse<?, ?> warehouse;
+
+    /**
+     * Construct a RouteDistanceOrderHandlerSelectionPolicy given a Warehouse.
+     */
+    public RouteDistanceOrderHandlerSelectionPolicy(Warehouse<?, ?> warehouse) {
+        this.warehouse = warehouse;
+    }
+
+    /**
+     * Find the Robot with the shortest route to the first waypoint of the given order.
+     * @param robots The Robots to select from.
+     * @param order The Order to find a handler for.
+     * @return The selected robot, or null if there are no Robots.
+     */
+    @Override
+    public Robot select(List<Robot> robots, T order) {
+        if (robots.isEmpty()) {
+            return null;
+        }
+        List<Tile> waypoints = order.getWaypoints();
+        if (waypoints.isEmpty() || waypoints.get(0) == null) {
+            return robots.get(0);
+        }
+
+        WarehouseCoordinateSystem<?> coordinateSystem = warehouse.getState().getCoordinateSystem();
+        RobotMapper<?> robotMapper = warehouse.getState().getRobotMapper();
+        int waypoint = waypoints.get(0).getIndex();
+        DistanceField field = warehouse.getState().getDistanceFieldCache().get(waypoint);
+
+        Robot closestRobot = null;
+        double minimumRouteDistance = Double.POSITIVE_INFINITY;
+        double minimumDistance = Double.POSITIVE_INFINITY;
+        for (Robot robot : robots) {
+            int index = robotMapper.getRobotTileIndex(robot);
+            double routeDistance = field.getDistance(index);
+            double distance = index == -1 ? Double.POSITIVE_INFINITY : coordinateSystem.getDistance(index, waypoint);
+            if (closestRobot == null || routeDistance < minimumRouteDistance ||
+                    (routeDistance == minimumRouteDistance && distance < minimumDistance)) {
+                closestRobot = robot;
+                minimumRouteDistance = routeDistance;
+                minimumDistance = distance;
+            }
+        }
+        return closestRobot;
+    }
+}
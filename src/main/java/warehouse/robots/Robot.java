@@ -8,6 +8,7 @@ import warehouse.logistics.optimization.routefinding.algorithms.AStarRoutefinder
 import warehouse.logistics.orders.Order;
 import warehouse.tiles.Tile;
 
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -17,6 +18,10 @@ public class Robot {
     private String id;
     private Routefinder<TileNode> routefinder;
     private Order order = null;
+    /**
+     * The route planned jointly with other Robots for the first leg of the current order, or null if none.
+     */
+    private List<Tile> plannedRoute = null;
 
     /**
      * Construct a Robot with the given id and routefinder.
@@ -77,6 +82,24 @@ public class Robot {
         this.order = order;
     }
 
+    /**
+     * Get the route planned jointly with other Robots for the first leg of this Robot's current order, e.g. by a
+     * ConflictBasedSearch over the Orders matched in the same time step.
+     * @return The tile the Robot is on at each time step, starting at the tile it is on and ending at the first
+     * waypoint of the order, or null if no route was planned.
+     */
+    public List<Tile> getPlannedRoute() {
+        return plannedRoute;
+    }
+
+    /**
+     * Set the route planned jointly with other Robots for the first leg of this Robot's current order.
+     * @param plannedRoute The tile the Robot is on at each time step, or null to follow its own route.
+     */
+    public void setPlannedRoute(List<Tile> plannedRoute) {
+        this.plannedRoute = plannedRoute;
+    }
+
     /**
      * Return whether the Robot currently has an order.
      */
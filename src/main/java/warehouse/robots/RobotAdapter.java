@@ -22,11 +22,33 @@ public abstract class RobotAdapter<T extends WarehouseCoordinateSystem<U>, U ext
         this.warehouseStateModel = warehouseStateModel;
     }
 
+    /**
+     * Prepare the next update of the Robot, e.g. by planning the route it will follow, without changing any state
+     * shared with other adapters.
+     *
+     * @remark This may be called for many adapters at once on different threads, while the layout, RobotMapper and
+     * Orders are not changed, so it must only read them. Every change to the Warehouse, such as a Robot's position or
+     * the status of its Order, belongs in update, which is called afterwards on one thread, one adapter at a time.
+     * @param timeStep The length of the update being prepared, in seconds.
+     */
+    public void prepare(double timeStep) {
+    }
+
     /**
      * Update the Robot.
      */
     public abstract void update();
 
+    /**
+     * Update the Robot for the given amount of time, e.g. one fixed time step of a simulation. Adapters whose robots
+     * move at a fixed speed should override this, so that they move the same distance regardless of how often they
+     * are updated.
+     * @param timeStep The time since the last update, in seconds.
+     */
+    public void update(double timeStep) {
+        update();
+    }
+
     /**
      * Get the robot model.
      */
@@ -1,18 +1,48 @@
 package warehouse.robots;
 
+import warehouse.WarehouseMetrics;
 import warehouse.WarehouseState;
 import warehouse.geometry.WarehouseCoordinate;
 import warehouse.geometry.WarehouseCoordinateSystem;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * Contains all robot updaters and updates them accordingly.
+ *
+ * @remark Adapters are updated in the order their Robots were first seen, so that updates are deterministic.
+ *
+ * An update for a time step runs in two phases. In the prepare phase, every adapter plans its next move (e.g. a
+ * route) while nothing in the Warehouse changes; with enough adapters this phase is split across the threads of a
+ * ForkJoinPool. In the commit phase, every adapter then applies its move on the calling thread, in order. Since
+ * preparing only reads the Warehouse, the result is the same whether or not the prepare phase ran in parallel. If
+ * cooperative planning is enabled on the WarehouseState, the cooperative planner is then advanced by the time step,
+ * moving the Robots towards the goals their adapters gave it.
  */
 public class RobotAdapterUpdater<T extends WarehouseCoordinateSystem<U>, U extends WarehouseCoordinate> {
+    /**
+     * The default number of adapters from which the prepare phase is run in parallel.
+     */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 64;
+    /**
+     * The most adapters prepared by one task of the ForkJoinPool.
+     */
+    private static final int PREPARE_BATCH_SIZE = 16;
+
     private final RobotAdapterFactory<T, U> adapterFactory;
     private final WarehouseState<T, U> warehouseState;
-    private final HashMap<Robot, RobotAdapter<T, U>> robotAdapters;
+    private final LinkedHashMap<Robot, RobotAdapter<T, U>> robotAdapters;
+    /**
+     * The adapters in update order, so that they can be split between threads by index.
+     */
+    private final List<RobotAdapter<T, U>> adapterList;
+
+    private ForkJoinPool pool;
+    private int parallelThreshold;
 
     /**
      * Construct an RobotAdapterUpdater.
@@ -21,19 +51,73 @@ public class RobotAdapterUpdater<T extends WarehouseCoordinateSystem<U>, U exten
                                WarehouseState<T, U> warehouseState) {
         this.adapterFactory = adapterFactory;
         this.warehouseState = warehouseState;
-        this.robotAdapters = new HashMap<>();
+        this.robotAdapters = new LinkedHashMap<>();
+        this.adapterList = new ArrayList<>();
+        this.pool = ForkJoinPool.commonPool();
+        this.parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
     }
 
+    /**
+     * Update the adapter of every Robot, creating adapters for new Robots.
+     */
     public void update() {
+        addNewAdapters();
+        for (RobotAdapter<T, U> adapter : adapterList) {
+            adapter.update();
+        }
+    }
+
+    /**
+     * Update the adapter of every Robot for the given amount of time, creating adapters for new Robots. Adapters are
+     * prepared first, in parallel if there are at least getParallelThreshold of them, and then updated in order.
+     * @param timeStep The time since the last update, in seconds.
+     */
+    public void update(double timeStep) {
+        WarehouseMetrics metrics = warehouseState.getMetrics();
+        long start = metrics.getRobotUpdateTimer().start();
+        addNewAdapters();
+        long prepareStart = metrics.getRobotPrepareTimer().start();
+        if (adapterList.size() >= parallelThreshold && pool.getParallelism() > 1) {
+            // Build the routing graph before the workers read it, since it is created lazily.
+            warehouseState.getRoutingGraph();
+            pool.invoke(new PrepareTask(0, adapterList.size(), timeStep));
+        } else {
+            for (RobotAdapter<T, U> adapter : adapterList) {
+                adapter.prepare(timeStep);
+            }
+        }
+        metrics.getRobotPrepareTimer().stop(prepareStart);
+        long commitStart = metrics.getRobotCommitTimer().start();
+        for (RobotAdapter<T, U> adapter : adapterList) {
+            adapter.update(timeStep);
+        }
+        if (warehouseState.isCooperativePlanningEnabled()) {
+            warehouseState.getCooperativePlanner().advance(timeStep);
+        }
+        metrics.getRobotCommitTimer().stop(commitStart);
+        metrics.getRobotUpdateTimer().stop(start);
+    }
+
+    /**
+     * Create adapters for the Robots in the RobotMapper that do not have one.
+     */
+    private void addNewAdapters() {
         RobotMapper<U> robotMapper = warehouseState.getRobotMapper();
         for (Robot robot : robotMapper.getRobots()) {
             if (!robotAdapters.containsKey(robot)) {
-                robotAdapters.put(robot, adapterFactory.makeRobotAdapter(robot, warehouseState));
+                addAdapter(robot);
             }
         }
-        for (RobotAdapter<T, U> adapter : robotAdapters.values()) {
-            adapter.update();
-        }
+    }
+
+    /**
+     * Create and add an adapter for the given Robot.
+     */
+    private RobotAdapter<T, U> addAdapter(Robot robot) {
+        RobotAdapter<T, U> adapter = adapterFactory.makeRobotAdapter(robot, warehouseState);
+        robotAdapters.put(robot, adapter);
+        adapterList.add(adapter);
+        return adapter;
     }
 
     /**
@@ -42,13 +126,74 @@ public class RobotAdapterUpdater<T extends WarehouseCoordinateSystem<U>, U exten
      * @return the RobotAdapter for the given Robot. If it doesn't have one, then this method will create a new one.
      */
     public RobotAdapter<T, U> getRobotAdapter(Robot robot) {
-        RobotAdapter<T, U> adapter;
-        if (!robotAdapters.containsKey(robot)) {
-            adapter = adapterFactory.makeRobotAdapter(robot, warehouseState);
-            robotAdapters.put(robot, adapter);
-        } else {
-            adapter = robotAdapters.get(robot);
+        RobotAdapter<T, U> adapter = robotAdapters.get(robot);
+        if (adapter == null) {
+            adapter = addAdapter(robot);
         }
         return adapter;
     }
+
+    /**
+     * Get the ForkJoinPool the prepare phase runs on.
+     */
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Set the ForkJoinPool the prepare phase runs on. A pool with a parallelism of 1 prepares adapters on the
+     * calling thread.
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Get the number of adapters from which the prepare phase is run in parallel.
+     */
+    public int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    /**
+     * Set the number of adapters from which the prepare phase is run in parallel, e.g. Integer.MAX_VALUE to always
+     * prepare adapters on the calling thread.
+     * @throws IllegalArgumentException if the threshold is negative.
+     */
+    public void setParallelThreshold(int parallelThreshold) {
+        if (parallelThreshold < 0) {
+            throw new IllegalArgumentException(String.format("Parallel threshold must be non-negative, but got %d",
+                    parallelThreshold));
+        }
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * Prepare the adapters in a range of adapterList, splitting the range in half until it is small enough.
+     */
+    private class PrepareTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int start;
+        private final int end;
+        private final double timeStep;
+
+        PrepareTask(int start, int end, double timeStep) {
+            this.start = start;
+            this.end = end;
+            this.timeStep = timeStep;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start <= PREPARE_BATCH_SIZE) {
+                for (int i = start; i < end; i++) {
+                    adapterList.get(i).prepare(timeStep);
+                }
+            } else {
+                int middle = (start + end) >>> 1;
+                invokeAll(new PrepareTask(start, middle, timeStep), new PrepareTask(middle, end, timeStep));
+            }
+        }
+    }
 }
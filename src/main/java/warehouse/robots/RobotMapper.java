@@ -162,6 +162,17 @@ public class RobotMapper<T extends WarehouseCoordinate> {
         addRobotAt(robot, position);
     }
 
+    /**
+     * Set the tile index of a Robot.
+     * @param robot The robot whose tile index to set.
+     * @param index The new tile index of the Robot.
+     */
+    public void setRobotTileIndex(Robot robot, int index) {
+        if (!robotMap.containsKey(robot)) return;
+        removeRobot(robot);
+        addRobotAt(robot, index);
+    }
+
     /**
      * Get the coordinate system.
      */
@@ -0,0 +1,19 @@
+package warehouse.simulation;
+
+/**
+ * Where a ScenarioGenerator places the depots of a layout, on its outermost ring of tiles.
+ */
+public enum DepotPlacement {
+    /**
+     * ReceiveDepots and ShipDepots share the south wall, as in a warehouse with a single dock.
+     */
+    ONE_SIDE,
+    /**
+     * ReceiveDepots are on the south wall and ShipDepots on the north wall, so Items flow through the racks.
+     */
+    OPPOSITE_SIDES,
+    /**
+     * ReceiveDepots and ShipDepots are spread around all four walls.
+     */
+    PERIMETER
+}
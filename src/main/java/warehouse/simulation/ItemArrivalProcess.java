@@ -0,0 +1,123 @@
+package warehouse.simulation;
+
+import utils.ZipfDistribution;
+import warehouse.Warehouse;
+import warehouse.inventory.Item;
+import warehouse.inventory.Part;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Items arriving at a Warehouse from the outside world at random times, as a Poisson process.
+ *
+ * @remark The time between two arrivals is exponentially distributed with the given mean rate, and the Part of each
+ * Item is drawn from a popularity distribution, e.g. a ZipfDistribution, so that a few Parts make up most arrivals.
+ * Each arriving Item is received by the Warehouse, which issues a PlaceOrder for it. Arrivals are seeded, and Items
+ * get sequential ids, so the same process with the same seed produces the same Items at the same times.
+ */
+public class ItemArrivalProcess {
+    private final Warehouse<?, ?> warehouse;
+    private final List<Part> parts;
+    private final ZipfDistribution popularity;
+    private final double rate;
+    private final Random random;
+
+    /**
+     * The simulated time of the next arrival, in seconds.
+     */
+    private double nextArrivalTime;
+    private long arrivalCount;
+    private long rejectedCount;
+
+    /**
+     * Construct an ItemArrivalProcess, starting at time 0.
+     * @param warehouse The Warehouse that receives the Items.
+     * @param parts The Parts of the Items, in order of popularity rank.
+     * @param popularity The distribution of the popularity rank of the Part of each Item.
+     * @param rate The mean number of Items arriving per second, or 0 for none.
+     * @param seed The seed of the arrival times and Parts.
+     * @throws IllegalArgumentException if the rate is negative, or the popularity distribution does not have a rank
+     * for every Part.
+     */
+    public ItemArrivalProcess(Warehouse<?, ?> warehouse, List<Part> parts, ZipfDistribution popularity, double rate,
+                              long seed) {
+        if (!(rate >= 0) || Double.isInfinite(rate)) {
+            throw new IllegalArgumentException(String.format("Arrival rate must be non-negative, but got %s", rate));
+        }
+        if (popularity.getSize() != parts.size()) {
+            throw new IllegalArgumentException(String.format(
+                    "The popularity distribution has %d ranks, but there are %d parts",
+                    popularity.getSize(), parts.size()));
+        }
+        this.warehouse = warehouse;
+        this.parts = parts;
+        this.popularity = popularity;
+        this.rate = rate;
+        this.random = new Random(seed);
+        this.nextArrivalTime = nextInterval();
+    }
+
+    /**
+     * Receive every Item that arrives up to the given simulated time.
+     * @param time The simulated time, in seconds.
+     * @return The number of Items that arrived.
+     */
+    public int advance(double time) {
+        int count = 0;
+        while (nextArrivalTime <= time) {
+            Part part = parts.get(popularity.sample(random));
+            if (warehouse.receiveItem(new Item("item" + arrivalCount, part)) == null) {
+                // There is no ReceiveDepot that can take the Item
+                rejectedCount++;
+            }
+            arrivalCount++;
+            count++;
+            nextArrivalTime += nextInterval();
+        }
+        return count;
+    }
+
+    /**
+     * Receive Items after every tick of the given SimulationEngine, up to its simulated time.
+     * @param engine The SimulationEngine of the Warehouse.
+     */
+    public void attach(SimulationEngine<?, ?> engine) {
+        engine.getOnTick().addListener(data -> advance(data.getSimulatedTime()));
+    }
+
+    /**
+     * Draw the time until the next arrival.
+     */
+    private double nextInterval() {
+        return rate == 0 ? Double.POSITIVE_INFINITY : -Math.log(1 - random.nextDouble()) / rate;
+    }
+
+    /**
+     * Get the mean number of Items arriving per second.
+     */
+    public double getRate() {
+        return rate;
+    }
+
+    /**
+     * Get the simulated time of the next arrival, in seconds.
+     */
+    public double getNextArrivalTime() {
+        return nextArrivalTime;
+    }
+
+    /**
+     * Get the number of Items that have arrived, including rejected Items.
+     */
+    public long getArrivalCount() {
+        return arrivalCount;
+    }
+
+    /**
+     * Get the number of Items that arrived but could not be received, because no ReceiveDepot could take them.
+     */
+    public long getRejectedCount() {
+        return rejectedCount;
+    }
+}
@@ -0,0 +1,80 @@
+package warehouse.simulation;
+
+import warehouse.Warehouse;
+import warehouse.geometry.grid.GridWarehouseCoordinateSystem;
+import warehouse.geometry.grid.Point;
+import warehouse.inventory.Part;
+
+import java.util.List;
+
+/**
+ * A Warehouse made by a ScenarioGenerator, together with the Items that will arrive at it.
+ */
+public class Scenario {
+    private final long seed;
+    private final Warehouse<GridWarehouseCoordinateSystem, Point> warehouse;
+    private final List<Part> parts;
+    private final ItemArrivalProcess itemArrivalProcess;
+
+    /**
+     * Construct a Scenario.
+     * @param seed The seed the Scenario was generated with.
+     * @param warehouse The Warehouse.
+     * @param parts The Parts in the PartCatalogue of the Warehouse, from most to least popular.
+     * @param itemArrivalProcess The Items arriving at the Warehouse.
+     */
+    public Scenario(long seed, Warehouse<GridWarehouseCoordinateSystem, Point> warehouse, List<Part> parts,
+                    ItemArrivalProcess itemArrivalProcess) {
+        this.seed = seed;
+        this.warehouse = warehouse;
+        this.parts = parts;
+        this.itemArrivalProcess = itemArrivalProcess;
+    }
+
+    /**
+     * Create a SimulationEngine for this Scenario, seeded with the seed of the Scenario, that receives arriving Items
+     * after every tick.
+     * @param timeStep The length of a tick, in seconds.
+     */
+    public SimulationEngine<GridWarehouseCoordinateSystem, Point> createEngine(double timeStep) {
+        SimulationEngine<GridWarehouseCoordinateSystem, Point> engine = new SimulationEngine<>(warehouse, timeStep,
+                seed);
+        itemArrivalProcess.attach(engine);
+        return engine;
+    }
+
+    /**
+     * Create a SimulationEngine for this Scenario with the default time step.
+     */
+    public SimulationEngine<GridWarehouseCoordinateSystem, Point> createEngine() {
+        return createEngine(SimulationEngine.DEFAULT_TIME_STEP);
+    }
+
+    /**
+     * Get the seed the Scenario was generated with.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Get the Warehouse of the Scenario.
+     */
+    public Warehouse<GridWarehouseCoordinateSystem, Point> getWarehouse() {
+        return warehouse;
+    }
+
+    /**
+     * Get the Parts in the PartCatalogue of the Warehouse, from most to least popular.
+     */
+    public List<Part> getParts() {
+        return parts;
+    }
+
+    /**
+     * Get the Items arriving at the Warehouse.
+     */
+    public ItemArrivalProcess getItemArrivalProcess() {
+        return itemArrivalProcess;
+    }
+}
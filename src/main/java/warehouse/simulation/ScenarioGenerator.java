@@ -0,0 +1,331 @@
+package warehouse.simulation;
+
+import utils.ZipfDistribution;
+import warehouse.Warehouse;
+import warehouse.WarehouseLayout;
+import warehouse.WarehouseState;
+import warehouse.geometry.grid.GridWarehouseCoordinateSystem;
+import warehouse.geometry.grid.Point;
+import warehouse.inventory.Part;
+import warehouse.inventory.PartCatalogue;
+import warehouse.logistics.optimization.routefinding.algorithms.CachingRoutefinder;
+import warehouse.logistics.optimization.routefinding.algorithms.GridAStarRoutefinder;
+import warehouse.logistics.orders.OrderQueue;
+import warehouse.robots.Robot;
+import warehouse.robots.RobotAdapterFactory;
+import warehouse.robots.RobotMapper;
+import warehouse.tiles.EmptyTile;
+import warehouse.tiles.Rack;
+import warehouse.tiles.ReceiveDepot;
+import warehouse.tiles.ShipDepot;
+import warehouse.tiles.Tile;
+import warehouse.tiles.containers.CompactTileContainer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Generates Scenarios with large, realistic grid layouts from a few parameters, e.g. to load test the Warehouse.
+ *
+ * @remark The outermost ring of tiles is left free for depots. Inside it, after an aisle, Racks are placed in
+ * rectangular blocks separated by aisles, and a fraction of the rack slots may be left empty. Every Rack must border
+ * an aisle, so blocks may be at most 2 tiles wide or deep. Robots start on random empty tiles and share one cached
+ * GridAStarRoutefinder. The PartCatalogue is filled with generated Parts, whose popularity follows a Zipf
+ * distribution, and Items of those Parts arrive at the ReceiveDepots as a Poisson process. Generated layouts can be
+ * very large, so their tiles are kept in a CompactTileContainer, and their routing graphs create nodes on demand.
+ *
+ * Generation is seeded: the same parameters and seed give the same Scenario.
+ */
+public class ScenarioGenerator {
+    private int width = 100;
+    private int height = 100;
+    private int aisleWidth = 1;
+    private int rackBlockWidth = 10;
+    private int rackBlockDepth = 2;
+    private double rackDensity = 1;
+    private int rackCapacity = -1;
+    private int receiveDepotCount = 2;
+    private int shipDepotCount = 2;
+    private DepotPlacement depotPlacement = DepotPlacement.OPPOSITE_SIDES;
+    private int robotCount = 20;
+    private int partCount = 100;
+    private double popularitySkew = 1;
+    private double arrivalRate = 1;
+    private RobotAdapterFactory<GridWarehouseCoordinateSystem, Point> robotAdapterFactory;
+
+    /**
+     * Generate a Scenario.
+     * @param seed The seed of the random numbers of the Scenario.
+     * @throws IllegalArgumentException if the rack blocks are more than 2 tiles both wide and deep, or the depots or
+     * Robots do not fit in the layout.
+     */
+    public Scenario generate(long seed) {
+        if (rackBlockWidth > 2 && rackBlockDepth > 2) {
+            throw new IllegalArgumentException(String.format(
+                    "Rack blocks must be at most 2 tiles wide or deep, so that every Rack borders an aisle, " +
+                            "but got %dx%d", rackBlockWidth, rackBlockDepth));
+        }
+        Random random = new Random(seed);
+        GridWarehouseCoordinateSystem coordinateSystem = new GridWarehouseCoordinateSystem(width, height);
+        PartCatalogue partCatalogue = new PartCatalogue();
+        List<Part> parts = new ArrayList<>();
+        for (int i = 0; i < partCount; i++) {
+            Part part = new Part("part" + i, "Part " + i, "A generated part.");
+            partCatalogue.addPart(part);
+            parts.add(part);
+        }
+        WarehouseState<GridWarehouseCoordinateSystem, Point> state = new WarehouseState<>(
+                partCatalogue,
+                coordinateSystem,
+                new WarehouseLayout<>(coordinateSystem, new CompactTileContainer(coordinateSystem.getSize())),
+                new RobotMapper<>(coordinateSystem),
+                robotAdapterFactory,
+                new OrderQueue()
+        );
+        placeRacks(state, random);
+        placeDepots(state);
+        placeRobots(state, random);
+
+        Warehouse<GridWarehouseCoordinateSystem, Point> warehouse = new Warehouse<>(state);
+        ItemArrivalProcess itemArrivalProcess = new ItemArrivalProcess(warehouse, parts,
+                new ZipfDistribution(partCount, popularitySkew), arrivalRate, random.nextLong());
+        return new Scenario(seed, warehouse, parts, itemArrivalProcess);
+    }
+
+    /**
+     * Fill the area inside the depot ring and the aisle along it with blocks of Racks.
+     */
+    private void placeRacks(WarehouseState<GridWarehouseCoordinateSystem, Point> state, Random random) {
+        GridWarehouseCoordinateSystem coordinateSystem = state.getCoordinateSystem();
+        WarehouseLayout<Point> layout = state.getLayout();
+        int start = 1 + aisleWidth;
+        for (int y = start; y < height - start; y++) {
+            if ((y - start) % (rackBlockDepth + aisleWidth) >= rackBlockDepth) continue;
+            for (int x = start; x < width - start; x++) {
+                if ((x - start) % (rackBlockWidth + aisleWidth) >= rackBlockWidth) continue;
+                if (random.nextDouble() < rackDensity) {
+                    layout.setTileAt(coordinateSystem.getPoint(x, y), new Rack(-1, rackCapacity));
+                }
+            }
+        }
+    }
+
+    /**
+     * Place the ReceiveDepots and ShipDepots evenly along the walls chosen by the depot placement.
+     */
+    private void placeDepots(WarehouseState<GridWarehouseCoordinateSystem, Point> state) {
+        GridWarehouseCoordinateSystem coordinateSystem = state.getCoordinateSystem();
+        List<Point> north = new ArrayList<>();
+        List<Point> east = new ArrayList<>();
+        List<Point> south = new ArrayList<>();
+        List<Point> west = new ArrayList<>();
+        // The corners are left out, since their only neighbours are on the ring
+        for (int x = 1; x < width - 1; x++) {
+            north.add(coordinateSystem.getPoint(x, 0));
+            south.add(coordinateSystem.getPoint(width - 1 - x, height - 1));
+        }
+        for (int y = 1; y < height - 1; y++) {
+            east.add(coordinateSystem.getPoint(width - 1, y));
+            west.add(coordinateSystem.getPoint(0, height - 1 - y));
+        }
+
+        WarehouseLayout<Point> layout = state.getLayout();
+        switch (depotPlacement) {
+            case ONE_SIDE:
+                placeDepots(layout, south, receiveDepotCount, 0.25, ReceiveDepot::new);
+                placeDepots(layout, south, shipDepotCount, 0.75, ShipDepot::new);
+                break;
+            case OPPOSITE_SIDES:
+                placeDepots(layout, south, receiveDepotCount, 0.5, ReceiveDepot::new);
+                placeDepots(layout, north, shipDepotCount, 0.5, ShipDepot::new);
+                break;
+            case PERIMETER:
+                List<Point> ring = new ArrayList<>(north);
+                ring.addAll(east);
+                ring.addAll(south);
+                ring.addAll(west);
+                placeDepots(layout, ring, receiveDepotCount, 0.25, ReceiveDepot::new);
+                placeDepots(layout, ring, shipDepotCount, 0.75, ShipDepot::new);
+                break;
+        }
+    }
+
+    /**
+     * Place depots evenly along the given slots, moving on to the next free slot if a slot is taken.
+     * @param offset Where in its share of the slots each depot goes, in the range [0, 1).
+     * @throws IllegalArgumentException if there are more depots than free slots.
+     */
+    private static void placeDepots(WarehouseLayout<Point> layout, List<Point> slots, int count, double offset,
+                                    Supplier<Tile> depotFactory) {
+        for (int i = 0; i < count; i++) {
+            int first = (int) ((i + offset) * slots.size() / count);
+            boolean placed = false;
+            for (int j = 0; j < slots.size() && !placed; j++) {
+                Point slot = slots.get((first + j) % slots.size());
+                if (layout.getTileAt(slot) instanceof EmptyTile) {
+                    layout.setTileAt(slot, depotFactory.get());
+                    placed = true;
+                }
+            }
+            if (!placed) {
+                throw new IllegalArgumentException(String.format(
+                        "There is no room for %d depots on %d tiles", count, slots.size()));
+            }
+        }
+    }
+
+    /**
+     * Place the Robots on distinct random empty tiles.
+     * @throws IllegalArgumentException if there are more Robots than empty tiles.
+     */
+    private void placeRobots(WarehouseState<GridWarehouseCoordinateSystem, Point> state, Random random) {
+        WarehouseLayout<Point> layout = state.getLayout();
+        List<Integer> emptyTiles = new ArrayList<>();
+        for (int i = 0; i < state.getCoordinateSystem().getSize(); i++) {
+            if (layout.getTileAt(i) instanceof EmptyTile) {
+                emptyTiles.add(i);
+            }
+        }
+        if (robotCount > emptyTiles.size()) {
+            throw new IllegalArgumentException(String.format(
+                    "There is no room for %d robots on %d empty tiles", robotCount, emptyTiles.size()));
+        }
+        Collections.shuffle(emptyTiles, random);
+
+        CachingRoutefinder routefinder = new CachingRoutefinder(
+                new GridAStarRoutefinder(state.getCoordinateSystem()), layout);
+        RobotMapper<Point> robotMapper = state.getRobotMapper();
+        for (int i = 0; i < robotCount; i++) {
+            robotMapper.addRobotAt(new Robot("robot" + i, routefinder), emptyTiles.get(i));
+        }
+    }
+
+    /**
+     * Set the width and height of the layout, in tiles.
+     * @throws IllegalArgumentException if the width or height is less than 3.
+     */
+    public void setSize(int width, int height) {
+        if (width < 3 || height < 3) {
+            throw new IllegalArgumentException(String.format(
+                    "Layout must be at least 3x3, but got %dx%d", width, height));
+        }
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Set the width of the aisles between rack blocks, in tiles.
+     * @throws IllegalArgumentException if the width is not positive.
+     */
+    public void setAisleWidth(int aisleWidth) {
+        if (aisleWidth <= 0) {
+            throw new IllegalArgumentException(String.format("Aisle width must be positive, but got %d", aisleWidth));
+        }
+        this.aisleWidth = aisleWidth;
+    }
+
+    /**
+     * Set the shape of a block of Racks, e.g. 10x2 for two back-to-back rows of 10 Racks.
+     * @param width The width of a block, along the x axis, in tiles.
+     * @param depth The depth of a block, along the y axis, in tiles.
+     * @throws IllegalArgumentException if the width or depth is not positive.
+     */
+    public void setRackBlockShape(int width, int depth) {
+        if (width <= 0 || depth <= 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Rack block shape must be positive, but got %dx%d", width, depth));
+        }
+        this.rackBlockWidth = width;
+        this.rackBlockDepth = depth;
+    }
+
+    /**
+     * Set the fraction of rack slots that hold a Rack.
+     * @throws IllegalArgumentException if the density is not in the range [0, 1].
+     */
+    public void setRackDensity(double rackDensity) {
+        if (!(rackDensity >= 0 && rackDensity <= 1)) {
+            throw new IllegalArgumentException(String.format(
+                    "Rack density must be in the range [0, 1], but got %s", rackDensity));
+        }
+        this.rackDensity = rackDensity;
+    }
+
+    /**
+     * Set the capacity of each Rack, or a negative number for infinite capacity.
+     */
+    public void setRackCapacity(int rackCapacity) {
+        this.rackCapacity = rackCapacity;
+    }
+
+    /**
+     * Set the number of depots and where they are placed.
+     * @param receiveDepotCount The number of ReceiveDepots.
+     * @param shipDepotCount The number of ShipDepots.
+     * @param depotPlacement The walls the depots are placed along.
+     * @throws IllegalArgumentException if a count is negative.
+     */
+    public void setDepots(int receiveDepotCount, int shipDepotCount, DepotPlacement depotPlacement) {
+        if (receiveDepotCount < 0 || shipDepotCount < 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Depot counts must be non-negative, but got %d and %d", receiveDepotCount, shipDepotCount));
+        }
+        this.receiveDepotCount = receiveDepotCount;
+        this.shipDepotCount = shipDepotCount;
+        this.depotPlacement = depotPlacement;
+    }
+
+    /**
+     * Set the number of Robots.
+     * @throws IllegalArgumentException if the count is negative.
+     */
+    public void setRobotCount(int robotCount) {
+        if (robotCount < 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Robot count must be non-negative, but got %d", robotCount));
+        }
+        this.robotCount = robotCount;
+    }
+
+    /**
+     * Set the size of the PartCatalogue and how skewed the popularity of its Parts is.
+     * @param partCount The number of Parts.
+     * @param popularitySkew The exponent of the Zipf distribution of Part popularity, e.g. 0 for uniform or 1 for
+     *                       a typical warehouse.
+     * @throws IllegalArgumentException if the count is not positive or the skew is negative.
+     */
+    public void setParts(int partCount, double popularitySkew) {
+        if (partCount <= 0) {
+            throw new IllegalArgumentException(String.format("Part count must be positive, but got %d", partCount));
+        }
+        if (!(popularitySkew >= 0)) {
+            throw new IllegalArgumentException(String.format(
+                    "Popularity skew must be non-negative, but got %s", popularitySkew));
+        }
+        this.partCount = partCount;
+        this.popularitySkew = popularitySkew;
+    }
+
+    /**
+     * Set the mean number of Items arriving per second, or 0 for none.
+     * @throws IllegalArgumentException if the rate is negative.
+     */
+    public void setArrivalRate(double arrivalRate) {
+        if (!(arrivalRate >= 0)) {
+            throw new IllegalArgumentException(String.format(
+                    "Arrival rate must be non-negative, but got %s", arrivalRate));
+        }
+        this.arrivalRate = arrivalRate;
+    }
+
+    /**
+     * Set the factory of the RobotAdapters of the Warehouse, or null for none, e.g. to run the Scenario on a
+     * SimulationEngine.
+     */
+    public void setRobotAdapterFactory(RobotAdapterFactory<GridWarehouseCoordinateSystem, Point> robotAdapterFactory) {
+        this.robotAdapterFactory = robotAdapterFactory;
+    }
+}
@@ -0,0 +1,269 @@
+package warehouse.simulation;
+
+import messaging.Message;
+import warehouse.Warehouse;
+import warehouse.WarehouseMetrics;
+import warehouse.geometry.WarehouseCoordinate;
+import warehouse.geometry.WarehouseCoordinateSystem;
+import warehouse.robots.RobotAdapterUpdater;
+
+import java.security.SecureRandom;
+import java.util.Random;
+import java.util.function.Predicate;
+
+/**
+ * Advances a Warehouse through time with a fixed time step, independently of any user interface.
+ *
+ * @remark Each tick matches Orders with Warehouse.update, then updates every RobotAdapter for one time step, so a
+ * simulation behaves the same however fast it is run. Ticks can be run as fast as possible (e.g. to run a
+ * capacity-planning scenario without a display), paced to a multiple of real time, or driven by a frame loop with
+ * advance, which runs as many ticks as fit in the real time that has passed.
+ *
+ * Each tick is timed by the metrics of the Warehouse, which can be exported every given number of ticks.
+ *
+ * A SimulationEngine is seeded: it gives its Warehouse a seeded Random for the ids of the Orders it creates, and gives
+ * scenarios another, so that two runs of the same scenario with the same seed are identical. Only the simulated
+ * Warehouse is affected; ids generated elsewhere stay random. An engine constructed without a seed leaves the ids of
+ * the Warehouse random.
+ *
+ * Likewise, an engine sets the clock of the Warehouse to its simulated time, so that the recorded timings of its
+ * Orders are in simulated nanoseconds.
+ */
+public class SimulationEngine<T extends WarehouseCoordinateSystem<U>, U extends WarehouseCoordinate> {
+    /**
+     * The default length of a tick, in seconds.
+     */
+    public static final double DEFAULT_TIME_STEP = 1.0 / 60;
+    /**
+     * The most ticks advance runs in one call, so that a slow tick cannot make the simulation fall further behind.
+     */
+    private static final int MAX_TICKS_PER_ADVANCE = 10;
+
+    private final Warehouse<T, U> warehouse;
+    private final double timeStep;
+    private final long seed;
+    private final Random random;
+    private final Message<SimulationEngine<T, U>> onTick;
+
+    private long tickCount;
+    /**
+     * The number of ticks between exports of the metrics of the Warehouse, or 0 to never export them.
+     */
+    private long metricsExportInterval;
+    /**
+     * The real time passed to advance that has not yet been simulated, in seconds.
+     */
+    private double accumulatedTime;
+
+    /**
+     * Construct a SimulationEngine.
+     * @param warehouse The Warehouse to simulate.
+     * @param timeStep The length of a tick, in seconds.
+     * @param seed The seed of the random numbers of the simulation.
+     * @throws IllegalArgumentException if the time step is not positive.
+     */
+    public SimulationEngine(Warehouse<T, U> warehouse, double timeStep, long seed) {
+        this(warehouse, timeStep, seed, true);
+    }
+
+    /**
+     * Construct a SimulationEngine with the default time step.
+     * @param warehouse The Warehouse to simulate.
+     * @param seed The seed of the random numbers of the simulation.
+     */
+    public SimulationEngine(Warehouse<T, U> warehouse, long seed) {
+        this(warehouse, DEFAULT_TIME_STEP, seed);
+    }
+
+    /**
+     * Construct a SimulationEngine with the default time step and a random seed for scenarios, which leaves the ids
+     * of the Orders of the Warehouse random, e.g. for an interactive simulation.
+     * @param warehouse The Warehouse to simulate.
+     */
+    public SimulationEngine(Warehouse<T, U> warehouse) {
+        this(warehouse, DEFAULT_TIME_STEP, new SecureRandom().nextLong(), false);
+    }
+
+    /**
+     * Construct a SimulationEngine.
+     * @param warehouse The Warehouse to simulate.
+     * @param timeStep The length of a tick, in seconds.
+     * @param seed The seed of the random numbers of the simulation.
+     * @param seedIds Whether the ids of the Orders of the Warehouse are seeded too.
+     * @throws IllegalArgumentException if the time step is not positive.
+     */
+    private SimulationEngine(Warehouse<T, U> warehouse, double timeStep, long seed, boolean seedIds) {
+        if (!(timeStep > 0) || Double.isInfinite(timeStep)) {
+            throw new IllegalArgumentException(String.format("Time step must be positive, but got %s", timeStep));
+        }
+        this.warehouse = warehouse;
+        this.timeStep = timeStep;
+        this.seed = seed;
+        this.random = new Random(seed);
+        this.onTick = new Message<>();
+        if (seedIds) {
+            warehouse.setIdRandom(new Random(seed));
+        }
+        warehouse.getState().setClock(() -> Math.round(getSimulatedTime() * 1e9));
+    }
+
+    /**
+     * Advance the simulation by one time step.
+     */
+    public void tick() {
+        WarehouseMetrics metrics = warehouse.getState().getMetrics();
+        long start = metrics.getTickTimer().start();
+        warehouse.update();
+        RobotAdapterUpdater<T, U> robotAdapterUpdater = warehouse.getState().getRobotAdapterUpdater();
+        if (robotAdapterUpdater != null) {
+            robotAdapterUpdater.update(timeStep);
+        }
+        metrics.getTickTimer().stop(start);
+        tickCount++;
+        if (metricsExportInterval > 0 && tickCount % metricsExportInterval == 0
+                && metrics.getRegistry().isEnabled()) {
+            metrics.getRegistry().export();
+        }
+        onTick.execute(this);
+    }
+
+    /**
+     * Run the given number of ticks as fast as possible.
+     * @param ticks The number of ticks to run.
+     */
+    public void run(long ticks) {
+        for (long i = 0; i < ticks; i++) {
+            tick();
+        }
+    }
+
+    /**
+     * Run the given number of ticks, pacing them so that simulated time passes the given number of times faster than
+     * real time. Ticks are run as fast as possible if the simulation cannot keep up.
+     * @param ticks The number of ticks to run.
+     * @param speed The number of simulated seconds per real second, e.g. 1000.
+     * @throws IllegalArgumentException if the speed is not positive.
+     * @throws InterruptedException if the thread is interrupted while waiting for the next tick.
+     */
+    public void run(long ticks, double speed) throws InterruptedException {
+        if (!(speed > 0)) {
+            throw new IllegalArgumentException(String.format("Speed must be positive, but got %s", speed));
+        }
+        long startTime = System.nanoTime();
+        double nanosPerTick = timeStep * 1e9 / speed;
+        for (long i = 0; i < ticks; i++) {
+            tick();
+            long wait = startTime + (long) ((i + 1) * nanosPerTick) - System.nanoTime();
+            if (wait > 1_000_000) {
+                Thread.sleep(wait / 1_000_000, (int) (wait % 1_000_000));
+            }
+        }
+    }
+
+    /**
+     * Run ticks as fast as possible until the given condition holds, or the given number of ticks have been run.
+     * @param condition The condition, checked before each tick.
+     * @param maxTicks The most ticks to run.
+     * @return The number of ticks run.
+     */
+    public long runUntil(Predicate<SimulationEngine<T, U>> condition, long maxTicks) {
+        long ticks = 0;
+        while (ticks < maxTicks && !condition.test(this)) {
+            tick();
+            ticks++;
+        }
+        return ticks;
+    }
+
+    /**
+     * Run as many ticks as fit in the given amount of real time, together with the time left over from previous
+     * calls, e.g. once per frame of a user interface. At most a fixed number of ticks are run per call, and time
+     * beyond them is dropped, so the simulation slows down rather than falling ever further behind.
+     * @param elapsedTime The real time since the last call, in seconds.
+     * @return The number of ticks run.
+     */
+    public int advance(double elapsedTime) {
+        accumulatedTime += Math.max(0, elapsedTime);
+        int ticks = 0;
+        while (accumulatedTime >= timeStep && ticks < MAX_TICKS_PER_ADVANCE) {
+            tick();
+            accumulatedTime -= timeStep;
+            ticks++;
+        }
+        if (ticks == MAX_TICKS_PER_ADVANCE) {
+            accumulatedTime = Math.min(accumulatedTime, timeStep);
+        }
+        return ticks;
+    }
+
+    /**
+     * Get the number of ticks between exports of the metrics of the Warehouse, or 0 if they are never exported.
+     */
+    public long getMetricsExportInterval() {
+        return metricsExportInterval;
+    }
+
+    /**
+     * Set the number of ticks between exports of the metrics of the Warehouse to the exporters of its registry, e.g.
+     * 600 to export every 10 simulated seconds at the default time step. Metrics are only exported while their
+     * registry is enabled.
+     * @param metricsExportInterval The number of ticks, or 0 to never export the metrics.
+     * @throws IllegalArgumentException if the interval is negative.
+     */
+    public void setMetricsExportInterval(long metricsExportInterval) {
+        if (metricsExportInterval < 0) {
+            throw new IllegalArgumentException(String.format("Metrics export interval must be non-negative, but got %d",
+                    metricsExportInterval));
+        }
+        this.metricsExportInterval = metricsExportInterval;
+    }
+
+    /**
+     * Get the simulated Warehouse.
+     */
+    public Warehouse<T, U> getWarehouse() {
+        return warehouse;
+    }
+
+    /**
+     * Get the length of a tick, in seconds.
+     */
+    public double getTimeStep() {
+        return timeStep;
+    }
+
+    /**
+     * Get the number of ticks run since this engine was created.
+     */
+    public long getTickCount() {
+        return tickCount;
+    }
+
+    /**
+     * Get the simulated time since this engine was created, in seconds.
+     */
+    public double getSimulatedTime() {
+        return tickCount * timeStep;
+    }
+
+    /**
+     * Get the seed of the random numbers of the simulation.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Get the seeded source of random numbers for scenarios run on this engine.
+     */
+    public Random getRandom() {
+        return random;
+    }
+
+    /**
+     * Get the Message raised after every tick.
+     */
+    public Message<SimulationEngine<T, U>> getOnTick() {
+        return onTick;
+    }
+}
@@ -3,6 +3,8 @@ package warehouse.storage.strategies;
 import warehouse.inventory.Item;
 import warehouse.storage.StorageUnit;
 
+import java.util.Objects;
+
 /**
  * A strategy that only allows StorageUnits to add items of a single type.
  *
@@ -15,7 +17,7 @@ public class SingleTypeStorageStrategy implements StorageUnitStrategy {
      * Check whether an Item can be added into the given StorageUnit
      * @param storageUnit The StorageUnit to add to.
      * @param item The Item to check.
-     * @return True if the Item type matches the rest of the items in the StorageUnit added, and False otherwise.
+     * @return True if the Part of the Item matches the Part of the items in the StorageUnit, and False otherwise.
      */
     @Override
     public boolean canAddItem(StorageUnit storageUnit, Item item) {
@@ -23,7 +25,7 @@ public class SingleTypeStorageStrategy implements StorageUnitStrategy {
             return true;
         } else {
             Iterable<Item> items = storageUnit.getContainer().getItems();
-            return item.equals(items.iterator().next());
+            return Objects.equals(item.getPart(), items.iterator().next().getPart());
         }
     }
 }
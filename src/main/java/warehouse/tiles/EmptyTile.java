@@ -2,6 +2,9 @@ package warehouse.tiles;
 
 /**
  * An empty Tile in the WarehouseLayout.
+ *
+ * @remark EmptyTiles hold no state other than their index, so two EmptyTiles at the same index are equal. This lets
+ * layouts create EmptyTiles on demand rather than keeping one for every empty tile.
  */
 public class EmptyTile extends Tile {
     /**
@@ -20,6 +23,18 @@ public class EmptyTile extends Tile {
         super(-1);
     }
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return index == ((EmptyTile) o).index;
+    }
+
+    @Override
+    public int hashCode() {
+        return Integer.hashCode(index);
+    }
+
     @Override
     public String toString() {
         return "EmptyTile{" +
@@ -0,0 +1,215 @@
+package warehouse.tiles.containers;
+
+import warehouse.geometry.grid.GridWarehouseCoordinateSystem;
+import warehouse.tiles.EmptyTile;
+import warehouse.tiles.Tile;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * A TileContainer for very large grids that are mostly empty, that splits the grid into square chunks and only
+ * allocates the chunks that hold Tiles other than EmptyTiles.
+ *
+ * @remark A chunk is allocated when a non-empty Tile is first set in it, and freed when its last non-empty Tile is
+ * replaced by an EmptyTile. Empty tiles have no object: get returns a new EmptyTile, equal to any other EmptyTile at
+ * the same index, every time it is called. Creating a container therefore only allocates one reference per chunk,
+ * whatever the size of the grid, and the populated chunks can be visited without looking at the rest of the grid.
+ */
+public class ChunkedTileContainer implements TileContainer {
+    /**
+     * The default width and height of a chunk, in tiles.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 64;
+
+    private final int width;
+    private final int height;
+    private final int chunkSize;
+    private final int chunksPerRow;
+    private final Chunk[] chunks;
+    private int populatedChunkCount;
+
+    /**
+     * Construct a ChunkedTileContainer filled with empty tiles.
+     * @param coordinateSystem The grid to store Tiles for.
+     * @param chunkSize The width and height of a chunk, in tiles.
+     * @throws IllegalArgumentException if the chunk size is not positive.
+     */
+    public ChunkedTileContainer(GridWarehouseCoordinateSystem coordinateSystem, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("The chunk size must be positive");
+        }
+        this.width = coordinateSystem.getWidth();
+        this.height = coordinateSystem.getHeight();
+        this.chunkSize = chunkSize;
+        this.chunksPerRow = (width + chunkSize - 1) / chunkSize;
+        int chunksPerColumn = (height + chunkSize - 1) / chunkSize;
+        this.chunks = new Chunk[chunksPerRow * chunksPerColumn];
+    }
+
+    /**
+     * Construct a ChunkedTileContainer with chunks of the default size, filled with empty tiles.
+     * @param coordinateSystem The grid to store Tiles for.
+     */
+    public ChunkedTileContainer(GridWarehouseCoordinateSystem coordinateSystem) {
+        this(coordinateSystem, DEFAULT_CHUNK_SIZE);
+    }
+
+    @Override
+    public Tile get(int index) {
+        Chunk chunk = chunks[getChunkIndex(index)];
+        Tile tile = chunk == null ? null : chunk.tiles[getOffset(index)];
+        return tile == null ? new EmptyTile(index) : tile;
+    }
+
+    @Override
+    public Tile set(int index, Tile tile) {
+        int chunkIndex = getChunkIndex(index);
+        int offset = getOffset(index);
+        Chunk chunk = chunks[chunkIndex];
+        boolean empty = tile.getClass() == EmptyTile.class;
+        if (chunk == null) {
+            if (empty) {
+                return new EmptyTile(index);
+            }
+            chunk = new Chunk(chunkIndex % chunksPerRow, chunkIndex / chunksPerRow);
+            chunks[chunkIndex] = chunk;
+            populatedChunkCount++;
+        }
+
+        Tile previousTile = chunk.tiles[offset];
+        if (previousTile == null) {
+            previousTile = new EmptyTile(index);
+        } else {
+            chunk.occupiedCount--;
+        }
+        if (empty) {
+            chunk.tiles[offset] = null;
+        } else {
+            chunk.tiles[offset] = tile;
+            chunk.occupiedCount++;
+        }
+        if (chunk.occupiedCount == 0) {
+            chunks[chunkIndex] = null;
+            populatedChunkCount--;
+        }
+        return previousTile;
+    }
+
+    @Override
+    public Class<? extends Tile> getTileClass(int index) {
+        Chunk chunk = chunks[getChunkIndex(index)];
+        Tile tile = chunk == null ? null : chunk.tiles[getOffset(index)];
+        return tile == null ? EmptyTile.class : tile.getClass();
+    }
+
+    @Override
+    public IntStream streamOccupiedIndices() {
+        return getPopulatedChunks().stream()
+                .flatMapToInt(chunk -> IntStream.range(0, chunk.tiles.length)
+                        .filter(offset -> chunk.tiles[offset] != null)
+                        .map(offset -> (chunk.y * chunkSize + offset / chunkSize) * width
+                                + chunk.x * chunkSize + offset % chunkSize))
+                .sorted();
+    }
+
+    @Override
+    public int getSize() {
+        return width * height;
+    }
+
+    /**
+     * Get the chunks that hold at least one Tile other than an EmptyTile.
+     * @return the populated chunks, in row-major order of chunk coordinates.
+     */
+    public List<Chunk> getPopulatedChunks() {
+        List<Chunk> populated = new ArrayList<>(populatedChunkCount);
+        for (Chunk chunk : chunks) {
+            if (chunk != null) {
+                populated.add(chunk);
+            }
+        }
+        return Collections.unmodifiableList(populated);
+    }
+
+    /**
+     * Get the number of chunks that hold at least one Tile other than an EmptyTile.
+     */
+    public int getPopulatedChunkCount() {
+        return populatedChunkCount;
+    }
+
+    /**
+     * Get the width and height of a chunk, in tiles.
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Get the index of the chunk holding the given tile index.
+     */
+    private int getChunkIndex(int index) {
+        return (index / width / chunkSize) * chunksPerRow + (index % width) / chunkSize;
+    }
+
+    /**
+     * Get the position of the given tile index within its chunk.
+     */
+    private int getOffset(int index) {
+        return (index / width % chunkSize) * chunkSize + index % width % chunkSize;
+    }
+
+    /**
+     * A square block of tiles of a ChunkedTileContainer, at least one of which is not an EmptyTile.
+     */
+    public class Chunk {
+        private final int x;
+        private final int y;
+        private final Tile[] tiles;
+        private int occupiedCount;
+
+        private Chunk(int x, int y) {
+            this.x = x;
+            this.y = y;
+            this.tiles = new Tile[chunkSize * chunkSize];
+        }
+
+        /**
+         * Get the x coordinate of the leftmost column of tiles in this chunk.
+         */
+        public int getMinX() {
+            return x * chunkSize;
+        }
+
+        /**
+         * Get the y coordinate of the top row of tiles in this chunk.
+         */
+        public int getMinY() {
+            return y * chunkSize;
+        }
+
+        /**
+         * Get the x coordinate one past the rightmost column of tiles in this chunk.
+         */
+        public int getMaxX() {
+            return Math.min(width, (x + 1) * chunkSize);
+        }
+
+        /**
+         * Get the y coordinate one past the bottom row of tiles in this chunk.
+         */
+        public int getMaxY() {
+            return Math.min(height, (y + 1) * chunkSize);
+        }
+
+        /**
+         * Get the number of Tiles in this chunk that are not EmptyTiles.
+         */
+        public int getOccupiedCount() {
+            return occupiedCount;
+        }
+    }
+}
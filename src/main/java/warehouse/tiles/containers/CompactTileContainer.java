@@ -0,0 +1,124 @@
+package warehouse.tiles.containers;
+
+import warehouse.tiles.EmptyTile;
+import warehouse.tiles.Rack;
+import warehouse.tiles.ReceiveDepot;
+import warehouse.tiles.ShipDepot;
+import warehouse.tiles.Tile;
+import warehouse.tiles.factory.TileType;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * A TileContainer for very large layouts, that only keeps Tile objects for tiles that are not empty.
+ *
+ * @remark The TileType of each tile is stored in a byte array, and the Tile objects of non-empty tiles in a map.
+ * Empty tiles have no object: get returns a new EmptyTile, equal to any other EmptyTile at the same index, every time
+ * it is called. An empty tile therefore takes about one byte, rather than a Tile object and a reference to it.
+ */
+public class CompactTileContainer implements TileContainer {
+    private static final TileType[] TILE_TYPES = TileType.values();
+    /**
+     * The type stored for Tiles that are not exactly of a TileType class, e.g. subclasses of Rack.
+     */
+    private static final byte OTHER = -1;
+
+    private final byte[] types;
+    private final Map<Integer, Tile> occupiedTiles;
+
+    /**
+     * Construct a CompactTileContainer filled with empty tiles.
+     * @param size The number of Tiles.
+     */
+    public CompactTileContainer(int size) {
+        types = new byte[size];
+        occupiedTiles = new HashMap<>();
+    }
+
+    @Override
+    public Tile get(int index) {
+        if (types[index] == TileType.EMPTY.ordinal()) {
+            return new EmptyTile(index);
+        }
+        return occupiedTiles.get(index);
+    }
+
+    @Override
+    public Tile set(int index, Tile tile) {
+        Tile previousTile = get(index);
+        byte type = getType(tile);
+        types[index] = type;
+        if (type == TileType.EMPTY.ordinal()) {
+            occupiedTiles.remove(index);
+        } else {
+            occupiedTiles.put(index, tile);
+        }
+        return previousTile;
+    }
+
+    @Override
+    public Class<? extends Tile> getTileClass(int index) {
+        if (types[index] == OTHER) {
+            return occupiedTiles.get(index).getClass();
+        }
+        switch (TILE_TYPES[types[index]]) {
+            case RACK:
+                return Rack.class;
+            case RECEIVE_DEPOT:
+                return ReceiveDepot.class;
+            case SHIP_DEPOT:
+                return ShipDepot.class;
+            default:
+                return EmptyTile.class;
+        }
+    }
+
+    /**
+     * Get the TileType of the Tile at the given tile index, without creating a Tile object.
+     * @param index The tile index, in the range [0, getSize()).
+     * @return the TileType, or null if the Tile is not exactly of a TileType class.
+     */
+    public TileType getTileType(int index) {
+        return types[index] == OTHER ? null : TILE_TYPES[types[index]];
+    }
+
+    @Override
+    public IntStream streamOccupiedIndices() {
+        return occupiedTiles.keySet().stream().mapToInt(Integer::intValue).sorted();
+    }
+
+    @Override
+    public int getSize() {
+        return types.length;
+    }
+
+    /**
+     * Get the number of tiles that are not empty, and so have a Tile object.
+     */
+    public int getOccupiedCount() {
+        return occupiedTiles.size();
+    }
+
+    /**
+     * Get the stored type of the given Tile. Only Tiles of exactly the TileType classes get their own type, since
+     * subclasses may hold more state.
+     */
+    private static byte getType(Tile tile) {
+        Class<?> clazz = tile.getClass();
+        TileType type;
+        if (clazz == EmptyTile.class) {
+            type = TileType.EMPTY;
+        } else if (clazz == Rack.class) {
+            type = TileType.RACK;
+        } else if (clazz == ReceiveDepot.class) {
+            type = TileType.RECEIVE_DEPOT;
+        } else if (clazz == ShipDepot.class) {
+            type = TileType.SHIP_DEPOT;
+        } else {
+            return OTHER;
+        }
+        return (byte) type.ordinal();
+    }
+}
@@ -0,0 +1,40 @@
+package warehouse.tiles.containers;
+
+import warehouse.tiles.EmptyTile;
+import warehouse.tiles.Tile;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A TileContainer that keeps a Tile object for every tile index.
+ */
+public class InMemoryTileContainer implements TileContainer {
+    private final List<Tile> tiles;
+
+    /**
+     * Construct an InMemoryTileContainer filled with EmptyTiles.
+     * @param size The number of Tiles.
+     */
+    public InMemoryTileContainer(int size) {
+        tiles = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            tiles.add(new EmptyTile(i));
+        }
+    }
+
+    @Override
+    public Tile get(int index) {
+        return tiles.get(index);
+    }
+
+    @Override
+    public Tile set(int index, Tile tile) {
+        return tiles.set(index, tile);
+    }
+
+    @Override
+    public int getSize() {
+        return tiles.size();
+    }
+}
@@ -0,0 +1,47 @@
+package warehouse.tiles.containers;
+
+import warehouse.tiles.EmptyTile;
+import warehouse.tiles.Tile;
+
+import java.util.stream.IntStream;
+
+/**
+ * The underlying container for the Tiles of a WarehouseLayout, indexed by tile index.
+ */
+public interface TileContainer {
+    /**
+     * Get the Tile at the given tile index.
+     * @param index The tile index, in the range [0, getSize()).
+     * @return the Tile at the given tile index. Containers may return a new but equal EmptyTile on every call.
+     */
+    Tile get(int index);
+
+    /**
+     * Set the Tile at the given tile index.
+     * @param index The tile index, in the range [0, getSize()).
+     * @param tile The new Tile.
+     * @return the previous Tile at the given tile index.
+     */
+    Tile set(int index, Tile tile);
+
+    /**
+     * Get the class of the Tile at the given tile index, without creating a Tile object.
+     * @param index The tile index, in the range [0, getSize()).
+     */
+    default Class<? extends Tile> getTileClass(int index) {
+        return get(index).getClass();
+    }
+
+    /**
+     * Stream the tile indices of the Tiles that are not EmptyTiles.
+     * @return the tile indices, in increasing order.
+     */
+    default IntStream streamOccupiedIndices() {
+        return IntStream.range(0, getSize()).filter(i -> getTileClass(i) != EmptyTile.class);
+    }
+
+    /**
+     * Get the number of Tiles in this container.
+     */
+    int getSize();
+}
@@ -0,0 +1,154 @@
+package metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test the metrics package.
+ */
+public class MetricsTest {
+    /**
+     * Test that percentiles are within the precision of the histogram, and that small values are exact.
+     */
+    @Test
+    public void testLatencyHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getValueAtPercentile(50));
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value * 1000);
+        }
+        assertEquals(100_000, histogram.getCount());
+        assertEquals(1000, histogram.getMin());
+        assertEquals(100_000_000, histogram.getMax());
+        assertEquals(50_000_500, histogram.getMean(), 1e-6);
+        for (double percentile : new double[] {1, 50, 90, 99, 99.9}) {
+            double expected = percentile * 1_000_000;
+            long actual = histogram.getValueAtPercentile(percentile);
+            assertTrue(actual >= expected && actual <= expected * (1 + 1.0 / 64), percentile + ": " + actual);
+        }
+        assertEquals(100_000_000, histogram.getValueAtPercentile(100));
+
+        LatencyHistogram small = new LatencyHistogram();
+        small.record(3);
+        small.record(5);
+        small.record(-1);
+        small.record(Long.MAX_VALUE);
+        assertEquals(0, small.getValueAtPercentile(0));
+        assertEquals(3, small.getValueAtPercentile(50));
+        assertEquals(5, small.getValueAtPercentile(75));
+        assertEquals(Long.MAX_VALUE, small.getValueAtPercentile(100));
+
+        LatencyHistogram copy = histogram.copy();
+        copy.add(small);
+        assertEquals(100_004, copy.getCount());
+        assertEquals(100_000, histogram.getCount());
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertThrows(IllegalArgumentException.class, () -> histogram.getValueAtPercentile(101));
+    }
+
+    /**
+     * Test that a RollingLatencyHistogram only reports the durations recorded in the current window.
+     */
+    @Test
+    public void testRollingLatencyHistogram() {
+        RollingLatencyHistogram histogram = new RollingLatencyHistogram(100, 4);
+        assertEquals(25, histogram.getSlotLength());
+        histogram.record(0, 1);
+        histogram.record(30, 2);
+        histogram.record(99, 3);
+        assertEquals(3, histogram.getHistogram(99).getCount());
+        assertEquals(0, histogram.getWindowStart(99));
+        // The first slot leaves the window, and is cleared when it is reused
+        assertEquals(2, histogram.getHistogram(100).getCount());
+        assertEquals(25, histogram.getWindowStart(100));
+        histogram.record(110, 4);
+        assertEquals(3, histogram.getHistogram(110).getCount());
+        assertEquals(4, histogram.getHistogram(110).getMax());
+        assertEquals(0, histogram.getHistogram(1000).getCount());
+        histogram.reset();
+        assertEquals(0, histogram.getHistogram(110).getCount());
+        assertThrows(IllegalArgumentException.class, () -> new RollingLatencyHistogram(100, 0));
+        assertThrows(IllegalArgumentException.class, () -> new RollingLatencyHistogram(3, 4));
+    }
+
+    /**
+     * Test that nothing is recorded while a registry is disabled, and that snapshots do not change afterwards.
+     */
+    @Test
+    public void testRegistry() {
+        MetricsRegistry registry = new MetricsRegistry();
+        Timer timer = registry.timer("phase");
+        Counter counter = registry.counter("events");
+        int[] gauge = {4};
+        registry.gauge("level", () -> gauge[0]);
+        assertSame(timer, registry.timer("phase"));
+        assertSame(counter, registry.counter("events"));
+
+        assertFalse(registry.isEnabled());
+        timer.stop(timer.start());
+        timer.record(10);
+        counter.increment();
+        assertEquals(0, timer.getHistogram().getCount());
+        assertEquals(0, counter.getCount());
+
+        registry.setEnabled(true);
+        timer.stop(timer.start());
+        timer.record(10);
+        counter.add(3);
+        MetricsSnapshot snapshot = registry.snapshot();
+        timer.record(20);
+        gauge[0] = 5;
+        assertEquals(2, snapshot.getHistogram("phase").getCount());
+        assertEquals(3, snapshot.getCounter("events"));
+        assertEquals(4, snapshot.getGauge("level"));
+        assertNull(snapshot.getHistogram("missing"));
+        assertEquals(0, snapshot.getCounter("missing"));
+        assertTrue(Double.isNaN(snapshot.getGauge("missing")));
+
+        registry.reset();
+        assertEquals(0, registry.snapshot().getHistogram("phase").getCount());
+        assertEquals(0, registry.snapshot().getCounter("events"));
+        assertEquals(5, registry.snapshot().getGauge("level"));
+    }
+
+    /**
+     * Test that exporters receive every exported snapshot.
+     */
+    @Test
+    public void testExporters() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.setEnabled(true);
+        registry.timer("phase").record(1500);
+        registry.counter("events").increment();
+        registry.gauge("level", () -> 0.5);
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        SnapshotMetricsExporter snapshotExporter = new SnapshotMetricsExporter();
+        registry.addExporter(new LogMetricsExporter(new PrintStream(log, true)));
+        registry.addExporter(new CsvMetricsExporter(new PrintStream(csv, true)));
+        registry.addExporter(snapshotExporter);
+        assertNull(snapshotExporter.getLatest());
+
+        MetricsSnapshot first = registry.export();
+        registry.counter("events").increment();
+        registry.export();
+
+        assertNotSame(first, snapshotExporter.getLatest());
+        assertEquals(2, snapshotExporter.getLatest().getCounter("events"));
+        String[] logLines = log.toString().split("\\R");
+        assertEquals(2, logLines.length);
+        assertTrue(logLines[0].contains("phase[n=1 p50=1.50us"), logLines[0]);
+        assertTrue(logLines[1].contains("events=2 level=0.500"), logLines[1]);
+        String[] rows = csv.toString().split("\\R");
+        assertEquals(3, rows.length);
+        assertTrue(rows[0].startsWith("elapsed_s,phase_count,phase_p50_ns,phase_p90_ns,phase_p99_ns,phase_max_ns,"
+                + "events,level"), rows[0]);
+        assertTrue(rows[2].endsWith(",1,1500,1500,1500,1500,2,0.5"), rows[2]);
+    }
+}
@@ -1,7 +1,16 @@
 package utils;
 
 import org.junit.jupiter.api.Test;
-import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
 
 public class UtilsTest {
     @Test
@@ -11,4 +20,178 @@ public class UtilsTest {
         assertEquals(1, p.getFirst());
         assertEquals("hello", p.getSecond());
     }
+
+    /**
+     * Test that the IndexedMinHeap polls keys in priority order, and supports decrease-key and reuse after clearing.
+     */
+    @Test
+    public void testIndexedMinHeap() {
+        IndexedMinHeap heap = new IndexedMinHeap(4);
+        assertTrue(heap.insertOrDecrease(0, 5));
+        assertTrue(heap.insertOrDecrease(1, 3));
+        assertTrue(heap.insertOrDecrease(2, 4));
+        // Raising a priority is ignored, lowering it moves the key forward
+        assertFalse(heap.insertOrDecrease(0, 6));
+        assertTrue(heap.insertOrDecrease(0, 1));
+        assertEquals(1.0, heap.getPriority(0));
+        assertEquals(3, heap.size());
+        assertEquals(0, heap.poll());
+        assertFalse(heap.contains(0));
+        assertEquals(1, heap.poll());
+        assertEquals(2, heap.poll());
+        assertTrue(heap.isEmpty());
+        assertThrows(NoSuchElementException.class, heap::poll);
+
+        heap.insertOrDecrease(3, 2);
+        heap.clear();
+        assertFalse(heap.contains(3));
+        heap.ensureCapacity(10);
+        heap.insertOrDecrease(9, 1);
+        assertEquals(9, heap.peek());
+        assertThrows(IllegalArgumentException.class, () -> heap.insertOrDecrease(10, 1));
+    }
+
+    /**
+     * Test that the IntMinHeap polls values in priority order, keeps duplicate values, and grows as needed.
+     */
+    @Test
+    public void testIntMinHeap() {
+        IntMinHeap heap = new IntMinHeap();
+        Random random = new Random(7);
+        List<Double> expected = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            double priority = random.nextInt(50);
+            heap.insert(i % 10, priority);
+            expected.add(priority);
+        }
+        Collections.sort(expected);
+        assertEquals(100, heap.size());
+        assertTrue(heap.getCapacity() >= 100);
+        for (double priority : expected) {
+            assertEquals(priority, heap.peekPriority());
+            heap.poll();
+        }
+        assertTrue(heap.isEmpty());
+        assertThrows(NoSuchElementException.class, heap::poll);
+
+        heap.insert(3, 2);
+        heap.insert(3, 1);
+        heap.insert(4, 1.5);
+        assertEquals(3, heap.poll());
+        assertEquals(4, heap.poll());
+        assertEquals(3, heap.poll());
+        heap.insert(5, 0);
+        heap.clear();
+        assertTrue(heap.isEmpty());
+    }
+
+    /**
+     * Test that the LongIntHashMap agrees with a HashMap under random puts and removes, including removes that shift
+     * colliding entries back.
+     */
+    @Test
+    public void testLongIntHashMap() {
+        LongIntHashMap map = new LongIntHashMap();
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(3);
+        for (int i = 0; i < 20000; i++) {
+            long key = random.nextInt(500) * 1024L;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key) != null, map.remove(key));
+            } else {
+                map.put(key, i);
+                expected.put(key, i);
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        for (long key = 0; key < 500 * 1024L; key += 1024) {
+            assertEquals(expected.getOrDefault(key, -1), map.getOrDefault(key, -1));
+            assertEquals(expected.containsKey(key), map.containsKey(key));
+        }
+        assertThrows(IllegalArgumentException.class, () -> map.put(Long.MIN_VALUE, 0));
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertFalse(map.containsKey(0));
+    }
+
+    /**
+     * Test that the HungarianAlgorithm finds assignments as cheap as those found by trying every assignment.
+     */
+    @Test
+    public void testHungarianAlgorithm() {
+        Random random = new Random(42);
+        for (int trial = 0; trial < 50; trial++) {
+            int n = 1 + random.nextInt(5);
+            int m = n + random.nextInt(3);
+            double[][] costs = new double[n][m];
+            for (double[] row : costs) {
+                for (int j = 0; j < m; j++) {
+                    row[j] = random.nextInt(20);
+                }
+            }
+            int[] assignment = HungarianAlgorithm.solve(costs);
+            boolean[] used = new boolean[m];
+            double total = 0;
+            for (int i = 0; i < n; i++) {
+                assertFalse(used[assignment[i]]);
+                used[assignment[i]] = true;
+                total += costs[i][assignment[i]];
+            }
+            assertEquals(getMinimumCost(costs, 0, new boolean[m]), total, 1e-9);
+        }
+
+        assertEquals(0, HungarianAlgorithm.solve(new double[0][0]).length);
+        assertThrows(IllegalArgumentException.class, () -> HungarianAlgorithm.solve(new double[2][1]));
+        assertThrows(IllegalArgumentException.class,
+                () -> HungarianAlgorithm.solve(new double[][] {{0, Double.POSITIVE_INFINITY}}));
+    }
+
+    /**
+     * Test that the ZipfDistribution draws ranks with the expected frequencies, and is uniform with an exponent of 0.
+     */
+    @Test
+    public void testZipfDistribution() {
+        ZipfDistribution zipf = new ZipfDistribution(10, 1);
+        double harmonic = 0;
+        for (int k = 1; k <= 10; k++) {
+            harmonic += 1.0 / k;
+        }
+        assertEquals(1 / harmonic, zipf.getProbability(0), 1e-9);
+        assertEquals(0.5 / harmonic, zipf.getProbability(1), 1e-9);
+
+        Random random = new Random(42);
+        int[] counts = new int[10];
+        for (int i = 0; i < 100000; i++) {
+            counts[zipf.sample(random)]++;
+        }
+        for (int k = 0; k < 10; k++) {
+            assertEquals(zipf.getProbability(k), counts[k] / 100000.0, 0.01);
+        }
+
+        ZipfDistribution uniform = new ZipfDistribution(4, 0);
+        for (int k = 0; k < 4; k++) {
+            assertEquals(0.25, uniform.getProbability(k), 1e-9);
+        }
+        assertEquals(0, new ZipfDistribution(1, 2).sample(random));
+        assertThrows(IllegalArgumentException.class, () -> new ZipfDistribution(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new ZipfDistribution(3, -1));
+    }
+
+    /**
+     * Get the minimum cost of assigning the rows from the given row onwards to unused columns, by trying every
+     * assignment.
+     */
+    private static double getMinimumCost(double[][] costs, int row, boolean[] used) {
+        if (row == costs.length) {
+            return 0;
+        }
+        double minimum = Double.POSITIVE_INFINITY;
+        for (int j = 0; j < used.length; j++) {
+            if (used[j]) continue;
+            used[j] = true;
+            minimum = Math.min(minimum, costs[row][j] + getMinimumCost(costs, row + 1, used));
+            used[j] = false;
+        }
+        return minimum;
+    }
 }
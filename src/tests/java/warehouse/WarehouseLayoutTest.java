@@ -5,12 +5,15 @@ import warehouse.geometry.grid.GridWarehouseCoordinateSystem;
 import warehouse.geometry.grid.Point;
 import warehouse.tiles.EmptyTile;
 import warehouse.tiles.Rack;
+import warehouse.tiles.ReceiveDepot;
+import warehouse.tiles.StorageTile;
 import warehouse.tiles.Tile;
 
 import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -102,6 +105,39 @@ public class WarehouseLayoutTest {
         assertEquals(rack1, racks.get(2));
     }
 
+    /**
+     * Test that the per-type indices follow Tiles being replaced, for common types and types indexed on demand.
+     */
+    @Test
+    public void testStreamTilesOfType() {
+        WarehouseLayout<Point> warehouseLayout = new WarehouseLayout<>(
+                new GridWarehouseCoordinateSystem(10, 10));
+        assertEquals(100, warehouseLayout.countTilesOfType(EmptyTile.class));
+        Rack rack = new Rack();
+        ReceiveDepot receiveDepot = new ReceiveDepot();
+        warehouseLayout.setTileAt(new Point(5, 5), rack);
+        warehouseLayout.setTileAt(new Point(1, 0), receiveDepot);
+        assertEquals(98, warehouseLayout.countTilesOfType(EmptyTile.class));
+        // Supertypes are found in order of tile index
+        assertEquals(List.of(receiveDepot, rack),
+                warehouseLayout.streamTilesOfType(StorageTile.class).collect(Collectors.toList()));
+        assertEquals(100, warehouseLayout.countTilesOfType(Tile.class));
+
+        // Replacing a Tile moves it between types, including types indexed after the layout was built
+        warehouseLayout.setTileAt(new Point(5, 5), new EmptyTile());
+        assertEquals(0, warehouseLayout.countTilesOfType(Rack.class));
+        assertEquals(List.of(receiveDepot), warehouseLayout.findTilesOfType(StorageTile.class));
+        warehouseLayout.setTileAt(new Point(1, 0), new EmptyTile());
+        assertEquals(100, warehouseLayout.countTilesOfType(Tile.class));
+        assertEquals(100, warehouseLayout.streamTilesOfType(EmptyTile.class).count());
+
+        // The view reflects later changes, and cannot be changed itself
+        List<Tile> view = warehouseLayout.getTilesView();
+        warehouseLayout.setTileAt(new Point(0, 0), rack);
+        assertEquals(rack, view.get(0));
+        assertThrows(UnsupportedOperationException.class, () -> view.set(0, new EmptyTile()));
+    }
+
     @Test
     public void testIsEmpty() {
         WarehouseLayout<Point> warehouseLayout = new WarehouseLayout<>(
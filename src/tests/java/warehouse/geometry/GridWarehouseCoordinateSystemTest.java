@@ -0,0 +1,142 @@
+package warehouse.geometry;
+
+import org.junit.jupiter.api.Test;
+import warehouse.geometry.grid.GridDistanceMetric;
+import warehouse.geometry.grid.GridWarehouseCoordinateSystem;
+import warehouse.geometry.grid.Point;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the GridWarehouseCoordinateSystem.
+ */
+public class GridWarehouseCoordinateSystemTest {
+    /**
+     * The index-based neighbour methods should agree with the neighbours found through Points, for every tile of a
+     * small grid (corners, edges and interior), with and without diagonal neighbours.
+     */
+    @Test
+    public void testNeighbourIndicesMatchPoints() {
+        for (boolean diagonals : new boolean[] {false, true}) {
+            GridWarehouseCoordinateSystem coordinateSystem = new GridWarehouseCoordinateSystem(4, 3, diagonals);
+            assertEquals(diagonals ? 8 : 4, coordinateSystem.getMaxNeighbourCount());
+            int[] buffer = new int[coordinateSystem.getMaxNeighbourCount()];
+            for (int index = 0; index < coordinateSystem.getSize(); index++) {
+                List<Integer> expected = new ArrayList<>();
+                List<Integer> expectedValid = new ArrayList<>();
+                Point point = coordinateSystem.projectIndexToCoordinate(index);
+                for (Point neighbour : coordinateSystem.getNeighbours(point)) {
+                    int neighbourIndex = neighbour == null ? -1 : coordinateSystem.projectCoordinateToIndex(neighbour);
+                    expected.add(neighbourIndex);
+                    if (neighbourIndex != -1) {
+                        expectedValid.add(neighbourIndex);
+                    }
+                }
+                assertEquals(expected, coordinateSystem.getNeighbours(index));
+
+                int count = coordinateSystem.getNeighbours(index, buffer);
+                List<Integer> written = new ArrayList<>();
+                for (int k = 0; k < count; k++) {
+                    written.add(buffer[k]);
+                }
+                assertEquals(expectedValid, written);
+
+                List<Integer> visited = new ArrayList<>();
+                coordinateSystem.forEachNeighbour(index, visited::add);
+                assertEquals(expectedValid, visited);
+            }
+        }
+    }
+
+    /**
+     * Corner tiles should only have the neighbours inside the grid, and indices outside the grid have none.
+     */
+    @Test
+    public void testBorderNeighbours() {
+        GridWarehouseCoordinateSystem coordinateSystem = new GridWarehouseCoordinateSystem(5, 5, true);
+        int[] buffer = new int[coordinateSystem.getMaxNeighbourCount()];
+        // The top-left corner has an east, south and south-east neighbour
+        assertEquals(3, coordinateSystem.getNeighbours(0, buffer));
+        assertArrayEquals(new int[] {1, 5, 6}, new int[] {buffer[0], buffer[1], buffer[2]});
+        // An interior tile has all 8 neighbours
+        assertEquals(8, coordinateSystem.getNeighbours(12, buffer));
+        // Indices outside the grid have no neighbours
+        assertEquals(0, coordinateSystem.getNeighbours(-1, buffer));
+        assertEquals(0, coordinateSystem.getNeighbours(25, buffer));
+        assertTrue(coordinateSystem.getNeighbours(25).isEmpty());
+    }
+
+    /**
+     * Each metric should give the expected distance between two tiles, and the index-based distances should agree
+     * with the distances between Points.
+     */
+    @Test
+    public void testDistanceMetrics() {
+        GridWarehouseCoordinateSystem coordinateSystem = new GridWarehouseCoordinateSystem(10, 10);
+        int from = coordinateSystem.projectCoordinateToIndex(new Point(1, 2));
+        int to = coordinateSystem.projectCoordinateToIndex(new Point(4, 6));
+        assertEquals(5, coordinateSystem.getDistance(from, to, GridDistanceMetric.EUCLIDEAN), 1e-9);
+        assertEquals(25, coordinateSystem.getDistance(from, to, GridDistanceMetric.SQUARED_EUCLIDEAN), 1e-9);
+        assertEquals(7, coordinateSystem.getDistance(from, to, GridDistanceMetric.MANHATTAN), 1e-9);
+        assertEquals(3 * Math.sqrt(2) + 1, coordinateSystem.getDistance(from, to, GridDistanceMetric.OCTILE), 1e-9);
+        assertEquals(4, coordinateSystem.getDistance(from, to, GridDistanceMetric.CHEBYSHEV), 1e-9);
+        // Metrics are symmetric
+        for (GridDistanceMetric metric : GridDistanceMetric.values()) {
+            assertEquals(coordinateSystem.getDistance(from, to, metric),
+                    coordinateSystem.getDistance(to, from, metric));
+        }
+        assertEquals(coordinateSystem.getDistance(new Point(1, 2), new Point(4, 6)),
+                coordinateSystem.getDistance(from, to));
+    }
+
+    /**
+     * The heuristic distance should be the Manhattan distance with cardinal neighbours only, and the octile distance
+     * with diagonal neighbours, and should equal the distance between neighbouring tiles.
+     */
+    @Test
+    public void testHeuristicDistance() {
+        GridWarehouseCoordinateSystem cardinal = new GridWarehouseCoordinateSystem(10, 10, false);
+        GridWarehouseCoordinateSystem diagonal = new GridWarehouseCoordinateSystem(10, 10, true);
+        assertEquals(GridDistanceMetric.MANHATTAN, cardinal.getHeuristicMetric());
+        assertEquals(GridDistanceMetric.OCTILE, diagonal.getHeuristicMetric());
+        assertEquals(7, cardinal.getHeuristicDistance(12, 46), 1e-9);
+        assertEquals(3 * Math.sqrt(2) + 1, diagonal.getHeuristicDistance(12, 46), 1e-9);
+
+        for (GridWarehouseCoordinateSystem coordinateSystem : List.of(cardinal, diagonal)) {
+            for (int neighbour : coordinateSystem.getNeighbours(55)) {
+                assertEquals(coordinateSystem.getDistance(55, neighbour),
+                        coordinateSystem.getHeuristicDistance(55, neighbour));
+            }
+        }
+    }
+
+    /**
+     * With the Point cache on, projecting the same tile index twice should give the same Point; with it off, equal
+     * but distinct Points.
+     */
+    @Test
+    public void testPointCache() {
+        GridWarehouseCoordinateSystem cached = new GridWarehouseCoordinateSystem(10, 10, false, true);
+        GridWarehouseCoordinateSystem uncached = new GridWarehouseCoordinateSystem(10, 10, false, false);
+        assertTrue(cached.isPointCacheEnabled());
+        assertFalse(uncached.isPointCacheEnabled());
+        // Small grids cache Points by default
+        assertTrue(new GridWarehouseCoordinateSystem(10, 10).isPointCacheEnabled());
+
+        Point point = cached.projectIndexToCoordinate(37);
+        assertEquals(new Point(7, 3), point);
+        assertSame(point, cached.projectIndexToCoordinate(37));
+        assertSame(point, cached.getPoint(7, 3));
+        assertSame(point, cached.getNeighbours(new Point(7, 2)).get(2));
+        assertNull(cached.projectIndexToCoordinate(100));
+        // Positions outside the grid still give a Point
+        assertEquals(new Point(-1, 3), cached.getPoint(-1, 3));
+
+        Point uncachedPoint = uncached.projectIndexToCoordinate(37);
+        assertEquals(point, uncachedPoint);
+        assertNotSame(uncachedPoint, uncached.projectIndexToCoordinate(37));
+    }
+}
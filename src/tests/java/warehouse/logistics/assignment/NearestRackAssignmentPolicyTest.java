@@ -0,0 +1,95 @@
+package warehouse.logistics.assignment;
+
+import org.junit.jupiter.api.Test;
+import warehouse.WarehouseLayout;
+import warehouse.WarehouseState;
+import warehouse.geometry.grid.GridWarehouseCoordinateSystem;
+import warehouse.geometry.grid.Point;
+import warehouse.inventory.Item;
+import warehouse.inventory.Part;
+import warehouse.inventory.PartCatalogue;
+import warehouse.logistics.orders.OrderQueue;
+import warehouse.robots.RobotMapper;
+import warehouse.tiles.Rack;
+import warehouse.tiles.ReceiveDepot;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test the NearestRackAssignmentPolicy class.
+ */
+public class NearestRackAssignmentPolicyTest {
+    /**
+     * Test that the nearest Rack that can store an Item is preferred, and that the fallback policy is used otherwise.
+     */
+    @Test
+    public void testAssign() {
+        GridWarehouseCoordinateSystem coordinateSystem = new GridWarehouseCoordinateSystem(8, 3);
+        WarehouseLayout<Point> layout = new WarehouseLayout<>(coordinateSystem);
+        WarehouseState<GridWarehouseCoordinateSystem, Point> state = new WarehouseState<>(
+                new PartCatalogue(),
+                coordinateSystem,
+                layout,
+                new RobotMapper<>(coordinateSystem),
+                null,
+                new OrderQueue()
+        );
+        ReceiveDepot depot = new ReceiveDepot();
+        Rack far = new Rack(-1, 1);
+        Rack near = new Rack(-1, 1);
+        layout.setTileAt(new Point(7, 1), depot);
+        layout.setTileAt(new Point(0, 1), far);
+        layout.setTileAt(new Point(5, 1), near);
+        NearestRackAssignmentPolicy policy = new NearestRackAssignmentPolicy(state.getKeyTileDistanceTable(), layout,
+                new BasicRackAssignmentPolicy());
+
+        Part cucumber = new Part("Cucumber", "A vegetable");
+        assertEquals(near, policy.assign(layout, new Item(cucumber), depot));
+        // Without an origin, the fallback policy picks the first Rack
+        assertEquals(far, policy.assign(layout, new Item(cucumber)));
+        assertEquals(far, policy.assign(layout, new Item(cucumber), null));
+
+        // A full Rack is skipped
+        near.receiveItem(new Item(cucumber));
+        assertEquals(far, policy.assign(layout, new Item(cucumber), depot));
+        far.receiveItem(new Item(cucumber));
+        assertNull(policy.assign(layout, new Item(cucumber), depot));
+        assertFalse(policy.isAssignable(layout, new Item(cucumber)));
+    }
+
+    /**
+     * Test that a supplied table is only created on the first lookup with an origin.
+     */
+    @Test
+    public void testLazyTable() {
+        GridWarehouseCoordinateSystem coordinateSystem = new GridWarehouseCoordinateSystem(8, 3);
+        WarehouseLayout<Point> layout = new WarehouseLayout<>(coordinateSystem);
+        WarehouseState<GridWarehouseCoordinateSystem, Point> state = new WarehouseState<>(
+                new PartCatalogue(),
+                coordinateSystem,
+                layout,
+                new RobotMapper<>(coordinateSystem),
+                null,
+                new OrderQueue()
+        );
+        ReceiveDepot depot = new ReceiveDepot();
+        Rack rack = new Rack(-1, 1);
+        layout.setTileAt(new Point(7, 1), depot);
+        layout.setTileAt(new Point(5, 1), rack);
+        AtomicInteger supplied = new AtomicInteger();
+        NearestRackAssignmentPolicy policy = new NearestRackAssignmentPolicy(() -> {
+            supplied.incrementAndGet();
+            return state.getKeyTileDistanceTable();
+        }, layout, new BasicRackAssignmentPolicy());
+
+        Part cucumber = new Part("Cucumber", "A vegetable");
+        assertEquals(rack, policy.assign(layout, new Item(cucumber)));
+        assertEquals(rack, policy.assign(layout, new Item(cucumber), null));
+        assertEquals(0, supplied.get());
+        assertEquals(rack, policy.assign(layout, new Item(cucumber), depot));
+        assertEquals(rack, policy.assign(layout, new Item(cucumber), depot));
+        assertEquals(1, supplied.get());
+    }
+}
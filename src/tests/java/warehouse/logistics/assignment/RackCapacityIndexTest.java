@@ -0,0 +1,84 @@
+package warehouse.logistics.assignment;
+
+import org.junit.jupiter.api.Test;
+import warehouse.WarehouseLayout;
+import warehouse.geometry.grid.GridWarehouseCoordinateSystem;
+import warehouse.geometry.grid.Point;
+import warehouse.inventory.Item;
+import warehouse.inventory.Part;
+import warehouse.storage.StorageUnit;
+import warehouse.storage.containers.InMemoryStorageUnitContainer;
+import warehouse.storage.strategies.MultiTypeStorageUnitStrategy;
+import warehouse.tiles.EmptyTile;
+import warehouse.tiles.Rack;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test the RackCapacityIndex and IndexedRackAssignmentPolicy classes.
+ */
+public class RackCapacityIndexTest {
+    /**
+     * Test that Racks are found by Part, and that the index follows Items being added and removed.
+     */
+    @Test
+    public void testFindRack() {
+        WarehouseLayout<Point> layout = new WarehouseLayout<>(new GridWarehouseCoordinateSystem(3, 1));
+        Rack first = new Rack(-1, 2);
+        Rack second = new Rack(-1, 2);
+        layout.setTileAt(new Point(0, 0), first);
+        RackCapacityIndex index = new RackCapacityIndex(layout);
+        // Racks set after the index is created are indexed too
+        layout.setTileAt(new Point(1, 0), second);
+
+        Part cucumber = new Part("Cucumber", "A vegetable");
+        Part banana = new Part("Banana", "A fruit");
+        assertEquals(first, index.findRack(new Item(cucumber)));
+        first.receiveItem(new Item(cucumber));
+        // Bananas go to the empty Rack, and cucumbers stay together
+        assertEquals(second, index.findRack(new Item(banana)));
+        second.receiveItem(new Item(banana));
+        assertEquals(first, index.findRack(new Item(cucumber)));
+        Item last = new Item(cucumber);
+        first.receiveItem(last);
+        // Both Racks are taken, and the cucumber Rack is full
+        assertNull(index.findRack(new Item(cucumber)));
+        assertEquals(second, index.findRack(new Item(banana)));
+
+        // Removing an Item frees up space
+        first.getStorageUnit().removeItem(last);
+        assertEquals(first, index.findRack(new Item(cucumber)));
+
+        // Removing a Rack from the layout removes it from the index
+        layout.setTileAt(new Point(0, 0), new EmptyTile());
+        assertNull(index.findRack(new Item(cucumber)));
+        index.dispose();
+    }
+
+    /**
+     * Test that Racks with other strategies are searched, and that the policy agrees with the basic policy on the
+     * indexed layout.
+     */
+    @Test
+    public void testIndexedRackAssignmentPolicy() {
+        WarehouseLayout<Point> layout = new WarehouseLayout<>(new GridWarehouseCoordinateSystem(2, 1));
+        Rack mixed = new Rack(-1, new StorageUnit(2, new MultiTypeStorageUnitStrategy(),
+                new InMemoryStorageUnitContainer()));
+        layout.setTileAt(new Point(0, 0), mixed);
+        IndexedRackAssignmentPolicy policy = new IndexedRackAssignmentPolicy(new RackCapacityIndex(layout));
+
+        Item cucumber = new Item(new Part("Cucumber", "A vegetable"));
+        Item banana = new Item(new Part("Banana", "A fruit"));
+        assertEquals(mixed, policy.assign(layout, cucumber));
+        mixed.receiveItem(cucumber);
+        mixed.receiveItem(banana);
+        assertFalse(policy.isAssignable(layout, banana));
+        assertFalse(new BasicRackAssignmentPolicy().isAssignable(layout, banana));
+
+        // Other layouts are searched in full
+        WarehouseLayout<Point> other = new WarehouseLayout<>(new GridWarehouseCoordinateSystem(1, 1));
+        Rack rack = new Rack();
+        other.setTileAt(new Point(0, 0), rack);
+        assertEquals(rack, policy.assign(other, banana));
+    }
+}
@@ -0,0 +1,119 @@
+package warehouse.logistics.optimization;
+
+import org.junit.jupiter.api.Test;
+import warehouse.WarehouseLayout;
+import warehouse.WarehouseState;
+import warehouse.geometry.grid.GridWarehouseCoordinateSystem;
+import warehouse.geometry.grid.Point;
+import warehouse.inventory.PartCatalogue;
+import warehouse.logistics.optimization.graph.TileGraph;
+import warehouse.logistics.optimization.graph.TileNode;
+import warehouse.logistics.optimization.routefinding.algorithms.CachingRoutefinder;
+import warehouse.logistics.optimization.routefinding.algorithms.GridAStarRoutefinder;
+import warehouse.logistics.orders.OrderQueue;
+import warehouse.robots.RobotMapper;
+import warehouse.tiles.Rack;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test the CachingRoutefinder class.
+ */
+public class CachingRoutefinderTest {
+    /**
+     * Test that a repeated route is returned from the cache, and that setting a Tile discards the cached routes.
+     */
+    @Test
+    public void testFindRoute() {
+        GridWarehouseCoordinateSystem coordinateSystem = new GridWarehouseCoordinateSystem(10, 10);
+        WarehouseState<GridWarehouseCoordinateSystem, Point> state = makeState(coordinateSystem);
+        WarehouseLayout<Point> layout = state.getLayout();
+        TileGraph graph = state.getRoutingGraph();
+        CachingRoutefinder routefinder = new CachingRoutefinder(new GridAStarRoutefinder(coordinateSystem), layout);
+
+        TileNode source = new TileNode(layout.getTileAt(new Point(0, 0)));
+        TileNode destination = new TileNode(layout.getTileAt(new Point(0, 4)));
+        List<TileNode> route = routefinder.findRoute(graph, source, destination);
+        assertEquals(4, route.size());
+        assertEquals(0, routefinder.getHitCount());
+        assertEquals(1, routefinder.getMissCount());
+
+        // Callers may change the routes they are given without changing the cache
+        route.clear();
+        List<TileNode> repeated = routefinder.findRoute(graph, source, destination);
+        assertEquals(4, repeated.size());
+        assertEquals(destination.getTile(), repeated.get(3).getTile());
+        assertEquals(1, routefinder.getHitCount());
+        assertEquals(1, routefinder.getMissCount());
+        assertEquals(1, routefinder.size());
+
+        // Blocking the straight route makes the cached route invalid
+        long version = layout.getVersion();
+        layout.setTileAt(new Point(0, 2), new Rack());
+        assertEquals(version + 1, layout.getVersion());
+        List<TileNode> detour = routefinder.findRoute(state.getRoutingGraph(), source, destination);
+        assertTrue(detour.size() > 4);
+        for (TileNode node : detour) {
+            assertNotEquals(coordinateSystem.projectCoordinateToIndex(new Point(0, 2)), node.getTile().getIndex());
+        }
+        assertEquals(1, routefinder.getHitCount());
+        assertEquals(2, routefinder.getMissCount());
+    }
+
+    /**
+     * Test that missing routes are cached too, and that the least recently used route is evicted.
+     */
+    @Test
+    public void testEviction() {
+        GridWarehouseCoordinateSystem coordinateSystem = new GridWarehouseCoordinateSystem(5, 5);
+        WarehouseState<GridWarehouseCoordinateSystem, Point> state = makeState(coordinateSystem);
+        WarehouseLayout<Point> layout = state.getLayout();
+        // Wall off the right-hand column
+        for (int y = 0; y < 5; y++) {
+            layout.setTileAt(new Point(3, y), new Rack());
+        }
+        TileGraph graph = state.getRoutingGraph();
+        CachingRoutefinder routefinder = new CachingRoutefinder(new GridAStarRoutefinder(coordinateSystem), layout, 2);
+
+        TileNode a = new TileNode(layout.getTileAt(new Point(0, 0)));
+        TileNode b = new TileNode(layout.getTileAt(new Point(2, 2)));
+        TileNode unreachable = new TileNode(layout.getTileAt(new Point(4, 4)));
+        assertNull(routefinder.findRoute(graph, a, unreachable));
+        assertNull(routefinder.findRoute(graph, a, unreachable));
+        assertEquals(1, routefinder.getHitCount());
+
+        routefinder.findRoute(graph, a, b);
+        // Use the missing route, so that the route from a to b is the least recently used
+        routefinder.findRoute(graph, a, unreachable);
+        routefinder.findRoute(graph, b, a);
+        assertEquals(2, routefinder.size());
+        assertEquals(2, routefinder.getHitCount());
+        assertNull(routefinder.findRoute(graph, a, unreachable));
+        assertEquals(3, routefinder.getHitCount());
+        routefinder.findRoute(graph, a, b);
+        assertEquals(3, routefinder.getHitCount());
+        assertEquals(4, routefinder.getMissCount());
+
+        routefinder.clear();
+        assertEquals(0, routefinder.size());
+        assertThrows(IllegalArgumentException.class,
+                () -> new CachingRoutefinder(new GridAStarRoutefinder(coordinateSystem), layout, 0));
+    }
+
+    /**
+     * Create an empty warehouse state with the given coordinate system.
+     */
+    private static WarehouseState<GridWarehouseCoordinateSystem, Point> makeState(
+            GridWarehouseCoordinateSystem coordinateSystem) {
+        return new WarehouseState<>(
+                new PartCatalogue(),
+                coordinateSystem,
+                new WarehouseLayout<>(coordinateSystem),
+                new RobotMapper<>(coordinateSystem),
+                null,
+                new OrderQueue()
+        );
+    }
+}
@@ -0,0 +1,279 @@
+package warehouse.logistics.optimization;
+
+import org.junit.jupiter.api.Test;
+import warehouse.Warehouse;
+import warehouse.WarehouseLayout;
+import warehouse.WarehouseState;
+import warehouse.geometry.grid.GridWarehouseCoordinateSystem;
+import warehouse.geometry.grid.Point;
+import warehouse.inventory.PartCatalogue;
+import warehouse.logistics.optimization.routefinding.cooperative.ConflictBasedSearch;
+import warehouse.logistics.optimization.routefinding.cooperative.MultiAgentPlan;
+import warehouse.logistics.orders.BatchOrderMatchingStrategy;
+import warehouse.logistics.orders.NavigateOrder;
+import warehouse.logistics.orders.OrderMatcher;
+import warehouse.logistics.orders.OrderQueue;
+import warehouse.robots.Robot;
+import warehouse.robots.RobotMapper;
+import warehouse.tiles.Rack;
+import warehouse.tiles.Tile;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test the ConflictBasedSearch class.
+ */
+public class ConflictBasedSearchTest {
+    /**
+     * Two agents swap ends of a corridor with a single passing bay. Planned independently they collide, so the joint
+     * plan must send one of them into the bay, which costs more than planning independently.
+     */
+    @Test
+    public void testCorridorSwap() {
+        GridWarehouseCoordinateSystem coordinateSystem = new GridWarehouseCoordinateSystem(7, 3);
+        WarehouseState<GridWarehouseCoordinateSystem, Point> state = makeCorridor(coordinateSystem);
+        int[] starts = {
+                coordinateSystem.projectCoordinateToIndex(new Point(0, 1)),
+                coordinateSystem.projectCoordinateToIndex(new Point(6, 1))
+        };
+        int[] goals = {starts[1], starts[0]};
+
+        ConflictBasedSearch<GridWarehouseCoordinateSystem, Point> search = new ConflictBasedSearch<>(state);
+        MultiAgentPlan plan = search.solve(starts, goals);
+        assertFalse(plan.isFallback());
+        assertEquals(1, plan.getSuboptimalityBound());
+        assertEquals(0, plan.getFailedAgentCount());
+        assertValidPlan(state, plan, starts, goals);
+        assertEquals(12, plan.getIndependentSumOfCosts());
+        assertEquals(6, plan.getIndependentMakespan());
+        assertTrue(plan.getSumOfCosts() > plan.getIndependentSumOfCosts());
+        assertEquals(plan.getSumOfCosts(), plan.getRoute(0).size() + plan.getRoute(1).size() - 2);
+        assertTrue(plan.getExpandedNodeCount() > 1);
+    }
+
+    /**
+     * With no time budget, the joint search gives up at once and the agents are planned one at a time, which still
+     * gives collision-free routes.
+     */
+    @Test
+    public void testFallback() {
+        GridWarehouseCoordinateSystem coordinateSystem = new GridWarehouseCoordinateSystem(7, 3);
+        WarehouseState<GridWarehouseCoordinateSystem, Point> state = makeCorridor(coordinateSystem);
+        int[] starts = {
+                coordinateSystem.projectCoordinateToIndex(new Point(0, 1)),
+                coordinateSystem.projectCoordinateToIndex(new Point(6, 1))
+        };
+        int[] goals = {starts[1], starts[0]};
+
+        MultiAgentPlan plan = new ConflictBasedSearch<>(state, 1, 0).solve(starts, goals);
+        assertTrue(plan.isFallback());
+        assertEquals(Double.POSITIVE_INFINITY, plan.getSuboptimalityBound());
+        assertEquals(0, plan.getFailedAgentCount());
+        assertValidPlan(state, plan, starts, goals);
+    }
+
+    /**
+     * Plan random dense floors with no time budget, so that the agents are planned one at a time, and check that the
+     * plans are free of conflicts even when agents must wait for each other or find no route at all.
+     */
+    @Test
+    public void testFallbackDenseFloors() {
+        GridWarehouseCoordinateSystem coordinateSystem = new GridWarehouseCoordinateSystem(8, 8);
+        Random random = new Random(18);
+        for (int instance = 0; instance < 300; instance++) {
+            WarehouseState<GridWarehouseCoordinateSystem, Point> state = makeState(coordinateSystem);
+            List<Integer> tiles = new ArrayList<>();
+            for (int index = 0; index < coordinateSystem.getSize(); index++) {
+                tiles.add(index);
+            }
+            Collections.shuffle(tiles, random);
+            int rackCount = coordinateSystem.getSize() / 5;
+            for (int i = 0; i < rackCount; i++) {
+                state.getLayout().setTileAt(tiles.get(i), new Rack());
+            }
+            List<Integer> floor = new ArrayList<>(tiles.subList(rackCount, tiles.size()));
+            int[] starts = new int[12];
+            int[] goals = new int[12];
+            for (int agent = 0; agent < 12; agent++) {
+                starts[agent] = floor.get(agent);
+            }
+            Collections.shuffle(floor, random);
+            for (int agent = 0; agent < 12; agent++) {
+                goals[agent] = floor.get(agent);
+            }
+
+            MultiAgentPlan plan = new ConflictBasedSearch<>(state, 1, 0).solve(starts, goals);
+            assertTrue(plan.isFallback());
+            assertConflictFree(state, plan, starts);
+            int stuckCount = 0;
+            for (int agent = 0; agent < 12; agent++) {
+                List<Integer> route = plan.getRoute(agent);
+                int end = route.get(route.size() - 1);
+                if (end != goals[agent]) {
+                    assertEquals(starts[agent], end);
+                    stuckCount++;
+                }
+            }
+            assertEquals(stuckCount, plan.getFailedAgentCount());
+        }
+    }
+
+    /**
+     * Plan the Robots of a wave of 60 Orders matched in one call to OrderMatcher.match, with a bounded-suboptimal
+     * search, and check that every Robot reaches the first waypoint of its Order without a collision.
+     */
+    @Test
+    public void testOrderWave() throws InterruptedException {
+        GridWarehouseCoordinateSystem coordinateSystem = new GridWarehouseCoordinateSystem(20, 20);
+        WarehouseState<GridWarehouseCoordinateSystem, Point> state = makeState(coordinateSystem);
+        Warehouse<GridWarehouseCoordinateSystem, Point> warehouse = new Warehouse<>(state);
+        Random random = new Random(18);
+        List<Integer> tiles = new ArrayList<>();
+        for (int i = 0; i < coordinateSystem.getSize(); i++) {
+            tiles.add(i);
+        }
+        Collections.shuffle(tiles, random);
+        List<Integer> goals = new ArrayList<>(tiles);
+        Collections.shuffle(goals, random);
+
+        RobotMapper<Point> robotMapper = state.getRobotMapper();
+        for (int i = 0; i < 60; i++) {
+            robotMapper.addRobotAt(new Robot("robot" + i, null), tiles.get(i));
+            state.getOrderQueue().add(new WaypointOrder(state.getLayout().getTileAt(goals.get(i))));
+            Thread.sleep(1);
+        }
+
+        ConflictBasedSearch<GridWarehouseCoordinateSystem, Point> search = new ConflictBasedSearch<>(state, 1.5, 10000);
+        OrderMatcher matcher = warehouse.getOrderMatcher();
+        matcher.setMatchingStrategy(new BatchOrderMatchingStrategy(100));
+        List<MultiAgentPlan> plans = new ArrayList<>();
+        matcher.getOnMatched().addListener(orders -> plans.add(search.planOrders(orders)));
+        matcher.match();
+
+        assertEquals(1, plans.size());
+        MultiAgentPlan plan = plans.get(0);
+        assertEquals(60, plan.getAgentCount());
+        assertFalse(plan.isFallback());
+        int[] starts = new int[60];
+        int[] planGoals = new int[60];
+        for (int i = 0; i < 60; i++) {
+            Robot robot = plan.getRobots().get(i);
+            starts[i] = robotMapper.getRobotTileIndex(robot);
+            planGoals[i] = ((NavigateOrder) robot.getOrder()).getWaypoints().get(0).getIndex();
+            assertEquals(plan.getRoute(i), plan.getRoute(robot));
+        }
+        assertValidPlan(state, plan, starts, planGoals);
+        assertTrue(plan.getSumOfCosts() >= plan.getIndependentSumOfCosts());
+        assertTrue(plan.getMakespan() >= plan.getIndependentMakespan());
+        search.dispose();
+    }
+
+    /**
+     * Test that agents must have distinct starts and goals in the routing graph.
+     */
+    @Test
+    public void testInvalidAgents() {
+        GridWarehouseCoordinateSystem coordinateSystem = new GridWarehouseCoordinateSystem(4, 4);
+        WarehouseState<GridWarehouseCoordinateSystem, Point> state = makeState(coordinateSystem);
+        ConflictBasedSearch<GridWarehouseCoordinateSystem, Point> search = new ConflictBasedSearch<>(state);
+        assertThrows(IllegalArgumentException.class, () -> search.solve(new int[] {0, 1}, new int[] {5, 5}));
+        assertThrows(IllegalArgumentException.class, () -> search.solve(new int[] {0, 0}, new int[] {5, 6}));
+        assertThrows(IllegalArgumentException.class, () -> search.solve(new int[] {0}, new int[] {16}));
+        assertThrows(IllegalArgumentException.class, () -> search.solve(new int[] {0}, new int[] {}));
+        assertThrows(IllegalArgumentException.class, () -> new ConflictBasedSearch<>(state, 0.5, 100));
+        assertEquals(0, search.solve(new int[0], new int[0]).getAgentCount());
+    }
+
+    /**
+     * Assert that every route starts at its start, moves between connected tiles, ends at its goal, and that no two
+     * agents are on the same tile at the same time step or swap tiles.
+     */
+    private static void assertValidPlan(WarehouseState<GridWarehouseCoordinateSystem, Point> state,
+                                        MultiAgentPlan plan, int[] starts, int[] goals) {
+        for (int agent = 0; agent < plan.getAgentCount(); agent++) {
+            List<Integer> route = plan.getRoute(agent);
+            assertEquals(goals[agent], route.get(route.size() - 1));
+        }
+        assertConflictFree(state, plan, starts);
+    }
+
+    /**
+     * Assert that every route starts at its start and moves between connected tiles, and that no two agents are on
+     * the same tile at the same time step or swap tiles.
+     */
+    private static void assertConflictFree(WarehouseState<GridWarehouseCoordinateSystem, Point> state,
+                                           MultiAgentPlan plan, int[] starts) {
+        GridWarehouseCoordinateSystem coordinateSystem = state.getCoordinateSystem();
+        for (int agent = 0; agent < plan.getAgentCount(); agent++) {
+            List<Integer> route = plan.getRoute(agent);
+            assertEquals(starts[agent], route.get(0));
+            for (int t = 1; t < route.size(); t++) {
+                assertTrue(route.get(t).equals(route.get(t - 1))
+                        || coordinateSystem.getNeighbours(route.get(t - 1)).contains(route.get(t)));
+            }
+        }
+        for (int t = 0; t <= plan.getMakespan(); t++) {
+            Map<Integer, Integer> occupants = new HashMap<>();
+            for (int agent = 0; agent < plan.getAgentCount(); agent++) {
+                Integer other = occupants.put(plan.getPosition(agent, t), agent);
+                assertNull(other, String.format("Agents %s and %d on the same tile at %d", other, agent, t));
+                if (t == 0) continue;
+                for (int previous = 0; previous < agent; previous++) {
+                    boolean swapped = plan.getPosition(agent, t) == plan.getPosition(previous, t - 1)
+                            && plan.getPosition(previous, t) == plan.getPosition(agent, t - 1)
+                            && plan.getPosition(agent, t) != plan.getPosition(agent, t - 1);
+                    assertFalse(swapped, String.format("Agents %d and %d swapped at %d", previous, agent, t));
+                }
+            }
+        }
+    }
+
+    /**
+     * Make a corridor along the middle row of a 7x3 layout, with a passing bay above the second-to-last tile.
+     */
+    private static WarehouseState<GridWarehouseCoordinateSystem, Point> makeCorridor(
+            GridWarehouseCoordinateSystem coordinateSystem) {
+        WarehouseState<GridWarehouseCoordinateSystem, Point> state = makeState(coordinateSystem);
+        WarehouseLayout<Point> layout = state.getLayout();
+        for (int x = 0; x < 7; x++) {
+            if (x != 5) {
+                layout.setTileAt(new Point(x, 0), new Rack());
+            }
+            layout.setTileAt(new Point(x, 2), new Rack());
+        }
+        return state;
+    }
+
+    private static WarehouseState<GridWarehouseCoordinateSystem, Point> makeState(
+            GridWarehouseCoordinateSystem coordinateSystem) {
+        return new WarehouseState<>(
+                new PartCatalogue(),
+                coordinateSystem,
+                new WarehouseLayout<>(coordinateSystem),
+                new RobotMapper<>(coordinateSystem),
+                null,
+                new OrderQueue()
+        );
+    }
+
+    /**
+     * A NavigateOrder to a single Tile, which is always ready.
+     */
+    private static class WaypointOrder extends NavigateOrder {
+        WaypointOrder(Tile waypoint) {
+            super(new ArrayList<>(List.of(waypoint)));
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,331 @@
+package warehouse.logistics.optimization;
+
+import application.desktop.adapters.PhysicalGridRobotAdapterFactory;
+import org.junit.jupiter.api.Test;
+import warehouse.Warehouse;
+import warehouse.WarehouseLayout;
+import warehouse.WarehouseState;
+import warehouse.geometry.grid.GridWarehouseCoordinateSystem;
+import warehouse.geometry.grid.Point;
+import warehouse.inventory.PartCatalogue;
+import warehouse.logistics.optimization.routefinding.cooperative.CooperativePlanner;
+import warehouse.logistics.optimization.routefinding.cooperative.ReservationTable;
+import warehouse.logistics.orders.NavigateOrder;
+import warehouse.logistics.orders.Order;
+import warehouse.logistics.orders.OrderQueue;
+import warehouse.logistics.orders.OrderStatus;
+import warehouse.robots.Robot;
+import warehouse.robots.RobotMapper;
+import warehouse.simulation.SimulationEngine;
+import warehouse.tiles.Rack;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test the ReservationTable and CooperativePlanner classes.
+ */
+public class CooperativePlannerTest {
+    /**
+     * Test that slots can only be held by one agent, that parked agents hold their tile from the given time step, and
+     * that swapping tiles is a conflict.
+     */
+    @Test
+    public void testReservationTable() {
+        ReservationTable table = new ReservationTable(10);
+        assertTrue(table.reserve(3, 0, 0));
+        assertTrue(table.reserve(3, 0, 0));
+        assertFalse(table.reserve(3, 0, 1));
+        assertEquals(0, table.getReservation(3, 0));
+        assertEquals(ReservationTable.NO_AGENT, table.getReservation(3, 1));
+        assertThrows(IllegalArgumentException.class, () -> table.reserve(10, 0, 0));
+
+        // Agent 0 moves 3 -> 4 while agent 1 moves 4 -> 3: a swap
+        assertTrue(table.reserve(4, 1, 0));
+        assertTrue(table.reserve(4, 0, 1));
+        assertFalse(table.canMove(4, 3, 0, 1));
+        assertTrue(table.canMove(4, 5, 0, 1));
+
+        // Agent 1 cannot park on a tile agent 0 passes through later, but can park after it has passed
+        assertFalse(table.park(4, 0, 1));
+        assertTrue(table.park(4, 2, 1));
+        assertEquals(1, table.getReservation(4, 100));
+        assertEquals(0, table.getReservation(4, 1));
+        assertFalse(table.isFree(4, 5, 0));
+        assertEquals(4, table.getParkedTile(1));
+
+        table.prune(1);
+        assertEquals(ReservationTable.NO_AGENT, table.getReservation(3, 0));
+        assertEquals(0, table.getReservation(4, 1));
+        table.release(0);
+        assertEquals(0, table.getReservationCount());
+        assertEquals(1, table.getReservation(4, 2));
+        table.release(1);
+        assertEquals(-1, table.getParkedTile(1));
+        assertEquals(ReservationTable.NO_AGENT, table.getReservation(4, 2));
+    }
+
+    /**
+     * Two Robots swap ends of a corridor with a single passing bay next to the right end. The left Robot is given a
+     * goal first, so it has priority, and the right Robot must step into the bay to let it pass.
+     */
+    @Test
+    public void testCorridorSwap() {
+        GridWarehouseCoordinateSystem coordinateSystem = new GridWarehouseCoordinateSystem(7, 3);
+        WarehouseState<GridWarehouseCoordinateSystem, Point> state = makeState(coordinateSystem);
+        WarehouseLayout<Point> layout = state.getLayout();
+        for (int x = 0; x < 7; x++) {
+            if (x != 5) {
+                layout.setTileAt(new Point(x, 0), new Rack());
+            }
+            layout.setTileAt(new Point(x, 2), new Rack());
+        }
+        RobotMapper<Point> robotMapper = state.getRobotMapper();
+        Robot left = new Robot("left", null);
+        Robot right = new Robot("right", null);
+        robotMapper.addRobotAt(left, new Point(0, 1));
+        robotMapper.addRobotAt(right, new Point(6, 1));
+
+        CooperativePlanner<GridWarehouseCoordinateSystem, Point> planner = state.getCooperativePlanner();
+        planner.setGoal(left, coordinateSystem.projectCoordinateToIndex(new Point(6, 1)));
+        planner.setGoal(right, coordinateSystem.projectCoordinateToIndex(new Point(0, 1)));
+        List<Robot> robots = List.of(left, right);
+        for (int step = 0; step < 30; step++) {
+            Map<Robot, Integer> before = getPositions(robotMapper, robots);
+            planner.step();
+            assertNoConflicts(before, getPositions(robotMapper, robots));
+            for (Robot robot : robots) {
+                assertTrue(layout.isEmpty(layout.getTileAt(robotMapper.getRobotTileIndex(robot))));
+            }
+        }
+        assertEquals(new Point(6, 1), robotMapper.getRobotPosition(left));
+        assertEquals(new Point(0, 1), robotMapper.getRobotPosition(right));
+        assertEquals(List.of(robotMapper.getRobotTileIndex(left)), planner.getPlannedRoute(left));
+    }
+
+    /**
+     * A Robot whose route is blocked by a new Rack replans around it.
+     */
+    @Test
+    public void testReplanOnLayoutChange() {
+        GridWarehouseCoordinateSystem coordinateSystem = new GridWarehouseCoordinateSystem(8, 8);
+        WarehouseState<GridWarehouseCoordinateSystem, Point> state = makeState(coordinateSystem);
+        Robot robot = new Robot("robot", null);
+        state.getRobotMapper().addRobotAt(robot, new Point(0, 0));
+        CooperativePlanner<GridWarehouseCoordinateSystem, Point> planner = state.getCooperativePlanner();
+        planner.setGoal(robot, coordinateSystem.projectCoordinateToIndex(new Point(7, 0)));
+        planner.step();
+        List<Integer> route = planner.getPlannedRoute(robot);
+        int blocked = route.get(route.size() / 2);
+        state.getLayout().setTileAt(blocked, new Rack());
+
+        int replanCount = planner.getReplanCount();
+        for (int step = 0; step < 20; step++) {
+            planner.step();
+            assertNotEquals(blocked, state.getRobotMapper().getRobotTileIndex(robot));
+        }
+        assertTrue(planner.getReplanCount() > replanCount);
+        assertEquals(new Point(7, 0), state.getRobotMapper().getRobotPosition(robot));
+    }
+
+    /**
+     * Plan for 200 Robots crossing an open floor, checking that no two Robots ever share a tile or swap tiles, and
+     * that they reach their goals.
+     */
+    @Test
+    public void testManyRobots() {
+        GridWarehouseCoordinateSystem coordinateSystem = new GridWarehouseCoordinateSystem(40, 40);
+        WarehouseState<GridWarehouseCoordinateSystem, Point> state = makeState(coordinateSystem);
+        RobotMapper<Point> robotMapper = state.getRobotMapper();
+        Random random = new Random(17);
+        List<Integer> tiles = new ArrayList<>();
+        for (int i = 0; i < coordinateSystem.getSize(); i++) {
+            tiles.add(i);
+        }
+        Collections.shuffle(tiles, random);
+        List<Integer> goals = new ArrayList<>(tiles);
+        Collections.shuffle(goals, random);
+
+        List<Robot> robots = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            Robot robot = new Robot("robot" + i, null);
+            robotMapper.addRobotAt(robot, tiles.get(i));
+            robots.add(robot);
+        }
+        CooperativePlanner<GridWarehouseCoordinateSystem, Point> planner = state.getCooperativePlanner();
+        for (int i = 0; i < robots.size(); i++) {
+            planner.setGoal(robots.get(i), goals.get(i));
+        }
+
+        for (int step = 0; step < 120; step++) {
+            Map<Robot, Integer> before = getPositions(robotMapper, robots);
+            planner.step();
+            assertNoConflicts(before, getPositions(robotMapper, robots));
+        }
+        int arrived = 0;
+        for (Robot robot : robots) {
+            if (robotMapper.getRobotTileIndex(robot) == planner.getGoal(robot)) {
+                arrived++;
+            }
+        }
+        assertTrue(arrived >= 190, String.format("Only %d of 200 robots arrived", arrived));
+    }
+
+    /**
+     * Run a simulation with cooperative planning enabled, checking that the planner moves the Robots to the waypoints
+     * of their Orders without conflicts, and that their adapters do not move them or make them all replan.
+     */
+    @Test
+    public void testPlannedSimulation() {
+        GridWarehouseCoordinateSystem coordinateSystem = new GridWarehouseCoordinateSystem(20, 20);
+        WarehouseState<GridWarehouseCoordinateSystem, Point> state = new WarehouseState<>(
+                new PartCatalogue(),
+                coordinateSystem,
+                new WarehouseLayout<>(coordinateSystem),
+                new RobotMapper<>(coordinateSystem),
+                new PhysicalGridRobotAdapterFactory(),
+                new OrderQueue()
+        );
+        state.setCooperativePlanningEnabled(true);
+        RobotMapper<Point> robotMapper = state.getRobotMapper();
+        Random random = new Random(23);
+        List<Integer> tiles = new ArrayList<>();
+        for (int i = 0; i < coordinateSystem.getSize(); i++) {
+            tiles.add(i);
+        }
+        Collections.shuffle(tiles, random);
+
+        List<Robot> robots = new ArrayList<>();
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            Robot robot = new Robot("robot" + i, null);
+            robotMapper.addRobotAt(robot, tiles.get(i));
+            robots.add(robot);
+            Order order = new NavigateOrder(new ArrayList<>(List.of(state.getLayout().getTileAt(tiles.get(i + 30))))) {
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+            };
+            order.assign(robot);
+            orders.add(order);
+        }
+
+        SimulationEngine<GridWarehouseCoordinateSystem, Point> engine = new SimulationEngine<>(
+                new Warehouse<>(state), 0.1, 5);
+        List<Map<Robot, Integer>> positions = new ArrayList<>();
+        positions.add(getPositions(robotMapper, robots));
+        engine.getOnTick().addListener(e -> positions.add(getPositions(robotMapper, robots)));
+        engine.runUntil(e -> orders.stream().allMatch(order -> order.getStatus() == OrderStatus.COMPLETE), 1000);
+        for (int i = 1; i < positions.size(); i++) {
+            assertNoConflicts(positions.get(i - 1), positions.get(i));
+        }
+
+        CooperativePlanner<GridWarehouseCoordinateSystem, Point> planner = state.getCooperativePlanner();
+        assertTrue(orders.stream().allMatch(order -> order.getStatus() == OrderStatus.COMPLETE));
+        assertTrue(planner.getTime() > 0);
+        assertTrue(planner.getReplanCount() < robots.size() * planner.getTime() / 4,
+                String.format("%d replans in %d steps", planner.getReplanCount(), planner.getTime()));
+        for (Robot robot : robots) {
+            assertEquals(-1, planner.getGoal(robot));
+        }
+    }
+
+    /**
+     * Plan for Robots packed onto small floors with Racks, giving each Robot a new random goal when it arrives,
+     * checking that no two Robots ever share a tile or swap tiles, even when many Robots cannot find a route.
+     */
+    @Test
+    public void testDenseFloors() {
+        runDenseFloor(20, 150, 400, 29);
+        runDenseFloor(12, 120, 200, 31);
+    }
+
+    /**
+     * Run the given number of steps with the given number of Robots on a square floor with 10% Racks.
+     */
+    private static void runDenseFloor(int width, int robotCount, int steps, long seed) {
+        GridWarehouseCoordinateSystem coordinateSystem = new GridWarehouseCoordinateSystem(width, width);
+        WarehouseState<GridWarehouseCoordinateSystem, Point> state = makeState(coordinateSystem);
+        Random random = new Random(seed);
+        List<Integer> tiles = new ArrayList<>();
+        for (int i = 0; i < coordinateSystem.getSize(); i++) {
+            tiles.add(i);
+        }
+        Collections.shuffle(tiles, random);
+        int rackCount = coordinateSystem.getSize() / 10;
+        for (int i = 0; i < rackCount; i++) {
+            state.getLayout().setTileAt(tiles.get(i), new Rack());
+        }
+        List<Integer> floor = tiles.subList(rackCount, tiles.size());
+
+        RobotMapper<Point> robotMapper = state.getRobotMapper();
+        List<Robot> robots = new ArrayList<>();
+        for (int i = 0; i < robotCount; i++) {
+            Robot robot = new Robot("robot" + i, null);
+            robotMapper.addRobotAt(robot, floor.get(i));
+            robots.add(robot);
+        }
+        CooperativePlanner<GridWarehouseCoordinateSystem, Point> planner = state.getCooperativePlanner();
+        int arrivals = 0;
+        for (int step = 0; step < steps; step++) {
+            for (Robot robot : robots) {
+                int goal = planner.getGoal(robot);
+                if (goal == -1 || robotMapper.getRobotTileIndex(robot) == goal) {
+                    arrivals += goal == -1 ? 0 : 1;
+                    planner.setGoal(robot, floor.get(random.nextInt(floor.size())));
+                }
+            }
+            Map<Robot, Integer> before = getPositions(robotMapper, robots);
+            planner.step();
+            assertNoConflicts(before, getPositions(robotMapper, robots));
+        }
+        assertTrue(arrivals > 0);
+    }
+
+    /**
+     * Assert that no two Robots are on the same tile after a step, and that no two Robots swapped tiles in it.
+     */
+    private static void assertNoConflicts(Map<Robot, Integer> before, Map<Robot, Integer> after) {
+        Set<Integer> occupied = new HashSet<>();
+        Map<Integer, Robot> previousOccupants = new HashMap<>();
+        for (Map.Entry<Robot, Integer> entry : before.entrySet()) {
+            previousOccupants.put(entry.getValue(), entry.getKey());
+        }
+        for (Map.Entry<Robot, Integer> entry : after.entrySet()) {
+            assertTrue(occupied.add(entry.getValue()), "Two robots on tile " + entry.getValue());
+            Robot other = previousOccupants.get(entry.getValue());
+            if (other != null && other != entry.getKey()) {
+                assertNotEquals(before.get(entry.getKey()), after.get(other), "Robots swapped tiles");
+            }
+        }
+    }
+
+    private static Map<Robot, Integer> getPositions(RobotMapper<Point> robotMapper, List<Robot> robots) {
+        Map<Robot, Integer> positions = new HashMap<>();
+        for (Robot robot : robots) {
+            positions.put(robot, robotMapper.getRobotTileIndex(robot));
+        }
+        return positions;
+    }
+
+    private static WarehouseState<GridWarehouseCoordinateSystem, Point> makeState(
+            GridWarehouseCoordinateSystem coordinateSystem) {
+        return new WarehouseState<>(
+                new PartCatalogue(),
+                coordinateSystem,
+                new WarehouseLayout<>(coordinateSystem),
+                new RobotMapper<>(coordinateSystem),
+                null,
+                new OrderQueue()
+        );
+    }
+}
@@ -0,0 +1,203 @@
+package warehouse.logistics.optimization;
+
+import org.junit.jupiter.api.Test;
+import warehouse.WarehouseLayout;
+import warehouse.WarehouseState;
+import warehouse.geometry.grid.GridWarehouseCoordinateSystem;
+import warehouse.geometry.grid.Point;
+import warehouse.inventory.PartCatalogue;
+import warehouse.logistics.optimization.distances.DistanceField;
+import warehouse.logistics.optimization.distances.DistanceFieldCache;
+import warehouse.logistics.optimization.graph.TileGraph;
+import warehouse.logistics.orders.OrderQueue;
+import warehouse.robots.RobotMapper;
+import warehouse.tiles.EmptyTile;
+import warehouse.tiles.Rack;
+import warehouse.tiles.containers.CompactTileContainer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test the DistanceField and DistanceFieldCache classes.
+ */
+public class DistanceFieldTest {
+    /**
+     * Test that distances are route lengths, and that the search is only resumed as far as needed.
+     */
+    @Test
+    public void testGetDistance() {
+        GridWarehouseCoordinateSystem coordinateSystem = new GridWarehouseCoordinateSystem(10, 10);
+        WarehouseState<GridWarehouseCoordinateSystem, Point> state = makeState(coordinateSystem);
+        WarehouseLayout<Point> layout = state.getLayout();
+        // A wall with a gap at the bottom, and a tile enclosed by Racks in the corner
+        for (int y = 0; y < 9; y++) {
+            layout.setTileAt(new Point(5, y), new Rack());
+        }
+        layout.setTileAt(new Point(0, 1), new Rack());
+        layout.setTileAt(new Point(1, 0), new Rack());
+        TileGraph graph = state.getRoutingGraph();
+
+        DistanceField field = new DistanceField(graph, coordinateSystem, index(coordinateSystem, 6, 0));
+        assertEquals(1, field.getDistance(index(coordinateSystem, 7, 0)), 1e-9);
+        int settled = field.getSettledCount();
+        assertTrue(settled < 10);
+        assertTrue(field.isSettled(index(coordinateSystem, 7, 0)));
+        assertFalse(field.isSettled(index(coordinateSystem, 4, 0)));
+
+        // Around the wall: 9 down, 2 across and 9 up
+        assertEquals(20, field.getDistance(index(coordinateSystem, 4, 0)), 1e-9);
+        assertTrue(field.getSettledCount() > settled);
+        // A route may start on a Rack, but not pass through one
+        assertEquals(1, field.getDistance(index(coordinateSystem, 5, 0)), 1e-9);
+        // A tile enclosed by Racks cannot be reached
+        assertEquals(Double.POSITIVE_INFINITY, field.getDistance(index(coordinateSystem, 0, 0)));
+        assertEquals(Double.POSITIVE_INFINITY, field.getDistance(-1));
+        assertThrows(IllegalArgumentException.class, () -> new DistanceField(graph, coordinateSystem, 100));
+    }
+
+    /**
+     * Test that a field on a large floor only takes memory for the tiles it has reached.
+     */
+    @Test
+    public void testLargeFloor() {
+        GridWarehouseCoordinateSystem coordinateSystem = new GridWarehouseCoordinateSystem(2000, 2000);
+        WarehouseState<GridWarehouseCoordinateSystem, Point> state = new WarehouseState<>(
+                new PartCatalogue(),
+                coordinateSystem,
+                new WarehouseLayout<>(coordinateSystem, new CompactTileContainer(coordinateSystem.getSize())),
+                new RobotMapper<>(coordinateSystem),
+                null,
+                new OrderQueue()
+        );
+        DistanceField field = new DistanceField(state.getRoutingGraph(), coordinateSystem,
+                index(coordinateSystem, 1000, 1000));
+        assertEquals(3, field.getDistance(index(coordinateSystem, 1003, 1000)), 1e-9);
+        assertTrue(field.isReached(index(coordinateSystem, 1003, 1000)));
+        assertFalse(field.isReached(index(coordinateSystem, 0, 0)));
+        assertTrue(field.getReachedCount() < 100);
+        assertTrue(field.getSettledCount() <= field.getReachedCount());
+    }
+
+    /**
+     * Test that the cache reuses fields, evicts the least recently used field, and discards the fields that a layout
+     * change affects.
+     */
+    @Test
+    public void testCache() {
+        GridWarehouseCoordinateSystem coordinateSystem = new GridWarehouseCoordinateSystem(10, 10);
+        WarehouseState<GridWarehouseCoordinateSystem, Point> state = makeState(coordinateSystem);
+        DistanceFieldCache<GridWarehouseCoordinateSystem, Point> cache = new DistanceFieldCache<>(state, 2);
+        assertThrows(IllegalArgumentException.class, () -> new DistanceFieldCache<>(state, 0));
+
+        DistanceField first = cache.get(0);
+        assertSame(first, cache.get(0));
+        cache.get(1);
+        cache.get(0);
+        // The field to 1 is the least recently used, so it is evicted
+        cache.get(2);
+        assertEquals(2, cache.size());
+        assertSame(first, cache.get(0));
+        assertEquals(3, cache.getFieldCreateCount());
+        cache.get(1);
+        assertEquals(4, cache.getFieldCreateCount());
+
+        assertEquals(9, cache.get(9).getDistance(0), 1e-9);
+        DistanceField unaffected = cache.get(1);
+        state.getLayout().setTileAt(new Point(5, 0), new Rack());
+        // Only the field to 9 has searched past the Rack
+        assertEquals(1, cache.size());
+        assertSame(unaffected, cache.get(1));
+        // The field is searched again, around the Rack
+        assertEquals(11, cache.get(9).getDistance(0), 1e-9);
+        state.getLayout().setTileAt(new Point(5, 0), new EmptyTile());
+        assertEquals(9, cache.get(9).getDistance(0), 1e-9);
+        cache.dispose();
+    }
+
+    /**
+     * Test that the cache evicts least recently used fields once they use too much memory in total, but never the
+     * requested field.
+     */
+    @Test
+    public void testCacheMemory() {
+        GridWarehouseCoordinateSystem coordinateSystem = new GridWarehouseCoordinateSystem(40, 40);
+        WarehouseState<GridWarehouseCoordinateSystem, Point> state = makeState(coordinateSystem);
+        int last = coordinateSystem.getSize() - 1;
+        DistanceField full = new DistanceField(state.getRoutingGraph(), coordinateSystem, 0);
+        full.getDistance(last);
+        long fullSize = full.getMemoryUsage();
+        DistanceFieldCache<GridWarehouseCoordinateSystem, Point> cache =
+                new DistanceFieldCache<>(state, 16, fullSize + fullSize / 2);
+        assertThrows(IllegalArgumentException.class, () -> new DistanceFieldCache<>(state, 16, 0));
+
+        // Both fields reach the whole floor
+        DistanceField first = cache.get(0);
+        assertEquals(78, first.getDistance(last), 1e-9);
+        DistanceField second = cache.get(last);
+        assertEquals(78, second.getDistance(0), 1e-9);
+        assertEquals(2 * fullSize, cache.getMemoryUsage());
+        // The first field is the least recently used, so it is evicted by the next request
+        DistanceField third = cache.get(20);
+        assertEquals(2, cache.size());
+        assertSame(second, cache.get(last));
+        // Once the third field grows the total is over the bound again, and the field that was not requested goes
+        third.getDistance(last - 20);
+        assertSame(second, cache.get(last));
+        assertEquals(1, cache.size());
+        assertNotSame(first, cache.get(0));
+        assertEquals(4, cache.getFieldCreateCount());
+        cache.dispose();
+
+        // A field over the bound on its own is kept while it is the requested one
+        DistanceFieldCache<GridWarehouseCoordinateSystem, Point> small = new DistanceFieldCache<>(state, 16, 1);
+        DistanceField field = small.get(0);
+        field.getDistance(last);
+        assertSame(field, small.get(0));
+        small.dispose();
+    }
+
+    /**
+     * Test that a field that reaches most of the graph moves its scores into dense arrays, which take less memory
+     * than the slots, and still gives the same distances.
+     */
+    @Test
+    public void testDenseStorage() {
+        GridWarehouseCoordinateSystem coordinateSystem = new GridWarehouseCoordinateSystem(100, 100);
+        WarehouseState<GridWarehouseCoordinateSystem, Point> state = makeState(coordinateSystem);
+        state.getLayout().setTileAt(new Point(50, 49), new Rack());
+        int center = index(coordinateSystem, 50, 50);
+        DistanceField field = new DistanceField(state.getRoutingGraph(), coordinateSystem, center);
+        assertEquals(1, field.getDistance(index(coordinateSystem, 51, 50)), 1e-9);
+        long sparseSize = field.getMemoryUsage();
+        assertTrue(sparseSize < 2_000);
+
+        assertEquals(100, field.getDistance(index(coordinateSystem, 0, 0)), 1e-9);
+        // Around the Rack
+        assertEquals(4, field.getDistance(index(coordinateSystem, 50, 48)), 1e-9);
+        assertEquals(coordinateSystem.getSize(), field.getReachedCount());
+        assertTrue(field.isReached(index(coordinateSystem, 99, 99)));
+        assertTrue(field.getMemoryUsage() < coordinateSystem.getSize() * 10L);
+    }
+
+    /**
+     * Get the tile index of the given coordinates.
+     */
+    private static int index(GridWarehouseCoordinateSystem coordinateSystem, int x, int y) {
+        return coordinateSystem.projectCoordinateToIndex(new Point(x, y));
+    }
+
+    /**
+     * Create an empty warehouse state with the given coordinate system.
+     */
+    private static WarehouseState<GridWarehouseCoordinateSystem, Point> makeState(
+            GridWarehouseCoordinateSystem coordinateSystem) {
+        return new WarehouseState<>(
+                new PartCatalogue(),
+                coordinateSystem,
+                new WarehouseLayout<>(coordinateSystem),
+                new RobotMapper<>(coordinateSystem),
+                null,
+                new OrderQueue()
+        );
+    }
+}
@@ -0,0 +1,129 @@
+package warehouse.logistics.optimization;
+
+import org.junit.jupiter.api.Test;
+import warehouse.WarehouseLayout;
+import warehouse.WarehouseState;
+import warehouse.geometry.grid.GridWarehouseCoordinateSystem;
+import warehouse.geometry.grid.Point;
+import warehouse.inventory.PartCatalogue;
+import warehouse.logistics.optimization.graph.Graph;
+import warehouse.logistics.optimization.graph.TileGraph;
+import warehouse.logistics.optimization.graph.TileNode;
+import warehouse.logistics.optimization.graph.converters.SimpleWarehouseGraphConverter;
+import warehouse.logistics.optimization.routefinding.algorithms.AStarRoutefinder;
+import warehouse.logistics.optimization.routefinding.algorithms.GridAStarRoutefinder;
+import warehouse.logistics.orders.OrderQueue;
+import warehouse.robots.RobotMapper;
+import warehouse.tiles.Rack;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test the GridAStarRoutefinder class.
+ */
+public class GridAStarRoutefinderTest {
+    /**
+     * Test that routes are as short as those found by the AStarRoutefinder, and that repeated searches on the same
+     * thread give the same result.
+     */
+    @Test
+    public void testFindRoute() {
+        GridWarehouseCoordinateSystem coordinateSystem = new GridWarehouseCoordinateSystem(10, 10, true);
+        WarehouseState<GridWarehouseCoordinateSystem, Point> state = makeState(coordinateSystem);
+        WarehouseLayout<Point> layout = state.getLayout();
+        layout.setTileAt(new Point(0, 1), new Rack());
+        layout.setTileAt(new Point(1, 1), new Rack());
+        layout.setTileAt(new Point(2, 1), new Rack());
+        layout.setTileAt(new Point(4, 6), new Rack());
+        layout.setTileAt(new Point(0, 8), new Rack());
+        layout.setTileAt(new Point(2, 2), new Rack());
+        layout.setTileAt(new Point(2, 3), new Rack());
+        layout.setTileAt(new Point(2, 4), new Rack());
+        layout.setTileAt(new Point(5, 4), new Rack());
+        layout.setTileAt(new Point(4, 5), new Rack());
+        TileGraph graph = new SimpleWarehouseGraphConverter<GridWarehouseCoordinateSystem, Point>().convert(state);
+
+        DistanceTileScorer metric = new DistanceTileScorer(coordinateSystem);
+        AStarRoutefinder<TileNode> reference = new AStarRoutefinder<>(metric, metric);
+        GridAStarRoutefinder routefinder = new GridAStarRoutefinder(coordinateSystem);
+
+        TileNode source = new TileNode(layout.getTileAt(new Point(0, 0)));
+        TileNode destination = new TileNode(layout.getTileAt(new Point(6, 7)));
+        List<TileNode> expected = reference.findRoute(graph, source, destination);
+        List<TileNode> route = routefinder.findRoute(graph, source, destination);
+        assertNotNull(route);
+        assertEquals(destination.getTile(), route.get(route.size() - 1).getTile());
+        assertEquals(getCost(coordinateSystem, source, expected), getCost(coordinateSystem, source, route), 1e-9);
+        // The route never passes through a Rack
+        for (TileNode node : route) {
+            assertEquals(1, node.getScoreMultiplier());
+        }
+
+        // Searching again reuses the buffers of this thread
+        List<TileNode> repeated = routefinder.findRoute(graph, source, destination);
+        assertEquals(route.size(), repeated.size());
+        for (int i = 0; i < route.size(); i++) {
+            assertEquals(route.get(i).getTile(), repeated.get(i).getTile());
+        }
+
+        // A route to the source is just the source
+        List<TileNode> trivial = routefinder.findRoute(graph, source, source);
+        assertEquals(1, trivial.size());
+        assertEquals(source.getTile(), trivial.get(0).getTile());
+    }
+
+    /**
+     * Test that no route is found to an unreachable tile, and that graphs other than TileGraphs are rejected.
+     */
+    @Test
+    public void testNoRoute() {
+        GridWarehouseCoordinateSystem coordinateSystem = new GridWarehouseCoordinateSystem(5, 5);
+        WarehouseState<GridWarehouseCoordinateSystem, Point> state = makeState(coordinateSystem);
+        WarehouseLayout<Point> layout = state.getLayout();
+        // Wall off the right-hand column
+        for (int y = 0; y < 5; y++) {
+            layout.setTileAt(new Point(3, y), new Rack());
+        }
+        TileGraph graph = new SimpleWarehouseGraphConverter<GridWarehouseCoordinateSystem, Point>().convert(state);
+        GridAStarRoutefinder routefinder = new GridAStarRoutefinder(coordinateSystem);
+        TileNode source = new TileNode(layout.getTileAt(new Point(0, 0)));
+        TileNode destination = new TileNode(layout.getTileAt(new Point(4, 4)));
+        assertNull(routefinder.findRoute(graph, source, destination));
+
+        Graph<TileNode> otherGraph = new Graph<>(new HashSet<>(), new HashMap<>());
+        assertThrows(IllegalArgumentException.class, () -> routefinder.findRoute(otherGraph, source, destination));
+    }
+
+    /**
+     * Get the total distance travelled along a route, starting at the given source.
+     */
+    private static double getCost(GridWarehouseCoordinateSystem coordinateSystem, TileNode source,
+                                  List<TileNode> route) {
+        double cost = 0;
+        int previous = source.getTile().getIndex();
+        for (TileNode node : route) {
+            cost += coordinateSystem.getDistance(previous, node.getTile().getIndex());
+            previous = node.getTile().getIndex();
+        }
+        return cost;
+    }
+
+    /**
+     * Create an empty warehouse state with the given coordinate system.
+     */
+    private static WarehouseState<GridWarehouseCoordinateSystem, Point> makeState(
+            GridWarehouseCoordinateSystem coordinateSystem) {
+        return new WarehouseState<>(
+                new PartCatalogue(),
+                coordinateSystem,
+                new WarehouseLayout<>(coordinateSystem),
+                new RobotMapper<>(coordinateSystem),
+                null,
+                new OrderQueue()
+        );
+    }
+}
@@ -0,0 +1,194 @@
+package warehouse.logistics.optimization;
+
+import org.junit.jupiter.api.Test;
+import warehouse.WarehouseLayout;
+import warehouse.WarehouseState;
+import warehouse.geometry.grid.GridWarehouseCoordinateSystem;
+import warehouse.geometry.grid.Point;
+import warehouse.inventory.PartCatalogue;
+import warehouse.logistics.optimization.graph.TileGraph;
+import warehouse.logistics.optimization.graph.TileNode;
+import warehouse.logistics.optimization.routefinding.algorithms.GridAStarRoutefinder;
+import warehouse.logistics.optimization.routefinding.algorithms.HierarchicalRoutefinder;
+import warehouse.logistics.orders.OrderQueue;
+import warehouse.robots.RobotMapper;
+import warehouse.tiles.EmptyTile;
+import warehouse.tiles.Rack;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test the HierarchicalRoutefinder class.
+ */
+public class HierarchicalRoutefinderTest {
+    /**
+     * Test that routes across several clusters are connected, avoid racks, and are no shorter than optimal routes.
+     */
+    @Test
+    public void testFindRoute() {
+        GridWarehouseCoordinateSystem coordinateSystem = new GridWarehouseCoordinateSystem(40, 40);
+        WarehouseState<GridWarehouseCoordinateSystem, Point> state = makeState(coordinateSystem);
+        WarehouseLayout<Point> layout = state.getLayout();
+        for (int y = 3; y < 37; y += 4) {
+            for (int x = 2; x < 38; x++) {
+                if (x % 12 != 0) {
+                    layout.setTileAt(new Point(x, y), new Rack());
+                }
+            }
+        }
+        TileGraph graph = state.getRoutingGraph();
+        HierarchicalRoutefinder routefinder = new HierarchicalRoutefinder(state, 8);
+
+        TileNode source = new TileNode(layout.getTileAt(new Point(0, 0)));
+        TileNode destination = new TileNode(layout.getTileAt(new Point(30, 38)));
+        List<TileNode> route = routefinder.findRoute(graph, source, destination);
+        assertNotNull(route);
+        assertEquals(destination.getTile(), route.get(route.size() - 1).getTile());
+        int previous = source.getTile().getIndex();
+        for (TileNode node : route) {
+            int index = node.getTile().getIndex();
+            assertTrue(coordinateSystem.getNeighbours(previous).contains(index));
+            assertEquals(1, node.getScoreMultiplier());
+            previous = index;
+        }
+        List<TileNode> optimal = new GridAStarRoutefinder(coordinateSystem).findRoute(graph, source, destination);
+        assertTrue(route.size() >= optimal.size());
+
+        // A Rack can be a destination, even when it is only reachable from a neighbouring cluster
+        TileNode rack = new TileNode(layout.getTileAt(new Point(8, 3)));
+        List<TileNode> rackRoute = routefinder.findRoute(graph, source, rack);
+        assertNotNull(rackRoute);
+        assertEquals(rack.getTile(), rackRoute.get(rackRoute.size() - 1).getTile());
+    }
+
+    /**
+     * Test that setting a tile only rebuilds the clusters it affects, and that routes reflect the change.
+     */
+    @Test
+    public void testTileChanged() {
+        GridWarehouseCoordinateSystem coordinateSystem = new GridWarehouseCoordinateSystem(16, 16);
+        WarehouseState<GridWarehouseCoordinateSystem, Point> state = makeState(coordinateSystem);
+        WarehouseLayout<Point> layout = state.getLayout();
+        TileGraph graph = state.getRoutingGraph();
+        HierarchicalRoutefinder routefinder = new HierarchicalRoutefinder(state, 4);
+        TileNode source = new TileNode(layout.getTileAt(new Point(1, 1)));
+        TileNode destination = new TileNode(layout.getTileAt(new Point(14, 1)));
+
+        routefinder.findRoute(graph, source, destination);
+        assertEquals(16, routefinder.getClusterRebuildCount());
+
+        // A tile inside a cluster only affects that cluster
+        layout.setTileAt(new Point(5, 1), new Rack());
+        assertEquals(15, routefinder.findRoute(graph, source, destination).size());
+        assertEquals(17, routefinder.getClusterRebuildCount());
+
+        // A tile on the border between two clusters affects both
+        layout.setTileAt(new Point(7, 2), new Rack());
+        routefinder.findRoute(graph, source, destination);
+        assertEquals(19, routefinder.getClusterRebuildCount());
+
+        // Walling off the destination leaves no route
+        for (int y = 0; y < 16; y++) {
+            layout.setTileAt(new Point(12, y), new Rack());
+        }
+        assertNull(routefinder.findRoute(graph, source, destination));
+        layout.setTileAt(new Point(12, 8), new EmptyTile());
+        assertNotNull(routefinder.findRoute(graph, source, destination));
+
+        routefinder.dispose();
+    }
+
+    /**
+     * Test that with diagonal moves, a route can cross a corner between two diagonally neighbouring clusters without
+     * touching the other two, and that setting a corner tile updates the transition across it.
+     */
+    @Test
+    public void testDiagonalCorner() {
+        GridWarehouseCoordinateSystem coordinateSystem = new GridWarehouseCoordinateSystem(4, 4, true);
+        WarehouseState<GridWarehouseCoordinateSystem, Point> state = makeState(coordinateSystem);
+        WarehouseLayout<Point> layout = state.getLayout();
+        // Wall off the borders of the top left cluster, leaving only its corner with the bottom right cluster
+        for (int index : new int[] {2, 6, 8, 9}) {
+            layout.setTileAt(index, new Rack());
+        }
+        TileGraph graph = state.getRoutingGraph();
+        HierarchicalRoutefinder routefinder = new HierarchicalRoutefinder(state, 2);
+        TileNode source = graph.getNode(0);
+        TileNode destination = graph.getNode(15);
+
+        assertEquals(List.of(5, 10, 15), getIndices(routefinder.findRoute(graph, source, destination)));
+        assertEquals(List.of(5, 10, 15), getIndices(new GridAStarRoutefinder(coordinateSystem).findRoute(graph,
+                source, destination)));
+
+        layout.setTileAt(10, new Rack());
+        assertNull(routefinder.findRoute(graph, source, destination));
+        layout.setTileAt(10, new EmptyTile());
+        assertEquals(List.of(5, 10, 15), getIndices(routefinder.findRoute(graph, source, destination)));
+        routefinder.dispose();
+    }
+
+    /**
+     * Test that with diagonal moves, a tile on a border that can cross to two tiles that are not connected to each
+     * other gets a transition to each, so that a route can leave its cluster and come back to reach a destination.
+     */
+    @Test
+    public void testDiagonalBorder() {
+        String[] rows = {
+                "..#.#.###..",
+                "##.##.#.#.#",
+                ".##..#....#",
+                ".........##"
+        };
+        GridWarehouseCoordinateSystem coordinateSystem = new GridWarehouseCoordinateSystem(11, 4, true);
+        WarehouseState<GridWarehouseCoordinateSystem, Point> state = makeState(coordinateSystem);
+        for (int y = 0; y < rows.length; y++) {
+            for (int x = 0; x < rows[y].length(); x++) {
+                if (rows[y].charAt(x) == '#') {
+                    state.getLayout().setTileAt(new Point(x, y), new Rack());
+                }
+            }
+        }
+        TileGraph graph = state.getRoutingGraph();
+        HierarchicalRoutefinder routefinder = new HierarchicalRoutefinder(state, 3);
+        // From (5, 1) to (3, 0) in the same cluster, through (2, 1) in the cluster to the west
+        TileNode source = graph.getNode(coordinateSystem.projectCoordinateToIndex(new Point(5, 1)));
+        TileNode destination = graph.getNode(coordinateSystem.projectCoordinateToIndex(new Point(3, 0)));
+        List<Integer> expected = List.of(
+                coordinateSystem.projectCoordinateToIndex(new Point(4, 2)),
+                coordinateSystem.projectCoordinateToIndex(new Point(3, 2)),
+                coordinateSystem.projectCoordinateToIndex(new Point(2, 1)),
+                coordinateSystem.projectCoordinateToIndex(new Point(3, 0))
+        );
+        assertEquals(expected, getIndices(routefinder.findRoute(graph, source, destination)));
+        routefinder.dispose();
+    }
+
+    /**
+     * Get the tile indices of the nodes of a route.
+     */
+    private static List<Integer> getIndices(List<TileNode> route) {
+        List<Integer> indices = new ArrayList<>();
+        for (TileNode node : route) {
+            indices.add(node.getTile().getIndex());
+        }
+        return indices;
+    }
+
+    /**
+     * Create an empty warehouse state with the given coordinate system.
+     */
+    private static WarehouseState<GridWarehouseCoordinateSystem, Point> makeState(
+            GridWarehouseCoordinateSystem coordinateSystem) {
+        return new WarehouseState<>(
+                new PartCatalogue(),
+                coordinateSystem,
+                new WarehouseLayout<>(coordinateSystem),
+                new RobotMapper<>(coordinateSystem),
+                null,
+                new OrderQueue()
+        );
+    }
+}
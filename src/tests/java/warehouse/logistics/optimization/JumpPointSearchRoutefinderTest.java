@@ -0,0 +1,128 @@
+package warehouse.logistics.optimization;
+
+import org.junit.jupiter.api.Test;
+import warehouse.WarehouseLayout;
+import warehouse.WarehouseState;
+import warehouse.geometry.grid.GridWarehouseCoordinateSystem;
+import warehouse.geometry.grid.Point;
+import warehouse.inventory.PartCatalogue;
+import warehouse.logistics.optimization.graph.TileGraph;
+import warehouse.logistics.optimization.graph.TileNode;
+import warehouse.logistics.optimization.graph.converters.SimpleWarehouseGraphConverter;
+import warehouse.logistics.optimization.routefinding.SearchBuffers;
+import warehouse.logistics.optimization.routefinding.algorithms.GridAStarRoutefinder;
+import warehouse.logistics.optimization.routefinding.algorithms.JumpPointSearchRoutefinder;
+import warehouse.logistics.orders.OrderQueue;
+import warehouse.robots.RobotMapper;
+import warehouse.tiles.Rack;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test the JumpPointSearchRoutefinder class.
+ */
+public class JumpPointSearchRoutefinderTest {
+    /**
+     * Test that routes through rows of racks cost the same as A* routes and visit every tile along the way, in both
+     * the cardinal and diagonal coordinate systems.
+     */
+    @Test
+    public void testFindRoute() {
+        for (boolean allowDiagonals : new boolean[] {false, true}) {
+            GridWarehouseCoordinateSystem coordinateSystem = new GridWarehouseCoordinateSystem(30, 30, allowDiagonals);
+            WarehouseState<GridWarehouseCoordinateSystem, Point> state = makeRackRows(coordinateSystem);
+            TileGraph graph = new SimpleWarehouseGraphConverter<GridWarehouseCoordinateSystem, Point>().convert(state);
+            WarehouseLayout<Point> layout = state.getLayout();
+
+            TileNode source = new TileNode(layout.getTileAt(new Point(1, 0)));
+            TileNode destination = new TileNode(layout.getTileAt(new Point(27, 28)));
+            List<TileNode> expected = new GridAStarRoutefinder(coordinateSystem).findRoute(graph, source, destination);
+            int aStarExpanded = SearchBuffers.forCurrentThread().getExpandedCount();
+            List<TileNode> route = new JumpPointSearchRoutefinder(coordinateSystem)
+                    .findRoute(graph, source, destination);
+            int jumpPointExpanded = SearchBuffers.forCurrentThread().getExpandedCount();
+
+            assertNotNull(route);
+            assertEquals(getCost(coordinateSystem, source, expected), getCost(coordinateSystem, source, route), 1e-9);
+            assertTrue(jumpPointExpanded < aStarExpanded);
+            // Consecutive tiles on the route are connected, and the route never passes through a Rack
+            int previous = source.getTile().getIndex();
+            for (TileNode node : route) {
+                int index = node.getTile().getIndex();
+                assertTrue(coordinateSystem.getNeighbours(previous).contains(index));
+                assertEquals(1, node.getScoreMultiplier());
+                previous = index;
+            }
+            assertEquals(destination.getTile(), route.get(route.size() - 1).getTile());
+        }
+    }
+
+    /**
+     * Test that a Rack can be the destination of a route, and that no route is found to an enclosed tile.
+     */
+    @Test
+    public void testDestinations() {
+        GridWarehouseCoordinateSystem coordinateSystem = new GridWarehouseCoordinateSystem(5, 5);
+        WarehouseState<GridWarehouseCoordinateSystem, Point> state = makeState(coordinateSystem);
+        WarehouseLayout<Point> layout = state.getLayout();
+        layout.setTileAt(new Point(2, 2), new Rack());
+        layout.setTileAt(new Point(4, 3), new Rack());
+        layout.setTileAt(new Point(3, 4), new Rack());
+        TileGraph graph = new SimpleWarehouseGraphConverter<GridWarehouseCoordinateSystem, Point>().convert(state);
+        JumpPointSearchRoutefinder routefinder = new JumpPointSearchRoutefinder(coordinateSystem);
+        TileNode source = new TileNode(layout.getTileAt(new Point(0, 0)));
+
+        List<TileNode> route = routefinder.findRoute(graph, source, new TileNode(layout.getTileAt(new Point(2, 2))));
+        assertEquals(4, route.size());
+        assertEquals(layout.getTileAt(new Point(2, 2)), route.get(3).getTile());
+
+        assertNull(routefinder.findRoute(graph, source, new TileNode(layout.getTileAt(new Point(4, 4)))));
+    }
+
+    /**
+     * Get the total distance travelled along a route, starting at the given source.
+     */
+    private static double getCost(GridWarehouseCoordinateSystem coordinateSystem, TileNode source,
+                                  List<TileNode> route) {
+        double cost = 0;
+        int previous = source.getTile().getIndex();
+        for (TileNode node : route) {
+            cost += coordinateSystem.getDistance(previous, node.getTile().getIndex());
+            previous = node.getTile().getIndex();
+        }
+        return cost;
+    }
+
+    /**
+     * Create a warehouse with horizontal rows of racks, broken up by cross aisles.
+     */
+    private static WarehouseState<GridWarehouseCoordinateSystem, Point> makeRackRows(
+            GridWarehouseCoordinateSystem coordinateSystem) {
+        WarehouseState<GridWarehouseCoordinateSystem, Point> state = makeState(coordinateSystem);
+        for (int y = 2; y < coordinateSystem.getHeight() - 2; y += 3) {
+            for (int x = 2; x < coordinateSystem.getWidth() - 2; x++) {
+                if (x % 9 != 0) {
+                    state.getLayout().setTileAt(new Point(x, y), new Rack());
+                }
+            }
+        }
+        return state;
+    }
+
+    /**
+     * Create an empty warehouse state with the given coordinate system.
+     */
+    private static WarehouseState<GridWarehouseCoordinateSystem, Point> makeState(
+            GridWarehouseCoordinateSystem coordinateSystem) {
+        return new WarehouseState<>(
+                new PartCatalogue(),
+                coordinateSystem,
+                new WarehouseLayout<>(coordinateSystem),
+                new RobotMapper<>(coordinateSystem),
+                null,
+                new OrderQueue()
+        );
+    }
+}
@@ -0,0 +1,164 @@
+package warehouse.logistics.optimization;
+
+import org.junit.jupiter.api.Test;
+import warehouse.WarehouseLayout;
+import warehouse.WarehouseState;
+import warehouse.geometry.grid.GridWarehouseCoordinateSystem;
+import warehouse.geometry.grid.Point;
+import warehouse.inventory.PartCatalogue;
+import warehouse.logistics.optimization.distances.KeyTileDistanceTable;
+import warehouse.logistics.orders.OrderQueue;
+import warehouse.robots.RobotMapper;
+import warehouse.tiles.EmptyTile;
+import warehouse.tiles.Rack;
+import warehouse.tiles.ReceiveDepot;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test the KeyTileDistanceTable class.
+ */
+public class KeyTileDistanceTableTest {
+    /**
+     * Test distances between storage tiles and registered spots.
+     */
+    @Test
+    public void testGetDistance() {
+        GridWarehouseCoordinateSystem coordinateSystem = new GridWarehouseCoordinateSystem(10, 10);
+        WarehouseState<GridWarehouseCoordinateSystem, Point> state = makeState(coordinateSystem);
+        WarehouseLayout<Point> layout = state.getLayout();
+        layout.setTileAt(new Point(0, 9), new ReceiveDepot());
+        layout.setTileAt(new Point(5, 5), new Rack());
+        // A wall between the depot and the rack, with a gap at the top
+        for (int y = 1; y < 10; y++) {
+            layout.setTileAt(new Point(3, y), new Rack());
+        }
+        KeyTileDistanceTable<GridWarehouseCoordinateSystem, Point> table = state.getKeyTileDistanceTable();
+
+        int depot = coordinateSystem.projectCoordinateToIndex(new Point(0, 9));
+        int rack = coordinateSystem.projectCoordinateToIndex(new Point(5, 5));
+        // The depot is reached from (0, 8) or (1, 9), and the rack from (4, 5) via the gap at (3, 0)
+        assertEquals(17, table.getDistance(depot, rack), 1e-6);
+        assertEquals(17, table.getDistance(rack, depot), 1e-6);
+        // Access tiles are not key tiles
+        int depotAccess = coordinateSystem.projectCoordinateToIndex(new Point(1, 9));
+        assertFalse(table.contains(depotAccess));
+
+        // A tile that is neither a StorageTile nor next to one is not in the table until it is registered
+        int spot = coordinateSystem.projectCoordinateToIndex(new Point(8, 0));
+        assertFalse(table.contains(spot));
+        assertThrows(IllegalArgumentException.class, () -> table.getDistance(spot, rack));
+        table.registerSpot(spot);
+        assertTrue(table.contains(spot));
+        // From (8, 0) to (5, 4), the nearest access tile of the rack
+        assertEquals(7, table.getDistance(spot, rack), 1e-6);
+        table.unregisterSpot(spot);
+        assertFalse(table.contains(spot));
+    }
+
+    /**
+     * Test that setting a tile recomputes only the rows whose searches reached it.
+     */
+    @Test
+    public void testTileChanged() {
+        GridWarehouseCoordinateSystem coordinateSystem = new GridWarehouseCoordinateSystem(64, 64);
+        WarehouseState<GridWarehouseCoordinateSystem, Point> state = makeState(coordinateSystem);
+        WarehouseLayout<Point> layout = state.getLayout();
+        layout.setTileAt(new Point(2, 2), new Rack());
+        layout.setTileAt(new Point(2, 6), new Rack());
+        KeyTileDistanceTable<GridWarehouseCoordinateSystem, Point> table = new KeyTileDistanceTable<>(state, 16, 16);
+        int first = coordinateSystem.projectCoordinateToIndex(new Point(2, 2));
+        int second = coordinateSystem.projectCoordinateToIndex(new Point(2, 6));
+
+        assertEquals(2, table.getDistance(first, second), 1e-6);
+        int computed = table.getRowComputeCount();
+        assertEquals(2, table.getDistance(first, second), 1e-6);
+        assertEquals(computed, table.getRowComputeCount());
+
+        // An edit far away from both racks does not invalidate anything
+        layout.setTileAt(new Point(60, 60), new Rack());
+        layout.setTileAt(new Point(60, 60), new EmptyTile());
+        assertEquals(2, table.getDistance(first, second), 1e-6);
+        assertEquals(computed, table.getRowComputeCount());
+
+        // Blocking the tiles between the racks forces a detour
+        layout.setTileAt(new Point(2, 4), new Rack());
+        assertEquals(4, table.getDistance(first, second), 1e-6);
+        assertTrue(table.getRowComputeCount() > computed);
+    }
+
+    /**
+     * Test that rows only hold key tiles within the search radius, nearest first.
+     */
+    @Test
+    public void testSearchRadius() {
+        GridWarehouseCoordinateSystem coordinateSystem = new GridWarehouseCoordinateSystem(32, 1);
+        WarehouseState<GridWarehouseCoordinateSystem, Point> state = makeState(coordinateSystem);
+        WarehouseLayout<Point> layout = state.getLayout();
+        layout.setTileAt(new Point(0, 0), new ReceiveDepot());
+        layout.setTileAt(new Point(4, 0), new Rack());
+        layout.setTileAt(new Point(8, 0), new Rack());
+        layout.setTileAt(new Point(30, 0), new Rack());
+        KeyTileDistanceTable<GridWarehouseCoordinateSystem, Point> table = new KeyTileDistanceTable<>(state, 10, 16);
+        int depot = coordinateSystem.projectCoordinateToIndex(new Point(0, 0));
+        int near = coordinateSystem.projectCoordinateToIndex(new Point(4, 0));
+        int middle = coordinateSystem.projectCoordinateToIndex(new Point(8, 0));
+        int far = coordinateSystem.projectCoordinateToIndex(new Point(30, 0));
+
+        assertEquals(4, table.getKeyTileCount());
+        // The racks block the row, so the depot only reaches the near rack, from (1, 0) to (3, 0)
+        assertEquals(2, table.getDistance(depot, near), 1e-6);
+        assertEquals(Double.POSITIVE_INFINITY, table.getDistance(depot, far));
+        assertArrayEquals(new int[] {depot, near}, table.getKeyTilesByDistance(depot));
+        assertArrayEquals(new int[] {middle, near}, table.getKeyTilesByDistance(middle));
+
+        assertThrows(IllegalArgumentException.class, () -> new KeyTileDistanceTable<>(state, 0, 16));
+        assertThrows(IllegalArgumentException.class, () -> new KeyTileDistanceTable<>(state, 10, 0));
+        assertThrows(IllegalArgumentException.class, () -> new KeyTileDistanceTable<>(state, 10, 1 << 16));
+    }
+
+    /**
+     * Test that key tiles beyond the maximum capacity are left out until a slot frees up, depots first.
+     */
+    @Test
+    public void testMaximumCapacity() {
+        GridWarehouseCoordinateSystem coordinateSystem = new GridWarehouseCoordinateSystem(8, 8);
+        WarehouseState<GridWarehouseCoordinateSystem, Point> state = makeState(coordinateSystem);
+        WarehouseLayout<Point> layout = state.getLayout();
+        layout.setTileAt(new Point(1, 1), new Rack());
+        layout.setTileAt(new Point(3, 1), new Rack());
+        layout.setTileAt(new Point(5, 1), new Rack());
+        layout.setTileAt(new Point(1, 5), new ReceiveDepot());
+        KeyTileDistanceTable<GridWarehouseCoordinateSystem, Point> table = new KeyTileDistanceTable<>(state, 16, 3);
+        int depot = coordinateSystem.projectCoordinateToIndex(new Point(1, 5));
+        int first = coordinateSystem.projectCoordinateToIndex(new Point(1, 1));
+        int last = coordinateSystem.projectCoordinateToIndex(new Point(5, 1));
+
+        // The depot gets a slot first, then the racks in order of tile index
+        assertEquals(3, table.getKeyTileCount());
+        assertTrue(table.contains(depot));
+        assertTrue(table.contains(first));
+        assertFalse(table.contains(last));
+
+        // Removing a rack frees a slot for the one left out
+        layout.setTileAt(new Point(1, 1), new EmptyTile());
+        assertFalse(table.contains(first));
+        assertTrue(table.contains(last));
+        assertEquals(3, table.getKeyTileCount());
+    }
+
+    /**
+     * Create an empty warehouse state with the given coordinate system.
+     */
+    private static WarehouseState<GridWarehouseCoordinateSystem, Point> makeState(
+            GridWarehouseCoordinateSystem coordinateSystem) {
+        return new WarehouseState<>(
+                new PartCatalogue(),
+                coordinateSystem,
+                new WarehouseLayout<>(coordinateSystem),
+                new RobotMapper<>(coordinateSystem),
+                null,
+                new OrderQueue()
+        );
+    }
+}
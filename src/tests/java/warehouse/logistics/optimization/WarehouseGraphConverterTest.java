@@ -1,4 +1,183 @@
 package warehouse.logistics.optimization;
 
+import org.junit.jupiter.api.Test;
+import warehouse.WarehouseLayout;
+import warehouse.WarehouseState;
+import warehouse.geometry.grid.GridWarehouseCoordinateSystem;
+import warehouse.geometry.grid.Point;
+import warehouse.inventory.PartCatalogue;
+import warehouse.logistics.optimization.graph.TileGraph;
+import warehouse.logistics.optimization.graph.TileNode;
+import warehouse.logistics.optimization.graph.converters.IncrementalWarehouseGraph;
+import warehouse.logistics.optimization.graph.converters.SimpleWarehouseGraphConverter;
+import warehouse.logistics.optimization.graph.converters.WarehouseGraphConverter;
+import warehouse.logistics.orders.OrderQueue;
+import warehouse.robots.RobotMapper;
+import warehouse.tiles.EmptyTile;
+import warehouse.tiles.Rack;
+import warehouse.tiles.Tile;
+import warehouse.tiles.containers.CompactTileContainer;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test the WarehouseGraphConverter class.
+ */
 public class WarehouseGraphConverterTest {
+    /**
+     * Test that the converted graph is indexed by tile index and has the expected connections.
+     */
+    @Test
+    public void testConvert() {
+        // Create an empty 3x3 warehouse with a Rack in the centre
+        GridWarehouseCoordinateSystem coordinateSystem = new GridWarehouseCoordinateSystem(3, 3);
+        WarehouseState<GridWarehouseCoordinateSystem, Point> state = new WarehouseState<>(
+                new PartCatalogue(),
+                coordinateSystem,
+                new WarehouseLayout<>(coordinateSystem),
+                new RobotMapper<>(coordinateSystem),
+                null,
+                new OrderQueue()
+        );
+        Rack rack = new Rack();
+        state.getLayout().setTileAt(new Point(1, 1), rack);
+
+        TileGraph graph = new SimpleWarehouseGraphConverter<GridWarehouseCoordinateSystem, Point>().convert(state);
+        assertEquals(9, graph.getSize());
+        // Nodes can be looked up by id or by tile index
+        TileNode centre = graph.getNode(4);
+        assertEquals(rack, centre.getTile());
+        assertEquals(centre, graph.getNode("4"));
+        assertNull(graph.getNode("not a tile index"));
+        assertNull(graph.getNode(9));
+        // The centre tile is connected to the four tiles in the cardinal directions
+        Set<Integer> expected = Set.of(1, 3, 5, 7);
+        Set<Integer> actual = new HashSet<>();
+        for (TileNode node : graph.getConnections(centre)) {
+            actual.add(node.getTile().getIndex());
+        }
+        assertEquals(expected, actual);
+        assertEquals(4, graph.getDegree(4));
+        // A corner tile only has two neighbours
+        assertEquals(2, graph.getDegree(0));
+        assertEquals(0, graph.getDegree(-1));
+    }
+
+    /**
+     * Test that the incremental graph is patched when tiles in the layout are set, and stops updating once disposed.
+     */
+    @Test
+    public void testIncrementalGraph() {
+        GridWarehouseCoordinateSystem coordinateSystem = new GridWarehouseCoordinateSystem(3, 3);
+        WarehouseState<GridWarehouseCoordinateSystem, Point> state = new WarehouseState<>(
+                new PartCatalogue(),
+                coordinateSystem,
+                new WarehouseLayout<>(coordinateSystem),
+                new RobotMapper<>(coordinateSystem),
+                null,
+                new OrderQueue()
+        );
+        // Only empty tiles are in the graph
+        WarehouseGraphConverter<GridWarehouseCoordinateSystem, Point> converter = new WarehouseGraphConverter<>() {
+            @Override
+            protected boolean canAddTile(WarehouseState<GridWarehouseCoordinateSystem, Point> warehouseState,
+                                         Tile tile) {
+                return tile instanceof EmptyTile;
+            }
+        };
+        IncrementalWarehouseGraph<GridWarehouseCoordinateSystem, Point> incrementalGraph =
+                new IncrementalWarehouseGraph<>(state, converter);
+        TileGraph graph = incrementalGraph.getGraph();
+        assertEquals(4, graph.getDegree(4));
+
+        // Placing a Rack in the centre removes it from the graph, along with the connections to it
+        state.getLayout().setTileAt(new Point(1, 1), new Rack());
+        assertNull(graph.getNode(4));
+        assertEquals(0, graph.getDegree(4));
+        assertEquals(2, graph.getDegree(1));
+        assertEquals(Set.of(0, 2), connectionsOf(graph, 1));
+
+        // Clearing the Rack restores the centre node and its connections
+        state.getLayout().setTileAt(new Point(1, 1), new EmptyTile());
+        assertNotNull(graph.getNode(4));
+        assertEquals(Set.of(1, 3, 5, 7), connectionsOf(graph, 4));
+        assertEquals(Set.of(0, 2, 4), connectionsOf(graph, 1));
+
+        // The graph matches a full conversion of the layout
+        TileGraph converted = converter.convert(state);
+        for (int i = 0; i < graph.getSize(); i++) {
+            assertEquals(connectionsOf(converted, i), connectionsOf(graph, i));
+        }
+
+        incrementalGraph.dispose();
+        state.getLayout().setTileAt(new Point(0, 0), new Rack());
+        assertNotNull(graph.getNode(0));
+    }
+
+    /**
+     * Test that a graph of a CompactTileContainer creates its nodes on demand, and is patched like any other graph.
+     */
+    @Test
+    public void testNodesOnDemand() {
+        GridWarehouseCoordinateSystem coordinateSystem = new GridWarehouseCoordinateSystem(3, 3);
+        WarehouseState<GridWarehouseCoordinateSystem, Point> state = new WarehouseState<>(
+                new PartCatalogue(),
+                coordinateSystem,
+                new WarehouseLayout<>(coordinateSystem, new CompactTileContainer(coordinateSystem.getSize())),
+                new RobotMapper<>(coordinateSystem),
+                null,
+                new OrderQueue()
+        );
+        Rack rack = new Rack();
+        state.getLayout().setTileAt(new Point(1, 1), rack);
+
+        TileGraph graph = state.getRoutingGraph();
+        assertTrue(graph.isCreatingNodesOnDemand());
+        assertFalse(new SimpleWarehouseGraphConverter<GridWarehouseCoordinateSystem, Point>()
+                .convert(makeState(coordinateSystem)).isCreatingNodesOnDemand());
+        // Nodes are looked up without being kept, so each lookup gives a new but equal node
+        assertNotSame(graph.getNode(0), graph.getNode(0));
+        assertEquals(graph.getNode(0), graph.getNode(0));
+        assertEquals(rack, graph.getNode(4).getTile());
+        assertTrue(graph.contains(0));
+        assertFalse(graph.contains(9));
+        assertTrue(graph.isWalkable(0));
+        assertFalse(graph.isWalkable(4));
+        assertEquals(Double.POSITIVE_INFINITY, graph.getScoreMultiplier(-1));
+        assertEquals(Set.of(1, 3, 5, 7), connectionsOf(graph, 4));
+
+        // Setting a tile is reflected without converting again
+        state.getLayout().setTileAt(new Point(1, 1), new EmptyTile());
+        assertTrue(graph.isWalkable(4));
+        assertEquals(new EmptyTile(4), graph.getNode(4).getTile());
+    }
+
+    /**
+     * Create an empty warehouse state with the given coordinate system.
+     */
+    private static WarehouseState<GridWarehouseCoordinateSystem, Point> makeState(
+            GridWarehouseCoordinateSystem coordinateSystem) {
+        return new WarehouseState<>(
+                new PartCatalogue(),
+                coordinateSystem,
+                new WarehouseLayout<>(coordinateSystem),
+                new RobotMapper<>(coordinateSystem),
+                null,
+                new OrderQueue()
+        );
+    }
+
+    /**
+     * Get the tile indices of the nodes connected to the node at the given tile index.
+     */
+    private static Set<Integer> connectionsOf(TileGraph graph, int index) {
+        Set<Integer> connections = new HashSet<>();
+        for (int k = 0; k < graph.getDegree(index); k++) {
+            connections.add(graph.getConnection(index, k));
+        }
+        return connections;
+    }
 }
@@ -0,0 +1,111 @@
+package warehouse.logistics.orders;
+
+import org.junit.jupiter.api.Test;
+import warehouse.robots.Robot;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test the OrderLifecycleTracker class.
+ */
+public class OrderLifecycleTrackerTest {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * The time of the clock, in nanoseconds.
+     */
+    private long time;
+
+    /**
+     * Test that Orders record the time they first reach each status, from the clock they were last stamped with.
+     */
+    @Test
+    public void testStatusTimes() {
+        CustomOrder order = new CustomOrder();
+        time = 5;
+        order.setClock(() -> time);
+        assertEquals(5, order.getStatusTime(OrderStatus.PENDING));
+        assertEquals(Order.NOT_REACHED, order.getStatusTime(OrderStatus.ASSIGNED));
+        assertEquals(-1, OrderLifecycleStage.QUEUE_WAIT.getDuration(order));
+        time = 12;
+        order.assign(new Robot(null));
+        time = 20;
+        // Assigning the Order again keeps the time it was first assigned
+        order.assign(new Robot(null));
+        time = 30;
+        order.setInProgress();
+        time = 100;
+        order.setComplete();
+        assertEquals(7, OrderLifecycleStage.QUEUE_WAIT.getDuration(order));
+        assertEquals(18, OrderLifecycleStage.ASSIGNMENT_TO_START.getDuration(order));
+        assertEquals(70, OrderLifecycleStage.EXECUTION.getDuration(order));
+        assertEquals(95, OrderLifecycleStage.END_TO_END.getDuration(order));
+    }
+
+    /**
+     * Test that the stages of Orders added to an OrderQueue are recorded once each, and that throughput counts the
+     * Orders completed in the window.
+     */
+    @Test
+    public void testTracking() {
+        OrderQueue queue = new OrderQueue();
+        OrderLifecycleTracker tracker = new OrderLifecycleTracker(TimeUnit.MINUTES.toNanos(2), 4, () -> time);
+        tracker.attach(queue);
+        assertEquals(0, tracker.getThroughput());
+
+        for (int i = 0; i < 10; i++) {
+            time = i * SECOND;
+            CustomOrder order = new CustomOrder();
+            order.setReady(true);
+            queue.add(order);
+            // The Order is stamped with the clock of the tracker when it is queued
+            assertEquals(time, order.getStatusTime(OrderStatus.PENDING));
+        }
+        assertEquals(10, tracker.getTrackedCount());
+        for (int i = 0; i < 10; i++) {
+            Order order = queue.getNextOrder();
+            // Orders that fail to be matched are added back, but are only tracked once
+            queue.add(order);
+            queue.getNextOrder();
+            time = 20 * SECOND + i * SECOND;
+            order.assign(new Robot(null));
+            order.assign(new Robot(null));
+            if (i < 8) {
+                time += 2 * SECOND;
+                order.setInProgress();
+            }
+            time += 10 * SECOND;
+            order.setComplete();
+        }
+        assertEquals(10, tracker.getTrackedCount());
+        assertEquals(10, tracker.getCompletedCount());
+        assertEquals(0, tracker.getOpenCount());
+
+        assertEquals(10, tracker.getHistogram(OrderLifecycleStage.QUEUE_WAIT).getCount());
+        assertEquals(20 * SECOND, tracker.getPercentile(OrderLifecycleStage.QUEUE_WAIT, 50), SECOND / 10.0);
+        // Cancelled Orders were never started
+        assertEquals(8, tracker.getHistogram(OrderLifecycleStage.ASSIGNMENT_TO_START).getCount());
+        assertEquals(8, tracker.getHistogram(OrderLifecycleStage.EXECUTION).getCount());
+        assertEquals(10 * SECOND, tracker.getPercentile(OrderLifecycleStage.EXECUTION, 99), SECOND / 10.0);
+        assertEquals(10, tracker.getHistogram(OrderLifecycleStage.END_TO_END).getCount());
+        assertEquals(32 * SECOND, tracker.getPercentile(OrderLifecycleStage.END_TO_END, 100), SECOND / 10.0);
+
+        // 10 Orders completed in the 41 seconds since the first was tracked
+        time = 41 * SECOND;
+        assertEquals(10 * 60 / 41.0, tracker.getThroughput(), 1e-9);
+        // Once the window has passed, the durations and throughput are forgotten
+        time = 10 * 60 * SECOND;
+        assertEquals(0, tracker.getHistogram(OrderLifecycleStage.END_TO_END).getCount());
+        assertEquals(0, tracker.getThroughput());
+        assertEquals(10, tracker.getCompletedCount());
+
+        tracker.detach(queue);
+        queue.add(new CustomOrder());
+        assertEquals(10, tracker.getTrackedCount());
+        tracker.reset();
+        assertEquals(0, tracker.getTrackedCount());
+        assertEquals(0, tracker.getCompletedCount());
+    }
+}
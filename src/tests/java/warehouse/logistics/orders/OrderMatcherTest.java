@@ -1,5 +1,6 @@
 package warehouse.logistics.orders;
 
+import application.desktop.adapters.PhysicalGridRobotAdapterFactory;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import warehouse.Warehouse;
@@ -11,10 +12,16 @@ import warehouse.inventory.Item;
 import warehouse.inventory.Part;
 import warehouse.inventory.PartCatalogue;
 import warehouse.logistics.assignment.BasicRackAssignmentPolicy;
+import warehouse.logistics.optimization.DistanceTileScorer;
+import warehouse.logistics.optimization.routefinding.algorithms.AStarRoutefinder;
 import warehouse.robots.Robot;
 import warehouse.robots.RobotMapper;
 import warehouse.tiles.Rack;
 import warehouse.tiles.ReceiveDepot;
+import warehouse.tiles.Tile;
+
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -158,4 +165,199 @@ public class OrderMatcherTest {
         assertTrue(warehouse.getState().getOrderQueue().isEmpty());
         assertEquals(order3, robot1.getOrder());
     }
+
+    /**
+     * Test that batch matching minimizes the total travel distance where greedy matching does not.
+     */
+    @Test
+    public void testBatchMatching() throws InterruptedException {
+        // A single corridor, with Robots at x = 4 and x = 9
+        GridWarehouseCoordinateSystem coordinateSystem = new GridWarehouseCoordinateSystem(10, 1);
+        Warehouse<GridWarehouseCoordinateSystem, Point> corridor = new Warehouse<>(new WarehouseState<>(
+                new PartCatalogue(),
+                coordinateSystem,
+                new WarehouseLayout<>(coordinateSystem),
+                new RobotMapper<>(coordinateSystem),
+                null,
+                new OrderQueue()
+        ));
+        WarehouseLayout<Point> layout = corridor.getState().getLayout();
+        RobotMapper<Point> robotMapper = corridor.getState().getRobotMapper();
+        Robot near = new Robot(null);
+        Robot far = new Robot(null);
+        robotMapper.addRobotAt(near, new Point(4, 0));
+        robotMapper.addRobotAt(far, new Point(9, 0));
+        OrderMatcher matcher = corridor.getOrderMatcher();
+        matcher.addSelectionPolicy(CorridorOrder.class, new RouteDistanceOrderHandlerSelectionPolicy<>(corridor));
+
+        // Greedy: the first Order takes the Robot next to it, so the second Order gets the far Robot
+        CorridorOrder first = new CorridorOrder(layout.getTileAt(new Point(5, 0)));
+        Thread.sleep(1);
+        CorridorOrder second = new CorridorOrder(layout.getTileAt(new Point(0, 0)));
+        corridor.getState().getOrderQueue().add(first);
+        corridor.getState().getOrderQueue().add(second);
+        matcher.match();
+        assertEquals(near, first.getHandler());
+        assertEquals(far, second.getHandler());
+        assertEquals(2, matcher.getMatchedOrderCount());
+        assertEquals(10, matcher.getTotalTravelDistance(), 1e-9);
+
+        // Batch: the far Robot takes the first Order, so both Robots travel 4 tiles
+        near.setOrder(null);
+        far.setOrder(null);
+        matcher.resetStatistics();
+        matcher.setMatchingStrategy(new BatchOrderMatchingStrategy(8));
+        first = new CorridorOrder(layout.getTileAt(new Point(5, 0)));
+        Thread.sleep(1);
+        second = new CorridorOrder(layout.getTileAt(new Point(0, 0)));
+        corridor.getState().getOrderQueue().add(first);
+        corridor.getState().getOrderQueue().add(second);
+        matcher.match();
+        assertEquals(far, first.getHandler());
+        assertEquals(near, second.getHandler());
+        assertEquals(8, matcher.getTotalTravelDistance(), 1e-9);
+        assertTrue(corridor.getState().getOrderQueue().isEmpty());
+
+        // An Order that no Robot can reach is left in the queue
+        near.setOrder(null);
+        far.setOrder(null);
+        layout.setTileAt(new Point(2, 0), new Rack());
+        CorridorOrder blocked = new CorridorOrder(layout.getTileAt(new Point(0, 0)));
+        Thread.sleep(1);
+        CorridorOrder open = new CorridorOrder(layout.getTileAt(new Point(6, 0)));
+        corridor.getState().getOrderQueue().add(blocked);
+        corridor.getState().getOrderQueue().add(open);
+        matcher.match();
+        assertNull(blocked.getHandler());
+        assertEquals(near, open.getHandler());
+        assertFalse(far.getIsBusy());
+        assertEquals(1, corridor.getState().getOrderQueue().size());
+
+        assertThrows(IllegalArgumentException.class, () -> new BatchOrderMatchingStrategy(0));
+        assertThrows(IllegalArgumentException.class, () -> new BatchOrderMatchingStrategy(8, 0));
+    }
+
+    /**
+     * Test that a batch is matched to the nearest Robots of its Orders, with the Robots nearest to any Order added when
+     * the Orders share their nearest Robots.
+     */
+    @Test
+    public void testBatchCandidates() throws InterruptedException {
+        // A single corridor, with Robots at x = 0 to 9 and Orders at x = 15 and x = 19
+        GridWarehouseCoordinateSystem coordinateSystem = new GridWarehouseCoordinateSystem(20, 1);
+        Warehouse<GridWarehouseCoordinateSystem, Point> corridor = new Warehouse<>(new WarehouseState<>(
+                new PartCatalogue(),
+                coordinateSystem,
+                new WarehouseLayout<>(coordinateSystem),
+                new RobotMapper<>(coordinateSystem),
+                null,
+                new OrderQueue()
+        ));
+        WarehouseLayout<Point> layout = corridor.getState().getLayout();
+        List<Robot> robots = new ArrayList<>();
+        for (int x = 0; x < 10; x++) {
+            Robot robot = new Robot(null);
+            corridor.getState().getRobotMapper().addRobotAt(robot, new Point(x, 0));
+            robots.add(robot);
+        }
+        OrderMatcher matcher = corridor.getOrderMatcher();
+        // Both Orders have the Robot at x = 9 as their only candidate, so the Robot at x = 8 is added
+        matcher.setMatchingStrategy(new BatchOrderMatchingStrategy(8, 1));
+        CorridorOrder first = new CorridorOrder(layout.getTileAt(new Point(15, 0)));
+        Thread.sleep(1);
+        CorridorOrder second = new CorridorOrder(layout.getTileAt(new Point(19, 0)));
+        corridor.getState().getOrderQueue().add(first);
+        corridor.getState().getOrderQueue().add(second);
+        matcher.match();
+        assertEquals(2, matcher.getMatchedOrderCount());
+        assertTrue(List.of(robots.get(8), robots.get(9)).contains(first.getHandler()));
+        assertTrue(List.of(robots.get(8), robots.get(9)).contains(second.getHandler()));
+        assertEquals(17, matcher.getTotalTravelDistance(), 1e-9);
+        assertTrue(corridor.getState().getOrderQueue().isEmpty());
+    }
+
+    /**
+     * Test that the first legs of a batch of Orders are planned jointly, and that the Robots follow the planned routes
+     * to complete their Orders.
+     */
+    @Test
+    public void testBatchPlanning() throws InterruptedException {
+        // Two Robots whose shortest routes cross the centre of a 3x3 floor at the same time
+        GridWarehouseCoordinateSystem coordinateSystem = new GridWarehouseCoordinateSystem(3, 3);
+        WarehouseState<GridWarehouseCoordinateSystem, Point> state = new WarehouseState<>(
+                new PartCatalogue(),
+                coordinateSystem,
+                new WarehouseLayout<>(coordinateSystem),
+                new RobotMapper<>(coordinateSystem),
+                new PhysicalGridRobotAdapterFactory(),
+                new OrderQueue()
+        );
+        Warehouse<GridWarehouseCoordinateSystem, Point> floor = new Warehouse<>(state);
+        floor.getOrderMatcher().setMatchingStrategy(new BatchOrderMatchingStrategy(8));
+        WarehouseLayout<Point> layout = state.getLayout();
+        DistanceTileScorer metric = new DistanceTileScorer(coordinateSystem);
+        Robot left = new Robot("left", new AStarRoutefinder<>(metric, metric));
+        Robot top = new Robot("top", new AStarRoutefinder<>(metric, metric));
+        state.getRobotMapper().addRobotAt(left, new Point(0, 1));
+        state.getRobotMapper().addRobotAt(top, new Point(1, 0));
+        CorridorOrder first = new CorridorOrder(layout.getTileAt(new Point(2, 1)));
+        Thread.sleep(1);
+        CorridorOrder second = new CorridorOrder(layout.getTileAt(new Point(1, 2)));
+        state.getOrderQueue().add(first);
+        state.getOrderQueue().add(second);
+        floor.update();
+
+        // Each Robot is given a route from its tile to its Order, and the routes never share a tile or swap tiles
+        List<Tile> firstRoute = first.getHandler().getPlannedRoute();
+        List<Tile> secondRoute = second.getHandler().getPlannedRoute();
+        assertNotNull(firstRoute);
+        assertNotNull(secondRoute);
+        assertEquals(state.getRobotMapper().getRobotTileIndex(first.getHandler()), firstRoute.get(0).getIndex());
+        assertEquals(first.getWaypoints().get(0), firstRoute.get(firstRoute.size() - 1));
+        assertEquals(second.getWaypoints().get(0), secondRoute.get(secondRoute.size() - 1));
+        for (int t = 0; t < Math.max(firstRoute.size(), secondRoute.size()); t++) {
+            Tile a = firstRoute.get(Math.min(t, firstRoute.size() - 1));
+            Tile b = secondRoute.get(Math.min(t, secondRoute.size() - 1));
+            assertNotEquals(a, b);
+            if (t > 0) {
+                Tile previousA = firstRoute.get(Math.min(t - 1, firstRoute.size() - 1));
+                Tile previousB = secondRoute.get(Math.min(t - 1, secondRoute.size() - 1));
+                assertFalse(a.equals(previousB) && b.equals(previousA));
+            }
+        }
+
+        // The Robots follow their planned routes
+        for (int i = 0; i < 100 && !(first.getStatus() == OrderStatus.COMPLETE
+                && second.getStatus() == OrderStatus.COMPLETE); i++) {
+            state.getRobotAdapterUpdater().update(0.1);
+        }
+        assertEquals(OrderStatus.COMPLETE, first.getStatus());
+        assertEquals(OrderStatus.COMPLETE, second.getStatus());
+        assertNull(left.getPlannedRoute());
+        assertNull(top.getPlannedRoute());
+
+        // Greedy matching leaves routing to each Robot
+        left.setOrder(null);
+        top.setOrder(null);
+        floor.getOrderMatcher().setMatchingStrategy(new GreedyOrderMatchingStrategy());
+        CorridorOrder third = new CorridorOrder(layout.getTileAt(new Point(0, 0)));
+        state.getOrderQueue().add(third);
+        floor.update();
+        assertNotNull(third.getHandler());
+        assertNull(third.getHandler().getPlannedRoute());
+    }
+
+    /**
+     * A NavigateOrder to a single Tile, which is always ready.
+     */
+    private static class CorridorOrder extends NavigateOrder {
+        CorridorOrder(Tile waypoint) {
+            super(new ArrayList<>(List.of(waypoint)));
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+    }
 }
@@ -4,13 +4,18 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.MethodOrderer;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestMethodOrder;
+import warehouse.Warehouse;
 import warehouse.WarehouseLayout;
+import warehouse.WarehouseState;
 import warehouse.geometry.grid.GridWarehouseCoordinateSystem;
 import warehouse.geometry.grid.Point;
 import warehouse.inventory.Item;
 import warehouse.inventory.Part;
+import warehouse.inventory.PartCatalogue;
 import warehouse.logistics.assignment.BasicRackAssignmentPolicy;
+import warehouse.robots.RobotMapper;
 import warehouse.tiles.Rack;
+import warehouse.tiles.ReceiveDepot;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -89,4 +94,115 @@ public class OrderQueueTest {
         // a PlaceOrder that is NOT ready, (order2). So, we should get null.
         assertNull(orderQueue.getNextOrder());
     }
+
+    /**
+     * Test that blocked Orders that track their readiness are only checked again after the queue is invalidated, and
+     * that ready Orders that became blocked are not returned.
+     */
+    @Test
+    @org.junit.jupiter.api.Order(3)
+    void testInvalidate() throws InterruptedException {
+        OrderQueue queue = new OrderQueue();
+        TrackedOrder tracked = new TrackedOrder();
+        Thread.sleep(1);
+        CustomOrder untracked = new CustomOrder();
+        queue.add(tracked);
+        queue.add(untracked);
+        assertNull(queue.getNextOrder());
+
+        // The tracked order is not checked again until the queue is invalidated
+        tracked.setReady(true);
+        assertNull(queue.getNextOrder());
+        queue.invalidate();
+        assertEquals(tracked, queue.getNextOrder());
+
+        // An order that is no longer ready when polled is blocked again
+        CustomOrder unready = new CustomOrder();
+        unready.setReady(true);
+        queue.add(unready);
+        unready.setReady(false);
+        assertNull(queue.getNextOrder());
+        assertEquals(2, queue.size());
+        // Orders that do not track their readiness are checked on every poll
+        untracked.setReady(true);
+        assertEquals(untracked, queue.getNextOrder());
+        unready.setReady(true);
+        assertEquals(unready, queue.getNextOrder());
+        assertTrue(queue.isEmpty());
+    }
+
+    /**
+     * Test that a Warehouse invalidates its OrderQueue when a Rack is set, so a waiting PlaceOrder becomes ready.
+     */
+    @Test
+    @org.junit.jupiter.api.Order(4)
+    void testPlaceOrderBecomesReady() {
+        GridWarehouseCoordinateSystem coordinateSystem = new GridWarehouseCoordinateSystem(3, 1);
+        Warehouse<GridWarehouseCoordinateSystem, Point> warehouse = new Warehouse<>(new WarehouseState<>(
+                new PartCatalogue(),
+                coordinateSystem,
+                new WarehouseLayout<>(coordinateSystem),
+                new RobotMapper<>(coordinateSystem),
+                null,
+                new OrderQueue()
+        ));
+        WarehouseLayout<Point> layout = warehouse.getState().getLayout();
+        Rack source = new Rack(-1, 0);
+        layout.setTileAt(new Point(0, 0), source);
+        OrderQueue queue = warehouse.getState().getOrderQueue();
+        PlaceOrder order = new PlaceOrder(source, new Item(new Part("Example Part", "No description.")),
+                layout, new BasicRackAssignmentPolicy());
+        queue.add(order);
+        assertNull(queue.getNextOrder());
+
+        layout.setTileAt(new Point(2, 0), new Rack());
+        assertEquals(order, queue.getNextOrder());
+    }
+
+    /**
+     * Test that a Warehouse invalidates its OrderQueue when an Item is removed from a Rack, but not from a depot.
+     */
+    @Test
+    @org.junit.jupiter.api.Order(5)
+    void testItemRemoved() {
+        GridWarehouseCoordinateSystem coordinateSystem = new GridWarehouseCoordinateSystem(3, 1);
+        WarehouseLayout<Point> layout = new WarehouseLayout<>(coordinateSystem);
+        Rack rack = new Rack();
+        ReceiveDepot depot = new ReceiveDepot();
+        layout.setTileAt(new Point(0, 0), rack);
+        Warehouse<GridWarehouseCoordinateSystem, Point> warehouse = new Warehouse<>(new WarehouseState<>(
+                new PartCatalogue(),
+                coordinateSystem,
+                layout,
+                new RobotMapper<>(coordinateSystem),
+                null,
+                new OrderQueue()
+        ));
+        layout.setTileAt(new Point(2, 0), depot);
+        OrderQueue queue = warehouse.getState().getOrderQueue();
+        Part part = new Part("Example Part", "No description.");
+        Item rackItem = new Item(part);
+        Item depotItem = new Item(part);
+        rack.getStorageUnit().addItem(rackItem);
+        depot.getStorageUnit().addItem(depotItem);
+        TrackedOrder order = new TrackedOrder();
+        queue.add(order);
+        assertNull(queue.getNextOrder());
+
+        order.setReady(true);
+        depot.getStorageUnit().removeItem(depotItem);
+        assertNull(queue.getNextOrder());
+        rack.getStorageUnit().removeItem(rackItem);
+        assertEquals(order, queue.getNextOrder());
+    }
+
+    /**
+     * An Order whose readiness is tracked.
+     */
+    private static class TrackedOrder extends CustomOrder {
+        @Override
+        public boolean isReadinessTracked() {
+            return true;
+        }
+    }
 }
@@ -0,0 +1,81 @@
+package warehouse.logistics.orders;
+
+import org.junit.jupiter.api.Test;
+import warehouse.Warehouse;
+import warehouse.WarehouseLayout;
+import warehouse.WarehouseState;
+import warehouse.geometry.grid.GridWarehouseCoordinateSystem;
+import warehouse.geometry.grid.Point;
+import warehouse.inventory.PartCatalogue;
+import warehouse.robots.Robot;
+import warehouse.robots.RobotMapper;
+import warehouse.tiles.Rack;
+import warehouse.tiles.Tile;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test the RouteDistanceOrderHandlerSelectionPolicy class.
+ */
+public class RouteDistanceOrderHandlerSelectionPolicyTest {
+    /**
+     * Test that the Robot with the shortest route is selected, rather than the Robot that is closest in a straight
+     * line.
+     */
+    @Test
+    public void testSelect() {
+        GridWarehouseCoordinateSystem coordinateSystem = new GridWarehouseCoordinateSystem(10, 10);
+        Warehouse<GridWarehouseCoordinateSystem, Point> warehouse = new Warehouse<>(new WarehouseState<>(
+                new PartCatalogue(),
+                coordinateSystem,
+                new WarehouseLayout<>(coordinateSystem),
+                new RobotMapper<>(coordinateSystem),
+                null,
+                new OrderQueue()
+        ));
+        WarehouseLayout<Point> layout = warehouse.getState().getLayout();
+        // A wall with a gap at the bottom
+        for (int y = 0; y < 9; y++) {
+            layout.setTileAt(new Point(5, y), new Rack());
+        }
+        RobotMapper<Point> robotMapper = warehouse.getState().getRobotMapper();
+        Robot behindWall = new Robot(null);
+        Robot sameSide = new Robot(null);
+        robotMapper.addRobotAt(behindWall, new Point(4, 0));
+        robotMapper.addRobotAt(sameSide, new Point(9, 6));
+        List<Robot> robots = new ArrayList<>(List.of(behindWall, sameSide));
+
+        RouteDistanceOrderHandlerSelectionPolicy<NavigateOrder> policy =
+                new RouteDistanceOrderHandlerSelectionPolicy<>(warehouse);
+        // The Robot behind the wall is closer in a straight line, but has to walk around it
+        NavigateOrder order = makeOrder(layout.getTileAt(new Point(6, 0)));
+        assertEquals(sameSide, policy.select(robots, order));
+        assertEquals(behindWall, new NearestOrderHandlerSelectionPolicy(warehouse).select(robots, order));
+        // The field of the waypoint is reused by the next Order
+        assertEquals(sameSide, policy.select(robots, makeOrder(layout.getTileAt(new Point(6, 0)))));
+        assertEquals(1, warehouse.getState().getDistanceFieldCache().getFieldCreateCount());
+
+        // Once the gap is closed, only the Robot on the same side of the wall can reach the waypoint
+        layout.setTileAt(new Point(5, 9), new Rack());
+        assertEquals(behindWall, policy.select(robots, makeOrder(layout.getTileAt(new Point(0, 9)))));
+        assertEquals(behindWall, policy.select(robots, makeOrder(null)));
+        assertNull(policy.select(new ArrayList<>(), order));
+    }
+
+    /**
+     * Create a NavigateOrder with the given first waypoint.
+     */
+    private static NavigateOrder makeOrder(Tile waypoint) {
+        List<Tile> waypoints = new ArrayList<>();
+        waypoints.add(waypoint);
+        return new NavigateOrder(waypoints) {
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+        };
+    }
+}
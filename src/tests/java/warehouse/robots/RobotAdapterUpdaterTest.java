@@ -0,0 +1,193 @@
+package warehouse.robots;
+
+import application.desktop.adapters.PhysicalGridRobotAdapterFactory;
+import org.junit.jupiter.api.Test;
+import warehouse.Warehouse;
+import warehouse.WarehouseLayout;
+import warehouse.WarehouseState;
+import warehouse.geometry.grid.GridWarehouseCoordinateSystem;
+import warehouse.geometry.grid.Point;
+import warehouse.inventory.PartCatalogue;
+import warehouse.logistics.optimization.routefinding.algorithms.GridAStarRoutefinder;
+import warehouse.logistics.orders.NavigateOrder;
+import warehouse.logistics.orders.OrderQueue;
+import warehouse.logistics.orders.OrderStatus;
+import warehouse.simulation.SimulationEngine;
+import warehouse.tiles.EmptyTile;
+import warehouse.tiles.Rack;
+import warehouse.tiles.Tile;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test the RobotAdapterUpdater class.
+ */
+public class RobotAdapterUpdaterTest {
+    /**
+     * Test that every adapter is prepared before any is updated, and that adapters are updated in the order their
+     * Robots were first seen, on the calling thread.
+     */
+    @Test
+    public void testPhases() {
+        List<String> events = Collections.synchronizedList(new ArrayList<>());
+        List<Thread> updateThreads = new ArrayList<>();
+        WarehouseState<GridWarehouseCoordinateSystem, Point> state = makeState(
+                (robot, warehouseState) -> new RobotAdapter<>(robot, warehouseState) {
+                    @Override
+                    public void prepare(double timeStep) {
+                        events.add("prepare");
+                    }
+
+                    @Override
+                    public void update() {
+                        fail("Adapters should be updated with a time step");
+                    }
+
+                    @Override
+                    public void update(double timeStep) {
+                        events.add(robot.getId());
+                        updateThreads.add(Thread.currentThread());
+                    }
+                });
+        for (int i = 0; i < 100; i++) {
+            state.getRobotMapper().addRobotAt(new Robot("robot" + i, null), i);
+        }
+        List<String> ids = new ArrayList<>();
+        for (Robot robot : state.getRobotMapper().getRobots()) {
+            ids.add(robot.getId());
+        }
+
+        RobotAdapterUpdater<GridWarehouseCoordinateSystem, Point> updater = state.getRobotAdapterUpdater();
+        updater.setPool(new ForkJoinPool(4));
+        updater.setParallelThreshold(0);
+        updater.update(0.1);
+        assertEquals(200, events.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals("prepare", events.get(i));
+        }
+        assertEquals(ids, events.subList(100, 200));
+        assertTrue(updateThreads.stream().allMatch(thread -> thread == Thread.currentThread()));
+
+        assertThrows(IllegalArgumentException.class, () -> updater.setParallelThreshold(-1));
+    }
+
+    /**
+     * A fleet of Robots ends up in the same positions whether its routes are planned in parallel or not.
+     */
+    @Test
+    public void testParallelMatchesSequential() {
+        List<Point> sequential = simulate(Integer.MAX_VALUE);
+        List<Point> parallel = simulate(0);
+        assertEquals(sequential, parallel);
+    }
+
+    /**
+     * A Robot given a waypoint it cannot reach waits in place, and sets off once the way is cleared.
+     */
+    @Test
+    public void testUnreachableWaypoint() {
+        WarehouseState<GridWarehouseCoordinateSystem, Point> state = makeState(
+                new PhysicalGridRobotAdapterFactory());
+        WarehouseLayout<Point> layout = state.getLayout();
+        for (int x = 9; x <= 11; x++) {
+            for (int y = 9; y <= 11; y++) {
+                if (x != 10 || y != 10) {
+                    layout.setTileAt(new Point(x, y), new Rack());
+                }
+            }
+        }
+        Robot robot = new Robot("robot", new GridAStarRoutefinder(state.getCoordinateSystem()));
+        state.getRobotMapper().addRobotAt(robot, new Point(0, 0));
+        WaypointOrder order = new WaypointOrder(layout.getTileAt(new Point(10, 10)));
+        order.assign(robot);
+
+        RobotAdapterUpdater<GridWarehouseCoordinateSystem, Point> updater = state.getRobotAdapterUpdater();
+        for (int i = 0; i < 10; i++) {
+            updater.update(0.1);
+        }
+        assertEquals(new Point(0, 0), state.getRobotMapper().getRobotPosition(robot));
+        assertEquals(order, robot.getOrder());
+
+        layout.setTileAt(new Point(9, 10), new EmptyTile());
+        for (int i = 0; i < 200 && order.getStatus() != OrderStatus.COMPLETE; i++) {
+            updater.update(0.1);
+        }
+        assertEquals(OrderStatus.COMPLETE, order.getStatus());
+        assertEquals(new Point(10, 10), state.getRobotMapper().getRobotPosition(robot));
+    }
+
+    /**
+     * Run a fleet of 200 Robots to random goals for a number of ticks, and return their positions.
+     * @param parallelThreshold The number of adapters from which they are prepared in parallel.
+     */
+    private static List<Point> simulate(int parallelThreshold) {
+        WarehouseState<GridWarehouseCoordinateSystem, Point> state = makeState(
+                new PhysicalGridRobotAdapterFactory());
+        GridWarehouseCoordinateSystem coordinateSystem = state.getCoordinateSystem();
+        WarehouseLayout<Point> layout = state.getLayout();
+        for (int x = 2; x < 30; x += 4) {
+            for (int y = 2; y < 28; y++) {
+                layout.setTileAt(new Point(x, y), new Rack());
+            }
+        }
+
+        Random random = new Random(20);
+        List<Integer> floor = new ArrayList<>();
+        for (int i = 0; i < coordinateSystem.getSize(); i++) {
+            if (layout.getTileAt(i).getClass() == EmptyTile.class) {
+                floor.add(i);
+            }
+        }
+        Collections.shuffle(floor, random);
+        List<Robot> robots = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            Robot robot = new Robot("robot" + i, new GridAStarRoutefinder(coordinateSystem));
+            robots.add(robot);
+            state.getRobotMapper().addRobotAt(robot, floor.get(i));
+            state.getOrderQueue().add(new WaypointOrder(layout.getTileAt(floor.get(floor.size() - 1 - i))));
+        }
+
+        state.getRobotAdapterUpdater().setParallelThreshold(parallelThreshold);
+        state.getRobotAdapterUpdater().setPool(new ForkJoinPool(4));
+        new SimulationEngine<>(new Warehouse<>(state), 0.1, 20).run(60);
+
+        List<Point> positions = new ArrayList<>();
+        for (Robot robot : robots) {
+            positions.add(state.getRobotMapper().getRobotPosition(robot));
+        }
+        return positions;
+    }
+
+    private static WarehouseState<GridWarehouseCoordinateSystem, Point> makeState(
+            RobotAdapterFactory<GridWarehouseCoordinateSystem, Point> robotAdapterFactory) {
+        GridWarehouseCoordinateSystem coordinateSystem = new GridWarehouseCoordinateSystem(30, 30);
+        return new WarehouseState<>(
+                new PartCatalogue(),
+                coordinateSystem,
+                new WarehouseLayout<>(coordinateSystem),
+                new RobotMapper<>(coordinateSystem),
+                robotAdapterFactory,
+                new OrderQueue()
+        );
+    }
+
+    /**
+     * A NavigateOrder to a single Tile, which is always ready.
+     */
+    private static class WaypointOrder extends NavigateOrder {
+        WaypointOrder(Tile waypoint) {
+            super(new ArrayList<>(List.of(waypoint)));
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package warehouse.simulation;
+
+import application.desktop.adapters.PhysicalGridRobotAdapterFactory;
+import metrics.LatencyHistogram;
+import org.junit.jupiter.api.Test;
+import warehouse.WarehouseLayout;
+import warehouse.geometry.grid.GridWarehouseCoordinateSystem;
+import warehouse.geometry.grid.Point;
+import warehouse.logistics.orders.OrderLifecycleStage;
+import warehouse.logistics.orders.OrderLifecycleTracker;
+import warehouse.robots.Robot;
+import warehouse.robots.RobotMapper;
+import warehouse.tiles.EmptyTile;
+import warehouse.tiles.Rack;
+import warehouse.tiles.ReceiveDepot;
+import warehouse.tiles.ShipDepot;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test the ScenarioGenerator class.
+ */
+public class ScenarioGeneratorTest {
+    /**
+     * Test that depots are on their walls, that every Rack borders an aisle, and that Robots start on distinct empty
+     * tiles.
+     */
+    @Test
+    public void testLayout() {
+        ScenarioGenerator generator = new ScenarioGenerator();
+        generator.setSize(40, 30);
+        generator.setRackBlockShape(2, 6);
+        generator.setAisleWidth(2);
+        generator.setDepots(3, 2, DepotPlacement.OPPOSITE_SIDES);
+        generator.setRobotCount(25);
+        generator.setParts(50, 1);
+        Scenario scenario = generator.generate(23);
+        WarehouseLayout<Point> layout = scenario.getWarehouse().getState().getLayout();
+        GridWarehouseCoordinateSystem coordinateSystem = scenario.getWarehouse().getState().getCoordinateSystem();
+
+        assertEquals(3, layout.countTilesOfType(ReceiveDepot.class));
+        for (ReceiveDepot depot : layout.findTilesOfType(ReceiveDepot.class)) {
+            assertEquals(29, coordinateSystem.projectIndexToCoordinate(depot.getIndex()).getY());
+        }
+        assertEquals(2, layout.countTilesOfType(ShipDepot.class));
+        for (ShipDepot depot : layout.findTilesOfType(ShipDepot.class)) {
+            assertEquals(0, coordinateSystem.projectIndexToCoordinate(depot.getIndex()).getY());
+        }
+
+        List<Rack> racks = layout.findTilesOfType(Rack.class);
+        assertTrue(racks.size() > 300, "Only " + racks.size() + " racks");
+        for (Rack rack : racks) {
+            Point point = coordinateSystem.projectIndexToCoordinate(rack.getIndex());
+            // Racks leave the depot ring and an aisle along it free
+            assertTrue(point.getX() >= 3 && point.getX() < 37 && point.getY() >= 3 && point.getY() < 27);
+            boolean bordersAisle = false;
+            for (int neighbour : coordinateSystem.getNeighbours(rack.getIndex())) {
+                bordersAisle |= layout.getTileAt(neighbour) instanceof EmptyTile;
+            }
+            assertTrue(bordersAisle);
+        }
+
+        RobotMapper<Point> robotMapper = scenario.getWarehouse().getState().getRobotMapper();
+        assertEquals(25, robotMapper.getRobots().size());
+        Set<Integer> positions = new HashSet<>();
+        for (Robot robot : robotMapper.getRobots()) {
+            int index = robotMapper.getRobotTileIndex(robot);
+            assertTrue(layout.getTileAt(index) instanceof EmptyTile);
+            assertTrue(positions.add(index));
+        }
+        assertEquals(50, scenario.getWarehouse().getState().getPartCatalogue().getParts().size());
+        assertEquals(scenario.getParts().get(0), scenario.getWarehouse().getState().getPartCatalogue()
+                .getPartById("part0"));
+    }
+
+    /**
+     * Test that the same seed generates the same layout and Robot positions.
+     */
+    @Test
+    public void testSeed() {
+        ScenarioGenerator generator = new ScenarioGenerator();
+        generator.setSize(30, 30);
+        generator.setRackDensity(0.5);
+        generator.setDepots(4, 4, DepotPlacement.PERIMETER);
+        generator.setRobotCount(10);
+        Scenario first = generator.generate(5);
+        Scenario second = generator.generate(5);
+        Scenario other = generator.generate(6);
+
+        assertEquals(describe(first), describe(second));
+        assertNotEquals(describe(first), describe(other));
+        assertEquals(8, first.getWarehouse().getState().getLayout().countTilesOfType(ReceiveDepot.class)
+                + first.getWarehouse().getState().getLayout().countTilesOfType(ShipDepot.class));
+    }
+
+    /**
+     * Test that Items arrive at about the given rate, and are received by the ReceiveDepots.
+     */
+    @Test
+    public void testArrivals() {
+        ScenarioGenerator generator = new ScenarioGenerator();
+        generator.setSize(20, 20);
+        generator.setDepots(2, 1, DepotPlacement.ONE_SIDE);
+        generator.setRobotCount(0);
+        generator.setArrivalRate(5);
+        Scenario scenario = generator.generate(8);
+        SimulationEngine<GridWarehouseCoordinateSystem, Point> engine = scenario.createEngine(0.1);
+        engine.run(200);
+
+        ItemArrivalProcess arrivals = scenario.getItemArrivalProcess();
+        assertEquals(5, arrivals.getRate());
+        assertTrue(arrivals.getArrivalCount() > 60 && arrivals.getArrivalCount() < 140,
+                "Arrived " + arrivals.getArrivalCount());
+        assertEquals(0, arrivals.getRejectedCount());
+        assertTrue(arrivals.getNextArrivalTime() > engine.getSimulatedTime());
+        int received = 0;
+        for (ReceiveDepot depot : scenario.getWarehouse().getState().getLayout().findTilesOfType(ReceiveDepot.class)) {
+            received += depot.getStorageUnit().getSize();
+        }
+        assertEquals(arrivals.getArrivalCount(), received);
+        assertEquals(arrivals.getArrivalCount(), scenario.getWarehouse().getState().getOrderQueue().size());
+    }
+
+    /**
+     * Run a small Scenario headlessly, and check that Robots move arriving Items into Racks.
+     */
+    @Test
+    public void testSimulation() {
+        ScenarioGenerator generator = new ScenarioGenerator();
+        generator.setSize(20, 20);
+        generator.setRackCapacity(5);
+        generator.setRobotCount(5);
+        generator.setParts(10, 1);
+        generator.setArrivalRate(0.5);
+        generator.setRobotAdapterFactory(new PhysicalGridRobotAdapterFactory());
+        Scenario scenario = generator.generate(9);
+        scenario.createEngine(0.1).run(600);
+
+        int stored = 0;
+        for (Rack rack : scenario.getWarehouse().getState().getLayout().findTilesOfType(Rack.class)) {
+            stored += rack.getStorageUnit().getSize();
+        }
+        assertTrue(stored > 0);
+        assertTrue(stored <= scenario.getItemArrivalProcess().getArrivalCount());
+
+        // Order timings are in simulated time, so every stage takes at most the 60 simulated seconds
+        OrderLifecycleTracker tracker = scenario.getWarehouse().getState().getOrderLifecycleTracker();
+        assertTrue(tracker.getTrackedCount() >= scenario.getItemArrivalProcess().getArrivalCount());
+        assertTrue(tracker.getCompletedCount() >= stored);
+        LatencyHistogram endToEnd = tracker.getHistogram(OrderLifecycleStage.END_TO_END);
+        assertEquals(tracker.getCompletedCount(), endToEnd.getCount());
+        assertTrue(endToEnd.getMax() <= TimeUnit.SECONDS.toNanos(60));
+        assertTrue(tracker.getPercentile(OrderLifecycleStage.EXECUTION, 50) > 0);
+        assertTrue(tracker.getThroughput() > 0);
+    }
+
+    /**
+     * Test that invalid parameters are rejected.
+     */
+    @Test
+    public void testInvalidParameters() {
+        ScenarioGenerator generator = new ScenarioGenerator();
+        assertThrows(IllegalArgumentException.class, () -> generator.setSize(2, 10));
+        assertThrows(IllegalArgumentException.class, () -> generator.setAisleWidth(0));
+        assertThrows(IllegalArgumentException.class, () -> generator.setRackDensity(1.5));
+        assertThrows(IllegalArgumentException.class, () -> generator.setParts(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> generator.setArrivalRate(-1));
+
+        generator.setRackBlockShape(3, 3);
+        assertThrows(IllegalArgumentException.class, () -> generator.generate(1));
+        generator.setRackBlockShape(10, 2);
+        generator.setSize(10, 10);
+        generator.setRobotCount(1000);
+        assertThrows(IllegalArgumentException.class, () -> generator.generate(1));
+        generator.setRobotCount(0);
+        generator.setDepots(100, 0, DepotPlacement.ONE_SIDE);
+        assertThrows(IllegalArgumentException.class, () -> generator.generate(1));
+    }
+
+    /**
+     * Describe the tile types and Robot positions of a Scenario.
+     */
+    private static String describe(Scenario scenario) {
+        StringBuilder description = new StringBuilder();
+        WarehouseLayout<Point> layout = scenario.getWarehouse().getState().getLayout();
+        for (int i = 0; i < layout.getCoordinateSystem().getSize(); i++) {
+            description.append(layout.getTileAt(i).getClass().getSimpleName().charAt(0));
+        }
+        RobotMapper<Point> robotMapper = scenario.getWarehouse().getState().getRobotMapper();
+        for (Robot robot : robotMapper.getRobots()) {
+            description.append(' ').append(robot.getId()).append('@').append(robotMapper.getRobotTileIndex(robot));
+        }
+        return description.toString();
+    }
+}
@@ -0,0 +1,204 @@
+package warehouse.simulation;
+
+import application.desktop.adapters.PhysicalGridRobotAdapterFactory;
+import metrics.MetricsSnapshot;
+import metrics.SnapshotMetricsExporter;
+import org.junit.jupiter.api.Test;
+import warehouse.Warehouse;
+import warehouse.WarehouseLayout;
+import warehouse.WarehouseMetrics;
+import warehouse.WarehouseState;
+import warehouse.geometry.grid.GridWarehouseCoordinateSystem;
+import warehouse.geometry.grid.Point;
+import warehouse.inventory.Item;
+import warehouse.inventory.Part;
+import warehouse.inventory.PartCatalogue;
+import warehouse.logistics.optimization.routefinding.algorithms.GridAStarRoutefinder;
+import warehouse.logistics.orders.NavigateOrder;
+import warehouse.logistics.orders.OrderQueue;
+import warehouse.logistics.orders.OrderStatus;
+import warehouse.robots.Robot;
+import warehouse.robots.RobotAdapter;
+import warehouse.robots.RobotAdapterFactory;
+import warehouse.robots.RobotMapper;
+import warehouse.tiles.ReceiveDepot;
+import warehouse.tiles.Tile;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test the SimulationEngine class.
+ */
+public class SimulationEngineTest {
+    /**
+     * Test that every tick updates the adapters for one time step, and that advance only runs the ticks that fit in
+     * the elapsed time.
+     */
+    @Test
+    public void testTicks() {
+        List<Double> timeSteps = new ArrayList<>();
+        Warehouse<GridWarehouseCoordinateSystem, Point> warehouse = makeWarehouse(
+                (robot, state) -> new RobotAdapter<>(robot, state) {
+                    @Override
+                    public void update() {
+                        fail("Adapters should be updated with a time step");
+                    }
+
+                    @Override
+                    public void update(double timeStep) {
+                        timeSteps.add(timeStep);
+                    }
+                });
+        warehouse.getState().getRobotMapper().addRobotAt(new Robot(null), new Point(0, 0));
+        SimulationEngine<GridWarehouseCoordinateSystem, Point> engine = new SimulationEngine<>(warehouse, 0.02, 1);
+        List<Long> ticks = new ArrayList<>();
+        engine.getOnTick().addListener(data -> ticks.add(data.getTickCount()));
+
+        engine.run(10);
+        assertEquals(10, engine.getTickCount());
+        assertEquals(0.2, engine.getSimulatedTime(), 1e-9);
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L), ticks);
+        assertEquals(10, timeSteps.size());
+        assertTrue(timeSteps.stream().allMatch(timeStep -> timeStep == 0.02));
+
+        assertEquals(0, engine.advance(0.01));
+        assertEquals(1, engine.advance(0.015));
+        assertEquals(2, engine.advance(0.04));
+        // A long pause only runs a bounded number of ticks
+        assertTrue(engine.advance(1000) < 1000 / 0.02);
+        long tickCount = engine.getTickCount();
+        assertEquals(5, engine.runUntil(data -> data.getTickCount() >= tickCount + 5, 100));
+
+        assertThrows(IllegalArgumentException.class, () -> new SimulationEngine<>(warehouse, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> engine.run(1, 0));
+    }
+
+    /**
+     * Test that engines with the same seed make their Warehouses generate the same Order ids, and give the same random
+     * numbers, without seeding the ids generated elsewhere.
+     */
+    @Test
+    public void testSeed() {
+        Part part = new Part("part", "A part.");
+        Warehouse<GridWarehouseCoordinateSystem, Point> warehouse = makeWarehouse(null);
+        warehouse.getState().getLayout().setTileAt(new Point(0, 0), new ReceiveDepot());
+
+        SimulationEngine<GridWarehouseCoordinateSystem, Point> engine = new SimulationEngine<>(warehouse, 42);
+        String orderId = warehouse.receiveItem(new Item("item0", part)).getId();
+        String itemId = new Item(part).getId();
+        long value = engine.getRandom().nextLong();
+
+        engine = new SimulationEngine<>(warehouse, 42);
+        assertEquals(orderId, warehouse.receiveItem(new Item("item1", part)).getId());
+        assertNotEquals(itemId, new Item(part).getId());
+        assertEquals(value, engine.getRandom().nextLong());
+        assertEquals(42, engine.getSeed());
+
+        // An engine without a seed leaves the ids of the Warehouse random
+        Warehouse<GridWarehouseCoordinateSystem, Point> unseeded = makeWarehouse(null);
+        unseeded.getState().getLayout().setTileAt(new Point(0, 0), new ReceiveDepot());
+        new SimulationEngine<>(unseeded);
+        assertNotEquals(orderId, unseeded.receiveItem(new Item("item0", part)).getId());
+    }
+
+    /**
+     * Test that the metrics of the Warehouse time every phase of a tick and count its work once enabled, and are
+     * exported every given number of ticks.
+     */
+    @Test
+    public void testMetrics() {
+        ScenarioGenerator generator = new ScenarioGenerator();
+        generator.setSize(20, 20);
+        generator.setRobotCount(5);
+        generator.setArrivalRate(2);
+        generator.setRobotAdapterFactory(new PhysicalGridRobotAdapterFactory());
+        Scenario disabledScenario = generator.generate(3);
+        WarehouseMetrics disabledMetrics = disabledScenario.getWarehouse().getState().getMetrics();
+        disabledScenario.createEngine(0.1).run(100);
+        assertEquals(0, disabledMetrics.getTickTimer().getHistogram().getCount());
+        assertEquals(0, disabledMetrics.getRoutesPlanned().getCount());
+
+        Scenario scenario = generator.generate(3);
+        SimulationEngine<GridWarehouseCoordinateSystem, Point> engine = scenario.createEngine(0.1);
+        WarehouseMetrics metrics = scenario.getWarehouse().getState().getMetrics();
+        SnapshotMetricsExporter exporter = new SnapshotMetricsExporter();
+        metrics.getRegistry().addExporter(exporter);
+        metrics.getRegistry().setEnabled(true);
+        engine.setMetricsExportInterval(50);
+        engine.run(49);
+        assertNull(exporter.getLatest());
+        engine.run(51);
+        MetricsSnapshot snapshot = exporter.getLatest();
+        assertNotNull(snapshot);
+        assertEquals(100, snapshot.getHistogram("tick").getCount());
+        assertEquals(100, snapshot.getHistogram("match").getCount());
+        assertEquals(100, snapshot.getHistogram("robots.prepare").getCount());
+        assertEquals(100, snapshot.getHistogram("robots.commit").getCount());
+        assertTrue(snapshot.getHistogram("tick").getMax() >= snapshot.getHistogram("robots.update").getMax());
+        assertTrue(snapshot.getCounter("orders.matched") > 0);
+        assertTrue(snapshot.getCounter("routes.planned") > 0);
+        assertEquals(snapshot.getCounter("routes.planned"), snapshot.getHistogram("route").getCount());
+        assertTrue(snapshot.getCounter("nodes.expanded") > 0);
+        assertTrue(snapshot.getGauge("robots.utilisation") >= 0 && snapshot.getGauge("robots.utilisation") <= 1);
+        assertEquals(scenario.getWarehouse().getState().getOrderQueue().size(),
+                metrics.getRegistry().snapshot().getGauge("orders.queued"));
+        assertThrows(IllegalArgumentException.class, () -> engine.setMetricsExportInterval(-1));
+    }
+
+    /**
+     * A Robot travels along a row in about the same simulated time whatever the time step is.
+     */
+    @Test
+    public void testTimeStepIndependence() {
+        List<Double> times = new ArrayList<>();
+        for (double timeStep : new double[] {1.0 / 60, 0.1}) {
+            Warehouse<GridWarehouseCoordinateSystem, Point> warehouse = makeWarehouse(
+                    new PhysicalGridRobotAdapterFactory());
+            WarehouseState<GridWarehouseCoordinateSystem, Point> state = warehouse.getState();
+            Robot robot = new Robot(new GridAStarRoutefinder(state.getCoordinateSystem()));
+            state.getRobotMapper().addRobotAt(robot, new Point(0, 0));
+            WaypointOrder order = new WaypointOrder(state.getLayout().getTileAt(new Point(6, 0)));
+            state.getOrderQueue().add(order);
+
+            SimulationEngine<GridWarehouseCoordinateSystem, Point> engine = new SimulationEngine<>(warehouse,
+                    timeStep, 7);
+            engine.runUntil(data -> order.getStatus() == OrderStatus.COMPLETE, 10000);
+            assertEquals(OrderStatus.COMPLETE, order.getStatus());
+            assertEquals(new Point(6, 0), state.getRobotMapper().getRobotPosition(robot));
+            times.add(engine.getSimulatedTime());
+        }
+        // The time steps differ by a factor of 6, but the travel times only by a few ticks to start and finish
+        assertEquals(times.get(0), times.get(1), 0.5);
+        assertTrue(times.get(0) > 1, "Took " + times.get(0));
+    }
+
+    private static Warehouse<GridWarehouseCoordinateSystem, Point> makeWarehouse(
+            RobotAdapterFactory<GridWarehouseCoordinateSystem, Point> robotAdapterFactory) {
+        GridWarehouseCoordinateSystem coordinateSystem = new GridWarehouseCoordinateSystem(8, 8);
+        return new Warehouse<>(new WarehouseState<>(
+                new PartCatalogue(),
+                coordinateSystem,
+                new WarehouseLayout<>(coordinateSystem),
+                new RobotMapper<>(coordinateSystem),
+                robotAdapterFactory,
+                new OrderQueue()
+        ));
+    }
+
+    /**
+     * A NavigateOrder to a single Tile, which is always ready.
+     */
+    private static class WaypointOrder extends NavigateOrder {
+        WaypointOrder(Tile waypoint) {
+            super(new ArrayList<>(List.of(waypoint)));
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+    }
+}
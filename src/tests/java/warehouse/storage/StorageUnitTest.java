@@ -31,6 +31,19 @@ public class StorageUnitTest {
         assertFalse(storageUnit.addItem(item1));
     }
 
+    /**
+     * Test that the single-type strategy accepts different Items of the same Part.
+     */
+    @Test
+    void addItemSamePartTest() {
+        StorageUnit storageUnit = new StorageUnit(3, new SingleTypeStorageStrategy(),
+                new InMemoryStorageUnitContainer());
+        Part cucumber = new Part("Cucumber", "A vegetable");
+        assertTrue(storageUnit.addItem(new Item(cucumber)));
+        assertTrue(storageUnit.addItem(new Item(new Part(cucumber))));
+        assertFalse(storageUnit.addItem(new Item(new Part("Banana", "A fruit"))));
+    }
+
     /**
      * Test for single-type storage unit strategy.
      */
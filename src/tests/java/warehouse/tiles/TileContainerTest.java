@@ -0,0 +1,114 @@
+package warehouse.tiles;
+
+import org.junit.jupiter.api.Test;
+import warehouse.WarehouseLayout;
+import warehouse.geometry.grid.GridWarehouseCoordinateSystem;
+import warehouse.geometry.grid.Point;
+import warehouse.tiles.containers.ChunkedTileContainer;
+import warehouse.tiles.containers.CompactTileContainer;
+import warehouse.tiles.containers.InMemoryTileContainer;
+import warehouse.tiles.factory.TileType;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test the TileContainer implementations.
+ */
+public class TileContainerTest {
+    /**
+     * Test that a CompactTileContainer only keeps objects for non-empty tiles, and returns equal EmptyTiles.
+     */
+    @Test
+    public void testCompactTileContainer() {
+        CompactTileContainer container = new CompactTileContainer(4);
+        assertEquals(new EmptyTile(2), container.get(2));
+        assertEquals(EmptyTile.class, container.getTileClass(2));
+
+        Rack rack = new Rack(1);
+        assertEquals(new EmptyTile(1), container.set(1, rack));
+        assertSame(rack, container.get(1));
+        assertEquals(TileType.RACK, container.getTileType(1));
+        assertEquals(1, container.getOccupiedCount());
+
+        // Subclasses of the TileType classes are kept as they are
+        Rack customRack = new Rack(3) {
+        };
+        container.set(3, customRack);
+        assertSame(customRack, container.get(3));
+        assertNull(container.getTileType(3));
+        assertEquals(customRack.getClass(), container.getTileClass(3));
+
+        // Setting an EmptyTile frees the Tile object
+        assertSame(rack, container.set(1, new EmptyTile(1)));
+        assertEquals(new EmptyTile(1), container.get(1));
+        assertEquals(1, container.getOccupiedCount());
+    }
+
+    /**
+     * Test that a ChunkedTileContainer allocates chunks on demand, and frees them once they are empty again.
+     */
+    @Test
+    public void testChunkedTileContainer() {
+        GridWarehouseCoordinateSystem coordinateSystem = new GridWarehouseCoordinateSystem(10, 7);
+        ChunkedTileContainer container = new ChunkedTileContainer(coordinateSystem, 4);
+        assertEquals(70, container.getSize());
+        assertEquals(0, container.getPopulatedChunkCount());
+        assertEquals(new EmptyTile(69), container.get(69));
+        // Setting an EmptyTile does not allocate a chunk
+        container.set(0, new EmptyTile(0));
+        assertEquals(0, container.getPopulatedChunkCount());
+
+        // (9, 6) is in the partial chunk at the bottom right corner
+        Rack corner = new Rack(69);
+        Rack middle = new Rack(15);
+        container.set(69, corner);
+        container.set(15, middle);
+        assertSame(corner, container.get(69));
+        assertSame(middle, container.get(15));
+        assertEquals(new EmptyTile(68), container.get(68));
+        List<ChunkedTileContainer.Chunk> chunks = container.getPopulatedChunks();
+        assertEquals(2, chunks.size());
+        assertEquals(4, chunks.get(0).getMinX());
+        assertEquals(8, chunks.get(1).getMinX());
+        assertEquals(10, chunks.get(1).getMaxX());
+        assertEquals(7, chunks.get(1).getMaxY());
+        assertEquals(List.of(15, 69), container.streamOccupiedIndices().boxed().collect(Collectors.toList()));
+
+        assertSame(corner, container.set(69, new EmptyTile(69)));
+        assertEquals(1, container.getPopulatedChunkCount());
+        assertThrows(IllegalArgumentException.class, () -> new ChunkedTileContainer(coordinateSystem, 0));
+    }
+
+    /**
+     * Test that a WarehouseLayout behaves the same with every container.
+     */
+    @Test
+    public void testLayoutContainers() {
+        GridWarehouseCoordinateSystem coordinateSystem = new GridWarehouseCoordinateSystem(5, 5);
+        WarehouseLayout<Point> inMemory = new WarehouseLayout<>(coordinateSystem,
+                new InMemoryTileContainer(coordinateSystem.getSize()));
+        WarehouseLayout<Point> compact = new WarehouseLayout<>(coordinateSystem,
+                new CompactTileContainer(coordinateSystem.getSize()));
+        WarehouseLayout<Point> chunked = new WarehouseLayout<>(coordinateSystem,
+                new ChunkedTileContainer(coordinateSystem, 2));
+        for (WarehouseLayout<Point> layout : List.of(inMemory, compact, chunked)) {
+            Rack rack = new Rack();
+            layout.setTileAt(new Point(1, 2), rack);
+            layout.setTileAt(new Point(3, 3), new ShipDepot());
+            assertSame(rack, layout.getTileAt(new Point(1, 2)));
+            assertEquals(11, rack.getIndex());
+            assertTrue(layout.isEmpty(layout.getTileAt(new Point(0, 0))));
+            assertEquals(23, layout.countTilesOfType(EmptyTile.class));
+            assertEquals(List.of(rack), layout.findTilesOfType(Rack.class));
+            assertEquals(2, layout.countTilesOfType(StorageTile.class));
+            assertEquals(25, layout.getTiles().size());
+        }
+        // Empty tiles are equal in both layouts
+        assertEquals(inMemory.getTileAt(new Point(4, 4)), compact.getTileAt(new Point(4, 4)));
+        assertThrows(IllegalArgumentException.class,
+                () -> new WarehouseLayout<>(coordinateSystem, new CompactTileContainer(4)));
+    }
+}